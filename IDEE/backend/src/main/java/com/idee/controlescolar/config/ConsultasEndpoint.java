@@ -0,0 +1,91 @@
+package com.idee.controlescolar.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GET /actuator/consultas?orden=total|conteo&limite=20
+ *
+ * - jdbc: las sentencias SQL más costosas medidas en el proxy JDBC, con la forma de sus
+ *   parámetros (EstadisticasConsultas).
+ * - hibernate: las mismas cifras por consulta JPQL/HQL (métodos derivados y @Query de
+ *   los repositorios), si hibernate.generate_statistics está activo (JPA_ESTADISTICAS).
+ *
+ * DELETE /actuator/consultas reinicia ambos contadores (p. ej. antes de una prueba).
+ */
+@Endpoint(id = "consultas")
+public class ConsultasEndpoint {
+
+    private static final int LIMITE_POR_DEFECTO = 20;
+
+    private final EstadisticasConsultas estadisticasConsultas;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public ConsultasEndpoint(EstadisticasConsultas estadisticasConsultas, EntityManagerFactory entityManagerFactory) {
+        this.estadisticasConsultas = estadisticasConsultas;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @ReadOperation
+    public Map<String, Object> consultas(@Nullable String orden, @Nullable Integer limite) {
+        String criterio = "conteo".equals(orden) ? "conteo" : "total";
+        int n = limite == null || limite <= 0 ? LIMITE_POR_DEFECTO : limite;
+
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("orden", criterio);
+        respuesta.put("jdbc", estadisticasConsultas.top(criterio, n));
+
+        Statistics estadisticas = estadisticasHibernate();
+        if (estadisticas.isStatisticsEnabled()) {
+            Map<String, Object> hibernate = new LinkedHashMap<>();
+            hibernate.put("sentenciasPreparadas", estadisticas.getPrepareStatementCount());
+            hibernate.put("consultaMasLenta", estadisticas.getQueryExecutionMaxTimeQueryString());
+            hibernate.put("consultaMasLentaMs", estadisticas.getQueryExecutionMaxTime());
+            hibernate.put("consultas", topHibernate(estadisticas, criterio, n));
+            respuesta.put("hibernate", hibernate);
+        } else {
+            respuesta.put("hibernate", "estadísticas desactivadas (JPA_ESTADISTICAS=false)");
+        }
+        return respuesta;
+    }
+
+    @DeleteOperation
+    public void reiniciar() {
+        estadisticasConsultas.reiniciar();
+        estadisticasHibernate().clear();
+    }
+
+    private List<ConsultaHibernate> topHibernate(Statistics estadisticas, String criterio, int limite) {
+        List<ConsultaHibernate> consultas = new ArrayList<>();
+        for (String consulta : estadisticas.getQueries()) {
+            QueryStatistics q = estadisticas.getQueryStatistics(consulta);
+            consultas.add(new ConsultaHibernate(consulta, q.getExecutionCount(), q.getExecutionTotalTime(),
+                    q.getExecutionAvgTimeAsDouble(), q.getExecutionMaxTime(), q.getExecutionRowCount()));
+        }
+        Comparator<ConsultaHibernate> comparador = "conteo".equals(criterio)
+                ? Comparator.comparingLong(ConsultaHibernate::ejecuciones)
+                : Comparator.comparingLong(ConsultaHibernate::totalMs);
+        consultas.sort(comparador.reversed());
+        return consultas.subList(0, Math.min(limite, consultas.size()));
+    }
+
+    private Statistics estadisticasHibernate() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public record ConsultaHibernate(String consulta, long ejecuciones, long totalMs, double promedioMs,
+                                    long maxMs, long filas) {
+    }
+}
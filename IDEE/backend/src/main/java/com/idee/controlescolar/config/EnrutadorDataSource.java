@@ -0,0 +1,177 @@
+package com.idee.controlescolar.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource que envía las transacciones de solo lectura a las réplicas y todo lo
+ * demás al primario.
+ *
+ * La decisión se toma al pedir la conexión física, con la marca readOnly de la
+ * transacción en curso; por eso debe envolverse en un LazyConnectionDataSourceProxy,
+ * que retrasa la conexión hasta la primera sentencia (cuando la marca ya existe).
+ *
+ * Las réplicas se reparten por turnos entre las disponibles. verificarReplicas()
+ * mide el retraso de cada una contra la posición actual del primario: si pasa del
+ * máximo o no responde se deja de usar hasta la siguiente verificación correcta. Sin réplicas disponibles las lecturas
+ * van al primario.
+ */
+@Slf4j
+public class EnrutadorDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARIA = "primaria";
+
+    /**
+     * Posición actual del WAL del primario. Se lee antes de consultar las réplicas.
+     */
+    public static final String CONSULTA_POSICION_POSTGRES = "SELECT pg_current_wal_lsn()::text";
+
+    /**
+     * Segundos que la réplica va atrás del primario; recibe la posición que devolvió
+     * CONSULTA_POSICION_POSTGRES. Es 0 si la réplica ya reprodujo hasta esa posición
+     * (un primario sin escrituras no cuenta como retraso) o si no es réplica. Si no ha
+     * llegado, el retraso corre desde la última transacción reproducida, aunque su
+     * receptor de WAL esté detenido o desconectado y ya no reciba nada.
+     */
+    public static final String CONSULTA_RETRASO_POSTGRES =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() " +
+            "OR pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn) THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())::float8, " +
+            "'Infinity'::float8) END";
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final DataSource primaria;
+    private final String consultaPosicion;
+    private final String consultaRetraso;
+    private final double retrasoMaximoSegundos;
+    private final AtomicInteger turno = new AtomicInteger();
+
+    /**
+     * @param consultaPosicion Se ejecuta en el primario; su resultado es el parámetro de
+     *                         consultaRetraso. Null si consultaRetraso no lleva parámetro
+     * @param consultaRetraso Se ejecuta en cada réplica y devuelve sus segundos de retraso
+     */
+    public EnrutadorDataSource(DataSource primaria, Map<String, DataSource> replicas, String consultaPosicion,
+                               String consultaRetraso, double retrasoMaximoSegundos) {
+        this.primaria = primaria;
+        this.consultaPosicion = consultaPosicion;
+        this.consultaRetraso = consultaRetraso;
+        this.retrasoMaximoSegundos = retrasoMaximoSegundos;
+
+        Map<Object, Object> destinos = new HashMap<>(replicas);
+        destinos.put(PRIMARIA, primaria);
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primaria);
+        replicas.forEach((nombre, dataSource) -> this.replicas.add(new Replica(nombre, dataSource)));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARIA;
+        }
+        List<Replica> disponibles = replicas.stream().filter(r -> r.disponible).toList();
+        if (disponibles.isEmpty()) {
+            return PRIMARIA;
+        }
+        return disponibles.get(Math.floorMod(turno.getAndIncrement(), disponibles.size())).nombre;
+    }
+
+    /**
+     * Mide el retraso de cada réplica y actualiza cuáles pueden recibir lecturas.
+     * Se ejecuta al crear el bean y después cada replicas.intervalo-verificacion-ms.
+     */
+    @Scheduled(fixedDelayString = "${replicas.intervalo-verificacion-ms:5000}",
+               initialDelayString = "${replicas.intervalo-verificacion-ms:5000}")
+    public void verificarReplicas() {
+        String posicion = null;
+        if (consultaPosicion != null) {
+            try {
+                posicion = leerPosicionPrimario();
+            } catch (SQLException e) {
+                // Sin la posición del primario no se sabe si la réplica está al día
+                log.warn("No se pudo leer la posición del primario: las lecturas van al primario ({})",
+                        e.getMessage());
+                replicas.forEach(r -> r.disponible = false);
+                return;
+            }
+        }
+        for (Replica replica : replicas) {
+            boolean disponible;
+            double retraso = Double.NaN;
+            try (Connection conexion = replica.dataSource.getConnection();
+                 PreparedStatement sentencia = conexion.prepareStatement(consultaRetraso)) {
+                if (posicion != null) {
+                    sentencia.setString(1, posicion);
+                }
+                try (ResultSet resultado = sentencia.executeQuery()) {
+                    resultado.next();
+                    retraso = resultado.getDouble(1);
+                }
+                disponible = retraso <= retrasoMaximoSegundos;
+                if (!disponible && replica.disponible) {
+                    log.warn("Réplica {} con {} s de retraso (máximo {} s): las lecturas van al primario",
+                            replica.nombre, retraso, retrasoMaximoSegundos);
+                }
+            } catch (SQLException e) {
+                disponible = false;
+                if (replica.disponible) {
+                    log.warn("Réplica {} sin respuesta: las lecturas van al primario ({})",
+                            replica.nombre, e.getMessage());
+                }
+            }
+            if (disponible && !replica.disponible) {
+                log.info("Réplica {} disponible para lecturas (retraso {} s)", replica.nombre, retraso);
+            }
+            replica.disponible = disponible;
+        }
+    }
+
+    private String leerPosicionPrimario() throws SQLException {
+        try (Connection conexion = primaria.getConnection();
+             Statement sentencia = conexion.createStatement();
+             ResultSet resultado = sentencia.executeQuery(consultaPosicion)) {
+            resultado.next();
+            return resultado.getString(1);
+        }
+    }
+
+    /**
+     * Cierra los pools de las réplicas; el del primario es un bean y lo cierra Spring.
+     */
+    @Override
+    public void destroy() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable cerrable) {
+                cerrable.close();
+            }
+        }
+    }
+
+    private static class Replica {
+
+        private final String nombre;
+        private final DataSource dataSource;
+        private volatile boolean disponible;
+
+        Replica(String nombre, DataSource dataSource) {
+            this.nombre = nombre;
+            this.dataSource = dataSource;
+        }
+    }
+}
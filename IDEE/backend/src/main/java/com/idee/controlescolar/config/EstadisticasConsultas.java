@@ -0,0 +1,155 @@
+package com.idee.controlescolar.config;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Acumula por sentencia SQL (ya parametrizada por Hibernate) cuántas veces se ejecutó,
+ * el tiempo total y máximo y las "formas" de sus parámetros: los tipos en orden, nunca
+ * los valores. Las sentencias que pasan de consultas.lentas.umbral-ms se registran en
+ * WARN al terminar. Lo consulta ConsultasEndpoint (/actuator/consultas).
+ */
+@Slf4j
+public class EstadisticasConsultas implements QueryExecutionListener {
+
+    /** Listas IN (?, ?, ?) y VALUES de largo variable cuentan como una sola sentencia. */
+    private static final Pattern LISTA_PARAMETROS = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+    private static final int MAX_FORMAS = 5;
+    static final String OTRAS = "(otras sentencias)";
+
+    private final long umbralMs;
+    private final int maxSentencias;
+    private final Map<String, Acumulado> porSentencia = new ConcurrentHashMap<>();
+
+    public EstadisticasConsultas(long umbralMs, int maxSentencias) {
+        this.umbralMs = umbralMs;
+        this.maxSentencias = maxSentencias;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long ms = execInfo.getElapsedTime();
+        int lote = execInfo.isBatch() ? Math.max(execInfo.getBatchSize(), 1) : 1;
+        for (QueryInfo consulta : queryInfoList) {
+            String sentencia = normalizar(consulta.getQuery());
+            String forma = forma(consulta);
+            acumulado(sentencia).registrar(ms, lote, forma, execInfo.isSuccess());
+            if (ms >= umbralMs) {
+                log.warn("Consulta lenta: {} ms, lote {}, parámetros {}: {}", ms, lote, forma, sentencia);
+            }
+        }
+    }
+
+    /**
+     * Las sentencias con mayor tiempo total (orden "total") o más ejecuciones ("conteo").
+     */
+    public List<Resumen> top(String orden, int limite) {
+        Comparator<Resumen> comparador = "conteo".equals(orden)
+                ? Comparator.comparingLong(Resumen::ejecuciones)
+                : Comparator.comparingLong(Resumen::totalMs);
+        List<Resumen> resumenes = new ArrayList<>();
+        porSentencia.forEach((sentencia, acumulado) -> resumenes.add(acumulado.resumir(sentencia)));
+        resumenes.sort(comparador.reversed());
+        return resumenes.subList(0, Math.min(limite, resumenes.size()));
+    }
+
+    public void reiniciar() {
+        porSentencia.clear();
+    }
+
+    private Acumulado acumulado(String sentencia) {
+        Acumulado acumulado = porSentencia.get(sentencia);
+        if (acumulado != null) {
+            return acumulado;
+        }
+        // SQL armado a mano con literales: no dejar crecer el mapa sin límite
+        String clave = porSentencia.size() >= maxSentencias ? OTRAS : sentencia;
+        return porSentencia.computeIfAbsent(clave, s -> new Acumulado());
+    }
+
+    static String normalizar(String sql) {
+        String compacta = ESPACIOS.matcher(sql.trim()).replaceAll(" ");
+        return LISTA_PARAMETROS.matcher(compacta).replaceAll("?, ...");
+    }
+
+    /**
+     * Tipos de los parámetros del primer juego (en un lote todos tienen la misma forma).
+     */
+    static String forma(QueryInfo consulta) {
+        List<List<ParameterSetOperation>> juegos = consulta.getParametersList();
+        if (juegos.isEmpty() || juegos.get(0).isEmpty()) {
+            return "()";
+        }
+        List<ParameterSetOperation> parametros = new ArrayList<>(juegos.get(0));
+        parametros.sort(Comparator.comparing(p -> p.getArgs()[0] instanceof Integer i ? i : 0));
+        StringBuilder forma = new StringBuilder("(");
+        for (ParameterSetOperation parametro : parametros) {
+            if (forma.length() > 1) {
+                forma.append(", ");
+            }
+            Object[] args = parametro.getArgs();
+            if (ParameterSetOperation.isSetNullParameterOperation(parametro) || args.length < 2 || args[1] == null) {
+                forma.append("null");
+            } else {
+                forma.append(args[1].getClass().getSimpleName());
+            }
+        }
+        return forma.append(")").toString();
+    }
+
+    private static final class Acumulado {
+        private final LongAdder ejecuciones = new LongAdder();
+        private final LongAdder sentencias = new LongAdder();
+        private final LongAdder errores = new LongAdder();
+        private final LongAdder totalMs = new LongAdder();
+        private final AtomicLong maxMs = new AtomicLong();
+        private final Set<String> formas = ConcurrentHashMap.newKeySet();
+
+        void registrar(long ms, int lote, String forma, boolean exito) {
+            ejecuciones.increment();
+            sentencias.add(lote);
+            totalMs.add(ms);
+            maxMs.accumulateAndGet(ms, Math::max);
+            if (!exito) {
+                errores.increment();
+            }
+            if (formas.size() < MAX_FORMAS) {
+                formas.add(forma);
+            }
+        }
+
+        Resumen resumir(String sentencia) {
+            long n = ejecuciones.sum();
+            long total = totalMs.sum();
+            return new Resumen(sentencia, n, sentencias.sum(), errores.sum(), total,
+                    n == 0 ? 0 : (double) total / n, maxMs.get(), List.copyOf(formas));
+        }
+    }
+
+    /**
+     * @param ejecuciones llamadas a execute/executeBatch
+     * @param sentencias  filas enviadas (mayor que ejecuciones en lotes JDBC)
+     * @param formas      tipos de los parámetros observados, hasta cinco variantes
+     */
+    public record Resumen(String sql, long ejecuciones, long sentencias, long errores, long totalMs,
+                          double promedioMs, long maxMs, List<String> formas) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.idee.controlescolar.config;
+
+import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de Jackson para entidades JPA.
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Con open-in-view desactivado, las colecciones y proxies LAZY que no se cargaron
+     * dentro de la transacción se serializan como null en lugar de lanzar
+     * LazyInitializationException o de abrir consultas durante la serialización.
+     * Se respetan los getters @Transient (p. ej. getNombreCompleto) en el JSON.
+     * Las referencias LAZY no incluidas en el grafo de la consulta se escriben como
+     * {"id": n}: el id ya está en el proxy y el cliente conserva la referencia.
+     */
+    @Bean
+    public Hibernate6Module hibernate6Module() {
+        Hibernate6Module modulo = new Hibernate6Module();
+        modulo.disable(Hibernate6Module.Feature.USE_TRANSIENT_ANNOTATION);
+        modulo.enable(Hibernate6Module.Feature.SERIALIZE_IDENTIFIER_FOR_LAZY_NOT_LOADED_OBJECTS);
+        return modulo;
+    }
+}
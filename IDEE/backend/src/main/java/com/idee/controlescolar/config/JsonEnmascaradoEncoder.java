@@ -0,0 +1,42 @@
+package com.idee.controlescolar.config;
+
+import net.logstash.logback.encoder.LogstashEncoder;
+import net.logstash.logback.mask.MaskingJsonGeneratorDecorator;
+import net.logstash.logback.mask.MaskingJsonGeneratorDecorator.ValueMask;
+
+/**
+ * Encoder JSON del perfil prod (logback-spring.xml), compartido por consola y archivo.
+ * Reemplaza antes de escribirlos los valores que no deben llegar a los logs o que los
+ * inflarían; las máscaras se definen solo aquí para que ambos destinos apliquen las mismas.
+ */
+public class JsonEnmascaradoEncoder extends LogstashEncoder {
+
+    private final MaskingJsonGeneratorDecorator mascaras = new MaskingJsonGeneratorDecorator();
+
+    public JsonEnmascaradoEncoder() {
+        setIncludeCallerData(false);
+
+        // Cadena original del título: ||version|folio|...||
+        mascaras.addValueMask(new ValueMask("\\|\\|[^|\\r\\n][^\\r\\n]{40,}?\\|\\|", "[cadena original omitida]"));
+        // XML del título
+        mascaras.addValueMask(new ValueMask("<\\?xml[\\s\\S]*", "[xml omitido]"));
+        // Sellos, certificados, llaves y LOB en Base64
+        mascaras.addValueMask(new ValueMask("[A-Za-z0-9+/]{200,}={0,2}", "[base64 omitido]"));
+        setJsonGeneratorDecorator(mascaras);
+    }
+
+    /**
+     * El formatter no arranca el decorador; configurado desde XML lo arrancaba logback.
+     */
+    @Override
+    public void start() {
+        mascaras.start();
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        mascaras.stop();
+    }
+}
@@ -0,0 +1,49 @@
+package com.idee.controlescolar.config;
+
+import com.idee.controlescolar.service.MetricasNegocio;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Registra los bytes de archivos de cada petición multipart (archivos.subidos) en un
+ * solo lugar en vez de en cada controlador que recibe MultipartFile.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class MetricasConfig implements WebMvcConfigurer {
+
+    private final MetricasNegocio metricas;
+
+    @Override
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(@NonNull HttpServletRequest request,
+                                     @NonNull HttpServletResponse response,
+                                     @NonNull Object handler) {
+                if (request instanceof MultipartHttpServletRequest multipart) {
+                    long bytes = 0;
+                    for (List<MultipartFile> archivos : multipart.getMultiFileMap().values()) {
+                        for (MultipartFile archivo : archivos) {
+                            bytes += archivo.getSize();
+                        }
+                    }
+                    Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                    metricas.archivosSubidos(patron == null ? "UNKNOWN" : patron.toString(), bytes);
+                }
+                return true;
+            }
+        });
+    }
+}
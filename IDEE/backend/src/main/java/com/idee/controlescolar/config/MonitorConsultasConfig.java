@@ -0,0 +1,65 @@
+package com.idee.controlescolar.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import net.ttddyy.dsproxy.listener.logging.SLF4JLogLevel;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detector de consultas lentas. Envuelve el DataSource de la aplicación (el pool único
+ * o el proxy de réplicas de ReplicasConfig) con datasource-proxy, que mide cada sentencia:
+ * - al terminar, EstadisticasConsultas la acumula y la registra en WARN si pasó de
+ *   consultas.lentas.umbral-ms;
+ * - mientras sigue corriendo, se registra al pasar de consultas.lentas.en-curso-ms
+ *   (útil cuando la consulta nunca termina o la petición hace timeout antes).
+ *
+ * Se desactiva con consultas.monitor.habilitado=false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "consultas.monitor.habilitado", havingValue = "true", matchIfMissing = true)
+public class MonitorConsultasConfig {
+
+    @Bean
+    public EstadisticasConsultas estadisticasConsultas(
+            @Value("${consultas.lentas.umbral-ms:300}") long umbralMs,
+            @Value("${consultas.monitor.max-sentencias:500}") int maxSentencias) {
+        return new EstadisticasConsultas(umbralMs, maxSentencias);
+    }
+
+    @Bean
+    public static BeanPostProcessor proxyConsultasDataSource(
+            ObjectProvider<EstadisticasConsultas> estadisticas, Environment entorno) {
+        // Bean estático (se crea antes que los demás): lee propiedades del Environment
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                // Solo el DataSource que usan JPA y JdbcTemplate, no los pools internos
+                if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                long enCursoMs = entorno.getProperty("consultas.lentas.en-curso-ms", Long.class, 2000L);
+                return ProxyDataSourceBuilder.create("idee", dataSource)
+                        .listener(estadisticas.getObject())
+                        .logSlowQueryBySlf4j(enCursoMs, TimeUnit.MILLISECONDS, SLF4JLogLevel.WARN,
+                                EstadisticasConsultas.class.getName())
+                        .build();
+            }
+        };
+    }
+
+    @Bean
+    public ConsultasEndpoint consultasEndpoint(EstadisticasConsultas estadisticasConsultas,
+                                               EntityManagerFactory entityManagerFactory) {
+        return new ConsultasEndpoint(estadisticasConsultas, entityManagerFactory);
+    }
+}
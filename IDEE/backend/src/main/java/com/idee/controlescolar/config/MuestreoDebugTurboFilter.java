@@ -0,0 +1,36 @@
+package com.idee.controlescolar.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Filtro de logback que deja pasar los DEBUG de la aplicación solo en las peticiones
+ * elegidas por muestreo (MuestreoLogFilter pone "depurar" en el MDC). Así en producción
+ * el nivel se queda en INFO y una fracción de las peticiones trae su traza completa.
+ *
+ * Se evalúa antes del nivel del logger y en cada llamada a log, por eso solo compara
+ * el nivel y lee el MDC.
+ */
+public class MuestreoDebugTurboFilter extends TurboFilter {
+
+    private String prefijo = "com.idee.controlescolar";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level != Level.DEBUG || MDC.get(MuestreoLogFilter.MDC_DEPURAR) == null) {
+            return FilterReply.NEUTRAL;
+        }
+        return logger.getName().startsWith(prefijo) ? FilterReply.ACCEPT : FilterReply.NEUTRAL;
+    }
+
+    /**
+     * Paquete cuyos DEBUG se habilitan en las peticiones muestreadas (logback-spring.xml).
+     */
+    public void setPrefijo(String prefijo) {
+        this.prefijo = prefijo;
+    }
+}
@@ -0,0 +1,51 @@
+package com.idee.controlescolar.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Pone en el MDC un identificador por petición ("peticion", sale en cada línea de log
+ * JSON) y, para la fracción logging.muestreo-debug.tasa de las peticiones, la marca
+ * "depurar" que MuestreoDebugTurboFilter usa para dejar pasar sus DEBUG.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MuestreoLogFilter extends OncePerRequestFilter {
+
+    public static final String MDC_PETICION = "peticion";
+    public static final String MDC_DEPURAR = "depurar";
+
+    @Value("${logging.muestreo-debug.tasa:0}")
+    private double tasa;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        MDC.put(MDC_PETICION, Long.toHexString(aleatorio.nextLong()));
+        if (tasa > 0 && aleatorio.nextDouble() < tasa) {
+            MDC.put(MDC_DEPURAR, "true");
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_PETICION);
+            MDC.remove(MDC_DEPURAR);
+        }
+    }
+}
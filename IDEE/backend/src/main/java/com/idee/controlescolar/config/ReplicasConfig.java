@@ -0,0 +1,120 @@
+package com.idee.controlescolar.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Réplicas de lectura. Solo se activa si replicas.urls tiene al menos una URL; sin
+ * ella Spring Boot crea el DataSource único de siempre.
+ *
+ * El DataSource de la aplicación queda como LazyConnectionDataSourceProxy sobre un
+ * EnrutadorDataSource: las transacciones readOnly (servicios de consulta, métodos de
+ * lectura de los repositorios, reportes) van a las réplicas y las escrituras al primario.
+ * Flyway migra directamente sobre el primario.
+ */
+@Configuration
+@ConditionalOnExpression("!'${replicas.urls:}'.isBlank()")
+public class ReplicasConfig {
+
+    @Value("${replicas.urls}")
+    private String urls;
+
+    @Value("${replicas.username:${spring.datasource.username:}}")
+    private String usuario;
+
+    @Value("${replicas.password:${spring.datasource.password:}}")
+    private String password;
+
+    @Value("${replicas.pool-size:10}")
+    private int tamanioPool;
+
+    @Value("${replicas.retraso-maximo-segundos:10}")
+    private double retrasoMaximoSegundos;
+
+    /** Vacío: la de PostgreSQL (EnrutadorDataSource.CONSULTA_RETRASO_POSTGRES). */
+    @Value("${replicas.consulta-retraso:}")
+    private String consultaRetraso;
+
+    /** Solo con replicas.consulta-retraso; vacío si esa consulta no lleva parámetro. */
+    @Value("${replicas.consulta-posicion-primario:}")
+    private String consultaPosicion;
+
+    /**
+     * Pool del primario con las mismas propiedades spring.datasource.* de siempre.
+     */
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties propiedades) {
+        return propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public EnrutadorDataSource enrutadorDataSource(HikariDataSource dataSourcePrimario,
+                                                   DataSourceProperties propiedades,
+                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String nombre = "idee-replica-" + (replicas.size() + 1);
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(propiedades.determineDriverClassName())
+                    .url(url.trim())
+                    .username(usuario)
+                    .password(password)
+                    .build();
+            replica.setPoolName(nombre);
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(tamanioPool);
+            replica.setMinimumIdle(tamanioPool);
+            replica.setAutoCommit(dataSourcePrimario.isAutoCommit());
+            replica.setConnectionTimeout(dataSourcePrimario.getConnectionTimeout());
+            replica.setMaxLifetime(dataSourcePrimario.getMaxLifetime());
+            replica.setKeepaliveTime(dataSourcePrimario.getKeepaliveTime());
+            meterRegistry.ifAvailable(replica::setMetricRegistry);
+            replicas.put(nombre, replica);
+        }
+
+        boolean postgres = consultaRetraso.isBlank();
+        EnrutadorDataSource enrutador = new EnrutadorDataSource(dataSourcePrimario, replicas,
+                postgres ? EnrutadorDataSource.CONSULTA_POSICION_POSTGRES
+                        : consultaPosicion.isBlank() ? null : consultaPosicion,
+                postgres ? EnrutadorDataSource.CONSULTA_RETRASO_POSTGRES : consultaRetraso,
+                retrasoMaximoSegundos);
+        enrutador.verificarReplicas();
+        return enrutador;
+    }
+
+    /**
+     * DataSource de la aplicación. El proxy no pide la conexión física hasta la primera
+     * sentencia, cuando la transacción ya marcó si es readOnly. Los valores por defecto
+     * se fijan para que no abra una conexión al arrancar solo para leerlos.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(EnrutadorDataSource enrutadorDataSource, HikariDataSource dataSourcePrimario) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(enrutadorDataSource);
+        proxy.setDefaultAutoCommit(dataSourcePrimario.isAutoCommit());
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+}
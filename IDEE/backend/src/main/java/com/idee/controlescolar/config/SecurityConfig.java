@@ -2,6 +2,7 @@ package com.idee.controlescolar.config;
 
 import com.idee.controlescolar.security.JwtAuthenticationFilter;
 import com.idee.controlescolar.service.UsuarioService;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -54,6 +55,11 @@ public class SecurityConfig {
                 .requestMatchers("/api/auth/login").permitAll()
                 .requestMatchers("/api/auth/init-usuarios").permitAll()
                 .requestMatchers("/error").permitAll()
+                // Despacho que cierra una respuesta asíncrona (p. ej. el ZIP de export.zip): la
+                // petición original ya se autorizó y con sesión STATELESS aquí no hay JWT
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                // Scrape de Prometheus sin JWT: restringir /actuator a la red interna en el proxy
+                .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                 .anyRequest().authenticated()
             );
 
@@ -77,8 +83,11 @@ public class SecurityConfig {
             "Content-Type",
             "Authorization",
             "X-Requested-With",
-            "Accept"
+            "Accept",
+            "If-None-Match"
         ));
+        // Permite a las páginas leer el ETag para sus GET condicionales
+        configuration.setExposedHeaders(Arrays.asList("ETag"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
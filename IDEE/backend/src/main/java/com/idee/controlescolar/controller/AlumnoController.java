@@ -6,14 +6,19 @@ import com.idee.controlescolar.repository.AlumnoRepository;
 import com.idee.controlescolar.repository.ProgramaEducativoRepository;
 import com.idee.controlescolar.service.EmailService;
 import com.idee.controlescolar.service.FileStorageService;
+import com.idee.controlescolar.service.VariantesFotoService;
 import com.idee.controlescolar.repository.TituloElectronicoRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -40,9 +45,11 @@ public class AlumnoController {
     private final AlumnoRepository alumnoRepository;
     private final ProgramaEducativoRepository programaRepository;
     private final FileStorageService fileStorageService;
+    private final VariantesFotoService variantesFotoService;
     private final EmailService emailService;
     private final ObjectMapper objectMapper;
     private final TituloElectronicoRepository tituloRepository;
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * Obtener todos los alumnos
@@ -119,8 +126,7 @@ public class AlumnoController {
                         .ifPresent(alumno::setPrograma);
             }
 
-            Alumno guardado = alumnoRepository.save(alumno);
-            enviarCorreoInscripcion(guardado);
+            Alumno guardado = guardarConCorreoInscripcion(alumno);
             log.info("Alumno creado: {} - {}", guardado.getMatricula(), guardado.getNombreCompleto());
             return ResponseEntity.ok(guardado);
 
@@ -171,9 +177,8 @@ public class AlumnoController {
                 // No lanzar error si falla el procesamiento de archivos, solo advertir
             }
             
-            Alumno actualizado = alumnoRepository.save(guardado);
+            Alumno actualizado = guardarConCorreoInscripcion(guardado);
 
-            enviarCorreoInscripcion(actualizado);
             log.info("Alumno creado: {} - {}", actualizado.getMatricula(), actualizado.getNombreCompleto());
             return ResponseEntity.ok(actualizado);
 
@@ -247,7 +252,7 @@ public class AlumnoController {
             @RequestPart(value = "documentos", required = false) List<MultipartFile> documentos,
             @RequestPart(value = "documentosTipos", required = false) List<String> documentosTipos) {
         try {
-            Optional<Alumno> existenteOpt = alumnoRepository.findById(id);
+            Optional<Alumno> existenteOpt = alumnoRepository.findConDocumentosById(id);
             if (!existenteOpt.isPresent()) {
                 return ResponseEntity.notFound().build();
             }
@@ -359,10 +364,14 @@ public class AlumnoController {
     }
 
     /**
-     * Obtener la foto del alumno
+     * Obtener la foto del alumno: size=thumb (miniatura de listados y credenciales),
+     * size=web o la original (sin size). Las variantes se generan al subir la foto.
      */
     @GetMapping("/{id}/foto")
-    public ResponseEntity<?> obtenerFoto(@PathVariable Long id) {
+    public ResponseEntity<?> obtenerFoto(@PathVariable Long id,
+                                         @RequestParam(required = false) String size,
+                                         WebRequest request) {
+        Optional<VariantesFotoService.Tamano> tamano = VariantesFotoService.Tamano.desde(size);
         Optional<Alumno> alumnoOpt = alumnoRepository.findById(id);
         if (!alumnoOpt.isPresent()) {
             return ResponseEntity.notFound().build();
@@ -373,13 +382,22 @@ public class AlumnoController {
             if (alumno.getFotoUrl() == null || alumno.getFotoUrl().isBlank()) {
                 return ResponseEntity.notFound().build();
             }
-            Path path = Paths.get(alumno.getFotoUrl());
-            if (!Files.exists(path)) {
+            Path original = Paths.get(alumno.getFotoUrl());
+            if (!Files.exists(original)) {
                 return ResponseEntity.notFound().build();
             }
+            Path path = tamano.flatMap(t -> variantesFotoService.obtener(original, t)).orElse(original);
+
+            String etag = variantesFotoService.etag(path);
+            CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+            }
             Resource resource = new UrlResource(path.toUri());
             String contentType = Files.probeContentType(path);
             return ResponseEntity.ok()
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
                     .contentType(contentType != null ? org.springframework.http.MediaType.parseMediaType(contentType)
                             : org.springframework.http.MediaType.APPLICATION_OCTET_STREAM)
                     .body(resource);
@@ -401,8 +419,9 @@ public class AlumnoController {
                                         List<MultipartFile> documentos,
                                         List<String> documentosTipos) throws Exception {
         if (foto != null && !foto.isEmpty()) {
-            String fotoUrl = fileStorageService.storeAlumnoFile(alumno.getId(), foto, "foto");
-            alumno.setFotoUrl(fotoUrl);
+            Path fotoGuardada = fileStorageService.guardar(foto).ruta();
+            alumno.setFotoUrl(fotoGuardada.toString());
+            variantesFotoService.programar(fotoGuardada);
         }
 
         if (documentos == null || documentos.isEmpty()) {
@@ -425,7 +444,7 @@ public class AlumnoController {
                 }
             }
 
-            String archivoUrl = fileStorageService.storeAlumnoFile(alumno.getId(), archivo, tipoDocumento.name().toLowerCase());
+            String archivoUrl = fileStorageService.guardar(archivo).ruta().toString();
             DocumentoAlumno.TipoDocumento tipoFinal = tipoDocumento;
             DocumentoAlumno documento = alumno.getDocumentos().stream()
                     .filter(item -> item.getTipoDocumento() == tipoFinal)
@@ -444,12 +463,16 @@ public class AlumnoController {
         }
     }
 
-    private void enviarCorreoInscripcion(Alumno alumno) {
-        try {
-            emailService.enviarCorreoInscripcion(alumno.getCorreoPersonal(), alumno.getNombreCompleto());
-        } catch (Exception e) {
-            log.warn("No se pudo enviar correo de inscripcion: {}", e.getMessage());
-        }
+    /**
+     * Guarda el alumno y encola su correo de inscripción en la misma transacción;
+     * el envío SMTP ocurre después, fuera de la petición.
+     */
+    private Alumno guardarConCorreoInscripcion(Alumno alumno) {
+        return transactionTemplate.execute(estado -> {
+            Alumno guardado = alumnoRepository.save(alumno);
+            emailService.encolarCorreoInscripcion(guardado.getCorreoPersonal(), guardado.getNombreCompleto());
+            return guardado;
+        });
     }
 
     private Alumno parseAlumnoPart(String alumnoJson) {
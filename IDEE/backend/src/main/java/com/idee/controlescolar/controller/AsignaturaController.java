@@ -4,10 +4,13 @@ import com.idee.controlescolar.model.Asignatura;
 import com.idee.controlescolar.model.ProgramaEducativo;
 import com.idee.controlescolar.repository.AsignaturaRepository;
 import com.idee.controlescolar.repository.ProgramaEducativoRepository;
+import com.idee.controlescolar.service.CatalogoCacheService;
+import com.idee.controlescolar.service.CatalogoVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -26,15 +29,22 @@ public class AsignaturaController {
     @Autowired
     private ProgramaEducativoRepository programaEducativoRepository;
 
+    @Autowired
+    private CatalogoCacheService catalogoCacheService;
+
+    @Autowired
+    private CatalogoVersionService catalogoVersionService;
+
     /**
      * Obtener asignaturas (opcionalmente filtradas por programa)
      */
     @GetMapping
-    public ResponseEntity<List<Asignatura>> obtener(@RequestParam(required = false) Long programaId) {
-        if (programaId != null) {
-            return ResponseEntity.ok(asignaturaRepository.findByProgramaId(programaId));
-        }
-        return ResponseEntity.ok(asignaturaRepository.findAll());
+    public ResponseEntity<List<Asignatura>> obtener(@RequestParam(required = false) Long programaId,
+                                                    WebRequest request) {
+        return catalogoVersionService.responder(Asignatura.class, programaId,
+                etag -> RespuestaCondicional.conEtag(request, etag, () -> programaId != null
+                        ? asignaturaRepository.findListadoPorPrograma(programaId)
+                        : asignaturaRepository.findListado()));
     }
 
     /**
@@ -69,6 +79,7 @@ public class AsignaturaController {
 
             asignatura.setPrograma(programa);
             Asignatura asignaturaGuardada = asignaturaRepository.save(asignatura);
+            catalogoCacheService.evictarAsignaturas();
             return ResponseEntity.status(HttpStatus.CREATED).body(asignaturaGuardada);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -108,6 +119,7 @@ public class AsignaturaController {
         }
 
         Asignatura asignaturaGuardada = asignaturaRepository.save(asignatura);
+        catalogoCacheService.evictarAsignaturas();
         return ResponseEntity.ok(asignaturaGuardada);
     }
 
@@ -121,6 +133,7 @@ public class AsignaturaController {
             return ResponseEntity.notFound().build();
         }
         asignaturaRepository.delete(asignaturaOpt.get());
+        catalogoCacheService.evictarAsignaturas();
         return ResponseEntity.ok().build();
     }
 }
@@ -2,6 +2,7 @@ package com.idee.controlescolar.controller;
 
 import com.idee.controlescolar.model.Calificacion;
 import com.idee.controlescolar.repository.CalificacionRepository;
+import com.idee.controlescolar.service.MetricasNegocio;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +19,7 @@ import java.util.Optional;
 public class CalificacionController {
 
     private final CalificacionRepository calificacionRepository;
+    private final MetricasNegocio metricas;
 
     @GetMapping
     public ResponseEntity<List<Calificacion>> listarTodas() {
@@ -46,6 +48,7 @@ public class CalificacionController {
         if (payload.getEstadoAprobacion() != null) existente.setEstadoAprobacion(payload.getEstadoAprobacion());
 
         Calificacion guardada = calificacionRepository.save(existente);
+        metricas.calificacionEscrita("actualizar");
         return ResponseEntity.ok(guardada);
     }
 
@@ -59,6 +62,7 @@ public class CalificacionController {
         c.setConfirmada(true);
         c.setEstadoAprobacion(Calificacion.EstadoAprobacion.CONFIRMADA);
         Calificacion guardada = calificacionRepository.save(c);
+        metricas.calificacionEscrita("confirmar");
         return ResponseEntity.ok(guardada);
     }
 }
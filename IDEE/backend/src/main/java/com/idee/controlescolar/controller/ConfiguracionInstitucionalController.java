@@ -2,7 +2,10 @@ package com.idee.controlescolar.controller;
 
 import com.idee.controlescolar.model.ConfiguracionInstitucional;
 import com.idee.controlescolar.repository.ConfiguracionInstitucionalRepository;
+import com.idee.controlescolar.service.CatalogoCacheService;
+import com.idee.controlescolar.service.FileStorageService;
 import com.idee.controlescolar.service.FirmaDigitalService;
+import com.idee.controlescolar.service.RegistroCertificados;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
@@ -11,6 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,8 +28,14 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class ConfiguracionInstitucionalController {
 
+    /** Un .cer/.key del SAT pesa 1-2 KB; no se lee nada mucho mayor. */
+    private static final int MAX_CERTIFICADO_BYTES = 64 * 1024;
+
     private final ConfiguracionInstitucionalRepository configuracionRepository;
     private final FirmaDigitalService firmaDigitalService;
+    private final CatalogoCacheService catalogoCacheService;
+    private final FileStorageService fileStorageService;
+    private final RegistroCertificados registroCertificados;
 
     @GetMapping
     @Transactional(readOnly = true)
@@ -40,6 +50,7 @@ public class ConfiguracionInstitucionalController {
             @RequestBody ConfiguracionInstitucional configuracion) {
         configuracion.setActivo(true);
         ConfiguracionInstitucional guardada = configuracionRepository.save(configuracion);
+        catalogoCacheService.evictarConfiguracion();
         return ResponseEntity.ok(guardada);
     }
 
@@ -50,7 +61,15 @@ public class ConfiguracionInstitucionalController {
         return configuracionRepository.findById(id)
                 .map(existing -> {
                     configuracion.setId(id);
-                    return ResponseEntity.ok(configuracionRepository.save(configuracion));
+                    // Los certificados se cambian en /certificados; aquí se conservan
+                    configuracion.setCertificadoFilename(existing.getCertificadoFilename());
+                    configuracion.setCertificadoSha256(existing.getCertificadoSha256());
+                    configuracion.setLlavePrivadaFilename(existing.getLlavePrivadaFilename());
+                    configuracion.setLlavePrivadaSha256(existing.getLlavePrivadaSha256());
+                    configuracion.setPasswordLlavePrivada(existing.getPasswordLlavePrivada());
+                    ConfiguracionInstitucional guardada = configuracionRepository.save(configuracion);
+                    catalogoCacheService.evictarConfiguracion();
+                    return ResponseEntity.ok(guardada);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -75,8 +94,8 @@ public class ConfiguracionInstitucionalController {
             ConfiguracionInstitucional cfg = configuracionRepository.findByActivoTrue()
                 .orElseThrow(() -> new IllegalStateException("No existe configuración activa"));
 
-            byte[] cerBytes = cer.getBytes();
-            byte[] keyBytes = key.getBytes();
+            byte[] cerBytes = leerCertificado(cer);
+            byte[] keyBytes = leerCertificado(key);
 
             log.info("Tamaño archivos: cer={} bytes, key={} bytes", cerBytes.length, keyBytes.length);
 
@@ -93,22 +112,11 @@ public class ConfiguracionInstitucionalController {
 
             log.info("Validación exitosa: certificados son par válido");
 
-            // 2) Limpiar certificados anteriores primero (para evitar problemas con LOBs)
-            cfg.setCertificadoData(null);
-            cfg.setLlavePrivadaData(null);
-            configuracionRepository.saveAndFlush(cfg);
-
-            // 3) Guardar nuevos certificados
-            cfg.setCertificadoData(cerBytes);
-            cfg.setCertificadoFilename(cer.getOriginalFilename());
-            cfg.setLlavePrivadaData(keyBytes);
-            cfg.setLlavePrivadaFilename(key.getOriginalFilename());
-
-            // Guardar password (puedes encriptarlo si lo deseas)
-            // cfg.setPasswordLlavePrivada(firmaDigitalService.encriptarPassword(password));
-            cfg.setPasswordLlavePrivada(password);
-
-            configuracionRepository.saveAndFlush(cfg);
+            // 2) Guardar nuevos certificados: bytes en configuracion_certificados, huellas en la configuración
+            cfg = registroCertificados.guardarInstitucionales(cfg, cerBytes, cer.getOriginalFilename(),
+                keyBytes, key.getOriginalFilename(), password);
+            catalogoCacheService.evictarConfiguracion();
+            registroCertificados.revisar();
 
             log.info("Certificados cargados y guardados correctamente en configuración ID: {}", cfg.getId());
 
@@ -120,6 +128,8 @@ public class ConfiguracionInstitucionalController {
                 "llavePrivadaSize", keyBytes.length,
                 "validado", true
             ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             log.error("Error al subir certificados: {}", e.getMessage(), e);
             return ResponseEntity.status(500).body(
@@ -143,8 +153,8 @@ public class ConfiguracionInstitucionalController {
         Map<String, Object> resultado = new HashMap<>();
 
         try {
-            byte[] cerBytes = cer.getBytes();
-            byte[] keyBytes = key.getBytes();
+            byte[] cerBytes = leerCertificado(cer);
+            byte[] keyBytes = leerCertificado(key);
 
             resultado.put("cerFilename", cer.getOriginalFilename());
             resultado.put("keyFilename", key.getOriginalFilename());
@@ -210,7 +220,9 @@ public class ConfiguracionInstitucionalController {
      * Endpoint de DIAGNÓSTICO para verificar certificados cargados
      * GET /api/configuracion-institucional/certificados/diagnostico
      *
-     * Devuelve si hay certificados, si son válidos, y su información.
+     * Devuelve si hay certificados, si son válidos, y su información. El certificado y
+     * la validación del par salen de RegistroCertificados: solo la primera consulta tras
+     * cargar un .cer/.key los lee y valida.
      */
     @GetMapping("/certificados/diagnostico")
     public ResponseEntity<?> diagnosticoCertificados() {
@@ -226,35 +238,28 @@ public class ConfiguracionInstitucionalController {
 
             if (!tieneCertificados) {
                 diagnostico.put("mensaje", "No hay .cer/.key cargados");
-                diagnostico.put("cerBytes", cfg.getCertificadoData() == null ? 0 : cfg.getCertificadoData().length);
-                diagnostico.put("keyBytes", cfg.getLlavePrivadaData() == null ? 0 : cfg.getLlavePrivadaData().length);
+                diagnostico.put("cerCargado", cfg.getCertificadoSha256() != null);
+                diagnostico.put("keyCargado", cfg.getLlavePrivadaSha256() != null);
                 diagnostico.put("hasPassword", cfg.getPasswordLlavePrivada() != null && !cfg.getPasswordLlavePrivada().isBlank());
                 return ResponseEntity.ok(diagnostico);
             }
 
             diagnostico.put("cerFilename", cfg.getCertificadoFilename());
             diagnostico.put("keyFilename", cfg.getLlavePrivadaFilename());
-            diagnostico.put("cerBytes", cfg.getCertificadoData().length);
-            diagnostico.put("keyBytes", cfg.getLlavePrivadaData().length);
-
-            // Check 2: ¿Son par válido y password correcto?
-            String pass = cfg.getPasswordLlavePrivada();
-            // Si guardaste encriptado: pass = firmaDigitalService.desencriptarPassword(pass);
-
-            log.info("Validando par certificado/llave desde BD...");
-            boolean parValido = firmaDigitalService.validarParCertificadoLlaveDesdeBytes(
-                cfg.getCertificadoData(),
-                cfg.getLlavePrivadaData(),
-                pass
-            );
+            diagnostico.put("cerSha256", cfg.getCertificadoSha256());
+            diagnostico.put("keySha256", cfg.getLlavePrivadaSha256());
+
+            // Check 2: ¿Son par válido y password correcto? (validado una vez por .cer/.key/password)
+            boolean parValido = registroCertificados.parValido(cfg);
 
             diagnostico.put("parValido", parValido);
             diagnostico.put("passwordCorrecto", parValido);
 
             if (parValido) {
                 // Obtener info del certificado
-                String infoCert = firmaDigitalService.obtenerInfoCertificadoDesdeBytes(cfg.getCertificadoData());
-                diagnostico.put("infoCertificado", infoCert);
+                RegistroCertificados.Certificado certificado = registroCertificados.certificadoInstitucional(cfg);
+                diagnostico.put("infoCertificado", certificado.descripcion());
+                diagnostico.put("certificado", certificado);
                 diagnostico.put("mensaje", "OK: .cer y .key son par válido y password correcto");
             } else {
                 diagnostico.put("mensaje", "ERROR: no son par válido o password incorrecto");
@@ -271,6 +276,19 @@ public class ConfiguracionInstitucionalController {
         }
     }
 
+    /**
+     * Vigencia del certificado institucional y de los responsables de firma activos según
+     * la última revisión programada; con actualizar=true revisa en ese momento.
+     * bloqueaTitulos indica si algún certificado impide generar títulos.
+     *
+     * GET /api/configuracion-institucional/certificados/monitor
+     */
+    @GetMapping("/certificados/monitor")
+    public ResponseEntity<RegistroCertificados.Monitoreo> monitorCertificados(
+            @RequestParam(defaultValue = "false") boolean actualizar) {
+        return ResponseEntity.ok(actualizar ? registroCertificados.revisar() : registroCertificados.ultimaRevision());
+    }
+
     /**
      * Endpoint LEGACY para compatibilidad (mantener si ya lo usas)
      * POST /api/configuracion-institucional/{id}/certificados
@@ -309,8 +327,8 @@ public class ConfiguracionInstitucionalController {
                                 return ResponseEntity.badRequest().body(error);
                             }
 
-                            byte[] cerBytes = certificadoFile.getBytes();
-                            byte[] keyBytes = llavePrivadaFile.getBytes();
+                            byte[] cerBytes = leerCertificado(certificadoFile);
+                            byte[] keyBytes = leerCertificado(llavePrivadaFile);
 
                             // VALIDAR par antes de guardar
                             boolean ok = firmaDigitalService.validarParCertificadoLlaveDesdeBytes(cerBytes, keyBytes, password);
@@ -321,13 +339,10 @@ public class ConfiguracionInstitucionalController {
                             }
 
                             // Guardar archivos en la base de datos
-                            config.setCertificadoData(cerBytes);
-                            config.setCertificadoFilename(cerFilename);
-                            config.setLlavePrivadaData(keyBytes);
-                            config.setLlavePrivadaFilename(keyFilename);
-                            config.setPasswordLlavePrivada(password);
-
-                            configuracionRepository.save(config);
+                            registroCertificados.guardarInstitucionales(config, cerBytes, cerFilename,
+                                    keyBytes, keyFilename, password);
+                            catalogoCacheService.evictarConfiguracion();
+                            registroCertificados.revisar();
 
                             log.info("Certificados guardados exitosamente para configuración ID: {}", id);
 
@@ -340,6 +355,10 @@ public class ConfiguracionInstitucionalController {
 
                             return ResponseEntity.ok(response);
 
+                        } catch (IllegalArgumentException e) {
+                            Map<String, Object> error = new HashMap<>();
+                            error.put("error", e.getMessage());
+                            return ResponseEntity.badRequest().body(error);
                         } catch (Exception e) {
                             log.error("Error al procesar archivos de certificados: {}", e.getMessage(), e);
                             Map<String, Object> error = new HashMap<>();
@@ -356,4 +375,8 @@ public class ConfiguracionInstitucionalController {
             return ResponseEntity.internalServerError().body(error);
         }
     }
+
+    private byte[] leerCertificado(MultipartFile archivo) throws IOException {
+        return fileStorageService.leerLimitado(archivo, MAX_CERTIFICADO_BYTES);
+    }
 }
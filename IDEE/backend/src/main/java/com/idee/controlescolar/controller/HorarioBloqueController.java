@@ -0,0 +1,195 @@
+package com.idee.controlescolar.controller;
+
+import com.idee.controlescolar.dto.ConflictoHorarioDTO;
+import com.idee.controlescolar.dto.GeneracionHorarioEstadoDTO;
+import com.idee.controlescolar.dto.GeneracionHorarioRequest;
+import com.idee.controlescolar.model.HorarioBloque;
+import com.idee.controlescolar.repository.AsignaturaRepository;
+import com.idee.controlescolar.repository.HorarioBloqueRepository;
+import com.idee.controlescolar.repository.MaestroRepository;
+import com.idee.controlescolar.repository.ProgramaEducativoRepository;
+import com.idee.controlescolar.service.ConflictoHorarioService;
+import com.idee.controlescolar.service.GeneradorHorarioService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Controlador REST para bloques de horario.
+ * Las altas y modificaciones se rechazan (409) si traslapan maestro, aula o grupo.
+ */
+@RestController
+@RequestMapping("/api/horarios")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class HorarioBloqueController {
+
+    private final HorarioBloqueRepository horarioRepository;
+    private final MaestroRepository maestroRepository;
+    private final AsignaturaRepository asignaturaRepository;
+    private final ProgramaEducativoRepository programaRepository;
+    private final ConflictoHorarioService conflictoHorarioService;
+    private final GeneradorHorarioService generadorHorarioService;
+
+    /**
+     * Obtener bloques (opcionalmente filtrados por periodo)
+     */
+    @GetMapping
+    public ResponseEntity<List<HorarioBloque>> obtener(@RequestParam(required = false) String periodo) {
+        if (periodo != null) {
+            return ResponseEntity.ok(horarioRepository.findByPeriodo(periodo));
+        }
+        return ResponseEntity.ok(horarioRepository.findAll());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> obtenerPorId(@PathVariable Long id) {
+        Optional<HorarioBloque> bloqueOpt = horarioRepository.findById(id);
+        if (!bloqueOpt.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(bloqueOpt.get());
+    }
+
+    @PostMapping
+    public ResponseEntity<?> crear(@RequestBody HorarioBloque bloque) {
+        bloque.setId(null);
+        aplicarRelaciones(bloque);
+        return guardar(bloque, HttpStatus.CREATED);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<?> actualizar(@PathVariable Long id, @RequestBody HorarioBloque datos) {
+        Optional<HorarioBloque> existenteOpt = horarioRepository.findById(id);
+        if (!existenteOpt.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        HorarioBloque existente = existenteOpt.get();
+        existente.setDia(datos.getDia());
+        existente.setHoraInicio(datos.getHoraInicio());
+        existente.setHoraFin(datos.getHoraFin());
+        existente.setAula(datos.getAula());
+        existente.setGrupo(datos.getGrupo());
+        existente.setPeriodo(datos.getPeriodo());
+        if (datos.getEstatus() != null) {
+            existente.setEstatus(datos.getEstatus());
+        }
+        existente.setPrograma(datos.getPrograma());
+        existente.setAsignatura(datos.getAsignatura());
+        existente.setMaestro(datos.getMaestro());
+        aplicarRelaciones(existente);
+        return guardar(existente, HttpStatus.OK);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> eliminar(@PathVariable Long id) {
+        Optional<HorarioBloque> bloqueOpt = horarioRepository.findById(id);
+        if (!bloqueOpt.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        conflictoHorarioService.eliminar(bloqueOpt.get());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Revisa un bloque contra el horario sin guardarlo.
+     *
+     * POST /api/horarios/verificar
+     */
+    @PostMapping("/verificar")
+    public ResponseEntity<Map<String, Object>> verificar(@RequestBody HorarioBloque bloque) {
+        List<ConflictoHorarioDTO> conflictos = conflictoHorarioService.detectarConflictos(bloque);
+        Map<String, Object> respuesta = new HashMap<>();
+        respuesta.put("valido", conflictos.isEmpty());
+        respuesta.put("conflictos", conflictos);
+        return ResponseEntity.ok(respuesta);
+    }
+
+    /**
+     * Valida el horario completo de un periodo.
+     *
+     * GET /api/horarios/validar?periodo=2025-2
+     */
+    @GetMapping("/validar")
+    public ResponseEntity<Map<String, Object>> validarPeriodo(@RequestParam String periodo) {
+        long inicio = System.nanoTime();
+        List<ConflictoHorarioDTO> conflictos = conflictoHorarioService.validarPeriodo(periodo);
+        Map<String, Object> respuesta = new HashMap<>();
+        respuesta.put("periodo", periodo);
+        respuesta.put("valido", conflictos.isEmpty());
+        respuesta.put("totalConflictos", conflictos.size());
+        respuesta.put("conflictos", conflictos);
+        respuesta.put("tiempoMs", (System.nanoTime() - inicio) / 1_000_000);
+        return ResponseEntity.ok(respuesta);
+    }
+
+    /**
+     * Inicia la generación automática del horario de un periodo en segundo plano.
+     *
+     * POST /api/horarios/generar
+     */
+    @PostMapping("/generar")
+    public ResponseEntity<?> generar(@Valid @RequestBody GeneracionHorarioRequest request) {
+        try {
+            GeneracionHorarioEstadoDTO estado = generadorHorarioService.iniciar(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(estado);
+        } catch (IllegalStateException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+    }
+
+    /**
+     * Consulta el avance de una generación de horario.
+     *
+     * GET /api/horarios/generar/{trabajoId}
+     */
+    @GetMapping("/generar/{trabajoId}")
+    public ResponseEntity<GeneracionHorarioEstadoDTO> estadoGeneracion(@PathVariable String trabajoId) {
+        return generadorHorarioService.obtenerEstado(trabajoId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private ResponseEntity<?> guardar(HorarioBloque bloque, HttpStatus estatus) {
+        try {
+            HorarioBloque guardado = conflictoHorarioService.guardar(bloque);
+            log.info("Bloque de horario guardado: {} ({})", guardado.getId(), guardado.getHorarioFormateado());
+            return ResponseEntity.status(estatus).body(guardado);
+        } catch (ConflictoHorarioService.ConflictoHorarioException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            error.put("conflictos", e.getConflictos());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+    }
+
+    private void aplicarRelaciones(HorarioBloque bloque) {
+        if (bloque.getMaestro() == null || bloque.getMaestro().getId() == null) {
+            throw new IllegalArgumentException("El maestro es requerido");
+        }
+        if (bloque.getAsignatura() == null || bloque.getAsignatura().getId() == null) {
+            throw new IllegalArgumentException("La asignatura es requerida");
+        }
+        bloque.setMaestro(maestroRepository.findById(bloque.getMaestro().getId())
+                .orElseThrow(() -> new IllegalArgumentException("Maestro no encontrado")));
+        bloque.setAsignatura(asignaturaRepository.findById(bloque.getAsignatura().getId())
+                .orElseThrow(() -> new IllegalArgumentException("Asignatura no encontrada")));
+        if (bloque.getPrograma() != null && bloque.getPrograma().getId() != null) {
+            bloque.setPrograma(programaRepository.findById(bloque.getPrograma().getId())
+                    .orElseThrow(() -> new IllegalArgumentException("Programa educativo no encontrado")));
+        } else {
+            bloque.setPrograma(null);
+        }
+    }
+}
@@ -3,13 +3,17 @@ package com.idee.controlescolar.controller;
 import com.idee.controlescolar.model.Maestro;
 import com.idee.controlescolar.model.MaestroDocumento;
 import com.idee.controlescolar.repository.MaestroRepository;
+import com.idee.controlescolar.service.CatalogoVersionService;
+import com.idee.controlescolar.service.FileStorageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,9 +28,16 @@ public class MaestroController {
     @Autowired
     private MaestroRepository maestroRepository;
 
+    @Autowired
+    private CatalogoVersionService catalogoVersionService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
     @GetMapping
-    public ResponseEntity<List<Maestro>> obtenerTodos() {
-        return ResponseEntity.ok(maestroRepository.findAll());
+    public ResponseEntity<List<Maestro>> obtenerTodos(WebRequest request) {
+        return catalogoVersionService.responder(Maestro.class, null,
+                etag -> RespuestaCondicional.conEtag(request, etag, maestroRepository::findAll));
     }
 
     @GetMapping("/{id}")
@@ -55,18 +66,14 @@ public class MaestroController {
                     if (archivo == null || archivo.isEmpty()) {
                         continue;
                     }
-                    MaestroDocumento documento = new MaestroDocumento();
-                    documento.setMaestro(maestroGuardado);
-                    documento.setFilename(archivo.getOriginalFilename());
-                    documento.setContentType(archivo.getContentType());
-                    documento.setSizeBytes(archivo.getSize());
-                    documento.setData(archivo.getBytes());
-                    maestroGuardado.getDocumentos().add(documento);
+                    maestroGuardado.getDocumentos().add(guardarDocumento(maestroGuardado, archivo));
                 }
                 maestroGuardado = maestroRepository.save(maestroGuardado);
             }
 
             return ResponseEntity.status(HttpStatus.CREATED).body(maestroGuardado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error al crear el maestro: " + e.getMessage());
@@ -78,7 +85,7 @@ public class MaestroController {
             @PathVariable Long id,
             @RequestPart("maestro") Maestro maestroActualizado,
             @RequestPart(value = "antecedentes", required = false) List<MultipartFile> antecedentes) {
-        Optional<Maestro> maestroOpt = maestroRepository.findById(id);
+        Optional<Maestro> maestroOpt = maestroRepository.findConDocumentosById(id);
         if (!maestroOpt.isPresent()) {
             return ResponseEntity.notFound().build();
         }
@@ -118,18 +125,14 @@ public class MaestroController {
                     if (archivo == null || archivo.isEmpty()) {
                         continue;
                     }
-                    MaestroDocumento documento = new MaestroDocumento();
-                    documento.setMaestro(maestro);
-                    documento.setFilename(archivo.getOriginalFilename());
-                    documento.setContentType(archivo.getContentType());
-                    documento.setSizeBytes(archivo.getSize());
-                    documento.setData(archivo.getBytes());
-                    maestro.getDocumentos().add(documento);
+                    maestro.getDocumentos().add(guardarDocumento(maestro, archivo));
                 }
             }
 
             Maestro maestroGuardado = maestroRepository.save(maestro);
             return ResponseEntity.ok(maestroGuardado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error al actualizar el maestro: " + e.getMessage());
@@ -145,4 +148,16 @@ public class MaestroController {
         maestroRepository.delete(maestroOpt.get());
         return ResponseEntity.ok().build();
     }
+
+    private MaestroDocumento guardarDocumento(Maestro maestro, MultipartFile archivo) throws IOException {
+        FileStorageService.ArchivoGuardado guardado = fileStorageService.guardar(archivo);
+        MaestroDocumento documento = new MaestroDocumento();
+        documento.setMaestro(maestro);
+        documento.setFilename(archivo.getOriginalFilename());
+        documento.setContentType(archivo.getContentType());
+        documento.setSizeBytes(guardado.bytes());
+        documento.setRuta(guardado.ruta().toString());
+        documento.setSha256(guardado.sha256());
+        return documento;
+    }
 }
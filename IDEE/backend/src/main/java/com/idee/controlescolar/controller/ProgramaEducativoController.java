@@ -2,10 +2,13 @@ package com.idee.controlescolar.controller;
 
 import com.idee.controlescolar.model.ProgramaEducativo;
 import com.idee.controlescolar.repository.ProgramaEducativoRepository;
+import com.idee.controlescolar.service.CatalogoCacheService;
+import com.idee.controlescolar.service.CatalogoVersionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,13 +24,19 @@ public class ProgramaEducativoController {
     @Autowired
     private ProgramaEducativoRepository programaEducativoRepository;
 
+    @Autowired
+    private CatalogoCacheService catalogoCacheService;
+
+    @Autowired
+    private CatalogoVersionService catalogoVersionService;
+
     /**
      * Obtener todos los programas educativos
      */
     @GetMapping
-    public ResponseEntity<List<ProgramaEducativo>> obtenerTodos() {
-        List<ProgramaEducativo> programas = programaEducativoRepository.findAll();
-        return ResponseEntity.ok(programas);
+    public ResponseEntity<List<ProgramaEducativo>> obtenerTodos(WebRequest request) {
+        return catalogoVersionService.responder(ProgramaEducativo.class, null,
+                etag -> RespuestaCondicional.conEtag(request, etag, programaEducativoRepository::findListado));
     }
 
     /**
@@ -67,6 +76,7 @@ public class ProgramaEducativoController {
             }
 
             ProgramaEducativo programaGuardado = programaEducativoRepository.save(programa);
+            catalogoCacheService.evictarProgramas();
             return ResponseEntity.status(HttpStatus.CREATED).body(programaGuardado);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -97,6 +107,7 @@ public class ProgramaEducativoController {
         programa.setEstatus(programaActualizado.getEstatus());
         programa.setDescripcion(programaActualizado.getDescripcion());
         ProgramaEducativo programaGuardado = programaEducativoRepository.save(programa);
+        catalogoCacheService.evictarProgramas();
         return ResponseEntity.ok(programaGuardado);
     }
 
@@ -110,6 +121,9 @@ public class ProgramaEducativoController {
             return ResponseEntity.notFound().build();
         }
         programaEducativoRepository.delete(programaOpt.get());
+        // El borrado se propaga a sus asignaturas (cascade)
+        catalogoCacheService.evictarProgramas();
+        catalogoCacheService.evictarAsignaturas();
         return ResponseEntity.ok().build();
     }
 }
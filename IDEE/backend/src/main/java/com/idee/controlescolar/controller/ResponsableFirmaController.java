@@ -2,10 +2,13 @@ package com.idee.controlescolar.controller;
 
 import com.idee.controlescolar.model.ResponsableFirma;
 import com.idee.controlescolar.repository.ResponsableFirmaRepository;
+import com.idee.controlescolar.service.CatalogoCacheService;
+import com.idee.controlescolar.service.CatalogoVersionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,10 +24,13 @@ import java.util.Optional;
 public class ResponsableFirmaController {
 
     private final ResponsableFirmaRepository responsableRepository;
+    private final CatalogoCacheService catalogoCacheService;
+    private final CatalogoVersionService catalogoVersionService;
 
     @GetMapping
-    public ResponseEntity<List<ResponsableFirma>> listarResponsables() {
-        return ResponseEntity.ok(responsableRepository.findByActivoTrueOrderByOrdenFirmaAsc());
+    public ResponseEntity<List<ResponsableFirma>> listarResponsables(WebRequest request) {
+        return catalogoVersionService.responder(ResponsableFirma.class, null,
+                etag -> RespuestaCondicional.conEtag(request, etag, responsableRepository::findListadoActivos));
     }
 
     @PostMapping
@@ -42,13 +48,17 @@ public class ResponsableFirmaController {
                     existing.setAbrTitulo(responsable.getAbrTitulo());
                     existing.setOrdenFirma(responsable.getOrdenFirma());
                     existing.setActivo(true);
-                    return ResponseEntity.ok(responsableRepository.save(existing));
+                    ResponsableFirma guardado = responsableRepository.save(existing);
+                    catalogoCacheService.evictarResponsables();
+                    return ResponseEntity.ok(guardado);
                 })
                 .orElseGet(() -> {
                     // Si no existe, crear uno nuevo
                     log.info("Creando nuevo responsable con CURP: {}", responsable.getCurp());
                     responsable.setActivo(true);
-                    return ResponseEntity.ok(responsableRepository.save(responsable));
+                    ResponsableFirma guardado = responsableRepository.save(responsable);
+                    catalogoCacheService.evictarResponsables();
+                    return ResponseEntity.ok(guardado);
                 });
     }
 
@@ -62,7 +72,9 @@ public class ResponsableFirmaController {
         }
         ResponsableFirma existing = existingOpt.get();
         responsable.setId(id);
-        return ResponseEntity.ok(responsableRepository.save(responsable));
+        ResponsableFirma guardado = responsableRepository.save(responsable);
+        catalogoCacheService.evictarResponsables();
+        return ResponseEntity.ok(guardado);
     }
 
     @DeleteMapping("/{id}")
@@ -74,6 +86,7 @@ public class ResponsableFirmaController {
         ResponsableFirma responsable = responsableOpt.get();
         responsable.setActivo(false);
         responsableRepository.save(responsable);
+        catalogoCacheService.evictarResponsables();
         return ResponseEntity.ok().build();
     }
 }
@@ -0,0 +1,33 @@
+package com.idee.controlescolar.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Respuestas GET condicionales para los listados de catálogos.
+ */
+final class RespuestaCondicional {
+
+    private RespuestaCondicional() {
+    }
+
+    /**
+     * Devuelve 304 sin consultar ni serializar el listado si el cliente ya tiene la versión
+     * vigente; en otro caso obtiene el cuerpo y lo envía con su ETag. "no-cache" obliga
+     * al navegador a revalidar en cada carga en lugar de usar su copia a ciegas.
+     *
+     * Se llama dentro de CatalogoVersionService.responder, para que el ETag y el cuerpo
+     * se lean en la misma transacción.
+     */
+    static <T> ResponseEntity<T> conEtag(WebRequest request, String etag, Supplier<T> cuerpo) {
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(cuerpo.get());
+    }
+}
@@ -3,16 +3,26 @@ package com.idee.controlescolar.controller;
 import com.idee.controlescolar.dto.TituloElectronicoRequest;
 import com.idee.controlescolar.dto.TituloElectronicoResponse;
 import com.idee.controlescolar.model.EstatusTitulo;
+import com.idee.controlescolar.service.ArchivoTitulos;
+import com.idee.controlescolar.service.ElegibilidadTitulos;
+import com.idee.controlescolar.service.ExportacionTitulos;
 import com.idee.controlescolar.service.TituloElectronicoService;
+import com.idee.controlescolar.service.TitulosLentosRegistro;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
 
@@ -27,6 +37,10 @@ import java.util.Map;
 public class TituloElectronicoController {
 
     private final TituloElectronicoService tituloService;
+    private final TitulosLentosRegistro titulosLentos;
+    private final ArchivoTitulos archivoTitulos;
+    private final ExportacionTitulos exportacionTitulos;
+    private final ElegibilidadTitulos elegibilidadTitulos;
 
     /**
      * Genera un nuevo título profesional electrónico.
@@ -46,6 +60,91 @@ public class TituloElectronicoController {
         }
     }
 
+    /**
+     * Desglose por etapa (consultas, cadena original, llave, sello, XML, archivo) de los
+     * títulos recientes que tardaron más de titulos.lentos.umbral-ms.
+     *
+     * GET /api/titulos-electronicos/diagnostico/lentos
+     */
+    @GetMapping("/diagnostico/lentos")
+    public ResponseEntity<List<TitulosLentosRegistro.TituloLento>> obtenerTitulosLentos() {
+        return ResponseEntity.ok(titulosLentos.recientes());
+    }
+
+    /**
+     * Exporta en un ZIP los XML de los títulos que cumplen los filtros, con un
+     * manifest.csv (folio, archivo, bytes, SHA-256, alumno y programa). El ZIP se escribe
+     * a la respuesta conforme se lee cada título.
+     *
+     * GET /api/titulos-electronicos/export.zip?estatus=FIRMADO&programaId=3&desde=2026-01-01&hasta=2026-06-30
+     */
+    @GetMapping(value = "/export.zip", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> exportarZip(
+            @RequestParam(required = false) String estatus,
+            @RequestParam(required = false) Long programaId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        ExportacionTitulos.Filtro filtro;
+        try {
+            filtro = new ExportacionTitulos.Filtro(
+                    estatus == null || estatus.isBlank() ? null : EstatusTitulo.valueOf(estatus.toUpperCase()),
+                    programaId, desde, hasta);
+        } catch (IllegalArgumentException e) {
+            log.error("Estatus inválido: {}", estatus);
+            return ResponseEntity.badRequest().build();
+        }
+
+        String nombre = "titulos_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".zip";
+        StreamingResponseBody cuerpo = salida -> exportacionTitulos.exportarZip(filtro, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + nombre + "\"")
+                .body(cuerpo);
+    }
+
+    /**
+     * Pasa al archivo de títulos los XML y cadenas originales que quedaron sueltos en
+     * titulos_generados/ y actualiza el xmlPath de sus títulos.
+     *
+     * POST /api/titulos-electronicos/archivo/migrar
+     */
+    @PostMapping("/archivo/migrar")
+    public ResponseEntity<ArchivoTitulos.Migracion> migrarArchivosSueltos() throws IOException {
+        return ResponseEntity.ok(archivoTitulos.migrarSueltos());
+    }
+
+    /**
+     * Listado de títulos, del más reciente al más antiguo, con filtros opcionales y
+     * paginación por cursor: la respuesta trae siguienteCursor, que se manda como cursor
+     * para pedir la página siguiente (null en la última), y el total de títulos que
+     * cumplen los filtros.
+     *
+     * GET /api/titulos-electronicos?estatus=FIRMADO&programaId=3&desde=2026-01-01&hasta=2026-06-30&texto=perez&cursor=2026-03-02T10:15:30.123456_120&tamano=50
+     */
+    @GetMapping
+    public ResponseEntity<?> listarTitulos(
+            @RequestParam(required = false) String estatus,
+            @RequestParam(required = false) Long programaId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) String texto,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int tamano) {
+        EstatusTitulo estatusTitulo;
+        try {
+            estatusTitulo = estatus == null || estatus.isBlank() ? null : EstatusTitulo.valueOf(estatus.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Estatus inválido: " + estatus));
+        }
+        try {
+            TituloElectronicoService.FiltroListado filtro = new TituloElectronicoService.FiltroListado(
+                    estatusTitulo, programaId, desde, hasta, texto);
+            return ResponseEntity.ok(tituloService.listarTitulos(filtro, cursor, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Obtiene todos los títulos de un alumno.
      *
@@ -168,6 +267,22 @@ public class TituloElectronicoController {
         }
     }
 
+    /**
+     * Reporte de elegibilidad para título de todos los alumnos de un programa (o de un
+     * ciclo escolar del programa): quién puede titularse y qué le falta a cada quien.
+     *
+     * GET /api/titulos-electronicos/elegibilidad?programaId=1&cicloEscolar=2024-2025
+     */
+    @GetMapping("/elegibilidad")
+    public ResponseEntity<?> evaluarElegibilidad(@RequestParam Long programaId,
+                                                 @RequestParam(required = false) String cicloEscolar) {
+        try {
+            return ResponseEntity.ok(elegibilidadTitulos.evaluar(programaId, cicloEscolar));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Manejo de excepciones global para este controlador.
      */
@@ -0,0 +1,42 @@
+package com.idee.controlescolar.dto;
+
+import com.idee.controlescolar.model.HorarioBloque;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Traslape detectado entre dos bloques de horario que comparten
+ * maestro, aula o grupo en el mismo día.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConflictoHorarioDTO {
+
+    /**
+     * Recurso en conflicto: MAESTRO, AULA o GRUPO
+     */
+    private String tipoRecurso;
+
+    /**
+     * Identificador del recurso (id del maestro, nombre del aula o del grupo)
+     */
+    private String recurso;
+
+    private HorarioBloque.DiaSemana dia;
+
+    /**
+     * Bloque evaluado (null si aún no se ha guardado)
+     */
+    private Long bloqueId;
+
+    /**
+     * Bloque existente con el que se traslapa
+     */
+    private Long bloqueConflictoId;
+
+    private String mensaje;
+}
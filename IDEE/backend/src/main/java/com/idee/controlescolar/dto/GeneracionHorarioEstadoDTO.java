@@ -0,0 +1,48 @@
+package com.idee.controlescolar.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Estado de un trabajo de generación de horario.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class GeneracionHorarioEstadoDTO {
+
+    private String trabajoId;
+    private String periodo;
+    private EstatusGeneracion estatus;
+    private String mensaje;
+
+    private Integer totalLecciones;
+    private Integer bloquesGuardados;
+    private Integer bloquesCancelados;
+    private Integer conflictosDuros;
+    private Integer puntajeSuave;
+    private Long iteraciones;
+    private Integer hilos;
+
+    /**
+     * Grupos que no se pudieron programar y el motivo
+     */
+    private List<String> gruposOmitidos;
+
+    private LocalDateTime fechaInicio;
+    private LocalDateTime fechaFin;
+
+    public enum EstatusGeneracion {
+        PENDIENTE,
+        EN_PROCESO,
+        COMPLETADO,
+        SIN_SOLUCION,
+        ERROR
+    }
+}
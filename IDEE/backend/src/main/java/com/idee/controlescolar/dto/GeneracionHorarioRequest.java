@@ -0,0 +1,87 @@
+package com.idee.controlescolar.dto;
+
+import com.idee.controlescolar.model.HorarioBloque;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parámetros para generar automáticamente el horario de un periodo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeneracionHorarioRequest {
+
+    @NotBlank(message = "El periodo es requerido")
+    private String periodo;
+
+    /**
+     * Aulas disponibles (ej: "Aula 301", "Lab 1"). Si se omite, no se asigna aula.
+     */
+    private List<String> aulas = new ArrayList<>();
+
+    /**
+     * Días hábiles; por defecto de lunes a viernes
+     */
+    private List<HorarioBloque.DiaSemana> dias = new ArrayList<>(List.of(
+            HorarioBloque.DiaSemana.LUNES,
+            HorarioBloque.DiaSemana.MARTES,
+            HorarioBloque.DiaSemana.MIERCOLES,
+            HorarioBloque.DiaSemana.JUEVES,
+            HorarioBloque.DiaSemana.VIERNES));
+
+    private LocalTime horaInicio = LocalTime.of(7, 0);
+
+    private LocalTime horaFin = LocalTime.of(21, 0);
+
+    /**
+     * Hora a partir de la cual se considera turno vespertino
+     */
+    private LocalTime horaCorteTurno = LocalTime.of(14, 0);
+
+    private Integer duracionBloqueMinutos = 60;
+
+    private Integer maxHorasDiariasMaestro = 6;
+
+    /**
+     * Tiempo máximo de búsqueda en segundos
+     */
+    private Integer presupuestoSegundos = 30;
+
+    /**
+     * Número de búsquedas en paralelo; por defecto, los núcleos disponibles
+     */
+    private Integer hilos;
+
+    /**
+     * Si es true, los bloques activos del periodo se cancelan y se regenera todo.
+     * Si es false, se respetan y solo se programan los grupos sin horario.
+     */
+    private boolean reemplazarExistentes;
+
+    /**
+     * Franjas en las que un maestro no puede dar clase
+     */
+    private List<IndisponibilidadMaestro> indisponibilidad = new ArrayList<>();
+
+    /**
+     * Semilla para reproducir una ejecución
+     */
+    private Long semilla;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IndisponibilidadMaestro {
+        private Long maestroId;
+        private HorarioBloque.DiaSemana dia;
+        private LocalTime horaInicio;
+        private LocalTime horaFin;
+    }
+}
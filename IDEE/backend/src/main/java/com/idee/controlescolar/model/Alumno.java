@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = "Alumno.listado", attributeNodes = @NamedAttributeNode("programa"))
 @Table(name = "alumnos")
 @Data
 @NoArgsConstructor
@@ -23,7 +24,8 @@ import java.util.List;
 public class Alumno {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alumnos_seq")
+    @SequenceGenerator(name = "alumnos_seq", sequenceName = "alumnos_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -60,7 +62,7 @@ public class Alumno {
     private String telefonoContactoEmergencia;
 
     // Información académica
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "programa_id")
     @JsonIgnoreProperties({"alumnos", "asignaturas"})
     private ProgramaEducativo programa;
@@ -87,7 +89,7 @@ public class Alumno {
     private LocalDateTime fechaActualizacion;
 
     // Relaciones
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id")
     @JsonIgnoreProperties({"alumno", "maestro", "personal"})
     private Usuario usuario;
@@ -5,11 +5,16 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = "Asignatura.listado", attributeNodes = @NamedAttributeNode("programa"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalogo-asignaturas")
 @Table(name = "asignaturas")
 @Data
 @NoArgsConstructor
@@ -17,7 +22,8 @@ import java.util.List;
 public class Asignatura {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "asignaturas_seq")
+    @SequenceGenerator(name = "asignaturas_seq", sequenceName = "asignaturas_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -42,7 +48,7 @@ public class Asignatura {
     @Enumerated(EnumType.STRING)
     private EstatusAsignatura estatus = EstatusAsignatura.ACTIVA;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "programa_id")
     @JsonIgnoreProperties({"asignaturas", "alumnos"})
     private ProgramaEducativo programa;
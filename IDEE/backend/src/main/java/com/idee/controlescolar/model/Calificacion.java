@@ -11,6 +11,11 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
+@NamedEntityGraph(name = "Calificacion.listado", attributeNodes = {
+        @NamedAttributeNode("alumno"),
+        @NamedAttributeNode("asignatura"),
+        @NamedAttributeNode(value = "grupo", subgraph = "grupo")
+}, subgraphs = @NamedSubgraph(name = "grupo", attributeNodes = @NamedAttributeNode("asignatura")))
 @Table(name = "calificaciones")
 @Data
 @NoArgsConstructor
@@ -19,7 +24,8 @@ import java.time.LocalDateTime;
 public class Calificacion {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "calificaciones_seq")
+    @SequenceGenerator(name = "calificaciones_seq", sequenceName = "calificaciones_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -53,15 +59,15 @@ public class Calificacion {
     private LocalDateTime fechaActualizacion;
 
     // Relaciones
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "alumno_id", nullable = false)
     private Alumno alumno;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "asignatura_id", nullable = false)
     private Asignatura asignatura;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "grupo_id")
     private Grupo grupo;
 
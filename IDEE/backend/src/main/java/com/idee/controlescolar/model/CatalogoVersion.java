@@ -0,0 +1,26 @@
+package com.idee.controlescolar.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contador de cambios de una tabla de catálogo.
+ * CatalogoVersionService lo incrementa en la transacción que modifica la tabla
+ * y arma con él el ETag de los listados.
+ */
+@Entity
+@Table(name = "catalogo_versiones")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogoVersion {
+
+    @Id
+    @Column(length = 63)
+    private String tabla;
+
+    @Column(nullable = false)
+    private Long version;
+}
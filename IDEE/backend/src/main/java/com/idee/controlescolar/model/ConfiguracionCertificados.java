@@ -0,0 +1,52 @@
+package com.idee.controlescolar.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Contenido de los archivos .cer y .key de una configuración institucional.
+ *
+ * Está aparte de ConfiguracionInstitucional para que la configuración, que se lee en
+ * cada título y en cada XML, no cargue los binarios. Solo se consulta al firmar o
+ * validar certificados, y RegistroCertificados guarda lo que se obtiene de aquí.
+ */
+@Entity
+@Table(name = "configuracion_certificados")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConfiguracionCertificados {
+
+    /**
+     * ID de la configuración institucional a la que pertenecen
+     */
+    @Id
+    @Column(name = "configuracion_id")
+    private Long configuracionId;
+
+    /**
+     * Contenido binario del archivo .cer del certificado SAT
+     */
+    @JdbcTypeCode(SqlTypes.LONG32VARBINARY)
+    @Column(name = "certificado_data")
+    @ToString.Exclude
+    private byte[] certificadoData;
+
+    /**
+     * Contenido binario del archivo .key de la llave privada SAT
+     */
+    @JdbcTypeCode(SqlTypes.LONG32VARBINARY)
+    @Column(name = "llave_privada_data")
+    @ToString.Exclude
+    private byte[] llavePrivadaData;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+}
@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -16,6 +18,8 @@ import java.time.LocalDateTime;
  * Solo puede existir una configuración activa a la vez.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalogo-configuracion")
 @Table(name = "configuracion_institucional")
 @Data
 @NoArgsConstructor
@@ -24,7 +28,8 @@ import java.time.LocalDateTime;
 public class ConfiguracionInstitucional {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "configuracion_institucional_seq")
+    @SequenceGenerator(name = "configuracion_institucional_seq", sequenceName = "configuracion_institucional_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -52,23 +57,22 @@ public class ConfiguracionInstitucional {
     private String entidadFederativa;
 
     /**
-     * Ruta al archivo .cer del certificado SAT (DEPRECATED - usar certificadoData)
+     * Ruta al archivo .cer del certificado SAT (DEPRECATED - usar ConfiguracionCertificados)
      */
     @Column(name = "certificado_path", length = 500)
     private String certificadoPath;
 
     /**
-     * Ruta al archivo .key de la llave privada SAT (DEPRECATED - usar llavePrivadaData)
+     * Ruta al archivo .key de la llave privada SAT (DEPRECATED - usar ConfiguracionCertificados)
      */
     @Column(name = "llave_privada_path", length = 500)
     private String llavePrivadaPath;
 
     /**
-     * Contenido binario del archivo .cer del certificado SAT
+     * SHA-256 del archivo .cer; el contenido está en ConfiguracionCertificados
      */
-    @Lob
-    @Column(name = "certificado_data")
-    private byte[] certificadoData;
+    @Column(name = "certificado_sha256", length = 64)
+    private String certificadoSha256;
 
     /**
      * Nombre original del archivo .cer
@@ -77,11 +81,10 @@ public class ConfiguracionInstitucional {
     private String certificadoFilename;
 
     /**
-     * Contenido binario del archivo .key de la llave privada SAT
+     * SHA-256 del archivo .key; el contenido está en ConfiguracionCertificados
      */
-    @Lob
-    @Column(name = "llave_privada_data")
-    private byte[] llavePrivadaData;
+    @Column(name = "llave_privada_sha256", length = 64)
+    private String llavePrivadaSha256;
 
     /**
      * Nombre original del archivo .key
@@ -124,12 +127,11 @@ public class ConfiguracionInstitucional {
 
     /**
      * Verifica si la configuración tiene certificados configurados
-     * (ya sea por ruta o por datos binarios)
+     * (ya sea por ruta o por archivos cargados en ConfiguracionCertificados)
      */
     @Transient
     public boolean tieneCertificados() {
-        boolean tieneArchivos = (certificadoData != null && certificadoData.length > 0 &&
-                                llavePrivadaData != null && llavePrivadaData.length > 0) ||
+        boolean tieneArchivos = (certificadoSha256 != null && llavePrivadaSha256 != null) ||
                                (certificadoPath != null && !certificadoPath.isEmpty() &&
                                 llavePrivadaPath != null && !llavePrivadaPath.isEmpty());
 
@@ -0,0 +1,68 @@
+package com.idee.controlescolar.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Correo en la bandeja de salida (outbox).
+ * Se guarda en la misma transacción que el cambio que lo origina y
+ * un proceso en segundo plano lo envía por SMTP.
+ */
+@Entity
+@Table(name = "correos_pendientes", indexes = {
+    @Index(name = "idx_correos_pendientes_estatus", columnList = "estatus, siguiente_intento")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CorreoPendiente {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "correos_pendientes_seq")
+    @SequenceGenerator(name = "correos_pendientes_seq", sequenceName = "correos_pendientes_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String destinatario;
+
+    @Column(nullable = false)
+    private String asunto;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String cuerpo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstatusCorreo estatus = EstatusCorreo.PENDIENTE;
+
+    /**
+     * Intentos de envío fallidos
+     */
+    @Column(nullable = false)
+    private Integer intentos = 0;
+
+    /**
+     * No se intenta enviar antes de esta fecha (reintentos con espera creciente)
+     */
+    @Column(name = "siguiente_intento", nullable = false)
+    private LocalDateTime siguienteIntento = LocalDateTime.now();
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion", nullable = false, updatable = false)
+    private LocalDateTime fechaCreacion = LocalDateTime.now();
+
+    @Column(name = "fecha_envio")
+    private LocalDateTime fechaEnvio;
+
+    public enum EstatusCorreo {
+        PENDIENTE,
+        ENVIADO,
+        FALLIDO     // Agotó los reintentos
+    }
+}
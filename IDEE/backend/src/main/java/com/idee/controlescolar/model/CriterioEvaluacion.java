@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 public class CriterioEvaluacion {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "criterios_evaluacion_seq")
+    @SequenceGenerator(name = "criterios_evaluacion_seq", sequenceName = "criterios_evaluacion_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -41,15 +42,15 @@ public class CriterioEvaluacion {
     private LocalDateTime fechaCreacion;
 
     // Relaciones
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "asignatura_id", nullable = false)
     private Asignatura asignatura;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "maestro_id", nullable = false)
     private Maestro maestro;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "grupo_id")
     private Grupo grupo;
 
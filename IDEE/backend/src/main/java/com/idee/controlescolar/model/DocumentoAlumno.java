@@ -21,7 +21,8 @@ import java.time.LocalDateTime;
 public class DocumentoAlumno {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "documentos_alumno_seq")
+    @SequenceGenerator(name = "documentos_alumno_seq", sequenceName = "documentos_alumno_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -47,7 +48,7 @@ public class DocumentoAlumno {
     private LocalDateTime fechaActualizacion;
 
     // Relaciones
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "alumno_id", nullable = false)
     @JsonIgnoreProperties({"documentos", "calificaciones", "observaciones_list", "solicitudes", "usuario"})
     private Alumno alumno;
@@ -13,6 +13,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = "Grupo.generacion", attributeNodes = {
+        @NamedAttributeNode(value = "asignatura", subgraph = "asignatura"),
+        @NamedAttributeNode("maestro")
+}, subgraphs = @NamedSubgraph(name = "asignatura", attributeNodes = @NamedAttributeNode("programa")))
 @Table(name = "grupos")
 @Data
 @NoArgsConstructor
@@ -21,7 +25,8 @@ import java.util.List;
 public class Grupo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "grupos_seq")
+    @SequenceGenerator(name = "grupos_seq", sequenceName = "grupos_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -43,11 +48,11 @@ public class Grupo {
     private LocalDateTime fechaActualizacion;
 
     // Relaciones
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "asignatura_id")
     private Asignatura asignatura;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "maestro_id")
     private Maestro maestro;
 
@@ -1,5 +1,6 @@
 package com.idee.controlescolar.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,6 +13,11 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
+@NamedEntityGraph(name = "HorarioBloque.listado", attributeNodes = {
+        @NamedAttributeNode("programa"),
+        @NamedAttributeNode("asignatura"),
+        @NamedAttributeNode("maestro")
+})
 @Table(name = "horarios_bloques")
 @Data
 @NoArgsConstructor
@@ -20,7 +26,8 @@ import java.time.LocalTime;
 public class HorarioBloque {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "horarios_bloques_seq")
+    @SequenceGenerator(name = "horarios_bloques_seq", sequenceName = "horarios_bloques_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -51,16 +58,19 @@ public class HorarioBloque {
     private LocalDateTime fechaActualizacion;
 
     // Relaciones
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "programa_id")
+    @JsonIgnoreProperties({"asignaturas", "alumnos"})
     private ProgramaEducativo programa;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "asignatura_id", nullable = false)
+    @JsonIgnoreProperties({"maestros", "grupos"})
     private Asignatura asignatura;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "maestro_id", nullable = false)
+    @JsonIgnoreProperties({"grupos", "horariosImpartidos", "asignaturas", "documentos", "usuario"})
     private Maestro maestro;
 
     // Enums
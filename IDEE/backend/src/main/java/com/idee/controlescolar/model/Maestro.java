@@ -23,7 +23,8 @@ import java.util.List;
 public class Maestro {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "maestros_seq")
+    @SequenceGenerator(name = "maestros_seq", sequenceName = "maestros_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -87,7 +88,7 @@ public class Maestro {
     private LocalDateTime fechaActualizacion;
 
     // Relaciones
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id")
     @JsonIgnoreProperties({"alumno", "maestro", "personal"})
     private Usuario usuario;
@@ -96,6 +97,7 @@ public class Maestro {
     private List<Grupo> grupos = new ArrayList<>();
 
     @OneToMany(mappedBy = "maestro", cascade = CascadeType.ALL)
+    @JsonIgnoreProperties("maestro")
     private List<HorarioBloque> horariosImpartidos = new ArrayList<>();
 
     @ManyToMany(mappedBy = "maestros")
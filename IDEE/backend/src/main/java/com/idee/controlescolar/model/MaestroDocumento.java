@@ -6,6 +6,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 
@@ -17,10 +19,11 @@ import java.time.LocalDateTime;
 public class MaestroDocumento {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "maestro_documentos_seq")
+    @SequenceGenerator(name = "maestro_documentos_seq", sequenceName = "maestro_documentos_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "maestro_id", nullable = false)
     @JsonIgnoreProperties({"documentos", "asignaturas", "grupos", "horariosImpartidos", "usuario"})
     private Maestro maestro;
@@ -34,7 +37,21 @@ public class MaestroDocumento {
 
     private LocalDateTime fechaCreacion = LocalDateTime.now();
 
-    @Lob
+    /**
+     * Archivo en disco (FileStorageService).
+     */
+    @Column(length = 500)
+    @JsonIgnore
+    private String ruta;
+
+    @Column(length = 64)
+    private String sha256;
+
+    /**
+     * Bytes de los documentos subidos antes de V14. Solo lectura: los nuevos van a disco.
+     */
+    @JdbcTypeCode(SqlTypes.LONG32VARBINARY)
+    @Column(insertable = false, updatable = false)
     @JsonIgnore
     private byte[] data;
 }
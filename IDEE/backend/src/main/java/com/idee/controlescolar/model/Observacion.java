@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 public class Observacion {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "observaciones_seq")
+    @SequenceGenerator(name = "observaciones_seq", sequenceName = "observaciones_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -41,7 +42,7 @@ public class Observacion {
     private LocalDateTime fechaCreacion;
 
     // Relaciones
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "alumno_id", nullable = false)
     private Alumno alumno;
 
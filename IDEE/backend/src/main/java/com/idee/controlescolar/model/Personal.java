@@ -21,7 +21,8 @@ import java.time.LocalDateTime;
 public class Personal {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "personal_seq")
+    @SequenceGenerator(name = "personal_seq", sequenceName = "personal_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -86,7 +87,7 @@ public class Personal {
     private LocalDateTime fechaActualizacion;
 
     // Relaciones
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id")
     @JsonIgnoreProperties({"alumno", "maestro", "personal"})
     private Usuario usuario;
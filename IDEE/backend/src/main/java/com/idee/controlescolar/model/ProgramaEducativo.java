@@ -5,6 +5,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -15,6 +17,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalogo-programas")
 @Table(name = "programas_educativos")
 @Data
 @NoArgsConstructor
@@ -23,7 +27,8 @@ import java.util.List;
 public class ProgramaEducativo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "programas_educativos_seq")
+    @SequenceGenerator(name = "programas_educativos_seq", sequenceName = "programas_educativos_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
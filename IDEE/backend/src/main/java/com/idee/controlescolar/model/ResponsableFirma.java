@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -16,6 +18,8 @@ import java.time.LocalDateTime;
  * Puede ser Director, Secretario Académico, etc.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "catalogo-responsables")
 @Table(name = "responsables_firma")
 @Data
 @NoArgsConstructor
@@ -24,7 +28,8 @@ import java.time.LocalDateTime;
 public class ResponsableFirma {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "responsables_firma_seq")
+    @SequenceGenerator(name = "responsables_firma_seq", sequenceName = "responsables_firma_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 public class SolicitudConstancia {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "solicitudes_constancia_seq")
+    @SequenceGenerator(name = "solicitudes_constancia_seq", sequenceName = "solicitudes_constancia_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -51,7 +52,7 @@ public class SolicitudConstancia {
     private LocalDateTime fechaActualizacion;
 
     // Relaciones
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "alumno_id", nullable = false)
     private Alumno alumno;
 
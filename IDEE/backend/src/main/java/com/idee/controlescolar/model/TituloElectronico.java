@@ -16,6 +16,10 @@ import java.time.LocalDateTime;
  * según el estándar oficial de la SEP.
  */
 @Entity
+@NamedEntityGraph(name = "TituloElectronico.generacion", attributeNodes = {
+        @NamedAttributeNode("alumno"),
+        @NamedAttributeNode("programa")
+})
 @Table(name = "titulos_electronicos")
 @Data
 @NoArgsConstructor
@@ -24,7 +28,8 @@ import java.time.LocalDateTime;
 public class TituloElectronico {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "titulos_electronicos_seq")
+    @SequenceGenerator(name = "titulos_electronicos_seq", sequenceName = "titulos_electronicos_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -16,6 +16,11 @@ import java.util.Collection;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = "Usuario.autenticacion", attributeNodes = {
+        @NamedAttributeNode("alumno"),
+        @NamedAttributeNode("maestro"),
+        @NamedAttributeNode("personal")
+})
 @Table(name = "usuarios")
 @Data
 @NoArgsConstructor
@@ -24,7 +29,8 @@ import java.util.List;
 public class Usuario implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuarios_seq")
+    @SequenceGenerator(name = "usuarios_seq", sequenceName = "usuarios_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -48,6 +54,9 @@ public class Usuario implements UserDetails {
     private LocalDateTime fechaActualizacion;
 
     // Relaciones
+    // Lado inverso: Hibernate no puede hacerlas LAZY sin instrumentar el bytecode (no sabe
+    // si hay fila sin consultarla). Las consultas de UsuarioRepository las traen con join
+    // mediante el grafo "Usuario.autenticacion" para no lanzar tres SELECT por usuario.
     @OneToOne(mappedBy = "usuario", cascade = CascadeType.ALL)
     private Alumno alumno;
 
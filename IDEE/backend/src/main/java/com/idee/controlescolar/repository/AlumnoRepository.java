@@ -1,32 +1,109 @@
 package com.idee.controlescolar.repository;
 
 import com.idee.controlescolar.model.Alumno;
+import com.idee.controlescolar.model.DocumentoAlumno;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repositorio para gestionar alumnos.
  */
 @Repository
+@Transactional(readOnly = true)
 public interface AlumnoRepository extends JpaRepository<Alumno, Long> {
 
+    /**
+     * Lista los alumnos con su programa en una sola consulta
+     */
+    @Override
+    @EntityGraph("Alumno.listado")
+    List<Alumno> findAll();
+
+    /**
+     * Busca un alumno por ID con programa cargado
+     */
+    @Override
+    @EntityGraph("Alumno.listado")
+    Optional<Alumno> findById(Long id);
+
     /**
      * Busca un alumno por matrícula con programa cargado
      */
-    @EntityGraph(attributePaths = {"programa"})
+    @EntityGraph("Alumno.listado")
     Optional<Alumno> findByMatricula(String matricula);
 
     /**
      * Busca un alumno por CURP con programa cargado
      */
-    @EntityGraph(attributePaths = {"programa"})
+    @EntityGraph("Alumno.listado")
     Optional<Alumno> findByCurp(String curp);
 
     /**
      * Verifica si existe un alumno con la matrícula especificada
      */
     boolean existsByMatricula(String matricula);
+
+    /**
+     * Busca un alumno con programa y documentos cargados, para modificarlos fuera de la transacción
+     */
+    @EntityGraph(attributePaths = {"programa", "documentos"})
+    Optional<Alumno> findConDocumentosById(Long id);
+
+    /**
+     * Rutas de fotos y documentos en uso, para RecolectorArchivos
+     */
+    @Query("select a.fotoUrl from Alumno a where a.fotoUrl is not null")
+    List<String> findFotoUrls();
+
+    @Query("select d.archivoUrl from DocumentoAlumno d where d.archivoUrl is not null")
+    List<String> findArchivoUrlsDocumentos();
+
+    /**
+     * Alumnos de un programa (y de un ciclo escolar, si se indica) candidatos a título,
+     * para ElegibilidadTitulos
+     */
+    @Query("select a.id as id, a.matricula as matricula, a.nombre as nombre, " +
+           "a.apellidoPaterno as apellidoPaterno, a.apellidoMaterno as apellidoMaterno, a.curp as curp, " +
+           "a.correoInstitucional as correoInstitucional, a.correoPersonal as correoPersonal, " +
+           "a.estatusMatricula as estatusMatricula " +
+           "from Alumno a where a.programa.id = :programaId " +
+           "and (:cicloEscolar is null or a.cicloEscolar = :cicloEscolar)")
+    List<CandidatoTitulo> findCandidatosTitulo(@Param("programaId") Long programaId,
+                                               @Param("cicloEscolar") String cicloEscolar);
+
+    /**
+     * Documentos entregados por los alumnos de un programa (y ciclo escolar)
+     */
+    @Query("select d.alumno.id as alumnoId, d.tipoDocumento as tipoDocumento from DocumentoAlumno d " +
+           "where d.entregado = true and d.alumno.programa.id = :programaId " +
+           "and (:cicloEscolar is null or d.alumno.cicloEscolar = :cicloEscolar)")
+    List<DocumentoEntregado> findDocumentosEntregados(@Param("programaId") Long programaId,
+                                                      @Param("cicloEscolar") String cicloEscolar);
+
+    /**
+     * Proyección de un alumno con los datos que revisa ElegibilidadTitulos.
+     */
+    interface CandidatoTitulo {
+        Long getId();
+        String getMatricula();
+        String getNombre();
+        String getApellidoPaterno();
+        String getApellidoMaterno();
+        String getCurp();
+        String getCorreoInstitucional();
+        String getCorreoPersonal();
+        Alumno.EstatusMatricula getEstatusMatricula();
+    }
+
+    interface DocumentoEntregado {
+        Long getAlumnoId();
+        DocumentoAlumno.TipoDocumento getTipoDocumento();
+    }
 }
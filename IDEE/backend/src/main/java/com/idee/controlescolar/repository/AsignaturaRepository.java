@@ -1,8 +1,16 @@
 package com.idee.controlescolar.repository;
 
 import com.idee.controlescolar.model.Asignatura;
+import com.idee.controlescolar.service.CatalogoCacheService;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -10,7 +18,43 @@ import java.util.List;
  * Repositorio para gestionar asignaturas
  */
 @Repository
+@Transactional(readOnly = true)
 public interface AsignaturaRepository extends JpaRepository<Asignatura, Long> {
 
+    /**
+     * Lista todas las asignaturas (consulta cacheada)
+     */
+    @Override
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CatalogoCacheService.REGION_ASIGNATURAS)
+    })
+    @EntityGraph("Asignatura.listado")
+    List<Asignatura> findAll();
+
+    /**
+     * Asignaturas de un programa (consulta cacheada)
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CatalogoCacheService.REGION_ASIGNATURAS)
+    })
+    @EntityGraph("Asignatura.listado")
     List<Asignatura> findByProgramaId(Long programaId);
+
+    /**
+     * Listado del endpoint, sin caché de segundo nivel (ver ProgramaEducativoRepository.findListado)
+     */
+    @Query("SELECT a FROM Asignatura a")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "IGNORE"))
+    @EntityGraph("Asignatura.listado")
+    List<Asignatura> findListado();
+
+    /**
+     * Listado del endpoint filtrado por programa, sin caché de segundo nivel
+     */
+    @Query("SELECT a FROM Asignatura a WHERE a.programa.id = :programaId")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "IGNORE"))
+    @EntityGraph("Asignatura.listado")
+    List<Asignatura> findListadoPorPrograma(@Param("programaId") Long programaId);
 }
@@ -1,19 +1,54 @@
 package com.idee.controlescolar.repository;
 
 import com.idee.controlescolar.model.Calificacion;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositorio para calificaciones
  */
 @Repository
+@Transactional(readOnly = true)
 public interface CalificacionRepository extends JpaRepository<Calificacion, Long> {
     
     /**
      * Buscar calificaciones por ID de alumno
      */
+    @EntityGraph("Calificacion.listado")
     List<Calificacion> findByAlumnoId(Long alumnoId);
+
+    /**
+     * Lista las calificaciones con alumno, asignatura y grupo en una sola consulta
+     */
+    @Override
+    @EntityGraph("Calificacion.listado")
+    List<Calificacion> findAll();
+
+    @Override
+    @EntityGraph("Calificacion.listado")
+    Optional<Calificacion> findById(Long id);
+
+    /**
+     * Calificaciones aprobatorias de los alumnos de un programa (y ciclo escolar) en
+     * asignaturas del mismo programa, para ElegibilidadTitulos
+     */
+    @Query("select c.alumno.id as alumnoId, c.asignatura.id as asignaturaId, c.confirmada as confirmada " +
+           "from Calificacion c where c.estatus = 'APROBADO' " +
+           "and c.alumno.programa.id = :programaId and c.asignatura.programa.id = :programaId " +
+           "and (:cicloEscolar is null or c.alumno.cicloEscolar = :cicloEscolar)")
+    List<AsignaturaAprobada> findAprobadasPorPrograma(@Param("programaId") Long programaId,
+                                                      @Param("cicloEscolar") String cicloEscolar);
+
+    interface AsignaturaAprobada {
+        Long getAlumnoId();
+        Long getAsignaturaId();
+        Boolean getConfirmada();
+    }
 }
@@ -0,0 +1,15 @@
+package com.idee.controlescolar.repository;
+
+import com.idee.controlescolar.model.CatalogoVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repositorio de los contadores de cambios de los catálogos.
+ * CatalogoVersionService.responder los lee en la misma transacción que el listado.
+ */
+@Repository
+@Transactional(readOnly = true)
+public interface CatalogoVersionRepository extends JpaRepository<CatalogoVersion, String> {
+}
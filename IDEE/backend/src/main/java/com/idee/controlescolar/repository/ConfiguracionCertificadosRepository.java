@@ -0,0 +1,29 @@
+package com.idee.controlescolar.repository;
+
+import com.idee.controlescolar.model.ConfiguracionCertificados;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Repositorio de los archivos .cer y .key de la configuración institucional.
+ * Se busca por el ID de la configuración.
+ */
+@Repository
+@Transactional(readOnly = true)
+public interface ConfiguracionCertificadosRepository extends JpaRepository<ConfiguracionCertificados, Long> {
+
+    /**
+     * Como findById, pero en una transacción propia que no es readOnly, así que
+     * EnrutadorDataSource la manda a la primaria aunque quien llama esté en una
+     * transacción de solo lectura. Para cuando la réplica devolvió archivos viejos.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("SELECT c FROM ConfiguracionCertificados c WHERE c.id = :id")
+    Optional<ConfiguracionCertificados> findEnPrimariaById(@Param("id") Long id);
+}
@@ -1,8 +1,16 @@
 package com.idee.controlescolar.repository;
 
 import com.idee.controlescolar.model.ConfiguracionInstitucional;
+import com.idee.controlescolar.service.CatalogoCacheService;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -11,6 +19,7 @@ import java.util.Optional;
  * para la emisión de títulos electrónicos.
  */
 @Repository
+@Transactional(readOnly = true)
 public interface ConfiguracionInstitucionalRepository extends JpaRepository<ConfiguracionInstitucional, Long> {
 
     /**
@@ -19,6 +28,10 @@ public interface ConfiguracionInstitucionalRepository extends JpaRepository<Conf
      *
      * @return Optional con la configuración activa si existe
      */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CatalogoCacheService.REGION_CONFIGURACION)
+    })
     Optional<ConfiguracionInstitucional> findByActivoTrue();
 
     /**
@@ -26,5 +39,19 @@ public interface ConfiguracionInstitucionalRepository extends JpaRepository<Conf
      *
      * @return true si existe una configuración activa
      */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CatalogoCacheService.REGION_CONFIGURACION)
+    })
     boolean existsByActivoTrue();
+
+    /**
+     * La configuración tal como está en la primaria: una transacción propia que no es
+     * readOnly y sin la caché de segundo nivel, que en cada instancia puede tener aún la
+     * versión anterior. Para cuando los certificados en BD no coinciden con la configuración.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "IGNORE"))
+    @Query("SELECT c FROM ConfiguracionInstitucional c WHERE c.id = :id")
+    Optional<ConfiguracionInstitucional> findEnPrimariaById(@Param("id") Long id);
 }
@@ -0,0 +1,33 @@
+package com.idee.controlescolar.repository;
+
+import com.idee.controlescolar.model.CorreoPendiente;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+@Transactional(readOnly = true)
+public interface CorreoPendienteRepository extends JpaRepository<CorreoPendiente, Long> {
+
+    /**
+     * Toma un lote de correos listos para enviarse y los bloquea.
+     * El timeout -2 se traduce a SKIP LOCKED en PostgreSQL: si hay varias
+     * instancias, cada una toma filas distintas en lugar de esperar.
+     * Bloquea filas: va siempre al primario, nunca a una réplica de lectura.
+     */
+    @Transactional
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<CorreoPendiente> findByEstatusAndSiguienteIntentoLessThanEqualOrderByIdAsc(
+            CorreoPendiente.EstatusCorreo estatus, LocalDateTime ahora, Pageable pageable);
+
+    long countByEstatus(CorreoPendiente.EstatusCorreo estatus);
+}
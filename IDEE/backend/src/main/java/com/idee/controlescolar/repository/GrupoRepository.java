@@ -0,0 +1,44 @@
+package com.idee.controlescolar.repository;
+
+import com.idee.controlescolar.model.Alumno;
+import com.idee.controlescolar.model.Grupo;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Repositorio para grupos
+ */
+@Repository
+@Transactional(readOnly = true)
+public interface GrupoRepository extends JpaRepository<Grupo, Long> {
+
+    /**
+     * Buscar grupos de un periodo por estatus
+     */
+    @EntityGraph("Grupo.generacion")
+    List<Grupo> findByPeriodoAndEstatus(String periodo, Grupo.EstatusGrupo estatus);
+
+    /**
+     * Cuenta los alumnos inscritos por turno en cada grupo del periodo
+     */
+    @Query("SELECT g.id AS grupoId, a.turno AS turno, COUNT(a) AS total " +
+           "FROM Grupo g JOIN g.alumnos a " +
+           "WHERE g.periodo = :periodo AND a.turno IS NOT NULL " +
+           "GROUP BY g.id, a.turno")
+    List<TurnoGrupo> contarTurnosPorPeriodo(@Param("periodo") String periodo);
+
+    /**
+     * Proyección del conteo de alumnos por turno
+     */
+    interface TurnoGrupo {
+        Long getGrupoId();
+        Alumno.Turno getTurno();
+        Long getTotal();
+    }
+}
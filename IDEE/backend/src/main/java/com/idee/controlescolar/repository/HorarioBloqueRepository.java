@@ -0,0 +1,77 @@
+package com.idee.controlescolar.repository;
+
+import com.idee.controlescolar.model.HorarioBloque;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio para gestionar los bloques de horario.
+ */
+@Repository
+@Transactional(readOnly = true)
+public interface HorarioBloqueRepository extends JpaRepository<HorarioBloque, Long> {
+
+    /**
+     * Busca los bloques de un periodo
+     *
+     * @param periodo Periodo académico (ej: "2025-2")
+     * @return Lista de bloques del periodo
+     */
+    @EntityGraph("HorarioBloque.listado")
+    List<HorarioBloque> findByPeriodo(String periodo);
+
+    /**
+     * Lista los bloques con programa, asignatura y maestro en una sola consulta
+     */
+    @Override
+    @EntityGraph("HorarioBloque.listado")
+    List<HorarioBloque> findAll();
+
+    @Override
+    @EntityGraph("HorarioBloque.listado")
+    Optional<HorarioBloque> findById(Long id);
+
+    /**
+     * Obtiene solo los datos necesarios para detectar traslapes de los
+     * bloques de un periodo, sin cargar asignatura, programa ni maestro.
+     *
+     * @param periodo Periodo académico
+     * @param estatus Estatus de los bloques
+     * @return Intervalos del periodo con ese estatus
+     */
+    @Query("SELECT h.id AS id, h.dia AS dia, h.horaInicio AS horaInicio, h.horaFin AS horaFin, " +
+           "h.aula AS aula, h.grupo AS grupo, h.maestro.id AS maestroId, h.asignatura.id AS asignaturaId " +
+           "FROM HorarioBloque h " +
+           "WHERE h.periodo = :periodo AND h.estatus = :estatus")
+    List<IntervaloHorario> findIntervalosPorPeriodoYEstatus(@Param("periodo") String periodo,
+                                                           @Param("estatus") HorarioBloque.EstatusHorario estatus);
+
+    /**
+     * Intervalos de los bloques activos de un periodo
+     */
+    default List<IntervaloHorario> findIntervalosActivosPorPeriodo(String periodo) {
+        return findIntervalosPorPeriodoYEstatus(periodo, HorarioBloque.EstatusHorario.ACTIVO);
+    }
+
+    /**
+     * Proyección ligera de un bloque de horario.
+     */
+    interface IntervaloHorario {
+        Long getId();
+        HorarioBloque.DiaSemana getDia();
+        LocalTime getHoraInicio();
+        LocalTime getHoraFin();
+        String getAula();
+        String getGrupo();
+        Long getMaestroId();
+        Long getAsignaturaId();
+    }
+}
@@ -1,16 +1,35 @@
 package com.idee.controlescolar.repository;
 
 import com.idee.controlescolar.model.Maestro;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositorio para gestionar maestros
  */
 @Repository
+@Transactional(readOnly = true)
 public interface MaestroRepository extends JpaRepository<Maestro, Long> {
 
     boolean existsByCurp(String curp);
 
     boolean existsByCurpAndIdNot(String curp, Long id);
+
+    /**
+     * Busca un maestro con sus documentos cargados, para modificarlos fuera de la transacción
+     */
+    @EntityGraph(attributePaths = {"documentos"})
+    Optional<Maestro> findConDocumentosById(Long id);
+
+    /**
+     * Rutas de los antecedentes guardados en disco, para RecolectorArchivos
+     */
+    @Query("select d.ruta from MaestroDocumento d where d.ruta is not null")
+    List<String> findRutasDocumentos();
 }
@@ -3,11 +3,13 @@ package com.idee.controlescolar.repository;
 import com.idee.controlescolar.model.Personal;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 import java.util.List;
 
 @Repository
+@Transactional(readOnly = true)
 public interface PersonalRepository extends JpaRepository<Personal, Long> {
     
     /**
@@ -1,20 +1,50 @@
 package com.idee.controlescolar.repository;
 
 import com.idee.controlescolar.model.ProgramaEducativo;
+import com.idee.controlescolar.service.CatalogoCacheService;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repositorio para gestionar programas educativos.
  */
 @Repository
+@Transactional(readOnly = true)
 public interface ProgramaEducativoRepository extends JpaRepository<ProgramaEducativo, Long> {
 
+    /**
+     * Lista todos los programas (consulta cacheada)
+     */
+    @Override
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CatalogoCacheService.REGION_PROGRAMAS)
+    })
+    List<ProgramaEducativo> findAll();
+
+    /**
+     * Listado del endpoint, sin caché de segundo nivel para que salga de la misma
+     * conexión que el contador de su ETag (CatalogoVersionService.responder)
+     */
+    @Query("SELECT p FROM ProgramaEducativo p")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "IGNORE"))
+    List<ProgramaEducativo> findListado();
+
     /**
      * Busca un programa educativo por su clave
      */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CatalogoCacheService.REGION_PROGRAMAS)
+    })
     Optional<ProgramaEducativo> findByClave(String clave);
 
     /**
@@ -1,8 +1,14 @@
 package com.idee.controlescolar.repository;
 
 import com.idee.controlescolar.model.ResponsableFirma;
+import com.idee.controlescolar.service.CatalogoCacheService;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,6 +18,7 @@ import java.util.Optional;
  * para firmar títulos profesionales electrónicos.
  */
 @Repository
+@Transactional(readOnly = true)
 public interface ResponsableFirmaRepository extends JpaRepository<ResponsableFirma, Long> {
 
     /**
@@ -19,6 +26,10 @@ public interface ResponsableFirmaRepository extends JpaRepository<ResponsableFir
      *
      * @return Lista de responsables activos ordenados
      */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CatalogoCacheService.REGION_RESPONSABLES)
+    })
     List<ResponsableFirma> findByActivoTrueOrderByOrdenFirmaAsc();
 
     /**
@@ -26,8 +37,20 @@ public interface ResponsableFirmaRepository extends JpaRepository<ResponsableFir
      *
      * @return Lista de responsables activos ordenados
      */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CatalogoCacheService.REGION_RESPONSABLES)
+    })
     List<ResponsableFirma> findByActivoTrueOrderByOrdenFirma();
 
+    /**
+     * Listado del endpoint: activos por orden de firma, sin caché de segundo nivel
+     * (ver ProgramaEducativoRepository.findListado)
+     */
+    @Query("SELECT r FROM ResponsableFirma r WHERE r.activo = true ORDER BY r.ordenFirma ASC")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHE_MODE, value = "IGNORE"))
+    List<ResponsableFirma> findListadoActivos();
+
     /**
      * Busca un responsable por su CURP
      *
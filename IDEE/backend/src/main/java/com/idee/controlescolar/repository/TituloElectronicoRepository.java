@@ -2,12 +2,17 @@ package com.idee.controlescolar.repository;
 
 import com.idee.controlescolar.model.EstatusTitulo;
 import com.idee.controlescolar.model.TituloElectronico;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +20,7 @@ import java.util.Optional;
  * Repositorio para gestionar los títulos profesionales electrónicos.
  */
 @Repository
+@Transactional(readOnly = true)
 public interface TituloElectronicoRepository extends JpaRepository<TituloElectronico, Long> {
 
     /**
@@ -23,14 +29,26 @@ public interface TituloElectronicoRepository extends JpaRepository<TituloElectro
      * @param folioControl Folio de control del título
      * @return Optional con el título si existe
      */
+    @EntityGraph("TituloElectronico.generacion")
     Optional<TituloElectronico> findByFolioControl(String folioControl);
 
+    /**
+     * Busca un título con alumno y programa cargados, para armar la respuesta o el XML
+     *
+     * @param id ID del título
+     * @return Optional con el título si existe
+     */
+    @Override
+    @EntityGraph("TituloElectronico.generacion")
+    Optional<TituloElectronico> findById(Long id);
+
     /**
      * Busca todos los títulos de un alumno
      *
      * @param alumnoId ID del alumno
      * @return Lista de títulos del alumno
      */
+    @EntityGraph("TituloElectronico.generacion")
     List<TituloElectronico> findByAlumnoId(Long alumnoId);
 
     /**
@@ -107,4 +125,207 @@ public interface TituloElectronicoRepository extends JpaRepository<TituloElectro
      * @return true si el alumno ya tiene al menos un título
      */
     boolean existsByAlumnoId(Long alumnoId);
+
+    /**
+     * Reemplaza el xmlPath de los títulos que apuntaban a un archivo suelto ya archivado
+     *
+     * @param ubicacion Ubicación en el archivo de títulos
+     * @param rutas Rutas con las que pudo quedar guardado el archivo suelto
+     * @return Cantidad de títulos actualizados
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TituloElectronico t SET t.xmlPath = :ubicacion WHERE t.xmlPath IN :rutas")
+    int actualizarXmlPath(@Param("ubicacion") String ubicacion, @Param("rutas") List<String> rutas);
+
+    /**
+     * Lote de títulos a exportar, por id ascendente a partir de despuesDe, sin el
+     * contenido XML. Los filtros nulos no se aplican.
+     */
+    default List<TituloExportado> findLoteExportacion(Long despuesDe, EstatusTitulo estatus, Long programaId,
+                                                      LocalDate desde, LocalDate hasta, Pageable pageable) {
+        // PostgreSQL no infiere el tipo de una fecha nula en ":desde IS NULL": se acota con extremos
+        return findLoteExportacionEntreFechas(despuesDe, estatus, programaId,
+                desde == null ? LocalDate.of(1900, 1, 1) : desde,
+                hasta == null ? LocalDate.of(9999, 12, 31) : hasta,
+                pageable);
+    }
+
+    /**
+     * Lote de títulos a exportar con fecha de expedición entre desde y hasta.
+     *
+     * @param despuesDe Último id del lote anterior (0 para el primero)
+     * @param pageable Tamaño del lote
+     * @return Títulos del lote
+     */
+    @Query("SELECT t.id AS id, t.folioControl AS folioControl, t.estatus AS estatus, " +
+           "t.fechaExpedicion AS fechaExpedicion, t.xmlPath AS xmlPath, a.matricula AS matricula, " +
+           "a.curp AS curp, a.nombre AS nombre, a.apellidoPaterno AS apellidoPaterno, " +
+           "a.apellidoMaterno AS apellidoMaterno, p.clave AS programa " +
+           "FROM TituloElectronico t JOIN t.alumno a JOIN t.programa p " +
+           "WHERE t.id > :despuesDe " +
+           "AND (:estatus IS NULL OR t.estatus = :estatus) " +
+           "AND (:programaId IS NULL OR p.id = :programaId) " +
+           "AND t.fechaExpedicion BETWEEN :desde AND :hasta " +
+           "ORDER BY t.id")
+    List<TituloExportado> findLoteExportacionEntreFechas(@Param("despuesDe") Long despuesDe,
+                                                         @Param("estatus") EstatusTitulo estatus,
+                                                         @Param("programaId") Long programaId,
+                                                         @Param("desde") LocalDate desde,
+                                                         @Param("hasta") LocalDate hasta,
+                                                         Pageable pageable);
+
+    /**
+     * Contenido XML guardado en BD, para los títulos que no están en el archivo de títulos
+     *
+     * @param id ID del título
+     * @return XML del título, si tiene
+     */
+    @Query("SELECT t.xmlContent FROM TituloElectronico t WHERE t.id = :id")
+    Optional<String> findXmlContentById(@Param("id") Long id);
+
+    /**
+     * Alumnos de un programa que ya tienen un título vigente (no rechazado por la SEP)
+     *
+     * @param programaId ID del programa educativo
+     * @return IDs de los alumnos
+     */
+    @Query("SELECT DISTINCT t.alumno.id FROM TituloElectronico t WHERE t.programa.id = :programaId " +
+           "AND t.estatus <> 'RECHAZADO_SEP'")
+    List<Long> findAlumnosConTitulo(@Param("programaId") Long programaId);
+
+    /**
+     * Página del listado de títulos, del más reciente al más antiguo, con alumno y
+     * programa en la misma consulta. Los filtros nulos no se aplican.
+     *
+     * Se ordena por (fechaCreacion, id) y no solo por id: con secuencias pooled cada
+     * instancia reparte ids de su propio bloque, así que el id no sigue el orden de
+     * creación entre instancias. El id desempata los títulos creados en el mismo instante.
+     * La condición "fechaCreacion <= antesDeFecha" acota el recorrido del índice.
+     *
+     * @param antesDeFecha fechaCreacion del último título de la página anterior (null para la primera)
+     * @param antesDeId Id del último título de la página anterior (null para la primera)
+     * @param texto Texto a buscar en folio, CURP o nombre del alumno (sin distinguir mayúsculas)
+     * @param pageable Tamaño de la página
+     * @return Títulos de la página
+     */
+    default List<TituloListado> findPaginaListado(LocalDateTime antesDeFecha, Long antesDeId,
+                                                  EstatusTitulo estatus, Long programaId,
+                                                  LocalDate desde, LocalDate hasta, String texto,
+                                                  Pageable pageable) {
+        return findPaginaListadoEntreFechas(
+                antesDeFecha == null ? LocalDateTime.of(9999, 12, 31, 0, 0) : antesDeFecha,
+                antesDeId == null ? Long.MAX_VALUE : antesDeId, estatus, programaId,
+                desde == null ? LocalDate.of(1900, 1, 1) : desde,
+                hasta == null ? LocalDate.of(9999, 12, 31) : hasta,
+                patronBusqueda(texto), pageable);
+    }
+
+    @Query("SELECT t.id AS id, t.folioControl AS folioControl, t.estatus AS estatus, " +
+           "t.fechaExpedicion AS fechaExpedicion, t.fechaCreacion AS fechaCreacion, " +
+           "a.id AS alumnoId, a.matricula AS alumnoMatricula, a.curp AS alumnoCurp, a.nombre AS alumnoNombre, " +
+           "a.apellidoPaterno AS alumnoApellidoPaterno, a.apellidoMaterno AS alumnoApellidoMaterno, " +
+           "p.id AS programaId, p.clave AS programaClave, p.nombre AS programaNombre " +
+           "FROM TituloElectronico t JOIN t.alumno a JOIN t.programa p " +
+           "WHERE t.fechaCreacion <= :antesDeFecha " +
+           "AND (t.fechaCreacion < :antesDeFecha OR t.id < :antesDeId) " +
+           "AND (:estatus IS NULL OR t.estatus = :estatus) " +
+           "AND (:programaId IS NULL OR p.id = :programaId) " +
+           "AND t.fechaExpedicion BETWEEN :desde AND :hasta " +
+           "AND (:texto IS NULL OR LOWER(t.folioControl) LIKE :texto OR LOWER(a.curp) LIKE :texto " +
+           "OR LOWER(CONCAT(a.nombre, ' ', a.apellidoPaterno, ' ', COALESCE(a.apellidoMaterno, ''))) LIKE :texto) " +
+           "ORDER BY t.fechaCreacion DESC, t.id DESC")
+    List<TituloListado> findPaginaListadoEntreFechas(@Param("antesDeFecha") LocalDateTime antesDeFecha,
+                                                     @Param("antesDeId") Long antesDeId,
+                                                     @Param("estatus") EstatusTitulo estatus,
+                                                     @Param("programaId") Long programaId,
+                                                     @Param("desde") LocalDate desde,
+                                                     @Param("hasta") LocalDate hasta,
+                                                     @Param("texto") String texto,
+                                                     Pageable pageable);
+
+    /**
+     * Total de títulos que cumplen los filtros del listado. Solo une al alumno cuando
+     * hay texto a buscar.
+     */
+    default long countListado(EstatusTitulo estatus, Long programaId, LocalDate desde, LocalDate hasta,
+                              String texto) {
+        LocalDate inicio = desde == null ? LocalDate.of(1900, 1, 1) : desde;
+        LocalDate fin = hasta == null ? LocalDate.of(9999, 12, 31) : hasta;
+        String patron = patronBusqueda(texto);
+        return patron == null
+                ? countListadoEntreFechas(estatus, programaId, inicio, fin)
+                : countListadoConTexto(estatus, programaId, inicio, fin, patron);
+    }
+
+    @Query("SELECT COUNT(t) FROM TituloElectronico t " +
+           "WHERE (:estatus IS NULL OR t.estatus = :estatus) " +
+           "AND (:programaId IS NULL OR t.programa.id = :programaId) " +
+           "AND t.fechaExpedicion BETWEEN :desde AND :hasta")
+    long countListadoEntreFechas(@Param("estatus") EstatusTitulo estatus,
+                                 @Param("programaId") Long programaId,
+                                 @Param("desde") LocalDate desde,
+                                 @Param("hasta") LocalDate hasta);
+
+    @Query("SELECT COUNT(t) FROM TituloElectronico t JOIN t.alumno a " +
+           "WHERE (:estatus IS NULL OR t.estatus = :estatus) " +
+           "AND (:programaId IS NULL OR t.programa.id = :programaId) " +
+           "AND t.fechaExpedicion BETWEEN :desde AND :hasta " +
+           "AND (LOWER(t.folioControl) LIKE :texto OR LOWER(a.curp) LIKE :texto " +
+           "OR LOWER(CONCAT(a.nombre, ' ', a.apellidoPaterno, ' ', COALESCE(a.apellidoMaterno, ''))) LIKE :texto)")
+    long countListadoConTexto(@Param("estatus") EstatusTitulo estatus,
+                              @Param("programaId") Long programaId,
+                              @Param("desde") LocalDate desde,
+                              @Param("hasta") LocalDate hasta,
+                              @Param("texto") String texto);
+
+    /**
+     * Patrón LIKE en minúsculas para el texto buscado; null si no hay texto. Los
+     * comodines que escriba el usuario se toman literales.
+     */
+    private static String patronBusqueda(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        String literal = texto.trim().toLowerCase()
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + literal + "%";
+    }
+
+    /**
+     * Proyección de un título para la exportación en ZIP.
+     */
+    interface TituloExportado {
+        Long getId();
+        String getFolioControl();
+        EstatusTitulo getEstatus();
+        LocalDate getFechaExpedicion();
+        String getXmlPath();
+        String getMatricula();
+        String getCurp();
+        String getNombre();
+        String getApellidoPaterno();
+        String getApellidoMaterno();
+        String getPrograma();
+    }
+
+    /**
+     * Proyección de un título para el listado, sin XML ni cadena original.
+     */
+    interface TituloListado {
+        Long getId();
+        String getFolioControl();
+        EstatusTitulo getEstatus();
+        LocalDate getFechaExpedicion();
+        LocalDateTime getFechaCreacion();
+        Long getAlumnoId();
+        String getAlumnoMatricula();
+        String getAlumnoCurp();
+        String getAlumnoNombre();
+        String getAlumnoApellidoPaterno();
+        String getAlumnoApellidoMaterno();
+        Long getProgramaId();
+        String getProgramaClave();
+        String getProgramaNombre();
+    }
 }
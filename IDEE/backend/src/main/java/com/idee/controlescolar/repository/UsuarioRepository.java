@@ -1,17 +1,22 @@
 package com.idee.controlescolar.repository;
 
 import com.idee.controlescolar.model.Usuario;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
+    @EntityGraph("Usuario.autenticacion")
     Optional<Usuario> findByEmail(String email);
 
     Boolean existsByEmail(String email);
 
+    @EntityGraph("Usuario.autenticacion")
     Optional<Usuario> findByEmailAndActivoTrue(String email);
 }
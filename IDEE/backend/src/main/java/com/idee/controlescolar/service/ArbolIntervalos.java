@@ -0,0 +1,194 @@
+package com.idee.controlescolar.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Árbol de intervalos (AVL aumentado con el fin máximo de cada subárbol).
+ *
+ * Los intervalos son semiabiertos [inicio, fin) en segundos del día, de modo que
+ * un bloque que termina a las 09:00 no se traslapa con otro que inicia a las 09:00.
+ * Inserción, eliminación y búsqueda del primer traslape son O(log n).
+ *
+ * No es seguro para hilos; el llamador debe sincronizar el acceso.
+ */
+class ArbolIntervalos {
+
+    private Nodo raiz;
+    private int tamanio;
+
+    private static final class Nodo {
+        final int inicio;
+        final int fin;
+        final long id;
+        int finMaximo;
+        int altura = 1;
+        Nodo izquierdo;
+        Nodo derecho;
+
+        Nodo(int inicio, int fin, long id) {
+            this.inicio = inicio;
+            this.fin = fin;
+            this.id = id;
+            this.finMaximo = fin;
+        }
+    }
+
+    int tamanio() {
+        return tamanio;
+    }
+
+    void insertar(long id, int inicio, int fin) {
+        raiz = insertar(raiz, new Nodo(inicio, fin, id));
+        tamanio++;
+    }
+
+    /**
+     * Elimina el intervalo identificado por su id y su inicio (la clave de orden).
+     *
+     * @return true si el intervalo existía
+     */
+    boolean eliminar(long id, int inicio) {
+        int antes = tamanio;
+        raiz = eliminar(raiz, inicio, id);
+        return tamanio < antes;
+    }
+
+    /**
+     * Busca cualquier intervalo que se traslape con [inicio, fin), ignorando el id indicado.
+     *
+     * @return id del intervalo en conflicto, o null si no hay traslape
+     */
+    Long buscarTraslape(int inicio, int fin, Long idExcluido) {
+        List<Long> encontrados = new ArrayList<>(1);
+        recolectar(raiz, inicio, fin, idExcluido, encontrados, 1);
+        return encontrados.isEmpty() ? null : encontrados.get(0);
+    }
+
+    /**
+     * Devuelve los ids de todos los intervalos que se traslapan con [inicio, fin).
+     * Costo O(log n + k), donde k es el número de traslapes.
+     */
+    List<Long> buscarTraslapes(int inicio, int fin, Long idExcluido) {
+        List<Long> encontrados = new ArrayList<>();
+        recolectar(raiz, inicio, fin, idExcluido, encontrados, Integer.MAX_VALUE);
+        return encontrados;
+    }
+
+    private void recolectar(Nodo nodo, int inicio, int fin, Long idExcluido, List<Long> encontrados, int limite) {
+        if (nodo == null || nodo.finMaximo <= inicio || encontrados.size() >= limite) {
+            return;
+        }
+        recolectar(nodo.izquierdo, inicio, fin, idExcluido, encontrados, limite);
+        if (encontrados.size() >= limite) {
+            return;
+        }
+        if (nodo.inicio < fin && inicio < nodo.fin && (idExcluido == null || nodo.id != idExcluido)) {
+            encontrados.add(nodo.id);
+        }
+        if (nodo.inicio < fin) {
+            recolectar(nodo.derecho, inicio, fin, idExcluido, encontrados, limite);
+        }
+    }
+
+    // ==================== Balanceo AVL ====================
+
+    private static int comparar(int inicioA, long idA, int inicioB, long idB) {
+        int c = Integer.compare(inicioA, inicioB);
+        return c != 0 ? c : Long.compare(idA, idB);
+    }
+
+    private Nodo insertar(Nodo nodo, Nodo nuevo) {
+        if (nodo == null) {
+            return nuevo;
+        }
+        if (comparar(nuevo.inicio, nuevo.id, nodo.inicio, nodo.id) < 0) {
+            nodo.izquierdo = insertar(nodo.izquierdo, nuevo);
+        } else {
+            nodo.derecho = insertar(nodo.derecho, nuevo);
+        }
+        return balancear(nodo);
+    }
+
+    private Nodo eliminar(Nodo nodo, int inicio, long id) {
+        if (nodo == null) {
+            return null;
+        }
+        int c = comparar(inicio, id, nodo.inicio, nodo.id);
+        if (c < 0) {
+            nodo.izquierdo = eliminar(nodo.izquierdo, inicio, id);
+        } else if (c > 0) {
+            nodo.derecho = eliminar(nodo.derecho, inicio, id);
+        } else {
+            tamanio--;
+            if (nodo.izquierdo == null) {
+                return nodo.derecho;
+            }
+            if (nodo.derecho == null) {
+                return nodo.izquierdo;
+            }
+            Nodo sucesor = nodo.derecho;
+            while (sucesor.izquierdo != null) {
+                sucesor = sucesor.izquierdo;
+            }
+            Nodo reemplazo = new Nodo(sucesor.inicio, sucesor.fin, sucesor.id);
+            tamanio++; // la eliminación del sucesor vuelve a descontar
+            reemplazo.derecho = eliminar(nodo.derecho, sucesor.inicio, sucesor.id);
+            reemplazo.izquierdo = nodo.izquierdo;
+            return balancear(reemplazo);
+        }
+        return balancear(nodo);
+    }
+
+    private static int altura(Nodo nodo) {
+        return nodo == null ? 0 : nodo.altura;
+    }
+
+    private static void actualizar(Nodo nodo) {
+        nodo.altura = 1 + Math.max(altura(nodo.izquierdo), altura(nodo.derecho));
+        int maximo = nodo.fin;
+        if (nodo.izquierdo != null) {
+            maximo = Math.max(maximo, nodo.izquierdo.finMaximo);
+        }
+        if (nodo.derecho != null) {
+            maximo = Math.max(maximo, nodo.derecho.finMaximo);
+        }
+        nodo.finMaximo = maximo;
+    }
+
+    private static Nodo balancear(Nodo nodo) {
+        actualizar(nodo);
+        int factor = altura(nodo.izquierdo) - altura(nodo.derecho);
+        if (factor > 1) {
+            if (altura(nodo.izquierdo.izquierdo) < altura(nodo.izquierdo.derecho)) {
+                nodo.izquierdo = rotarIzquierda(nodo.izquierdo);
+            }
+            return rotarDerecha(nodo);
+        }
+        if (factor < -1) {
+            if (altura(nodo.derecho.derecho) < altura(nodo.derecho.izquierdo)) {
+                nodo.derecho = rotarDerecha(nodo.derecho);
+            }
+            return rotarIzquierda(nodo);
+        }
+        return nodo;
+    }
+
+    private static Nodo rotarDerecha(Nodo nodo) {
+        Nodo pivote = nodo.izquierdo;
+        nodo.izquierdo = pivote.derecho;
+        pivote.derecho = nodo;
+        actualizar(nodo);
+        actualizar(pivote);
+        return pivote;
+    }
+
+    private static Nodo rotarIzquierda(Nodo nodo) {
+        Nodo pivote = nodo.derecho;
+        nodo.derecho = pivote.izquierdo;
+        pivote.izquierdo = nodo;
+        actualizar(nodo);
+        actualizar(pivote);
+        return pivote;
+    }
+}
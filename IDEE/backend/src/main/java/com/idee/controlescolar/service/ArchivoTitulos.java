@@ -0,0 +1,406 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.repository.TituloElectronicoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archivo de los XML de títulos y sus cadenas originales, en lugar de un archivo suelto
+ * por título en titulos_generados/.
+ *
+ * Cada mes (tomado del folio, IDEE-yyyyMMdd...) tiene segmentos de solo anexar
+ * segmento-00001.gz, -00002.gz... que rotan al pasar de titulos.archivo.segmento-max-mb.
+ * Cada registro es un miembro gzip independiente: el segmento completo se lee con zcat
+ * y un registro suelto se descomprime leyendo solo sus bytes. Junto a cada segmento,
+ * segmento-00001.idx guarda una línea por registro (folio, tipo, posición, longitud), que
+ * es el índice por folioControl.
+ *
+ * El XML de un título queda ubicado en xmlPath como archivo:2026-01/segmento-00001#pos+len;
+ * descargarXml lo lee directo de esa posición. Un registro anexado cuya transacción se
+ * revierte queda en el segmento sin que nada lo referencie.
+ *
+ * Los anexos se serializan por mes dentro del proceso y con un candado del sistema de
+ * archivos entre instancias que comparten el directorio.
+ */
+@Service
+@Slf4j
+public class ArchivoTitulos {
+
+    public enum Tipo { XML, CADENA }
+
+    static final String PREFIJO = "archivo:";
+    private static final Pattern PERIODO_FOLIO = Pattern.compile("^[A-Z]+-(\\d{4})(\\d{2})\\d{8}-");
+    private static final Pattern UBICACION = Pattern.compile("^archivo:([0-9A-Za-z_-]+)/(segmento-\\d{5})#(\\d+)\\+(\\d+)$");
+    private static final Pattern SEGMENTO = Pattern.compile("^segmento-(\\d{5})\\.gz$");
+    private static final Pattern FOLIO_EN_NOMBRE = Pattern.compile("([A-Z]+)_(\\d{14})_([0-9A-F]{20})");
+    private static final DateTimeFormatter MES = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final TituloElectronicoRepository tituloRepository;
+
+    @Value("${titulos.archivo.directorio:titulos_generados/archivo}")
+    private String directorio;
+
+    @Value("${titulos.archivo.sueltos:titulos_generados}")
+    private String directorioSueltos;
+
+    @Value("${titulos.archivo.segmento-max-mb:64}")
+    private long segmentoMaxMb;
+
+    @Value("${titulos.archivo.migrar-al-iniciar:false}")
+    private boolean migrarAlIniciar;
+
+    private final Map<String, ReentrantLock> candados = new ConcurrentHashMap<>();
+    private final Map<String, IndicePeriodo> indices = new ConcurrentHashMap<>();
+
+    public ArchivoTitulos(TituloElectronicoRepository tituloRepository) {
+        this.tituloRepository = tituloRepository;
+    }
+
+    /**
+     * Anexa el contenido al segmento vigente del mes del folio.
+     *
+     * @return ubicación para xmlPath (archivo:periodo/segmento#pos+len)
+     */
+    public String guardar(String folio, Tipo tipo, String contenido) throws IOException {
+        return guardar(folio, tipo, contenido, periodo(folio).orElseGet(() -> LocalDate.now().format(MES)));
+    }
+
+    /**
+     * Contenido en una ubicación devuelta por guardar; vacío si no es una ubicación del
+     * archivo o el segmento ya no existe.
+     */
+    public Optional<String> leer(String ubicacion) throws IOException {
+        Optional<byte[]> registro = registro(ubicacion);
+        if (registro.isEmpty()) {
+            return Optional.empty();
+        }
+        try (InputStream entrada = new GZIPInputStream(new ByteArrayInputStream(registro.get()))) {
+            return Optional.of(new String(entrada.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Descomprime el contenido de una ubicación directo al destino, sin armarlo en memoria.
+     *
+     * @return false si no es una ubicación del archivo o el segmento ya no existe
+     */
+    public boolean copiar(String ubicacion, OutputStream destino) throws IOException {
+        Optional<byte[]> registro = registro(ubicacion);
+        if (registro.isEmpty()) {
+            return false;
+        }
+        try (InputStream entrada = new GZIPInputStream(new ByteArrayInputStream(registro.get()))) {
+            entrada.transferTo(destino);
+        }
+        return true;
+    }
+
+    /**
+     * Última versión archivada de un folio. Busca en el mes del folio; si el folio no
+     * trae fecha, en todos.
+     */
+    public Optional<String> buscar(String folio, Tipo tipo) throws IOException {
+        List<String> periodos = periodo(folio).map(List::of).orElseGet(this::periodos);
+        for (String periodo : periodos) {
+            Optional<String> ubicacion = indice(periodo).buscar(clave(folio, tipo));
+            if (ubicacion.isPresent()) {
+                return leer(ubicacion.get());
+            }
+        }
+        return Optional.empty();
+    }
+
+    public static boolean esUbicacion(String valor) {
+        return valor != null && valor.startsWith(PREFIJO);
+    }
+
+    // ==================== Migración de archivos sueltos ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrarAlIniciar() {
+        if (!migrarAlIniciar) {
+            return;
+        }
+        try {
+            migrarSueltos();
+        } catch (IOException | RuntimeException e) {
+            log.error("Error al migrar títulos sueltos al archivo: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pasa al archivo los titulo_*.xml y cadena_original_*.txt sueltos de
+     * titulos.archivo.sueltos, actualiza el xmlPath de los títulos que apuntaban a ellos
+     * y los borra. Los que no traen folio en el nombre se archivan con su nombre como clave.
+     */
+    public Migracion migrarSueltos() throws IOException {
+        Path sueltos = Paths.get(directorioSueltos).toAbsolutePath().normalize();
+        if (!Files.isDirectory(sueltos)) {
+            return new Migracion(0, 0, 0);
+        }
+        int archivos = 0;
+        long bytesSueltos = 0;
+        int titulosActualizados = 0;
+        try (DirectoryStream<Path> contenido = Files.newDirectoryStream(sueltos, "{titulo_*.xml,cadena_original_*.txt}")) {
+            for (Path archivo : contenido) {
+                if (!Files.isRegularFile(archivo)) {
+                    continue;
+                }
+                String nombre = archivo.getFileName().toString();
+                Tipo tipo = nombre.endsWith(".xml") ? Tipo.XML : Tipo.CADENA;
+                Matcher folioEnNombre = FOLIO_EN_NOMBRE.matcher(nombre);
+                String folio = folioEnNombre.find()
+                        ? folioEnNombre.group(1) + "-" + folioEnNombre.group(2) + "-" + folioEnNombre.group(3)
+                        : nombre.substring(0, nombre.lastIndexOf('.'));
+                String periodo = periodo(folio).orElseGet(() -> mesDeModificacion(archivo));
+
+                long bytes = Files.size(archivo);
+                String ubicacion = guardar(folio, tipo, Files.readString(archivo, StandardCharsets.UTF_8), periodo);
+                if (tipo == Tipo.XML) {
+                    titulosActualizados += tituloRepository.actualizarXmlPath(ubicacion,
+                            List.of(Paths.get(directorioSueltos).resolve(nombre).toString(), archivo.toString()));
+                }
+                Files.delete(archivo);
+                archivos++;
+                bytesSueltos += bytes;
+            }
+        }
+        if (archivos > 0) {
+            log.info("Migrados {} archivos sueltos ({} bytes) al archivo de títulos; {} títulos actualizados",
+                    archivos, bytesSueltos, titulosActualizados);
+        }
+        return new Migracion(archivos, bytesSueltos, titulosActualizados);
+    }
+
+    // ==================== Segmentos ====================
+
+    private String guardar(String folio, Tipo tipo, String contenido, String periodo) throws IOException {
+        byte[] comprimido = comprimir(contenido);
+        Path carpeta = Files.createDirectories(raiz().resolve(periodo));
+        ReentrantLock candado = candados.computeIfAbsent(periodo, p -> new ReentrantLock());
+        candado.lock();
+        try {
+            Path segmento = segmentoVigente(carpeta);
+            try (FileChannel datos = FileChannel.open(segmento, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignorado = datos.lock()) {
+                long posicion = datos.size();
+                escribir(datos, ByteBuffer.wrap(comprimido), posicion);
+                datos.force(false);
+
+                String nombre = nombreSegmento(segmento);
+                String entrada = clave(folio, tipo) + "\t" + posicion + "\t" + comprimido.length + "\n";
+                try (FileChannel indice = FileChannel.open(carpeta.resolve(nombre + ".idx"),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    indice.write(ByteBuffer.wrap(entrada.getBytes(StandardCharsets.UTF_8)));
+                    indice.force(false);
+                }
+                return PREFIJO + periodo + "/" + nombre + "#" + posicion + "+" + comprimido.length;
+            }
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    private Path segmentoVigente(Path carpeta) throws IOException {
+        int ultimo = 0;
+        try (DirectoryStream<Path> segmentos = Files.newDirectoryStream(carpeta, "segmento-*.gz")) {
+            for (Path segmento : segmentos) {
+                Matcher m = SEGMENTO.matcher(segmento.getFileName().toString());
+                if (m.matches()) {
+                    ultimo = Math.max(ultimo, Integer.parseInt(m.group(1)));
+                }
+            }
+        }
+        if (ultimo == 0) {
+            return carpeta.resolve(String.format("segmento-%05d.gz", 1));
+        }
+        Path actual = carpeta.resolve(String.format("segmento-%05d.gz", ultimo));
+        return Files.size(actual) >= segmentoMaxMb * 1024 * 1024
+                ? carpeta.resolve(String.format("segmento-%05d.gz", ultimo + 1))
+                : actual;
+    }
+
+    /**
+     * Bytes comprimidos del registro en una ubicación.
+     */
+    private Optional<byte[]> registro(String ubicacion) throws IOException {
+        Matcher m = UBICACION.matcher(ubicacion == null ? "" : ubicacion);
+        if (!m.matches()) {
+            return Optional.empty();
+        }
+        Path segmento = raiz().resolve(m.group(1)).resolve(m.group(2) + ".gz");
+        long posicion = Long.parseLong(m.group(3));
+        ByteBuffer bufer = ByteBuffer.allocate(Integer.parseInt(m.group(4)));
+        try (FileChannel datos = FileChannel.open(segmento, StandardOpenOption.READ)) {
+            while (bufer.hasRemaining()) {
+                if (datos.read(bufer, posicion + bufer.position()) < 0) {
+                    throw new IOException("Registro truncado en " + segmento + " en la posición " + posicion);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        return Optional.of(bufer.array());
+    }
+
+    private static void escribir(FileChannel canal, ByteBuffer bufer, long posicion) throws IOException {
+        while (bufer.hasRemaining()) {
+            posicion += canal.write(bufer, posicion);
+        }
+    }
+
+    private static byte[] comprimir(String contenido) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(contenido.getBytes(StandardCharsets.UTF_8));
+        }
+        return salida.toByteArray();
+    }
+
+    // ==================== Índice ====================
+
+    private IndicePeriodo indice(String periodo) throws IOException {
+        IndicePeriodo indice = indices.computeIfAbsent(periodo, p -> new IndicePeriodo(raiz().resolve(p)));
+        indice.actualizar();
+        return indice;
+    }
+
+    private List<String> periodos() {
+        List<String> periodos = new ArrayList<>();
+        try (DirectoryStream<Path> carpetas = Files.newDirectoryStream(raiz(), Files::isDirectory)) {
+            carpetas.forEach(c -> periodos.add(c.getFileName().toString()));
+        } catch (IOException e) {
+            return List.of();
+        }
+        periodos.sort(null);
+        return periodos;
+    }
+
+    /**
+     * Índice de un mes en memoria. Se completa leyendo solo lo que los .idx crecieron
+     * desde la última consulta (otras instancias también anexan). La lectura de los .idx
+     * se serializa con un ReentrantLock y no con synchronized, que fija el hilo virtual
+     * a su portador mientras dura la E/S.
+     */
+    private static final class IndicePeriodo {
+        private final Path carpeta;
+        private final Map<String, String> ubicaciones = new ConcurrentHashMap<>();
+        private final Map<String, Long> leidos = new ConcurrentHashMap<>();
+        private final ReentrantLock candado = new ReentrantLock();
+
+        IndicePeriodo(Path carpeta) {
+            this.carpeta = carpeta;
+        }
+
+        Optional<String> buscar(String clave) {
+            return Optional.ofNullable(ubicaciones.get(clave));
+        }
+
+        void actualizar() throws IOException {
+            candado.lock();
+            try {
+                if (!Files.isDirectory(carpeta)) {
+                    return;
+                }
+                List<Path> archivos = new ArrayList<>();
+                try (DirectoryStream<Path> indices = Files.newDirectoryStream(carpeta, "segmento-*.idx")) {
+                    indices.forEach(archivos::add);
+                }
+                archivos.sort(null);
+                for (Path idx : archivos) {
+                    String nombre = idx.getFileName().toString();
+                    String segmento = nombre.substring(0, nombre.length() - ".idx".length());
+                    long desde = leidos.getOrDefault(segmento, 0L);
+                    if (Files.size(idx) <= desde) {
+                        continue;
+                    }
+                    try (FileChannel canal = FileChannel.open(idx, StandardOpenOption.READ)) {
+                        ByteBuffer bufer = ByteBuffer.allocate((int) (canal.size() - desde));
+                        while (bufer.hasRemaining() && canal.read(bufer, desde + bufer.position()) >= 0) {
+                            // lee hasta el final
+                        }
+                        String texto = new String(bufer.array(), 0, bufer.position(), StandardCharsets.UTF_8);
+                        // Solo líneas completas: una escritura en curso se toma en la siguiente consulta
+                        int fin = texto.lastIndexOf('\n') + 1;
+                        for (String linea : texto.substring(0, fin).split("\n")) {
+                            String[] campos = linea.split("\t");
+                            if (campos.length == 4) {
+                                ubicaciones.put(campos[0] + "\t" + campos[1], PREFIJO + carpeta.getFileName() + "/"
+                                        + segmento + "#" + campos[2] + "+" + campos[3]);
+                            }
+                        }
+                        leidos.put(segmento, desde + texto.substring(0, fin).getBytes(StandardCharsets.UTF_8).length);
+                    }
+                }
+            } finally {
+                candado.unlock();
+            }
+        }
+    }
+
+    // ==================== Utilidades ====================
+
+    private Path raiz() {
+        return Paths.get(directorio).toAbsolutePath().normalize();
+    }
+
+    private static String clave(String folio, Tipo tipo) {
+        return folio + "\t" + tipo.name();
+    }
+
+    private static String nombreSegmento(Path segmento) {
+        String nombre = segmento.getFileName().toString();
+        return nombre.substring(0, nombre.length() - ".gz".length());
+    }
+
+    static Optional<String> periodo(String folio) {
+        Matcher m = PERIODO_FOLIO.matcher(folio == null ? "" : folio);
+        return m.find() ? Optional.of(m.group(1) + "-" + m.group(2)) : Optional.empty();
+    }
+
+    private static String mesDeModificacion(Path archivo) {
+        try {
+            return LocalDate.ofInstant(Files.getLastModifiedTime(archivo).toInstant(), ZoneId.systemDefault()).format(MES);
+        } catch (IOException e) {
+            return LocalDate.now().format(MES);
+        }
+    }
+
+    /**
+     * @param titulosActualizados títulos cuyo xmlPath apuntaba a un archivo migrado
+     */
+    public record Migracion(int archivos, long bytesSueltos, int titulosActualizados) {
+    }
+}
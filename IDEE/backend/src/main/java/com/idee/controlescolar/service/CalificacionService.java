@@ -20,14 +20,18 @@ import java.util.Optional;
  * - REGISTRAR_CALIFICACIONES: MAESTRO, SECRETARIA_ACADEMICA
  * - EDITAR_CALIFICACIONES: SECRETARIA_ACADEMICA (solo si no está confirmada)
  * - CONFIRMAR_CALIFICACIONES: SECRETARIA_ACADEMICA
+ *
+ * Las consultas son de solo lectura (sin flush ni revisión de cambios al cerrar);
+ * solo las escrituras abren una transacción de lectura/escritura.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
+@Transactional(readOnly = true)
 public class CalificacionService {
 
     private final CalificacionRepository calificacionRepository;
+    private final MetricasNegocio metricas;
 
     /**
      * Obtener todas las calificaciones
@@ -59,6 +63,7 @@ public class CalificacionService {
      * @return Calificación creada
      * @throws IllegalArgumentException si los datos son inválidos
      */
+    @Transactional
     public Calificacion crear(Calificacion calificacion) {
         log.info("Creando nueva calificación para alumno ID: {}, asignatura ID: {}",
             calificacion.getAlumno() != null ? calificacion.getAlumno().getId() : null,
@@ -87,6 +92,7 @@ public class CalificacionService {
         }
 
         Calificacion guardada = calificacionRepository.save(calificacion);
+        metricas.calificacionEscrita("crear");
         log.info("Calificación creada exitosamente con ID: {}", guardada.getId());
         return guardada;
     }
@@ -101,6 +107,7 @@ public class CalificacionService {
      * @return Calificación actualizada
      * @throws IllegalArgumentException si no existe o está confirmada
      */
+    @Transactional
     public Calificacion actualizar(Long id, Calificacion calificacionActualizada) {
         log.info("Actualizando calificación con ID: {}", id);
 
@@ -141,6 +148,7 @@ public class CalificacionService {
         }
 
         Calificacion guardada = calificacionRepository.save(calificacionExistente);
+        metricas.calificacionEscrita("actualizar");
         log.info("Calificación actualizada exitosamente con ID: {}", id);
         return guardada;
     }
@@ -153,6 +161,7 @@ public class CalificacionService {
      * @param id ID de la calificación
      * @throws IllegalArgumentException si no existe o ya está confirmada
      */
+    @Transactional
     public void confirmar(Long id) {
         log.info("Confirmando calificación con ID: {}", id);
 
@@ -165,6 +174,7 @@ public class CalificacionService {
         calificacion.setConfirmada(true);
         calificacion.setEstadoAprobacion(Calificacion.EstadoAprobacion.CONFIRMADA);
         calificacionRepository.save(calificacion);
+        metricas.calificacionEscrita("confirmar");
 
         log.info("Calificación confirmada exitosamente con ID: {}", id);
     }
@@ -177,6 +187,7 @@ public class CalificacionService {
      * @param id ID de la calificación
      * @throws IllegalArgumentException si no existe o está confirmada
      */
+    @Transactional
     public void eliminar(Long id) {
         log.info("Eliminando calificación con ID: {}", id);
 
@@ -187,6 +198,7 @@ public class CalificacionService {
         }
 
         calificacionRepository.deleteById(id);
+        metricas.calificacionEscrita("eliminar");
         log.info("Calificación eliminada exitosamente con ID: {}", id);
     }
 
@@ -0,0 +1,112 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.model.Asignatura;
+import com.idee.controlescolar.model.CatalogoVersion;
+import com.idee.controlescolar.model.ConfiguracionInstitucional;
+import com.idee.controlescolar.model.ProgramaEducativo;
+import com.idee.controlescolar.model.ResponsableFirma;
+import com.idee.controlescolar.repository.CatalogoVersionRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Invalidación de la caché de segundo nivel de los catálogos.
+ *
+ * La caché es de cada instancia (Caffeine en memoria). En la instancia que escribe,
+ * Hibernate invalida las entidades modificadas a través de JPA y los métodos evictar*,
+ * llamados desde las rutas de escritura de los controladores, descartan además las
+ * consultas cacheadas del catálogo.
+ *
+ * Las demás instancias no se enteran por la caché: cada
+ * catalogos.cache.intervalo-verificacion-ms leen los contadores de catalogo_versiones
+ * (los incrementa CatalogoVersionService al confirmar un cambio) e invalidan el catálogo
+ * cuyo contador se movió. Una instancia sirve datos viejos a lo más ese intervalo más el
+ * retraso de la réplica. Un cambio con SQL directo se propaga igual si incrementa la
+ * fila de su tabla.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogoCacheService {
+
+    /**
+     * Regiones de la caché de consultas, una por catálogo
+     */
+    public static final String REGION_PROGRAMAS = "consultas-programas";
+    public static final String REGION_ASIGNATURAS = "consultas-asignaturas";
+    public static final String REGION_RESPONSABLES = "consultas-responsables";
+    public static final String REGION_CONFIGURACION = "consultas-configuracion";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CatalogoVersionRepository catalogoVersionRepository;
+
+    /**
+     * Último contador visto de cada tabla
+     */
+    private final Map<String, Long> versionesVistas = new ConcurrentHashMap<>();
+
+    public void evictarProgramas() {
+        evictar(ProgramaEducativo.class, REGION_PROGRAMAS);
+    }
+
+    public void evictarAsignaturas() {
+        evictar(Asignatura.class, REGION_ASIGNATURAS);
+    }
+
+    public void evictarResponsables() {
+        evictar(ResponsableFirma.class, REGION_RESPONSABLES);
+    }
+
+    public void evictarConfiguracion() {
+        evictar(ConfiguracionInstitucional.class, REGION_CONFIGURACION);
+    }
+
+    /**
+     * Invalida los catálogos cuyo contador cambió desde la verificación anterior. La
+     * primera vez que ve una tabla también la invalida: no sabe de qué versión es lo que
+     * se cacheó antes.
+     */
+    @Scheduled(fixedDelayString = "${catalogos.cache.intervalo-verificacion-ms:5000}",
+               initialDelayString = "${catalogos.cache.intervalo-verificacion-ms:5000}")
+    public void verificarVersiones() {
+        List<CatalogoVersion> versiones;
+        try {
+            versiones = catalogoVersionRepository.findAll();
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron leer las versiones de los catálogos: {}", e.getMessage());
+            return;
+        }
+        for (CatalogoVersion version : versiones) {
+            Long anterior = versionesVistas.put(version.getTabla(), version.getVersion());
+            if (!version.getVersion().equals(anterior)) {
+                evictarTabla(version.getTabla());
+            }
+        }
+    }
+
+    private void evictarTabla(String tabla) {
+        switch (tabla) {
+            case "programas_educativos" -> evictarProgramas();
+            case "asignaturas" -> evictarAsignaturas();
+            case "responsables_firma" -> evictarResponsables();
+            case "configuracion_institucional" -> evictarConfiguracion();
+            default -> {
+                // maestros y demás tablas sin caché de segundo nivel
+            }
+        }
+    }
+
+    private void evictar(Class<?> entidad, String regionConsultas) {
+        entityManagerFactory.getCache().evict(entidad);
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion(regionConsultas);
+        log.debug("Caché invalidada: {} / {}", entidad.getSimpleName(), regionConsultas);
+    }
+}
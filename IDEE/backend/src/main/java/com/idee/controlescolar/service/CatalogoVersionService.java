@@ -0,0 +1,229 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.model.Asignatura;
+import com.idee.controlescolar.model.CatalogoVersion;
+import com.idee.controlescolar.model.ConfiguracionInstitucional;
+import com.idee.controlescolar.model.Maestro;
+import com.idee.controlescolar.model.ProgramaEducativo;
+import com.idee.controlescolar.model.ResponsableFirma;
+import com.idee.controlescolar.repository.CatalogoVersionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Versiones de los catálogos para responder GET condicionales (ETag / If-None-Match).
+ *
+ * Cada tabla de catálogo tiene una fila en catalogo_versiones con un contador. Cuando
+ * una transacción inserta, modifica o borra filas de la tabla, el contador se
+ * incrementa en esa misma transacción, justo antes de confirmarla: si se revierte,
+ * el contador no cambia. El ETag de un listado combina los contadores de las tablas
+ * que aparecen en su JSON (TABLAS_POR_RAIZ), leídos de la base de datos; así todas
+ * las instancias emiten el mismo ETag para los mismos datos y el cambio confirmado
+ * en una se ve en las demás.
+ *
+ * Los endpoints leen el contador y el listado con responder, en una sola transacción
+ * de solo lectura: una conexión, así que ambos salen del mismo servidor (primaria o una
+ * réplica) y el ETag nunca acompaña a un listado de otra versión. Por lo mismo esos
+ * listados no usan la caché de segundo nivel, que es de cada instancia. Un GET
+ * condicional sigue leyendo los contadores de la BD (una consulta por llave primaria),
+ * pero no el listado.
+ *
+ * Los cambios hechos fuera de JPA (SQL directo, actualizaciones masivas JPQL) no
+ * incrementan el contador; quien los haga debe actualizar catalogo_versiones.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogoVersionService implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+        PostCollectionRemoveEventListener {
+
+    /**
+     * Tabla de cada entidad de catálogo. Los cambios en otras entidades no tocan los contadores.
+     * La configuración no tiene listado con ETag; su contador lo usa CatalogoCacheService.
+     */
+    static final Map<Class<?>, String> TABLAS = Map.of(
+            ProgramaEducativo.class, "programas_educativos",
+            Asignatura.class, "asignaturas",
+            Maestro.class, "maestros",
+            ResponsableFirma.class, "responsables_firma",
+            ConfiguracionInstitucional.class, "configuracion_institucional");
+
+    /**
+     * Tablas incluidas en el JSON del listado de cada raíz. Las colecciones perezosas
+     * no se serializan, así que solo cuentan las relaciones que carga la consulta.
+     */
+    static final Map<Class<?>, List<String>> TABLAS_POR_RAIZ = Map.of(
+            ProgramaEducativo.class, List.of("programas_educativos"),
+            Asignatura.class, List.of("asignaturas", "programas_educativos"),
+            Maestro.class, List.of("maestros"),
+            ResponsableFirma.class, List.of("responsables_firma"));
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CatalogoVersionRepository catalogoVersionRepository;
+
+    /**
+     * Tablas modificadas por cada sesión con transacción abierta; se vacía al terminarla.
+     */
+    private final Map<EventSource, Set<String>> pendientes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void registrar() {
+        EventListenerRegistry registro = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_INSERT, this);
+        registro.appendListeners(EventType.POST_UPDATE, this);
+        registro.appendListeners(EventType.POST_DELETE, this);
+        registro.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registro.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registro.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    /**
+     * ETag débil del listado de una entidad raíz.
+     *
+     * @param raiz Entidad que devuelve el endpoint
+     * @param variante Filtro aplicado (p. ej. programaId) o null
+     * @return ETag con comillas, listo para la cabecera
+     */
+    public String etag(Class<?> raiz, Object variante) {
+        List<String> tablas = TABLAS_POR_RAIZ.get(raiz);
+        if (tablas == null) {
+            throw new IllegalArgumentException("Sin versión de catálogo para " + raiz.getSimpleName());
+        }
+        Map<String, Long> versiones = catalogoVersionRepository.findAllById(tablas).stream()
+                .collect(Collectors.toMap(CatalogoVersion::getTabla, CatalogoVersion::getVersion));
+        StringBuilder etag = new StringBuilder("W/\"").append(raiz.getSimpleName()).append('-')
+                .append(tablas.stream().map(t -> String.valueOf(versiones.getOrDefault(t, 0L)))
+                        .collect(Collectors.joining(".")));
+        if (variante != null) {
+            etag.append('-').append(variante);
+        }
+        return etag.append('"').toString();
+    }
+
+    public String etag(Class<?> raiz) {
+        return etag(raiz, null);
+    }
+
+    /**
+     * Arma la respuesta del listado de una raíz con su ETag, en la misma transacción de
+     * solo lectura en que se leen los contadores.
+     *
+     * @param respuesta Recibe el ETag; si consulta el listado, lo hace en esa transacción
+     */
+    @Transactional(readOnly = true)
+    public <R> R responder(Class<?> raiz, Object variante, Function<String, R> respuesta) {
+        return respuesta.apply(etag(raiz, variante));
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        alConfirmar(event.getSession(), event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        alConfirmar(event.getSession(), event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        alConfirmar(event.getSession(), event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        alConfirmarColeccion(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        alConfirmarColeccion(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        alConfirmarColeccion(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void alConfirmarColeccion(AbstractCollectionEvent event) {
+        if (event.getAffectedOwnerEntityName() == null) {
+            return;
+        }
+        Class<?> duenio = event.getSession().getFactory().getMappingMetamodel()
+                .getEntityDescriptor(event.getAffectedOwnerEntityName()).getMappedClass();
+        alConfirmar(event.getSession(), duenio);
+    }
+
+    /**
+     * Anota la tabla para incrementar su contador antes de confirmar la transacción,
+     * después del último flush. Cada tabla se incrementa una vez por transacción
+     * aunque se hayan modificado muchas filas.
+     */
+    private void alConfirmar(EventSource sesion, Class<?> entidad) {
+        String tabla = TABLAS.get(entidad);
+        if (tabla == null) {
+            return;
+        }
+        Set<String> tablas = pendientes.get(sesion);
+        if (tablas == null) {
+            tablas = new LinkedHashSet<>();
+            pendientes.put(sesion, tablas);
+            sesion.getActionQueue().registerProcess(s -> incrementar(s, pendientes.remove(sesion)));
+            sesion.getActionQueue().registerProcess((exito, s) -> pendientes.remove(sesion));
+        }
+        tablas.add(tabla);
+    }
+
+    private void incrementar(SessionImplementor sesion, Set<String> tablas) {
+        if (tablas == null) {
+            return;
+        }
+        for (String tabla : tablas) {
+            int filas = sesion.createMutationQuery(
+                            "update CatalogoVersion set version = version + 1 where tabla = :tabla")
+                    .setParameter("tabla", tabla)
+                    .executeUpdate();
+            if (filas == 0) {
+                sesion.createMutationQuery("insert into CatalogoVersion (tabla, version) values (:tabla, 1)")
+                        .setParameter("tabla", tabla)
+                        .executeUpdate();
+            }
+        }
+    }
+}
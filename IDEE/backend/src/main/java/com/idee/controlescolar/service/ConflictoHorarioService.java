@@ -0,0 +1,530 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.dto.ConflictoHorarioDTO;
+import com.idee.controlescolar.model.HorarioBloque;
+import com.idee.controlescolar.model.HorarioBloque.DiaSemana;
+import com.idee.controlescolar.repository.HorarioBloqueRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Servicio de detección de traslapes de horario.
+ *
+ * Mantiene en memoria, por periodo, un árbol de intervalos por cada combinación
+ * (maestro | aula | grupo, día) con los bloques ACTIVOS. Así la validación de un
+ * alta o modificación cuesta O(log n) en lugar de recorrer todo el horario.
+ * El índice de un periodo se carga la primera vez que se consulta y se
+ * mantiene al guardar o eliminar bloques a través de este servicio. Cargarlo,
+ * recargarlo y modificarlo siempre ocurre bajo el candado de escritura del periodo.
+ *
+ * El índice solo protege a esta instancia. En PostgreSQL las restricciones de
+ * exclusión de V18 rechazan el traslape que venga de otro nodo; en ese caso el
+ * índice se recarga y el rechazo se reporta como cualquier otro conflicto.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ConflictoHorarioService {
+
+    public enum TipoRecurso {
+        MAESTRO,
+        AULA,
+        GRUPO
+    }
+
+    private final HorarioBloqueRepository horarioRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Un índice por periodo. computeIfAbsent solo crea el índice vacío; la consulta a la BD
+     * se hace después, bajo el candado del periodo, para no fijar el hilo virtual al portador.
+     */
+    private final Map<String, IndicePeriodo> indices = new ConcurrentHashMap<>();
+
+    /**
+     * Obtiene los traslapes que provocaría el bloque contra los bloques activos de su periodo.
+     *
+     * @param bloque Bloque nuevo o modificado (no necesita estar guardado)
+     * @return Lista de conflictos; vacía si el bloque puede guardarse
+     */
+    public List<ConflictoHorarioDTO> detectarConflictos(HorarioBloque bloque) {
+        validarBloque(bloque);
+        if (bloque.getEstatus() != HorarioBloque.EstatusHorario.ACTIVO) {
+            return List.of();
+        }
+        IndicePeriodo indice = obtenerIndice(bloque.getPeriodo());
+        indice.lock.readLock().lock();
+        try {
+            return indice.buscarConflictos(Entrada.de(bloque), bloque.getId());
+        } finally {
+            indice.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Guarda el bloque si no genera traslapes.
+     *
+     * La validación y el guardado se hacen bajo el candado de escritura del periodo,
+     * por lo que dos solicitudes concurrentes no pueden reservar el mismo hueco.
+     *
+     * @throws ConflictoHorarioException si el bloque se traslapa con otro bloque activo
+     */
+    public HorarioBloque guardar(HorarioBloque bloque) {
+        validarBloque(bloque);
+        boolean activo = bloque.getEstatus() == HorarioBloque.EstatusHorario.ACTIVO;
+        Entrada entrada = Entrada.de(bloque);
+
+        IndicePeriodo indice = indices.computeIfAbsent(bloque.getPeriodo(), p -> new IndicePeriodo());
+        HorarioBloque guardado;
+        indice.lock.writeLock().lock();
+        try {
+            if (indice.desactualizado) {
+                recargar(indice, bloque.getPeriodo());
+            }
+            if (activo) {
+                List<ConflictoHorarioDTO> conflictos = indice.buscarConflictos(entrada, bloque.getId());
+                if (!conflictos.isEmpty()) {
+                    throw new ConflictoHorarioException(conflictos);
+                }
+            }
+            try {
+                guardado = horarioRepository.save(bloque);
+            } catch (DataIntegrityViolationException e) {
+                throw conflictoDeOtroNodo(indice, bloque.getPeriodo(), entrada, bloque.getId(), e);
+            }
+            indice.remover(guardado.getId());
+            if (activo) {
+                indice.agregar(guardado.getId(), entrada);
+            }
+        } finally {
+            indice.lock.writeLock().unlock();
+        }
+
+        // Si el bloque cambió de periodo se retira del índice anterior
+        removerDeOtrosPeriodos(guardado.getId(), guardado.getPeriodo());
+        return guardado;
+    }
+
+    /**
+     * Guarda en una sola transacción un lote de bloques de un periodo (por ejemplo, un horario
+     * generado) si ninguno se traslapa con los bloques activos ni con otro del lote.
+     *
+     * Todo ocurre bajo el candado de escritura del periodo: el índice se recarga de la BD para
+     * ver también lo guardado por otras instancias, se valida el lote y se guarda. Si algún
+     * bloque choca no se guarda ninguno.
+     *
+     * @param cancelarActivos cancela antes, en la misma transacción, los bloques activos del periodo
+     * @return [bloques guardados, bloques cancelados]
+     * @throws ConflictoHorarioException si algún bloque del lote se traslapa
+     */
+    public int[] guardarLote(String periodo, List<HorarioBloque> bloques, boolean cancelarActivos) {
+        for (HorarioBloque bloque : bloques) {
+            validarBloque(bloque);
+            if (!periodo.equals(bloque.getPeriodo())) {
+                throw new IllegalArgumentException("Todos los bloques del lote deben ser del periodo " + periodo);
+            }
+        }
+
+        IndicePeriodo indice = indices.computeIfAbsent(periodo, p -> new IndicePeriodo());
+        List<Long> cancelados = new ArrayList<>();
+        indice.lock.writeLock().lock();
+        try {
+            recargar(indice, periodo);
+            try {
+                return transactionTemplate.execute(status -> guardarLote(indice, periodo, bloques,
+                        cancelarActivos, cancelados));
+            } catch (DataIntegrityViolationException e) {
+                throw conflictoDeOtroNodo(indice, periodo, bloques, cancelados, e);
+            } catch (RuntimeException e) {
+                // El índice pudo quedar con bloques de una transacción revertida
+                indice.desactualizado = true;
+                throw e;
+            }
+        } finally {
+            indice.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina el bloque y lo retira del índice.
+     */
+    public void eliminar(HorarioBloque bloque) {
+        horarioRepository.delete(bloque);
+        removerDeOtrosPeriodos(bloque.getId(), null);
+    }
+
+    /**
+     * Valida el horario completo de un periodo.
+     *
+     * Lee solo los campos necesarios de los bloques activos, los agrupa por
+     * recurso y día, y recorre cada grupo ordenado por hora de inicio
+     * (O(n log n + k)). También reconstruye el índice en memoria del periodo.
+     *
+     * @param periodo Periodo académico
+     * @return Todos los pares de bloques que se traslapan
+     */
+    public List<ConflictoHorarioDTO> validarPeriodo(String periodo) {
+        if (periodo == null || periodo.isBlank()) {
+            throw new IllegalArgumentException("El periodo es requerido");
+        }
+        IndicePeriodo indice = indices.computeIfAbsent(periodo, p -> new IndicePeriodo());
+        Map<Long, Entrada> entradas;
+        indice.lock.writeLock().lock();
+        try {
+            recargar(indice, periodo);
+            entradas = new HashMap<>(indice.entradas);
+        } finally {
+            indice.lock.writeLock().unlock();
+        }
+
+        Map<ClaveRecurso, List<Long>> porRecurso = new HashMap<>();
+        entradas.forEach((id, entrada) -> {
+            for (ClaveRecurso clave : entrada.claves()) {
+                porRecurso.computeIfAbsent(clave, k -> new ArrayList<>()).add(id);
+            }
+        });
+
+        List<ConflictoHorarioDTO> conflictos = new ArrayList<>();
+        for (Map.Entry<ClaveRecurso, List<Long>> grupo : porRecurso.entrySet()) {
+            barrer(grupo.getKey(), grupo.getValue(), entradas, conflictos);
+        }
+        log.info("Validación de horario {}: {} bloques activos, {} conflictos",
+                periodo, entradas.size(), conflictos.size());
+        return conflictos;
+    }
+
+    /**
+     * Marca el índice de un periodo para recargarlo de la BD en la siguiente consulta.
+     * Útil si los bloques se modificaron fuera de este servicio.
+     */
+    public void invalidarIndice(String periodo) {
+        IndicePeriodo indice = indices.get(periodo);
+        if (indice == null) {
+            return;
+        }
+        indice.lock.writeLock().lock();
+        try {
+            indice.desactualizado = true;
+        } finally {
+            indice.lock.writeLock().unlock();
+        }
+    }
+
+    // ==================== Métodos internos ====================
+
+    private void validarBloque(HorarioBloque bloque) {
+        if (bloque.getDia() == null || bloque.getHoraInicio() == null || bloque.getHoraFin() == null) {
+            throw new IllegalArgumentException("El día, la hora de inicio y la hora de fin son requeridos");
+        }
+        if (!bloque.getHoraFin().isAfter(bloque.getHoraInicio())) {
+            throw new IllegalArgumentException("La hora de fin debe ser posterior a la hora de inicio");
+        }
+        if (bloque.getMaestro() == null || bloque.getMaestro().getId() == null) {
+            throw new IllegalArgumentException("El maestro es requerido");
+        }
+        if (bloque.getPeriodo() == null || bloque.getPeriodo().isBlank()) {
+            throw new IllegalArgumentException("El periodo es requerido");
+        }
+        if (bloque.getEstatus() == null) {
+            bloque.setEstatus(HorarioBloque.EstatusHorario.ACTIVO);
+        }
+    }
+
+    /**
+     * Cuerpo transaccional de guardarLote; se ejecuta con el candado de escritura tomado.
+     */
+    private int[] guardarLote(IndicePeriodo indice, String periodo, List<HorarioBloque> bloques,
+                              boolean cancelarActivos, List<Long> cancelados) {
+        if (cancelarActivos) {
+            List<HorarioBloque> existentes = horarioRepository.findByPeriodo(periodo);
+            for (HorarioBloque bloque : existentes) {
+                if (bloque.getEstatus() == HorarioBloque.EstatusHorario.ACTIVO) {
+                    bloque.setEstatus(HorarioBloque.EstatusHorario.CANCELADO);
+                    indice.remover(bloque.getId());
+                    cancelados.add(bloque.getId());
+                }
+            }
+            horarioRepository.saveAll(existentes);
+        }
+
+        // Los bloques del lote aún no tienen id: entran al índice con ids negativos temporales
+        // para que cada uno se valide también contra los anteriores del lote
+        List<Entrada> entradas = new ArrayList<>(bloques.size());
+        List<ConflictoHorarioDTO> conflictos = new ArrayList<>();
+        long temporal = 0;
+        for (HorarioBloque bloque : bloques) {
+            Entrada entrada = Entrada.de(bloque);
+            if (bloque.getEstatus() == HorarioBloque.EstatusHorario.ACTIVO) {
+                conflictos.addAll(indice.buscarConflictos(entrada, null));
+                indice.agregar(--temporal, entrada);
+            }
+            entradas.add(entrada);
+        }
+        if (!conflictos.isEmpty()) {
+            throw new ConflictoHorarioException(conflictos);
+        }
+
+        List<HorarioBloque> guardados = horarioRepository.saveAll(bloques);
+        horarioRepository.flush();
+        for (long id = -1; id >= temporal; id--) {
+            indice.remover(id);
+        }
+        for (int i = 0; i < guardados.size(); i++) {
+            if (guardados.get(i).getEstatus() == HorarioBloque.EstatusHorario.ACTIVO) {
+                indice.agregar(guardados.get(i).getId(), entradas.get(i));
+            }
+        }
+        return new int[]{guardados.size(), cancelados.size()};
+    }
+
+    /**
+     * Índice del periodo, cargado de la BD si aún no lo está o si se invalidó.
+     */
+    private IndicePeriodo obtenerIndice(String periodo) {
+        IndicePeriodo indice = indices.computeIfAbsent(periodo, p -> new IndicePeriodo());
+        if (indice.desactualizado) {
+            indice.lock.writeLock().lock();
+            try {
+                if (indice.desactualizado) {
+                    recargar(indice, periodo);
+                }
+            } finally {
+                indice.lock.writeLock().unlock();
+            }
+        }
+        return indice;
+    }
+
+    /**
+     * Vuelve a llenar el índice con los bloques activos de la BD. Requiere el candado de
+     * escritura del periodo, así ningún guardar concurrente registra su bloque en un
+     * índice que está por descartarse.
+     */
+    private void recargar(IndicePeriodo indice, String periodo) {
+        indice.arboles.clear();
+        indice.entradas.clear();
+        for (HorarioBloqueRepository.IntervaloHorario intervalo : horarioRepository.findIntervalosActivosPorPeriodo(periodo)) {
+            indice.agregar(intervalo.getId(), new Entrada(
+                    intervalo.getDia(),
+                    segundos(intervalo.getHoraInicio()),
+                    segundos(intervalo.getHoraFin()),
+                    intervalo.getMaestroId(),
+                    normalizar(intervalo.getAula()),
+                    normalizar(intervalo.getGrupo())));
+        }
+        indice.desactualizado = false;
+    }
+
+    /**
+     * La BD rechazó el bloque por una restricción: si es por traslape, otro nodo guardó un
+     * bloque que este índice no tenía. Se recarga el índice para reportar el conflicto.
+     */
+    private RuntimeException conflictoDeOtroNodo(IndicePeriodo indice, String periodo, Entrada entrada,
+                                                 Long id, DataIntegrityViolationException e) {
+        recargar(indice, periodo);
+        return conflictoDeOtroNodo(indice.buscarConflictos(entrada, id), periodo, e);
+    }
+
+    /**
+     * Igual para un lote. Los bloques que el lote cancelaba siguen activos en la BD tras el
+     * rollback pero no cuentan como conflicto; se sacan del índice solo para la búsqueda y
+     * el índice queda marcado para recargarse.
+     */
+    private RuntimeException conflictoDeOtroNodo(IndicePeriodo indice, String periodo, List<HorarioBloque> bloques,
+                                                 List<Long> cancelados, DataIntegrityViolationException e) {
+        recargar(indice, periodo);
+        cancelados.forEach(indice::remover);
+        List<ConflictoHorarioDTO> conflictos = new ArrayList<>();
+        for (HorarioBloque bloque : bloques) {
+            conflictos.addAll(indice.buscarConflictos(Entrada.de(bloque), null));
+        }
+        if (!cancelados.isEmpty()) {
+            indice.desactualizado = true;
+        }
+        return conflictoDeOtroNodo(conflictos, periodo, e);
+    }
+
+    private static RuntimeException conflictoDeOtroNodo(List<ConflictoHorarioDTO> conflictos, String periodo,
+                                                        DataIntegrityViolationException e) {
+        if (conflictos.isEmpty()) {
+            return e;
+        }
+        log.warn("Traslape de horario en {} detectado por la BD; el índice estaba desactualizado", periodo);
+        return new ConflictoHorarioException(conflictos);
+    }
+
+    private void removerDeOtrosPeriodos(Long id, String periodoActual) {
+        indices.forEach((periodo, indice) -> {
+            if (periodo.equals(periodoActual)) {
+                return;
+            }
+            indice.lock.writeLock().lock();
+            try {
+                indice.remover(id);
+            } finally {
+                indice.lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Barrido sobre los bloques de un recurso ordenados por inicio: cada bloque se
+     * compara solo contra los que siguen abiertos cuando inicia.
+     */
+    private static void barrer(ClaveRecurso clave, List<Long> ids, Map<Long, Entrada> entradas,
+                               List<ConflictoHorarioDTO> conflictos) {
+        if (ids.size() < 2) {
+            return;
+        }
+        ids.sort(Comparator.comparingInt((Long id) -> entradas.get(id).inicio()).thenComparing(id -> id));
+        List<Long> abiertos = new ArrayList<>();
+        for (Long id : ids) {
+            Entrada actual = entradas.get(id);
+            Iterator<Long> it = abiertos.iterator();
+            while (it.hasNext()) {
+                Long abierto = it.next();
+                if (entradas.get(abierto).fin() <= actual.inicio()) {
+                    it.remove();
+                } else {
+                    conflictos.add(crearConflicto(clave, id, abierto, entradas.get(abierto)));
+                }
+            }
+            abiertos.add(id);
+        }
+    }
+
+    private static ConflictoHorarioDTO crearConflicto(ClaveRecurso clave, Long bloqueId,
+                                                      Long conflictoId, Entrada existente) {
+        return ConflictoHorarioDTO.builder()
+                .tipoRecurso(clave.tipo().name())
+                .recurso(clave.valor())
+                .dia(clave.dia())
+                .bloqueId(bloqueId)
+                .bloqueConflictoId(conflictoId)
+                .mensaje(String.format("%s %s ya está ocupado el %s de %s a %s (bloque %d)",
+                        clave.tipo().name(), clave.valor(), clave.dia().getNombre(),
+                        LocalTime.ofSecondOfDay(existente.inicio()),
+                        LocalTime.ofSecondOfDay(existente.fin()),
+                        conflictoId))
+                .build();
+    }
+
+    private static int segundos(LocalTime hora) {
+        return hora.toSecondOfDay();
+    }
+
+    private static String normalizar(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        return valor.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // ==================== Estructuras del índice ====================
+
+    private record ClaveRecurso(TipoRecurso tipo, String valor, DiaSemana dia) {
+    }
+
+    private record Entrada(DiaSemana dia, int inicio, int fin, Long maestroId, String aula, String grupo) {
+
+        static Entrada de(HorarioBloque bloque) {
+            return new Entrada(bloque.getDia(),
+                    segundos(bloque.getHoraInicio()),
+                    segundos(bloque.getHoraFin()),
+                    bloque.getMaestro().getId(),
+                    normalizar(bloque.getAula()),
+                    normalizar(bloque.getGrupo()));
+        }
+
+        List<ClaveRecurso> claves() {
+            List<ClaveRecurso> claves = new ArrayList<>(3);
+            if (maestroId != null) {
+                claves.add(new ClaveRecurso(TipoRecurso.MAESTRO, maestroId.toString(), dia));
+            }
+            if (aula != null) {
+                claves.add(new ClaveRecurso(TipoRecurso.AULA, aula, dia));
+            }
+            if (grupo != null) {
+                claves.add(new ClaveRecurso(TipoRecurso.GRUPO, grupo, dia));
+            }
+            return claves;
+        }
+    }
+
+    private static final class IndicePeriodo {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final Map<ClaveRecurso, ArbolIntervalos> arboles = new HashMap<>();
+        final Map<Long, Entrada> entradas = new HashMap<>();
+        /** Nace vacío y desactualizado; se carga bajo el candado de escritura. */
+        volatile boolean desactualizado = true;
+
+        void agregar(Long id, Entrada entrada) {
+            entradas.put(id, entrada);
+            for (ClaveRecurso clave : entrada.claves()) {
+                arboles.computeIfAbsent(clave, k -> new ArbolIntervalos())
+                        .insertar(id, entrada.inicio(), entrada.fin());
+            }
+        }
+
+        void remover(Long id) {
+            if (id == null) {
+                return;
+            }
+            Entrada entrada = entradas.remove(id);
+            if (entrada == null) {
+                return;
+            }
+            for (ClaveRecurso clave : entrada.claves()) {
+                ArbolIntervalos arbol = arboles.get(clave);
+                if (arbol != null) {
+                    arbol.eliminar(id, entrada.inicio());
+                    if (arbol.tamanio() == 0) {
+                        arboles.remove(clave);
+                    }
+                }
+            }
+        }
+
+        List<ConflictoHorarioDTO> buscarConflictos(Entrada entrada, Long idExcluido) {
+            List<ConflictoHorarioDTO> conflictos = new ArrayList<>();
+            for (ClaveRecurso clave : entrada.claves()) {
+                ArbolIntervalos arbol = arboles.get(clave);
+                if (arbol == null) {
+                    continue;
+                }
+                for (Long conflictoId : arbol.buscarTraslapes(entrada.inicio(), entrada.fin(), idExcluido)) {
+                    conflictos.add(crearConflicto(clave, idExcluido, conflictoId, entradas.get(conflictoId)));
+                }
+            }
+            return conflictos;
+        }
+    }
+
+    /**
+     * Se lanza cuando un bloque no puede guardarse por traslaparse con otros.
+     */
+    @Getter
+    public static class ConflictoHorarioException extends IllegalStateException {
+        private final transient List<ConflictoHorarioDTO> conflictos;
+
+        public ConflictoHorarioException(List<ConflictoHorarioDTO> conflictos) {
+            super("El bloque se traslapa con " + conflictos.size() + " bloque(s) existente(s)");
+            this.conflictos = conflictos;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.model.CorreoPendiente;
+import com.idee.controlescolar.model.CorreoPendiente.EstatusCorreo;
+import com.idee.controlescolar.repository.CorreoPendienteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Envía en segundo plano los correos de la bandeja de salida.
+ *
+ * Cada lote se toma con SELECT ... FOR UPDATE SKIP LOCKED y se envía por una sola
+ * conexión SMTP. Los fallidos se reintentan con espera exponencial hasta agotar
+ * los intentos. La entrega es "al menos una vez": si la instancia cae después de
+ * enviar y antes de confirmar, el lote se vuelve a enviar.
+ */
+@Service
+@Slf4j
+public class CorreoOutboxDispatcher {
+
+    private final CorreoPendienteRepository correoRepository;
+    private final ObjectProvider<JavaMailSender> mailSender;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong pendientes = new AtomicLong();
+    private final Counter enviados;
+    private final Counter reintentos;
+    private final Counter fallidos;
+    private final Timer tiempoLote;
+
+    @Value("${spring.mail.host:}")
+    private String mailHost;
+
+    @Value("${spring.mail.username:}")
+    private String mailFrom;
+
+    @Value("${correo.outbox.tamanio-lote:50}")
+    private int tamanioLote;
+
+    @Value("${correo.outbox.max-intentos:8}")
+    private int maxIntentos;
+
+    @Value("${correo.outbox.espera-base-segundos:30}")
+    private long esperaBaseSegundos;
+
+    public CorreoOutboxDispatcher(CorreoPendienteRepository correoRepository,
+                                  ObjectProvider<JavaMailSender> mailSender,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry) {
+        this.correoRepository = correoRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = transactionTemplate;
+        meterRegistry.gauge("correo.outbox.pendientes", pendientes);
+        this.enviados = meterRegistry.counter("correo.outbox.enviados");
+        this.reintentos = meterRegistry.counter("correo.outbox.reintentos");
+        this.fallidos = meterRegistry.counter("correo.outbox.fallidos");
+        this.tiempoLote = meterRegistry.timer("correo.outbox.lote");
+    }
+
+    @Scheduled(fixedDelayString = "${correo.outbox.intervalo-ms:5000}",
+               initialDelayString = "${correo.outbox.intervalo-ms:5000}")
+    public void despachar() {
+        JavaMailSender sender = mailSender.getIfAvailable();
+        if (sender == null || mailHost == null || mailHost.isBlank()) {
+            pendientes.set(correoRepository.countByEstatus(EstatusCorreo.PENDIENTE));
+            return;
+        }
+        try {
+            // Vacía la cola mientras los lotes salgan llenos y sin fallas
+            ResultadoLote resultado;
+            do {
+                resultado = tiempoLote.record(() -> despacharLote(sender));
+            } while (resultado.tomados() == tamanioLote && resultado.fallidos() == 0);
+        } catch (RuntimeException e) {
+            log.error("Error al despachar correos pendientes: {}", e.getMessage(), e);
+        } finally {
+            pendientes.set(correoRepository.countByEstatus(EstatusCorreo.PENDIENTE));
+        }
+    }
+
+    ResultadoLote despacharLote(JavaMailSender sender) {
+        return transactionTemplate.execute(estado -> {
+            LocalDateTime ahora = LocalDateTime.now();
+            List<CorreoPendiente> lote = correoRepository.findByEstatusAndSiguienteIntentoLessThanEqualOrderByIdAsc(
+                    EstatusCorreo.PENDIENTE, ahora, PageRequest.of(0, tamanioLote));
+            if (lote.isEmpty()) {
+                return new ResultadoLote(0, 0);
+            }
+
+            SimpleMailMessage[] mensajes = new SimpleMailMessage[lote.size()];
+            for (int i = 0; i < lote.size(); i++) {
+                mensajes[i] = crearMensaje(lote.get(i));
+            }
+
+            Map<Object, Exception> errores = Map.of();
+            Exception errorGeneral = null;
+            try {
+                sender.send(mensajes);
+            } catch (MailSendException e) {
+                errores = e.getFailedMessages();
+                errorGeneral = errores.isEmpty() ? e : null;
+            } catch (MailException e) {
+                errorGeneral = e;
+            }
+
+            int conError = 0;
+            for (int i = 0; i < lote.size(); i++) {
+                CorreoPendiente correo = lote.get(i);
+                Exception error = errorGeneral != null ? errorGeneral : errores.get(mensajes[i]);
+                if (error == null) {
+                    correo.setEstatus(EstatusCorreo.ENVIADO);
+                    correo.setFechaEnvio(ahora);
+                    correo.setUltimoError(null);
+                    enviados.increment();
+                } else {
+                    registrarFalla(correo, error, ahora);
+                    conError++;
+                }
+            }
+            correoRepository.saveAll(lote);
+            log.info("Lote de correos: {} enviados, {} con error", lote.size() - conError, conError);
+            return new ResultadoLote(lote.size(), conError);
+        });
+    }
+
+    private void registrarFalla(CorreoPendiente correo, Exception error, LocalDateTime ahora) {
+        int intentos = correo.getIntentos() + 1;
+        correo.setIntentos(intentos);
+        String mensaje = String.valueOf(error.getMessage());
+        correo.setUltimoError(mensaje.length() > 500 ? mensaje.substring(0, 500) : mensaje);
+        if (intentos >= maxIntentos) {
+            correo.setEstatus(EstatusCorreo.FALLIDO);
+            fallidos.increment();
+            log.warn("Correo {} a {} descartado tras {} intentos: {}",
+                    correo.getId(), correo.getDestinatario(), intentos, mensaje);
+            return;
+        }
+        // 30s, 1m, 2m, 4m... con tope de 1 hora
+        long espera = Math.min(esperaBaseSegundos << Math.min(intentos - 1, 20), Duration.ofHours(1).toSeconds());
+        correo.setSiguienteIntento(ahora.plusSeconds(espera));
+        reintentos.increment();
+    }
+
+    private SimpleMailMessage crearMensaje(CorreoPendiente correo) {
+        SimpleMailMessage mail = new SimpleMailMessage();
+        mail.setTo(correo.getDestinatario());
+        mail.setSubject(correo.getAsunto());
+        mail.setText(correo.getCuerpo());
+        if (mailFrom != null && !mailFrom.isBlank()) {
+            mail.setFrom(mailFrom);
+        }
+        return mail;
+    }
+
+    record ResultadoLote(int tomados, int fallidos) {
+    }
+}
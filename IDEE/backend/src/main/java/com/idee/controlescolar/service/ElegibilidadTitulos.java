@@ -0,0 +1,229 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.model.Alumno;
+import com.idee.controlescolar.model.Asignatura;
+import com.idee.controlescolar.model.DocumentoAlumno;
+import com.idee.controlescolar.model.ProgramaEducativo;
+import com.idee.controlescolar.repository.AlumnoRepository;
+import com.idee.controlescolar.repository.AlumnoRepository.CandidatoTitulo;
+import com.idee.controlescolar.repository.AsignaturaRepository;
+import com.idee.controlescolar.repository.CalificacionRepository;
+import com.idee.controlescolar.repository.ProgramaEducativoRepository;
+import com.idee.controlescolar.repository.TituloElectronicoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Revisa de una vez qué alumnos de un programa (o de un ciclo escolar del programa)
+ * pueden recibir título y qué le falta a cada uno.
+ *
+ * En lugar de validar alumno por alumno, hace cinco consultas para todo el grupo:
+ * candidatos, asignaturas activas del programa (caché de catálogos), calificaciones
+ * aprobatorias, documentos entregados y alumnos que ya tienen título. El cruce se hace
+ * en memoria, así que el costo no crece con consultas por alumno.
+ *
+ * Los bloqueos de cada alumno van ordenados por el orden de Requisito (primero lo que
+ * impide titular de plano, al final lo que es trámite) y los alumnos del reporte van
+ * primero los elegibles y luego los que tienen menos bloqueos.
+ */
+@Service
+@Slf4j
+public class ElegibilidadTitulos {
+
+    /**
+     * Requisitos en el orden en que se reportan.
+     */
+    public enum Requisito {
+        TITULO_EXISTENTE("Ya tiene un título vigente en el programa"),
+        ESTATUS_MATRICULA("La matrícula no tiene estatus EGRESADO"),
+        CURP("No tiene un CURP válido"),
+        CORREO("No tiene correo electrónico registrado"),
+        CALIFICACIONES_FALTANTES("Asignaturas del programa sin calificación aprobatoria"),
+        CALIFICACIONES_SIN_CONFIRMAR("Asignaturas aprobadas con calificación sin confirmar"),
+        DOCUMENTOS_FALTANTES("Documentos del expediente no entregados");
+
+        private final String descripcion;
+
+        Requisito(String descripcion) {
+            this.descripcion = descripcion;
+        }
+
+        public String getDescripcion() {
+            return descripcion;
+        }
+    }
+
+    private final AlumnoRepository alumnoRepository;
+    private final AsignaturaRepository asignaturaRepository;
+    private final CalificacionRepository calificacionRepository;
+    private final ProgramaEducativoRepository programaRepository;
+    private final TituloElectronicoRepository tituloRepository;
+
+    @Value("${titulos.elegibilidad.documentos:ACTA_NACIMIENTO,CURP,FOTOGRAFIAS}")
+    private List<DocumentoAlumno.TipoDocumento> documentosBase;
+
+    public ElegibilidadTitulos(AlumnoRepository alumnoRepository,
+                               AsignaturaRepository asignaturaRepository,
+                               CalificacionRepository calificacionRepository,
+                               ProgramaEducativoRepository programaRepository,
+                               TituloElectronicoRepository tituloRepository) {
+        this.alumnoRepository = alumnoRepository;
+        this.asignaturaRepository = asignaturaRepository;
+        this.calificacionRepository = calificacionRepository;
+        this.programaRepository = programaRepository;
+        this.tituloRepository = tituloRepository;
+    }
+
+    /**
+     * @param cicloEscolar ciclo escolar de los alumnos; null para todo el programa
+     * @throws IllegalArgumentException si el programa no existe
+     */
+    @Transactional(readOnly = true)
+    public Reporte evaluar(Long programaId, String cicloEscolar) {
+        ProgramaEducativo programa = programaRepository.findById(programaId)
+                .orElseThrow(() -> new IllegalArgumentException("Programa educativo no encontrado"));
+        String ciclo = cicloEscolar == null || cicloEscolar.isBlank() ? null : cicloEscolar;
+
+        List<CandidatoTitulo> candidatos = alumnoRepository.findCandidatosTitulo(programaId, ciclo);
+        List<Asignatura> asignaturas = asignaturaRepository.findByProgramaId(programaId).stream()
+                .filter(a -> a.getEstatus() != Asignatura.EstatusAsignatura.INACTIVA)
+                .toList();
+
+        Map<Long, Set<Long>> confirmadas = new HashMap<>();
+        Map<Long, Set<Long>> sinConfirmar = new HashMap<>();
+        for (CalificacionRepository.AsignaturaAprobada aprobada :
+                calificacionRepository.findAprobadasPorPrograma(programaId, ciclo)) {
+            (Boolean.TRUE.equals(aprobada.getConfirmada()) ? confirmadas : sinConfirmar)
+                    .computeIfAbsent(aprobada.getAlumnoId(), id -> new HashSet<>())
+                    .add(aprobada.getAsignaturaId());
+        }
+
+        Map<Long, Set<DocumentoAlumno.TipoDocumento>> entregados = new HashMap<>();
+        for (AlumnoRepository.DocumentoEntregado documento : alumnoRepository.findDocumentosEntregados(programaId, ciclo)) {
+            entregados.computeIfAbsent(documento.getAlumnoId(), id -> EnumSet.noneOf(DocumentoAlumno.TipoDocumento.class))
+                    .add(documento.getTipoDocumento());
+        }
+
+        Set<Long> conTitulo = new HashSet<>(tituloRepository.findAlumnosConTitulo(programaId));
+        Set<DocumentoAlumno.TipoDocumento> documentos = documentosRequeridos(programa.getTipoPrograma());
+
+        List<Resultado> alumnos = new ArrayList<>(candidatos.size());
+        for (CandidatoTitulo candidato : candidatos) {
+            List<Bloqueo> bloqueos = bloqueos(candidato, asignaturas, documentos, conTitulo,
+                    confirmadas.getOrDefault(candidato.getId(), Set.of()),
+                    sinConfirmar.getOrDefault(candidato.getId(), Set.of()),
+                    entregados.getOrDefault(candidato.getId(), Set.of()));
+            alumnos.add(new Resultado(candidato.getId(), candidato.getMatricula(), nombreCompleto(candidato),
+                    candidato.getEstatusMatricula(), bloqueos.isEmpty(), bloqueos));
+        }
+        alumnos.sort(Comparator.comparing((Resultado r) -> r.bloqueos().size())
+                .thenComparing(r -> r.bloqueos().isEmpty() ? 0 : r.bloqueos().get(0).requisito().ordinal())
+                .thenComparing(Resultado::matricula, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        long elegibles = alumnos.stream().filter(Resultado::elegible).count();
+        log.debug("Elegibilidad de títulos del programa {} (ciclo {}): {} de {} alumnos",
+                programaId, ciclo, elegibles, alumnos.size());
+        return new Reporte(programaId, programa.getClave(), ciclo, asignaturas.size(),
+                List.copyOf(documentos), alumnos.size(), elegibles, alumnos);
+    }
+
+    private static List<Bloqueo> bloqueos(CandidatoTitulo candidato,
+                                          List<Asignatura> asignaturas,
+                                          Set<DocumentoAlumno.TipoDocumento> documentos,
+                                          Set<Long> conTitulo,
+                                          Set<Long> confirmadas,
+                                          Set<Long> sinConfirmar,
+                                          Set<DocumentoAlumno.TipoDocumento> entregados) {
+        List<Bloqueo> bloqueos = new ArrayList<>();
+        if (conTitulo.contains(candidato.getId())) {
+            bloqueos.add(new Bloqueo(Requisito.TITULO_EXISTENTE, List.of()));
+        }
+        if (candidato.getEstatusMatricula() != Alumno.EstatusMatricula.EGRESADO) {
+            bloqueos.add(new Bloqueo(Requisito.ESTATUS_MATRICULA, candidato.getEstatusMatricula() == null
+                    ? List.of() : List.of(candidato.getEstatusMatricula().name())));
+        }
+        if (candidato.getCurp() == null || candidato.getCurp().length() != 18) {
+            bloqueos.add(new Bloqueo(Requisito.CURP, List.of()));
+        }
+        if (candidato.getCorreoInstitucional() == null && candidato.getCorreoPersonal() == null) {
+            bloqueos.add(new Bloqueo(Requisito.CORREO, List.of()));
+        }
+
+        List<String> faltantes = new ArrayList<>();
+        List<String> porConfirmar = new ArrayList<>();
+        for (Asignatura asignatura : asignaturas) {
+            if (confirmadas.contains(asignatura.getId())) {
+                continue;
+            }
+            (sinConfirmar.contains(asignatura.getId()) ? porConfirmar : faltantes).add(asignatura.getClave());
+        }
+        if (!faltantes.isEmpty()) {
+            bloqueos.add(new Bloqueo(Requisito.CALIFICACIONES_FALTANTES, faltantes));
+        }
+        if (!porConfirmar.isEmpty()) {
+            bloqueos.add(new Bloqueo(Requisito.CALIFICACIONES_SIN_CONFIRMAR, porConfirmar));
+        }
+
+        List<String> documentosFaltantes = documentos.stream()
+                .filter(d -> !entregados.contains(d))
+                .map(Enum::name)
+                .toList();
+        if (!documentosFaltantes.isEmpty()) {
+            bloqueos.add(new Bloqueo(Requisito.DOCUMENTOS_FALTANTES, documentosFaltantes));
+        }
+        return bloqueos;
+    }
+
+    /**
+     * Documentos de titulos.elegibilidad.documentos más el antecedente académico del nivel:
+     * certificado de bachillerato para licenciatura, título y cédula para posgrado.
+     */
+    Set<DocumentoAlumno.TipoDocumento> documentosRequeridos(ProgramaEducativo.TipoPrograma tipo) {
+        Set<DocumentoAlumno.TipoDocumento> documentos = new LinkedHashSet<>(documentosBase);
+        if (tipo == ProgramaEducativo.TipoPrograma.LICENCIATURA) {
+            documentos.add(DocumentoAlumno.TipoDocumento.CERTIFICADO_BACHILLERATO);
+        } else if (tipo == ProgramaEducativo.TipoPrograma.ESPECIALIDAD
+                || tipo == ProgramaEducativo.TipoPrograma.MAESTRIA
+                || tipo == ProgramaEducativo.TipoPrograma.DOCTORADO) {
+            documentos.add(DocumentoAlumno.TipoDocumento.TITULO_PROFESIONAL);
+            documentos.add(DocumentoAlumno.TipoDocumento.CEDULA_PROFESIONAL);
+        }
+        return documentos;
+    }
+
+    private static String nombreCompleto(CandidatoTitulo candidato) {
+        return String.join(" ", candidato.getNombre(), candidato.getApellidoPaterno(),
+                candidato.getApellidoMaterno() == null ? "" : candidato.getApellidoMaterno()).trim();
+    }
+
+    /**
+     * @param pendientes claves de asignatura, tipos de documento o el estatus actual,
+     *                   según el requisito
+     */
+    public record Bloqueo(Requisito requisito, List<String> pendientes) {
+        public String getDescripcion() {
+            return requisito.getDescripcion();
+        }
+    }
+
+    public record Resultado(Long alumnoId, String matricula, String nombreCompleto,
+                            Alumno.EstatusMatricula estatusMatricula, boolean elegible, List<Bloqueo> bloqueos) {
+    }
+
+    public record Reporte(Long programaId, String programaClave, String cicloEscolar, int asignaturasRequeridas,
+                          List<DocumentoAlumno.TipoDocumento> documentosRequeridos, int totalAlumnos,
+                          long elegibles, List<Resultado> alumnos) {
+    }
+}
@@ -1,35 +1,32 @@
 package com.idee.controlescolar.service;
 
+import com.idee.controlescolar.model.CorreoPendiente;
+import com.idee.controlescolar.repository.CorreoPendienteRepository;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Correos de la aplicación.
+ *
+ * No envía por SMTP: deja el correo en la bandeja de salida dentro de la transacción
+ * actual, de modo que solo existe si el cambio que lo origina se confirma.
+ * {@link CorreoOutboxDispatcher} lo envía en segundo plano.
+ */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class EmailService {
 
-    @Autowired(required = false)
-    private JavaMailSender mailSender;
-
-    @Value("${spring.mail.host:}")
-    private String mailHost;
-
-    @Value("${spring.mail.username:}")
-    private String mailFrom;
+    private final CorreoPendienteRepository correoRepository;
 
-    public void enviarCorreoInscripcion(String destinatario, String nombreAlumno) {
+    @Transactional
+    public void encolarCorreoInscripcion(String destinatario, String nombreAlumno) {
         if (destinatario == null || destinatario.isBlank()) {
             return;
         }
 
-        if (mailSender == null || mailHost == null || mailHost.isBlank()) {
-            log.warn("Correo no enviado (sin configuracion SMTP). Destinatario: {}", destinatario);
-            return;
-        }
-
         String asunto = "Continuar proceso de inscripcion";
         String nombre = nombreAlumno == null ? "estudiante" : nombreAlumno;
         String mensaje = "Hola " + nombre + ",\n\n"
@@ -37,16 +34,17 @@ public class EmailService {
             + "Por favor continua el proceso de inscripcion entregando tus documentos en la escuela.\n\n"
             + "Atentamente,\nIDEE Control Escolar";
 
-        SimpleMailMessage mail = new SimpleMailMessage();
-        mail.setTo(destinatario);
-        mail.setSubject(asunto);
-        mail.setText(mensaje);
-
-        if (mailFrom != null && !mailFrom.isBlank()) {
-            mail.setFrom(mailFrom);
-        }
+        encolar(destinatario, asunto, mensaje);
+    }
 
-        mailSender.send(mail);
-        log.info("Correo de inscripcion enviado a {}", destinatario);
+    @Transactional
+    public CorreoPendiente encolar(String destinatario, String asunto, String cuerpo) {
+        CorreoPendiente correo = new CorreoPendiente();
+        correo.setDestinatario(destinatario);
+        correo.setAsunto(asunto);
+        correo.setCuerpo(cuerpo);
+        CorreoPendiente guardado = correoRepository.save(correo);
+        log.debug("Correo encolado para {} ({})", destinatario, asunto);
+        return guardado;
     }
 }
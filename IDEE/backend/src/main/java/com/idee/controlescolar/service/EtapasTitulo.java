@@ -0,0 +1,46 @@
+package com.idee.controlescolar.service;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Observaciones (spans) de la generación de títulos: una raíz "titulo.generacion" por
+ * título y una "titulo.etapa" por cada paso (consultas, cadena original, llave privada,
+ * sello RSA, XML, archivo). Cada una se exporta como span OTLP, como timer
+ * titulo.etapa{etapa=...} en Prometheus y alimenta el desglose de TitulosLentosRegistro.
+ */
+@Component
+@RequiredArgsConstructor
+public class EtapasTitulo {
+
+    public static final String GENERACION = "titulo.generacion";
+    public static final String ETAPA = "titulo.etapa";
+
+    private final ObservationRegistry registry;
+
+    public <T, E extends Throwable> T titulo(Long alumnoId, Observation.CheckedCallable<T, E> generacion) throws E {
+        return Observation.createNotStarted(GENERACION, registry)
+                .contextualName("generar-titulo")
+                .highCardinalityKeyValue("alumno", String.valueOf(alumnoId))
+                .observeChecked(generacion);
+    }
+
+    public <T, E extends Throwable> T etapa(String nombre, Observation.CheckedCallable<T, E> etapa) throws E {
+        return Observation.createNotStarted(ETAPA, registry)
+                .contextualName(nombre)
+                .lowCardinalityKeyValue("etapa", nombre)
+                .observeChecked(etapa);
+    }
+
+    /**
+     * Agrega el folio a la observación del título en curso (llamar fuera de una etapa).
+     */
+    public void anotarFolio(String folio) {
+        Observation actual = registry.getCurrentObservation();
+        if (actual != null && GENERACION.equals(actual.getContextView().getName())) {
+            actual.highCardinalityKeyValue("folio", folio);
+        }
+    }
+}
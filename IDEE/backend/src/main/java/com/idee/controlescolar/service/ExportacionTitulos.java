@@ -0,0 +1,209 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.model.EstatusTitulo;
+import com.idee.controlescolar.repository.TituloElectronicoRepository;
+import com.idee.controlescolar.repository.TituloElectronicoRepository.TituloExportado;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exporta títulos en un ZIP (un {folio}.xml por título y un manifest.csv al final)
+ * escrito directo a la respuesta.
+ *
+ * Los títulos se recorren por lotes de id ascendente sin cargar xmlContent; cada XML se
+ * descomprime del archivo de títulos directo a su entrada del ZIP y solo los títulos
+ * anteriores al archivo se leen de BD, uno a la vez. El manifiesto se va escribiendo a
+ * un temporal en disco, así que la memoria no depende de cuántos títulos se exporten.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ExportacionTitulos {
+
+    private static final int LOTE = 500;
+    private static final String MANIFIESTO = "manifest.csv";
+    private static final String ENCABEZADO =
+            "folio_control,archivo,bytes,sha256,estatus,fecha_expedicion,matricula,curp,nombre,programa";
+
+    private final TituloElectronicoRepository tituloRepository;
+    private final ArchivoTitulos archivoTitulos;
+
+    /**
+     * Escribe el ZIP de los títulos que cumplen el filtro. No cierra la salida.
+     */
+    public Resumen exportarZip(Filtro filtro, OutputStream salida) throws IOException {
+        Path manifiesto = Files.createTempFile("manifest-titulos", ".csv");
+        int titulos = 0;
+        int sinXml = 0;
+        try {
+            ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(salida, 64 * 1024), StandardCharsets.UTF_8);
+            // XML comprime bien aun en el nivel más rápido; el cuello de botella es la CPU, no la red
+            zip.setLevel(Deflater.BEST_SPEED);
+            try (BufferedWriter filas = Files.newBufferedWriter(manifiesto, StandardCharsets.UTF_8)) {
+                filas.write(ENCABEZADO);
+                filas.newLine();
+
+                long despuesDe = 0;
+                List<TituloExportado> lote;
+                do {
+                    lote = tituloRepository.findLoteExportacion(despuesDe, filtro.estatus(), filtro.programaId(),
+                            filtro.desde(), filtro.hasta(), PageRequest.of(0, LOTE));
+                    for (TituloExportado titulo : lote) {
+                        Optional<Entrada> entrada = escribirXml(titulo, zip);
+                        if (entrada.isEmpty()) {
+                            sinXml++;
+                        }
+                        escribirFila(filas, titulo, entrada);
+                        titulos++;
+                        despuesDe = titulo.getId();
+                    }
+                } while (lote.size() == LOTE);
+            }
+
+            zip.putNextEntry(new ZipEntry(MANIFIESTO));
+            Files.copy(manifiesto, zip);
+            zip.closeEntry();
+            zip.finish();
+            zip.flush();
+        } finally {
+            Files.deleteIfExists(manifiesto);
+        }
+
+        if (sinXml > 0) {
+            log.warn("Exportación de títulos: {} de {} sin XML", sinXml, titulos);
+        }
+        log.info("Exportados {} títulos en ZIP", titulos);
+        return new Resumen(titulos, sinXml);
+    }
+
+    private Optional<Entrada> escribirXml(TituloExportado titulo, ZipOutputStream zip) throws IOException {
+        String nombre = titulo.getFolioControl() + ".xml";
+        if (ArchivoTitulos.esUbicacion(titulo.getXmlPath())) {
+            zip.putNextEntry(new ZipEntry(nombre));
+            ContadorSha256 contador = new ContadorSha256(zip);
+            boolean copiado = archivoTitulos.copiar(titulo.getXmlPath(), contador);
+            if (!copiado) {
+                // El segmento ya no existe: se toma el XML de BD en la misma entrada
+                log.warn("El XML del título {} no está en {}", titulo.getFolioControl(), titulo.getXmlPath());
+                Optional<String> xml = tituloRepository.findXmlContentById(titulo.getId());
+                if (xml.isPresent()) {
+                    contador.write(xml.get().getBytes(StandardCharsets.UTF_8));
+                    copiado = true;
+                }
+            }
+            zip.closeEntry();
+            return copiado ? Optional.of(contador.entrada(nombre)) : Optional.empty();
+        }
+
+        Optional<String> xml = tituloRepository.findXmlContentById(titulo.getId()).filter(x -> !x.isEmpty());
+        if (xml.isEmpty()) {
+            return Optional.empty();
+        }
+        zip.putNextEntry(new ZipEntry(nombre));
+        ContadorSha256 contador = new ContadorSha256(zip);
+        contador.write(xml.get().getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+        return Optional.of(contador.entrada(nombre));
+    }
+
+    private static void escribirFila(BufferedWriter filas, TituloExportado titulo, Optional<Entrada> entrada)
+            throws IOException {
+        String nombre = String.join(" ", titulo.getNombre(), titulo.getApellidoPaterno(),
+                titulo.getApellidoMaterno() == null ? "" : titulo.getApellidoMaterno()).trim();
+        filas.write(String.join(",",
+                csv(titulo.getFolioControl()),
+                csv(entrada.map(Entrada::nombre).orElse("")),
+                entrada.map(e -> String.valueOf(e.bytes())).orElse("0"),
+                entrada.map(Entrada::sha256).orElse(""),
+                csv(titulo.getEstatus() == null ? "" : titulo.getEstatus().name()),
+                titulo.getFechaExpedicion() == null ? "" : titulo.getFechaExpedicion().toString(),
+                csv(titulo.getMatricula()),
+                csv(titulo.getCurp()),
+                csv(nombre),
+                csv(titulo.getPrograma())));
+        filas.newLine();
+    }
+
+    static String csv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.contains(",") || valor.contains("\"") || valor.contains("\n") || valor.contains("\r")) {
+            return "\"" + valor.replace("\"", "\"\"") + "\"";
+        }
+        return valor;
+    }
+
+    /**
+     * Pasa los bytes a la entrada del ZIP contándolos y calculando su SHA-256; no cierra
+     * el ZIP.
+     */
+    private static final class ContadorSha256 extends FilterOutputStream {
+        private final MessageDigest sha256;
+        private long bytes;
+
+        ContadorSha256(OutputStream destino) {
+            super(destino);
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            sha256.update((byte) b);
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            sha256.update(b, off, len);
+            bytes += len;
+        }
+
+        @Override
+        public void close() {
+            // La entrada la cierra exportarZip
+        }
+
+        Entrada entrada(String nombre) {
+            return new Entrada(nombre, bytes, HexFormat.of().formatHex(sha256.digest()));
+        }
+    }
+
+    private record Entrada(String nombre, long bytes, String sha256) {
+    }
+
+    /**
+     * Filtros de la exportación; los nulos no se aplican.
+     */
+    public record Filtro(EstatusTitulo estatus, Long programaId, LocalDate desde, LocalDate hasta) {
+    }
+
+    public record Resumen(int titulos, int sinXml) {
+    }
+}
@@ -6,37 +6,176 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
 
+/**
+ * Archivos subidos (fotos y documentos de alumnos, antecedentes de maestros), guardados
+ * por contenido: la ruta es blobs/ab/cd/{sha256}.ext bajo file.upload-dir. Subir otra vez
+ * la misma acta o CURP devuelve la ruta del archivo que ya existe y no ocupa más disco;
+ * los archivos que dejan de referenciarse los borra RecolectorArchivos.
+ *
+ * Cada archivo se copia del multipart al disco por canales NIO con un búfer fijo de
+ * 64 KB, sin cargarlo completo en memoria: se corta al pasar de file.max-bytes y el
+ * SHA-256 se calcula mientras se escribe. Se escribe primero a blobs/.tmp y al terminar
+ * se mueve con un rename atómico, así que nunca queda visible un archivo a medias.
+ */
 @Service
 @Slf4j
 public class FileStorageService {
 
+    private static final int BUFER_BYTES = 64 * 1024;
+
+    static final String BLOBS = "blobs";
+    static final String TEMPORALES = ".tmp";
+
     @Value("${file.upload-dir:./uploads}")
     private String uploadDir;
 
-    public String storeAlumnoFile(Long alumnoId, MultipartFile file, String prefix) throws IOException {
+    @Value("${file.max-bytes:10485760}")
+    private long maxBytes;
+
+    public ArchivoGuardado guardar(MultipartFile file) throws IOException {
+        Path blobs = raiz().resolve(BLOBS);
+        Path temporales = Files.createDirectories(blobs.resolve(TEMPORALES));
+        Path temporal = temporales.resolve(UUID.randomUUID() + ".tmp");
+        try {
+            MessageDigest sha256 = sha256();
+            long bytes = copiar(file, temporal, sha256);
+            String hash = HexFormat.of().formatHex(sha256.digest());
+
+            Path directorio = Files.createDirectories(
+                    blobs.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)));
+            Path destino = directorio.resolve(hash + extension(nombreOriginal(file)));
+            boolean duplicado = !mover(temporal, destino);
+            if (duplicado) {
+                log.info("Archivo ya almacenado (mismo contenido): {}", destino);
+            } else {
+                log.info("Archivo almacenado en: {} ({} bytes)", destino, bytes);
+            }
+            return new ArchivoGuardado(destino, hash, bytes, duplicado);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Directorio raíz de los archivos subidos (file.upload-dir).
+     */
+    public Path raiz() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Lee un archivo pequeño que se guarda en BD (certificado y llave de la institución)
+     * sin aceptar más de limite bytes.
+     */
+    public byte[] leerLimitado(MultipartFile file, int limite) throws IOException {
+        try (InputStream entrada = file.getInputStream()) {
+            byte[] datos = entrada.readNBytes(limite + 1);
+            if (datos.length > limite) {
+                throw new IllegalArgumentException("El archivo " + nombreOriginal(file)
+                        + " excede el tamaño máximo de " + limite + " bytes");
+            }
+            return datos;
+        }
+    }
+
+    private long copiar(MultipartFile file, Path temporal, MessageDigest sha256) throws IOException {
+        ByteBuffer bufer = ByteBuffer.allocateDirect(BUFER_BYTES);
+        long total = 0;
+        try (ReadableByteChannel entrada = Channels.newChannel(file.getInputStream());
+             FileChannel salida = FileChannel.open(temporal, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            while (entrada.read(bufer) != -1) {
+                bufer.flip();
+                total += bufer.remaining();
+                if (total > maxBytes) {
+                    throw new IllegalArgumentException("El archivo " + nombreOriginal(file)
+                            + " excede el tamaño máximo de " + maxBytes + " bytes");
+                }
+                sha256.update(bufer.duplicate());
+                while (bufer.hasRemaining()) {
+                    salida.write(bufer);
+                }
+                bufer.clear();
+            }
+            salida.force(true);
+        }
+        return total;
+    }
+
+    /**
+     * @return false si el destino ya existía (mismo hash, mismo contenido)
+     */
+    private static boolean mover(Path temporal, Path destino) throws IOException {
+        try {
+            // Renueva la gracia de RecolectorArchivos: el archivo vuelve a estar en uso
+            Files.setLastModifiedTime(destino, FileTime.from(Instant.now()));
+            return false;
+        } catch (NoSuchFileException e) {
+            // No existe (o el recolector lo acaba de borrar): se mueve el nuevo
+        }
+        try {
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } catch (AtomicMoveNotSupportedException e) {
+            // blobs/.tmp está en el mismo volumen: solo ocurre en sistemas sin rename atómico
+            try {
+                Files.move(temporal, destino);
+                return true;
+            } catch (FileAlreadyExistsException existente) {
+                return false;
+            }
+        }
+    }
+
+    private static String nombreOriginal(MultipartFile file) {
         String originalName = file.getOriginalFilename();
         if (originalName == null || originalName.isBlank()) {
-            originalName = "archivo";
-        } else {
-            originalName = Paths.get(originalName).getFileName().toString();
+            return "archivo";
         }
+        return Paths.get(originalName).getFileName().toString();
+    }
 
-        String safePrefix = prefix == null ? "documento" : prefix;
-        String filename = safePrefix + "_" + System.currentTimeMillis() + "_" + originalName;
-
-        Path baseDir = Paths.get(uploadDir).toAbsolutePath().normalize()
-                .resolve("alumnos")
-                .resolve(String.valueOf(alumnoId));
-        Files.createDirectories(baseDir);
+    private static String extension(String nombre) {
+        int punto = nombre.lastIndexOf('.');
+        if (punto <= 0 || punto == nombre.length() - 1) {
+            return "";
+        }
+        String extension = nombre.substring(punto).toLowerCase();
+        return extension.matches("\\.[a-z0-9]{1,10}") ? extension : "";
+    }
 
-        Path destino = baseDir.resolve(filename);
-        Files.copy(file.getInputStream(), destino, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
 
-        log.info("Archivo almacenado en: {}", destino);
-        return destino.toString();
+    /**
+     * @param duplicado true si ya había un archivo con el mismo contenido y se reutilizó
+     */
+    public record ArchivoGuardado(Path ruta, String sha256, long bytes, boolean duplicado) {
     }
 }
@@ -0,0 +1,123 @@
+package com.idee.controlescolar.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Folios de control de los títulos: IDEE-{yyyyMMddHHmmss}-{número de 10 dígitos}-{verificador},
+ * p. ej. IDEE-20261019083345-0000000101-6.
+ *
+ * El número sale de la secuencia folios_titulos_seq (V15) en bloques de BLOQUE: un
+ * nextval reserva el bloque completo y los folios del bloque se reparten con un
+ * AtomicLong sin candados ni consultas. Solo al agotarse un bloque se pide otro. Como la
+ * secuencia no entrega el mismo bloque a dos instancias, el folio es único sin revisar
+ * en BD; crece en cada nodo pero no es consecutivo entre nodos ni entre reinicios.
+ *
+ * El dígito verificador (Luhn sobre el número) permite detectar un folio mal capturado.
+ * La fecha se conserva para leerla a simple vista y porque ArchivoTitulos agrupa por mes.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FolioService {
+
+    /** Tamaño del bloque; igual al INCREMENT BY de folios_titulos_seq. */
+    static final int BLOQUE = 100;
+
+    private static final String PREFIJO = "IDEE";
+    private static final DateTimeFormatter FECHA = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final Pattern FOLIO = Pattern.compile("^[A-Z]+-\\d{14}-(\\d{10})-(\\d)$");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Bloque vacío: el primer folio reserva uno. */
+    private final AtomicReference<Bloque> bloque = new AtomicReference<>(new Bloque(1, 0));
+
+    /**
+     * Serializa la reserva de bloques. ReentrantLock y no synchronized: reservar() espera
+     * a la BD y synchronized fijaría el hilo virtual a su portador durante la consulta.
+     */
+    private final ReentrantLock candado = new ReentrantLock();
+
+    public String siguienteFolio() {
+        String numero = String.format("%010d", siguienteNumero());
+        return PREFIJO + "-" + LocalDateTime.now().format(FECHA) + "-" + numero + "-" + digitoVerificador(numero);
+    }
+
+    long siguienteNumero() {
+        while (true) {
+            Bloque actual = bloque.get();
+            long numero = actual.siguiente.getAndIncrement();
+            if (numero <= actual.ultimo) {
+                return numero;
+            }
+            // Agotado: un solo hilo reserva el siguiente; los demás reintentan con el nuevo
+            candado.lock();
+            try {
+                if (bloque.get() == actual) {
+                    bloque.set(reservar());
+                }
+            } finally {
+                candado.unlock();
+            }
+        }
+    }
+
+    private Bloque reservar() {
+        Long primero = jdbcTemplate.queryForObject("SELECT nextval('folios_titulos_seq')", Long.class);
+        if (primero == null) {
+            throw new IllegalStateException("La secuencia folios_titulos_seq no devolvió valor");
+        }
+        log.debug("Bloque de folios reservado: {} a {}", primero, primero + BLOQUE - 1);
+        return new Bloque(primero, primero + BLOQUE - 1);
+    }
+
+    /**
+     * Verifica el formato y el dígito verificador. Los folios anteriores a este formato
+     * (sufijo hexadecimal) no son verificables y devuelven false.
+     */
+    public static boolean esValido(String folio) {
+        Matcher m = FOLIO.matcher(folio == null ? "" : folio);
+        return m.matches() && digitoVerificador(m.group(1)) == m.group(2).charAt(0) - '0';
+    }
+
+    /**
+     * Dígito de Luhn para una cadena de dígitos.
+     */
+    static int digitoVerificador(String digitos) {
+        int suma = 0;
+        boolean doble = true;
+        for (int i = digitos.length() - 1; i >= 0; i--) {
+            int digito = digitos.charAt(i) - '0';
+            if (doble) {
+                digito *= 2;
+                if (digito > 9) {
+                    digito -= 9;
+                }
+            }
+            suma += digito;
+            doble = !doble;
+        }
+        return (10 - suma % 10) % 10;
+    }
+
+    private static final class Bloque {
+        private final AtomicLong siguiente;
+        private final long ultimo;
+
+        Bloque(long primero, long ultimo) {
+            this.siguiente = new AtomicLong(primero);
+            this.ultimo = ultimo;
+        }
+    }
+}
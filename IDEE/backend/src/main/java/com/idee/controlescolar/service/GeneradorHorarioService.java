@@ -0,0 +1,480 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.dto.GeneracionHorarioEstadoDTO;
+import com.idee.controlescolar.dto.GeneracionHorarioEstadoDTO.EstatusGeneracion;
+import com.idee.controlescolar.dto.GeneracionHorarioRequest;
+import com.idee.controlescolar.model.Alumno;
+import com.idee.controlescolar.model.Grupo;
+import com.idee.controlescolar.model.HorarioBloque;
+import com.idee.controlescolar.repository.GrupoRepository;
+import com.idee.controlescolar.repository.HorarioBloqueRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Servicio de generación automática de horarios.
+ *
+ * Cada solicitud se ejecuta como un trabajo en segundo plano: se arma el problema a partir de
+ * los grupos activos del periodo (horas semanales = horas aula + horas práctica de la asignatura),
+ * se resuelve con {@link GeneradorHorarioSolver} en varios hilos durante el presupuesto de tiempo
+ * y, si la mejor solución no tiene conflictos, se guarda en una sola transacción.
+ *
+ * El guardado pasa por {@link ConflictoHorarioService#guardarLote}, que vuelve a validar contra la
+ * BD bajo el candado del periodo: si mientras se resolvía alguien guardó un bloque que choca, el
+ * lote se rechaza y el problema se vuelve a armar y resolver con ese bloque como fijo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GeneradorHorarioService {
+
+    private static final int PRESUPUESTO_MAXIMO_SEGUNDOS = 600;
+    private static final int MAX_TRABAJOS_EN_MEMORIA = 50;
+    private static final int MAX_INTENTOS = 2;
+
+    private final GrupoRepository grupoRepository;
+    private final HorarioBloqueRepository horarioRepository;
+    private final ConflictoHorarioService conflictoHorarioService;
+
+    private final int nucleos = Runtime.getRuntime().availableProcessors();
+
+    private final ExecutorService coordinador = Executors.newSingleThreadExecutor(hilo("horario-generador"));
+    private final ExecutorService busqueda = Executors.newFixedThreadPool(nucleos, hilo("horario-busqueda"));
+
+    private final Map<String, GeneracionHorarioEstadoDTO> trabajos = new ConcurrentHashMap<>();
+    private final ReentrantLock lockTrabajos = new ReentrantLock();
+
+    /**
+     * Encola la generación del horario de un periodo.
+     *
+     * @return Estado inicial del trabajo (con su id para consultar el avance)
+     */
+    public GeneracionHorarioEstadoDTO iniciar(GeneracionHorarioRequest request) {
+        validarRequest(request);
+        GeneracionHorarioEstadoDTO estado;
+        lockTrabajos.lock();
+        try {
+            boolean enCurso = trabajos.values().stream().anyMatch(t ->
+                    t.getPeriodo().equals(request.getPeriodo())
+                            && (t.getEstatus() == EstatusGeneracion.PENDIENTE || t.getEstatus() == EstatusGeneracion.EN_PROCESO));
+            if (enCurso) {
+                throw new IllegalStateException("Ya hay una generación en curso para el periodo " + request.getPeriodo());
+            }
+            depurarTrabajos();
+
+            estado = GeneracionHorarioEstadoDTO.builder()
+                    .trabajoId(UUID.randomUUID().toString())
+                    .periodo(request.getPeriodo())
+                    .estatus(EstatusGeneracion.PENDIENTE)
+                    .mensaje("En cola")
+                    .fechaInicio(LocalDateTime.now())
+                    .build();
+            trabajos.put(estado.getTrabajoId(), estado);
+        } finally {
+            lockTrabajos.unlock();
+        }
+        coordinador.submit(() -> ejecutar(estado.getTrabajoId(), request));
+        log.info("Generación de horario encolada para {} (trabajo {})", request.getPeriodo(), estado.getTrabajoId());
+        return estado;
+    }
+
+    public Optional<GeneracionHorarioEstadoDTO> obtenerEstado(String trabajoId) {
+        return Optional.ofNullable(trabajos.get(trabajoId));
+    }
+
+    @PreDestroy
+    public void detener() {
+        coordinador.shutdownNow();
+        busqueda.shutdownNow();
+    }
+
+    // ==================== Ejecución del trabajo ====================
+
+    private void ejecutar(String trabajoId, GeneracionHorarioRequest request) {
+        actualizar(trabajoId, e -> e.estatus(EstatusGeneracion.EN_PROCESO).mensaje("Construyendo el problema"));
+        try {
+            for (int intento = 1; ; intento++) {
+                try {
+                    resolverYGuardar(trabajoId, request);
+                    return;
+                } catch (ConflictoHorarioService.ConflictoHorarioException e) {
+                    if (intento >= MAX_INTENTOS) {
+                        throw e;
+                    }
+                    log.warn("Horario {}: {} bloque(s) guardados durante la búsqueda chocan con la solución; se resuelve de nuevo",
+                            request.getPeriodo(), e.getConflictos().size());
+                    actualizar(trabajoId, b -> b.mensaje("El horario cambió durante la búsqueda; resolviendo de nuevo"));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            actualizar(trabajoId, b -> b.estatus(EstatusGeneracion.ERROR).mensaje("Generación interrumpida").fechaFin(LocalDateTime.now()));
+        } catch (ConflictoHorarioService.ConflictoHorarioException e) {
+            log.warn("Horario {}: la solución sigue chocando con bloques guardados durante la búsqueda", request.getPeriodo());
+            actualizar(trabajoId, b -> b.estatus(EstatusGeneracion.ERROR)
+                    .mensaje("Otros bloques del periodo se guardaron durante la generación y chocan con la solución; vuelva a generar")
+                    .conflictosDuros(e.getConflictos().size())
+                    .fechaFin(LocalDateTime.now()));
+        } catch (Exception e) {
+            log.error("Error al generar horario de {}: {}", request.getPeriodo(), e.getMessage(), e);
+            actualizar(trabajoId, b -> b.estatus(EstatusGeneracion.ERROR).mensaje(e.getMessage()).fechaFin(LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Arma el problema con lo guardado hasta ahora, lo resuelve y guarda la solución.
+     *
+     * @throws ConflictoHorarioService.ConflictoHorarioException si la solución choca con bloques
+     *                                                           guardados mientras se resolvía; al
+     *                                                           reemplazar el horario, también si la
+     *                                                           BD rechazó el lote por un bloque de otro nodo
+     */
+    private void resolverYGuardar(String trabajoId, GeneracionHorarioRequest request) throws InterruptedException {
+        Modelo modelo = construirModelo(request);
+        int hilos = request.getHilos() != null ? Math.max(1, Math.min(request.getHilos(), nucleos)) : nucleos;
+        actualizar(trabajoId, e -> e.mensaje("Buscando solución")
+                .totalLecciones(modelo.problema.numLecciones())
+                .gruposOmitidos(modelo.omitidos)
+                .hilos(hilos));
+
+        long semilla = request.getSemilla() != null ? request.getSemilla() : System.nanoTime();
+        GeneradorHorarioSolver.Solucion solucion = GeneradorHorarioSolver.resolver(
+                modelo.problema, busqueda, hilos, request.getPresupuestoSegundos() * 1000L, semilla);
+        log.info("Horario {}: {} lecciones, {} conflictos, puntaje suave {}, {} iteraciones",
+                request.getPeriodo(), modelo.problema.numLecciones(),
+                solucion.conflictosDuros, solucion.puntajeSuave, solucion.iteraciones);
+
+        if (solucion.conflictosDuros > 0) {
+            actualizar(trabajoId, e -> e.estatus(EstatusGeneracion.SIN_SOLUCION)
+                    .mensaje("No se encontró un horario sin conflictos; amplíe aulas, días u horario, o el presupuesto de tiempo")
+                    .conflictosDuros(solucion.conflictosDuros)
+                    .puntajeSuave(solucion.puntajeSuave)
+                    .iteraciones(solucion.iteraciones)
+                    .fechaFin(LocalDateTime.now()));
+            return;
+        }
+
+        int[] resultado = conflictoHorarioService.guardarLote(request.getPeriodo(),
+                armarBloques(request, modelo, solucion), request.isReemplazarExistentes());
+        actualizar(trabajoId, e -> e.estatus(EstatusGeneracion.COMPLETADO)
+                .mensaje("Horario generado")
+                .bloquesGuardados(resultado[0])
+                .bloquesCancelados(resultado[1])
+                .conflictosDuros(0)
+                .puntajeSuave(solucion.puntajeSuave)
+                .iteraciones(solucion.iteraciones)
+                .fechaFin(LocalDateTime.now()));
+    }
+
+    /**
+     * Convierte la solución en bloques: une lecciones consecutivas del mismo grupo, día y aula en uno solo.
+     */
+    private List<HorarioBloque> armarBloques(GeneracionHorarioRequest request, Modelo modelo,
+                                             GeneradorHorarioSolver.Solucion solucion) {
+        GeneradorHorarioSolver.Problema p = modelo.problema;
+        int duracion = request.getDuracionBloqueMinutos();
+
+        Integer[] orden = new Integer[p.numLecciones()];
+        for (int l = 0; l < orden.length; l++) {
+            orden[l] = l;
+        }
+        Arrays.sort(orden, Comparator.<Integer>comparingInt(l -> p.leccionCurso[l])
+                .thenComparingInt(l -> solucion.slot[l]));
+
+        List<HorarioBloque> nuevos = new ArrayList<>();
+        HorarioBloque actual = null;
+        int ultimoCurso = -1;
+        int ultimoSlot = -1;
+        int ultimaAula = -2;
+        for (Integer l : orden) {
+            int curso = p.leccionCurso[l];
+            int slot = solucion.slot[l];
+            int aula = solucion.aula[l];
+            boolean continua = actual != null && curso == ultimoCurso && aula == ultimaAula
+                    && slot == ultimoSlot + 1 && slot / p.slotsPorDia == ultimoSlot / p.slotsPorDia;
+            if (continua) {
+                actual.setHoraFin(actual.getHoraFin().plusMinutes(duracion));
+            } else {
+                Grupo grupo = modelo.cursos.get(curso);
+                actual = new HorarioBloque();
+                actual.setDia(request.getDias().get(slot / p.slotsPorDia));
+                actual.setHoraInicio(request.getHoraInicio().plusMinutes((long) (slot % p.slotsPorDia) * duracion));
+                actual.setHoraFin(actual.getHoraInicio().plusMinutes(duracion));
+                actual.setAula(aula >= 0 ? modelo.aulas.get(aula) : null);
+                actual.setGrupo(grupo.getNombre());
+                actual.setPeriodo(request.getPeriodo());
+                actual.setEstatus(HorarioBloque.EstatusHorario.ACTIVO);
+                actual.setAsignatura(grupo.getAsignatura());
+                actual.setPrograma(grupo.getAsignatura().getPrograma());
+                actual.setMaestro(grupo.getMaestro());
+                nuevos.add(actual);
+            }
+            ultimoCurso = curso;
+            ultimoSlot = slot;
+            ultimaAula = aula;
+        }
+
+        return nuevos;
+    }
+
+    // ==================== Construcción del problema ====================
+
+    /**
+     * Problema del solver más los catálogos para traducir índices de vuelta a entidades.
+     */
+    private static final class Modelo {
+        GeneradorHorarioSolver.Problema problema;
+        final List<Grupo> cursos = new ArrayList<>();
+        final List<String> aulas = new ArrayList<>();
+        final List<String> omitidos = new ArrayList<>();
+    }
+
+    private Modelo construirModelo(GeneracionHorarioRequest request) {
+        Modelo modelo = new Modelo();
+        String periodo = request.getPeriodo();
+        int duracion = request.getDuracionBloqueMinutos();
+        int slotsPorDia = (int) (Duration.between(request.getHoraInicio(), request.getHoraFin()).toMinutes() / duracion);
+        int dias = request.getDias().size();
+        int numSlots = dias * slotsPorDia;
+
+        List<HorarioBloqueRepository.IntervaloHorario> existentes = request.isReemplazarExistentes()
+                ? List.of()
+                : horarioRepository.findIntervalosActivosPorPeriodo(periodo);
+        Set<String> yaProgramados = new HashSet<>();
+        for (HorarioBloqueRepository.IntervaloHorario e : existentes) {
+            yaProgramados.add(normalizar(e.getGrupo()) + "|" + e.getAsignaturaId());
+        }
+
+        Map<Long, Integer> indiceMaestro = new LinkedHashMap<>();
+        Map<String, Integer> indiceGrupo = new LinkedHashMap<>();
+        Map<String, Integer> indiceAula = new LinkedHashMap<>();
+        for (String aula : request.getAulas()) {
+            String clave = normalizar(aula);
+            if (clave != null && !indiceAula.containsKey(clave)) {
+                indiceAula.put(clave, modelo.aulas.size());
+                modelo.aulas.add(aula.trim());
+            }
+        }
+
+        List<Integer> leccionMaestro = new ArrayList<>();
+        List<Integer> leccionGrupo = new ArrayList<>();
+        List<Integer> leccionCurso = new ArrayList<>();
+        for (Grupo grupo : grupoRepository.findByPeriodoAndEstatus(periodo, Grupo.EstatusGrupo.ACTIVO)) {
+            String nombre = grupo.getNombreCompleto();
+            if (grupo.getMaestro() == null || grupo.getAsignatura() == null) {
+                modelo.omitidos.add(nombre + ": sin maestro o asignatura");
+                continue;
+            }
+            int horas = valor(grupo.getAsignatura().getHorasAula()) + valor(grupo.getAsignatura().getHorasPractica());
+            if (horas <= 0) {
+                modelo.omitidos.add(nombre + ": la asignatura no tiene horas aula/práctica");
+                continue;
+            }
+            if (yaProgramados.contains(normalizar(grupo.getNombre()) + "|" + grupo.getAsignatura().getId())) {
+                modelo.omitidos.add(nombre + ": ya tiene horario en el periodo");
+                continue;
+            }
+            int lecciones = (horas * 60 + duracion - 1) / duracion;
+            int m = indiceMaestro.computeIfAbsent(grupo.getMaestro().getId(), k -> indiceMaestro.size());
+            int g = indiceGrupo.computeIfAbsent(normalizar(grupo.getNombre()), k -> indiceGrupo.size());
+            int c = modelo.cursos.size();
+            modelo.cursos.add(grupo);
+            for (int i = 0; i < lecciones; i++) {
+                leccionMaestro.add(m);
+                leccionGrupo.add(g);
+                leccionCurso.add(c);
+            }
+        }
+
+        int[][] fijoMaestro = new int[indiceMaestro.size()][numSlots];
+        int[][] fijoAula = new int[indiceAula.size()][numSlots];
+        int[][] fijoGrupo = new int[indiceGrupo.size()][numSlots];
+        for (HorarioBloqueRepository.IntervaloHorario e : existentes) {
+            for (int s : slotsCubiertos(request, slotsPorDia, e.getDia(), e.getHoraInicio(), e.getHoraFin())) {
+                marcar(fijoMaestro, indiceMaestro.get(e.getMaestroId()), s);
+                marcar(fijoAula, indiceAula.get(normalizar(e.getAula())), s);
+                marcar(fijoGrupo, indiceGrupo.get(normalizar(e.getGrupo())), s);
+            }
+        }
+        for (GeneracionHorarioRequest.IndisponibilidadMaestro ind : request.getIndisponibilidad()) {
+            Integer m = indiceMaestro.get(ind.getMaestroId());
+            if (m == null || ind.getDia() == null || ind.getHoraInicio() == null || ind.getHoraFin() == null) {
+                continue;
+            }
+            for (int s : slotsCubiertos(request, slotsPorDia, ind.getDia(), ind.getHoraInicio(), ind.getHoraFin())) {
+                fijoMaestro[m][s] = Math.max(fijoMaestro[m][s], 1);
+            }
+        }
+
+        int[] turnoGrupo = calcularTurnos(periodo, modelo.cursos, indiceGrupo);
+
+        long minutosCorte = Duration.between(request.getHoraInicio(), request.getHoraCorteTurno()).toMinutes();
+        int slotCorte = (int) Math.max(0, Math.min(slotsPorDia, (minutosCorte + duracion - 1) / duracion));
+
+        modelo.problema = new GeneradorHorarioSolver.Problema(
+                dias, slotsPorDia, indiceAula.size(), indiceMaestro.size(), indiceGrupo.size(), modelo.cursos.size(),
+                slotCorte, Math.max(1, request.getMaxHorasDiariasMaestro() * 60 / duracion),
+                aArreglo(leccionMaestro), aArreglo(leccionGrupo), aArreglo(leccionCurso), turnoGrupo,
+                fijoMaestro, fijoAula, fijoGrupo);
+        return modelo;
+    }
+
+    /**
+     * Turno de cada grupo según la mayoría de sus alumnos inscritos.
+     */
+    private int[] calcularTurnos(String periodo, List<Grupo> cursos, Map<String, Integer> indiceGrupo) {
+        Map<Long, Integer> grupoPorId = new HashMap<>();
+        for (Grupo curso : cursos) {
+            grupoPorId.put(curso.getId(), indiceGrupo.get(normalizar(curso.getNombre())));
+        }
+        long[][] conteo = new long[indiceGrupo.size()][3];
+        for (GrupoRepository.TurnoGrupo t : grupoRepository.contarTurnosPorPeriodo(periodo)) {
+            Integer g = grupoPorId.get(t.getGrupoId());
+            if (g == null) {
+                continue;
+            }
+            int turno = t.getTurno() == Alumno.Turno.MATUTINO ? GeneradorHorarioSolver.TURNO_MATUTINO
+                    : t.getTurno() == Alumno.Turno.VESPERTINO ? GeneradorHorarioSolver.TURNO_VESPERTINO
+                    : GeneradorHorarioSolver.TURNO_MIXTO;
+            conteo[g][turno] += t.getTotal();
+        }
+        int[] turnos = new int[indiceGrupo.size()];
+        for (int g = 0; g < turnos.length; g++) {
+            int mayor = GeneradorHorarioSolver.TURNO_MIXTO;
+            for (int t = 0; t < 3; t++) {
+                if (conteo[g][t] > conteo[g][mayor]) {
+                    mayor = t;
+                }
+            }
+            turnos[g] = mayor;
+        }
+        return turnos;
+    }
+
+    private List<Integer> slotsCubiertos(GeneracionHorarioRequest request, int slotsPorDia,
+                                         HorarioBloque.DiaSemana dia, LocalTime inicio, LocalTime fin) {
+        List<Integer> slots = new ArrayList<>();
+        int d = request.getDias().indexOf(dia);
+        if (d < 0) {
+            return slots;
+        }
+        int duracion = request.getDuracionBloqueMinutos();
+        for (int s = 0; s < slotsPorDia; s++) {
+            LocalTime slotInicio = request.getHoraInicio().plusMinutes((long) s * duracion);
+            LocalTime slotFin = slotInicio.plusMinutes(duracion);
+            if (slotInicio.isBefore(fin) && inicio.isBefore(slotFin)) {
+                slots.add(d * slotsPorDia + s);
+            }
+        }
+        return slots;
+    }
+
+    private void validarRequest(GeneracionHorarioRequest request) {
+        if (request.getPeriodo() == null || request.getPeriodo().isBlank()) {
+            throw new IllegalArgumentException("El periodo es requerido");
+        }
+        if (request.getDias() == null || request.getDias().isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un día");
+        }
+        if (request.getHoraInicio() == null || request.getHoraFin() == null
+                || !request.getHoraFin().isAfter(request.getHoraInicio())) {
+            throw new IllegalArgumentException("El horario de la jornada no es válido");
+        }
+        if (request.getDuracionBloqueMinutos() == null || request.getDuracionBloqueMinutos() < 15) {
+            throw new IllegalArgumentException("La duración del bloque debe ser de al menos 15 minutos");
+        }
+        if (Duration.between(request.getHoraInicio(), request.getHoraFin()).toMinutes() < request.getDuracionBloqueMinutos()) {
+            throw new IllegalArgumentException("La jornada es más corta que un bloque");
+        }
+        if (request.getAulas() == null) {
+            request.setAulas(new ArrayList<>());
+        }
+        if (request.getIndisponibilidad() == null) {
+            request.setIndisponibilidad(new ArrayList<>());
+        }
+        if (request.getHoraCorteTurno() == null) {
+            request.setHoraCorteTurno(LocalTime.of(14, 0));
+        }
+        if (request.getMaxHorasDiariasMaestro() == null || request.getMaxHorasDiariasMaestro() < 1) {
+            request.setMaxHorasDiariasMaestro(6);
+        }
+        int presupuesto = request.getPresupuestoSegundos() == null ? 30 : request.getPresupuestoSegundos();
+        request.setPresupuestoSegundos(Math.max(1, Math.min(presupuesto, PRESUPUESTO_MAXIMO_SEGUNDOS)));
+    }
+
+    private void actualizar(String trabajoId,
+                            UnaryOperator<GeneracionHorarioEstadoDTO.GeneracionHorarioEstadoDTOBuilder> cambio) {
+        trabajos.computeIfPresent(trabajoId, (id, estado) -> cambio.apply(estado.toBuilder()).build());
+    }
+
+    /**
+     * Conserva en memoria solo los trabajos más recientes.
+     */
+    private void depurarTrabajos() {
+        if (trabajos.size() < MAX_TRABAJOS_EN_MEMORIA) {
+            return;
+        }
+        trabajos.values().stream()
+                .filter(t -> t.getFechaFin() != null)
+                .sorted(Comparator.comparing(GeneracionHorarioEstadoDTO::getFechaFin))
+                .limit(trabajos.size() - MAX_TRABAJOS_EN_MEMORIA + 1L)
+                .map(GeneracionHorarioEstadoDTO::getTrabajoId)
+                .toList()
+                .forEach(trabajos::remove);
+    }
+
+    private static void marcar(int[][] ocupacion, Integer indice, int slot) {
+        if (indice != null) {
+            ocupacion[indice][slot]++;
+        }
+    }
+
+    private static int[] aArreglo(List<Integer> valores) {
+        return valores.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int valor(Integer numero) {
+        return numero != null ? numero : 0;
+    }
+
+    private static String normalizar(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        return valor.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static ThreadFactory hilo(String prefijo) {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefijo + "-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
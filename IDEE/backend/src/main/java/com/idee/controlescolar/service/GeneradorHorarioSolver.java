@@ -0,0 +1,446 @@
+package com.idee.controlescolar.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Resolvedor de horarios por búsqueda tabú en paralelo.
+ *
+ * Cada lección (una hora de un grupo-asignatura) se asigna a un slot (día, hora) y a un aula.
+ * Restricciones duras: un maestro, un aula o un grupo no pueden tener dos lecciones en el
+ * mismo slot, y un maestro no puede dar clase en slots marcados como no disponibles.
+ * Restricciones suaves: huecos en el día de grupos y maestros, carga diaria del maestro,
+ * turno del grupo y más de dos horas de la misma asignatura en un día.
+ *
+ * Cada hilo arranca de una solución aleatoria distinta y explora hasta agotar el presupuesto
+ * de tiempo; se devuelve la mejor solución encontrada entre todos los hilos.
+ */
+@Slf4j
+class GeneradorHorarioSolver {
+
+    static final int PESO_DURO = 1000;
+
+    static final int PESO_HUECO = 1;
+    static final int PESO_CARGA_EXCEDIDA = 2;
+    static final int PESO_TURNO = 3;
+    static final int PESO_REPETICION_DIARIA = 2;
+
+    static final int TURNO_MIXTO = 0;
+    static final int TURNO_MATUTINO = 1;
+    static final int TURNO_VESPERTINO = 2;
+
+    private static final int CANDIDATOS_POR_ITERACION = 48;
+
+    /**
+     * Datos inmutables del problema; se comparten entre hilos.
+     */
+    static final class Problema {
+        final int dias;
+        final int slotsPorDia;
+        final int numAulas;
+        final int numMaestros;
+        final int numGrupos;
+        final int numCursos;
+        /** Primer slot del día considerado vespertino */
+        final int slotCorteTurno;
+        final int maxLeccionesDiariasMaestro;
+
+        final int[] leccionMaestro;
+        final int[] leccionGrupo;
+        final int[] leccionCurso;
+        final int[] turnoGrupo;
+
+        /** Ocupación previa por [recurso][slot]: bloques existentes e indisponibilidad */
+        final int[][] fijoMaestro;
+        final int[][] fijoAula;
+        final int[][] fijoGrupo;
+
+        Problema(int dias, int slotsPorDia, int numAulas, int numMaestros, int numGrupos, int numCursos,
+                 int slotCorteTurno, int maxLeccionesDiariasMaestro,
+                 int[] leccionMaestro, int[] leccionGrupo, int[] leccionCurso, int[] turnoGrupo,
+                 int[][] fijoMaestro, int[][] fijoAula, int[][] fijoGrupo) {
+            this.dias = dias;
+            this.slotsPorDia = slotsPorDia;
+            this.numAulas = numAulas;
+            this.numMaestros = numMaestros;
+            this.numGrupos = numGrupos;
+            this.numCursos = numCursos;
+            this.slotCorteTurno = slotCorteTurno;
+            this.maxLeccionesDiariasMaestro = maxLeccionesDiariasMaestro;
+            this.leccionMaestro = leccionMaestro;
+            this.leccionGrupo = leccionGrupo;
+            this.leccionCurso = leccionCurso;
+            this.turnoGrupo = turnoGrupo;
+            this.fijoMaestro = fijoMaestro;
+            this.fijoAula = fijoAula;
+            this.fijoGrupo = fijoGrupo;
+        }
+
+        int numLecciones() {
+            return leccionMaestro.length;
+        }
+
+        int numSlots() {
+            return dias * slotsPorDia;
+        }
+    }
+
+    /**
+     * Mejor asignación encontrada. aula es -1 cuando el problema no maneja aulas.
+     */
+    static final class Solucion {
+        final int[] slot;
+        final int[] aula;
+        final int conflictosDuros;
+        final int puntajeSuave;
+        final long iteraciones;
+
+        Solucion(int[] slot, int[] aula, int conflictosDuros, int puntajeSuave, long iteraciones) {
+            this.slot = slot;
+            this.aula = aula;
+            this.conflictosDuros = conflictosDuros;
+            this.puntajeSuave = puntajeSuave;
+            this.iteraciones = iteraciones;
+        }
+
+        long costo() {
+            return (long) conflictosDuros * PESO_DURO + puntajeSuave;
+        }
+    }
+
+    /**
+     * Ejecuta la búsqueda en varios hilos y devuelve la mejor solución.
+     *
+     * @param problema Problema a resolver
+     * @param executor Pool donde corren los hilos de búsqueda
+     * @param hilos Número de búsquedas independientes
+     * @param presupuestoMs Tiempo máximo de búsqueda
+     * @param semilla Semilla base (cada hilo usa una distinta)
+     */
+    static Solucion resolver(Problema problema, ExecutorService executor, int hilos, long presupuestoMs, long semilla)
+            throws InterruptedException {
+        long limite = System.nanoTime() + presupuestoMs * 1_000_000L;
+        List<Callable<Solucion>> tareas = new ArrayList<>();
+        for (int i = 0; i < hilos; i++) {
+            long semillaHilo = semilla + 0x9E3779B97F4A7C15L * (i + 1);
+            tareas.add(() -> new Busqueda(problema, new SplittableRandom(semillaHilo)).ejecutar(limite));
+        }
+
+        Solucion mejor = null;
+        long iteraciones = 0;
+        for (Future<Solucion> futuro : executor.invokeAll(tareas)) {
+            try {
+                Solucion s = futuro.get();
+                iteraciones += s.iteraciones;
+                if (mejor == null || s.costo() < mejor.costo()) {
+                    mejor = s;
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error en la búsqueda de horario: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        if (mejor == null) {
+            throw new IllegalStateException("No se ejecutó ninguna búsqueda");
+        }
+        return new Solucion(mejor.slot, mejor.aula, mejor.conflictosDuros, mejor.puntajeSuave, iteraciones);
+    }
+
+    /**
+     * Estado mutable de una búsqueda (un hilo).
+     * Los costos se mantienen de forma incremental: mover una lección solo recalcula
+     * los días afectados de su grupo, su maestro y su asignatura.
+     */
+    static final class Busqueda {
+        private final Problema p;
+        private final SplittableRandom random;
+
+        private final int[] slot;
+        private final int[] aula;
+
+        // Ocupación total (fija + lecciones) para restricciones duras
+        private final int[][] ocupacionMaestro;
+        private final int[][] ocupacionAula;
+        private final int[][] ocupacionGrupo;
+
+        // Solo lecciones, para restricciones suaves
+        private final int[][] leccionesMaestro;
+        private final int[][] leccionesGrupo;
+        private final int[][] leccionesCursoDia;
+
+        private final int[][] costoGrupoDia;
+        private final int[][] costoMaestroDia;
+
+        private int duros;
+        private int suave;
+
+        private final int[][] tabu;
+
+        Busqueda(Problema p, SplittableRandom random) {
+            this.p = p;
+            this.random = random;
+            int n = p.numLecciones();
+            int slots = p.numSlots();
+            slot = new int[n];
+            aula = new int[n];
+            ocupacionMaestro = copiar(p.fijoMaestro);
+            ocupacionAula = copiar(p.fijoAula);
+            ocupacionGrupo = copiar(p.fijoGrupo);
+            leccionesMaestro = new int[p.numMaestros][slots];
+            leccionesGrupo = new int[p.numGrupos][slots];
+            leccionesCursoDia = new int[p.numCursos][p.dias];
+            costoGrupoDia = new int[p.numGrupos][p.dias];
+            costoMaestroDia = new int[p.numMaestros][p.dias];
+            tabu = new int[n][slots];
+
+            for (int l = 0; l < n; l++) {
+                slot[l] = random.nextInt(slots);
+                aula[l] = p.numAulas > 0 ? random.nextInt(p.numAulas) : -1;
+                ocupar(l, +1);
+            }
+            for (int g = 0; g < p.numGrupos; g++) {
+                for (int d = 0; d < p.dias; d++) {
+                    costoGrupoDia[g][d] = costoDia(leccionesGrupo[g], d, Integer.MAX_VALUE);
+                    suave += costoGrupoDia[g][d];
+                }
+            }
+            for (int m = 0; m < p.numMaestros; m++) {
+                for (int d = 0; d < p.dias; d++) {
+                    costoMaestroDia[m][d] = costoDia(leccionesMaestro[m], d, p.maxLeccionesDiariasMaestro);
+                    suave += costoMaestroDia[m][d];
+                }
+            }
+            for (int c = 0; c < p.numCursos; c++) {
+                for (int d = 0; d < p.dias; d++) {
+                    suave += costoRepeticion(leccionesCursoDia[c][d]);
+                }
+            }
+            for (int l = 0; l < n; l++) {
+                suave += costoTurno(l, slot[l]);
+            }
+        }
+
+        Solucion ejecutar(long limiteNanos) {
+            int n = p.numLecciones();
+            if (n == 0) {
+                return new Solucion(slot.clone(), aula.clone(), 0, 0, 0);
+            }
+            int[] mejorSlot = slot.clone();
+            int[] mejorAula = aula.clone();
+            long mejorCosto = costo();
+            int mejorDuros = duros;
+            int mejorSuave = suave;
+
+            long iteracion = 0;
+            long sinMejora = 0;
+            while (mejorCosto > 0) {
+                if ((iteracion & 63) == 0 && System.nanoTime() >= limiteNanos) {
+                    break;
+                }
+                iteracion++;
+
+                int mejorL = -1;
+                int mejorS = 0;
+                int mejorA = 0;
+                long mejorCandidato = Long.MAX_VALUE;
+                for (int k = 0; k < CANDIDATOS_POR_ITERACION; k++) {
+                    int l = elegirLeccion();
+                    int s = random.nextInt(p.numSlots());
+                    int a = p.numAulas > 0 && random.nextBoolean() ? random.nextInt(p.numAulas) : aula[l];
+                    if (s == slot[l] && a == aula[l]) {
+                        continue;
+                    }
+                    int origenS = slot[l];
+                    int origenA = aula[l];
+                    mover(l, s, a);
+                    long c = costo();
+                    mover(l, origenS, origenA);
+
+                    boolean esTabu = tabu[l][s] > iteracion;
+                    if ((!esTabu || c < mejorCosto) && c < mejorCandidato) {
+                        mejorCandidato = c;
+                        mejorL = l;
+                        mejorS = s;
+                        mejorA = a;
+                    }
+                }
+                if (mejorL < 0) {
+                    continue;
+                }
+
+                tabu[mejorL][slot[mejorL]] = (int) Math.min(Integer.MAX_VALUE, iteracion + 10 + random.nextInt(15));
+                mover(mejorL, mejorS, mejorA);
+
+                long actual = costo();
+                if (actual < mejorCosto) {
+                    mejorCosto = actual;
+                    mejorDuros = duros;
+                    mejorSuave = suave;
+                    System.arraycopy(slot, 0, mejorSlot, 0, n);
+                    System.arraycopy(aula, 0, mejorAula, 0, n);
+                    sinMejora = 0;
+                } else if (++sinMejora > 5_000) {
+                    // Perturbación: sacude algunas lecciones para salir del óptimo local
+                    for (int k = 0; k < Math.max(2, n / 50); k++) {
+                        int l = random.nextInt(n);
+                        mover(l, random.nextInt(p.numSlots()), p.numAulas > 0 ? random.nextInt(p.numAulas) : -1);
+                    }
+                    sinMejora = 0;
+                }
+            }
+            return new Solucion(mejorSlot, mejorAula, mejorDuros, mejorSuave, iteracion);
+        }
+
+        long costo() {
+            return (long) duros * PESO_DURO + suave;
+        }
+
+        int conflictosDuros() {
+            return duros;
+        }
+
+        int puntajeSuave() {
+            return suave;
+        }
+
+        /**
+         * Prefiere lecciones en conflicto para enfocar la búsqueda en las restricciones duras.
+         */
+        private int elegirLeccion() {
+            int n = p.numLecciones();
+            if (duros > 0) {
+                for (int intento = 0; intento < 8; intento++) {
+                    int l = random.nextInt(n);
+                    if (enConflicto(l)) {
+                        return l;
+                    }
+                }
+            }
+            return random.nextInt(n);
+        }
+
+        private boolean enConflicto(int l) {
+            int s = slot[l];
+            return ocupacionMaestro[p.leccionMaestro[l]][s] > 1
+                    || ocupacionGrupo[p.leccionGrupo[l]][s] > 1
+                    || (aula[l] >= 0 && ocupacionAula[aula[l]][s] > 1);
+        }
+
+        void mover(int l, int nuevoSlot, int nuevaAula) {
+            int diaAnterior = slot[l] / p.slotsPorDia;
+            int diaNuevo = nuevoSlot / p.slotsPorDia;
+            int curso = p.leccionCurso[l];
+
+            suave -= costoTurno(l, slot[l]);
+            suave -= costoRepeticion(leccionesCursoDia[curso][diaAnterior]);
+            if (diaNuevo != diaAnterior) {
+                suave -= costoRepeticion(leccionesCursoDia[curso][diaNuevo]);
+            }
+
+            ocupar(l, -1);
+            slot[l] = nuevoSlot;
+            aula[l] = nuevaAula;
+            ocupar(l, +1);
+
+            suave += costoTurno(l, slot[l]);
+            suave += costoRepeticion(leccionesCursoDia[curso][diaAnterior]);
+            if (diaNuevo != diaAnterior) {
+                suave += costoRepeticion(leccionesCursoDia[curso][diaNuevo]);
+            }
+
+            recalcularDia(p.leccionGrupo[l], p.leccionMaestro[l], diaAnterior);
+            if (diaNuevo != diaAnterior) {
+                recalcularDia(p.leccionGrupo[l], p.leccionMaestro[l], diaNuevo);
+            }
+        }
+
+        private void recalcularDia(int grupo, int maestro, int dia) {
+            int g = costoDia(leccionesGrupo[grupo], dia, Integer.MAX_VALUE);
+            suave += g - costoGrupoDia[grupo][dia];
+            costoGrupoDia[grupo][dia] = g;
+
+            int m = costoDia(leccionesMaestro[maestro], dia, p.maxLeccionesDiariasMaestro);
+            suave += m - costoMaestroDia[maestro][dia];
+            costoMaestroDia[maestro][dia] = m;
+        }
+
+        /**
+         * Suma o resta la lección en las tablas de ocupación y ajusta los conflictos duros.
+         */
+        private void ocupar(int l, int signo) {
+            int s = slot[l];
+            int m = p.leccionMaestro[l];
+            int g = p.leccionGrupo[l];
+            duros += ajustar(ocupacionMaestro[m], s, signo);
+            duros += ajustar(ocupacionGrupo[g], s, signo);
+            if (aula[l] >= 0) {
+                duros += ajustar(ocupacionAula[aula[l]], s, signo);
+            }
+            leccionesMaestro[m][s] += signo;
+            leccionesGrupo[g][s] += signo;
+            leccionesCursoDia[p.leccionCurso[l]][s / p.slotsPorDia] += signo;
+        }
+
+        private static int ajustar(int[] ocupacion, int s, int signo) {
+            if (signo > 0) {
+                return ocupacion[s]++ >= 1 ? 1 : 0;
+            }
+            return --ocupacion[s] >= 1 ? -1 : 0;
+        }
+
+        /**
+         * Huecos entre la primera y la última lección del día, más el exceso sobre la carga máxima.
+         */
+        private int costoDia(int[] lecciones, int dia, int maximo) {
+            int inicio = dia * p.slotsPorDia;
+            int primero = -1;
+            int ultimo = -1;
+            int ocupados = 0;
+            for (int s = 0; s < p.slotsPorDia; s++) {
+                if (lecciones[inicio + s] > 0) {
+                    if (primero < 0) {
+                        primero = s;
+                    }
+                    ultimo = s;
+                    ocupados++;
+                }
+            }
+            if (ocupados == 0) {
+                return 0;
+            }
+            int costo = (ultimo - primero + 1 - ocupados) * PESO_HUECO;
+            if (ocupados > maximo) {
+                costo += (ocupados - maximo) * PESO_CARGA_EXCEDIDA;
+            }
+            return costo;
+        }
+
+        private static int costoRepeticion(int leccionesEnDia) {
+            return leccionesEnDia > 2 ? (leccionesEnDia - 2) * PESO_REPETICION_DIARIA : 0;
+        }
+
+        private int costoTurno(int l, int s) {
+            int turno = p.turnoGrupo[p.leccionGrupo[l]];
+            boolean vespertino = s % p.slotsPorDia >= p.slotCorteTurno;
+            if (turno == TURNO_MATUTINO && vespertino || turno == TURNO_VESPERTINO && !vespertino) {
+                return PESO_TURNO;
+            }
+            return 0;
+        }
+
+        private static int[][] copiar(int[][] origen) {
+            int[][] copia = new int[origen.length][];
+            for (int i = 0; i < origen.length; i++) {
+                copia[i] = Arrays.copyOf(origen[i], origen[i].length);
+            }
+            return copia;
+        }
+    }
+}
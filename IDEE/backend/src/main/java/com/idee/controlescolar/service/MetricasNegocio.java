@@ -0,0 +1,83 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.model.ResponsableFirma;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Métricas de negocio publicadas en /actuator/prometheus junto a las de cada endpoint
+ * (http.server.requests). Sirven para ver qué parte se degrada en los picos de
+ * inscripción y titulación: generación y firma de títulos, validación XSD, escrituras
+ * de calificaciones y archivos subidos. La bandeja de correos publica las suyas
+ * (correo.outbox.*) en CorreoOutboxDispatcher.
+ *
+ * Las etiquetas son de cardinalidad baja: responsables de firma activos, operaciones
+ * y patrones de endpoint.
+ */
+@Component
+public class MetricasNegocio {
+
+    private final MeterRegistry registry;
+    private final Counter titulosGenerados;
+    private final Counter titulosFirmados;
+
+    public MetricasNegocio(MeterRegistry registry) {
+        this.registry = registry;
+        this.titulosGenerados = Counter.builder("titulos.generados")
+                .description("Títulos electrónicos generados (firmados o no)")
+                .register(registry);
+        this.titulosFirmados = Counter.builder("titulos.firmados")
+                .description("Títulos electrónicos firmados por todos sus responsables")
+                .register(registry);
+    }
+
+    public void tituloGenerado() {
+        titulosGenerados.increment();
+    }
+
+    public void tituloFirmado() {
+        titulosFirmados.increment();
+    }
+
+    /**
+     * Tiempo de generar sello, certificado y número de certificado de un responsable.
+     */
+    public Timer firmaResponsable(ResponsableFirma responsable) {
+        return Timer.builder("titulos.firma.responsable")
+                .description("Tiempo de firma por responsable")
+                .tag("responsable", String.valueOf(responsable.getId()))
+                .tag("cargo", String.valueOf(responsable.getIdCargo()))
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public Timer validacionXsd(boolean valido) {
+        return Timer.builder("titulos.xsd.validacion")
+                .description("Tiempo de validar el XML del título contra el XSD")
+                .tag("resultado", valido ? "valido" : "invalido")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * @param operacion crear, actualizar, confirmar o eliminar
+     */
+    public void calificacionEscrita(String operacion) {
+        registry.counter("calificaciones.escrituras", "operacion", operacion).increment();
+    }
+
+    /**
+     * @param uri patrón del endpoint que recibió los archivos (/api/alumnos/{id}/foto)
+     */
+    public void archivosSubidos(String uri, long bytes) {
+        DistributionSummary.builder("archivos.subidos")
+                .description("Bytes recibidos en archivos por petición multipart")
+                .baseUnit("bytes")
+                .tag("uri", uri)
+                .register(registry)
+                .record(bytes);
+    }
+}
@@ -0,0 +1,239 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.repository.AlumnoRepository;
+import com.idee.controlescolar.repository.MaestroRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Borra en segundo plano los archivos subidos que ya nadie referencia.
+ *
+ * Cuenta las referencias de Alumno.fotoUrl, DocumentoAlumno.archivoUrl y
+ * MaestroDocumento.ruta por archivo (un mismo blob puede estar en varios alumnos; las
+ * variantes de una foto cuentan como referenciadas por ella) y recorre blobs/,
+ * variantes/ y las carpetas anteriores al almacén por contenido (alumnos/{id},
+ * maestros/{id}): lo que no tiene referencias y no se ha tocado en
+ * archivos.gc.gracia-minutos se borra. La gracia cubre las subidas cuya transacción
+ * aún no confirma y el retraso de las réplicas de lectura; FileStorageService renueva
+ * la fecha de un blob cuando lo reutiliza.
+ *
+ * La fecha leída al recorrer puede quedar vieja si una subida reutiliza el blob en ese
+ * momento, así que antes de borrar el archivo se aparta con un rename atómico a
+ * blobs/.papelera y se vuelve a revisar su fecha: si la renovaron se regresa a su lugar.
+ * Una subida posterior al rename ya no encuentra el blob y guarda el suyo.
+ *
+ * Si la BD no tiene ninguna referencia no se borra nada: es más probable una BD vacía
+ * o equivocada que un almacén sin un solo archivo en uso.
+ */
+@Service
+@Slf4j
+public class RecolectorArchivos {
+
+    private static final List<String> CARPETAS =
+            List.of(FileStorageService.BLOBS, VariantesFotoService.VARIANTES, "alumnos", "maestros");
+
+    static final String PAPELERA = ".papelera";
+
+    private final FileStorageService fileStorageService;
+    private final VariantesFotoService variantesFotoService;
+    private final AlumnoRepository alumnoRepository;
+    private final MaestroRepository maestroRepository;
+
+    private final AtomicLong archivosAlmacenados = new AtomicLong();
+    private final AtomicLong bytesAlmacenados = new AtomicLong();
+
+    @Value("${archivos.gc.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${archivos.gc.gracia-minutos:60}")
+    private long graciaMinutos;
+
+    public RecolectorArchivos(FileStorageService fileStorageService,
+                              VariantesFotoService variantesFotoService,
+                              AlumnoRepository alumnoRepository,
+                              MaestroRepository maestroRepository,
+                              MeterRegistry meterRegistry) {
+        this.fileStorageService = fileStorageService;
+        this.variantesFotoService = variantesFotoService;
+        this.alumnoRepository = alumnoRepository;
+        this.maestroRepository = maestroRepository;
+        meterRegistry.gauge("archivos.almacenados", archivosAlmacenados);
+        meterRegistry.gauge("archivos.almacenados.bytes", bytesAlmacenados);
+    }
+
+    @Scheduled(fixedDelayString = "${archivos.gc.intervalo-ms:3600000}",
+               initialDelayString = "${archivos.gc.retraso-inicial-ms:300000}")
+    public void recolectarProgramado() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            recolectar();
+        } catch (IOException | RuntimeException e) {
+            log.error("Error al recolectar archivos sin referencias: {}", e.getMessage(), e);
+        }
+    }
+
+    public Resultado recolectar() throws IOException {
+        Map<Path, Integer> referencias = contarReferencias();
+        Instant limite = Instant.now().minus(Duration.ofMinutes(graciaMinutos));
+        Path raiz = fileStorageService.raiz();
+        Path papelera = raiz.resolve(FileStorageService.BLOBS).resolve(PAPELERA);
+        Barrido barrido = new Barrido(referencias, limite, !referencias.isEmpty(), papelera);
+
+        for (String carpeta : CARPETAS) {
+            Path directorio = raiz.resolve(carpeta);
+            if (Files.isDirectory(directorio)) {
+                Files.walkFileTree(directorio, barrido);
+            }
+        }
+
+        if (referencias.isEmpty() && barrido.archivos > 0) {
+            log.warn("Ninguna referencia a archivos en BD y {} archivos en {}: no se borra nada",
+                    barrido.archivos, raiz);
+        }
+        archivosAlmacenados.set(barrido.archivos - barrido.eliminados);
+        bytesAlmacenados.set(barrido.bytes - barrido.bytesLiberados);
+
+        Resultado resultado = new Resultado(barrido.archivos, barrido.enUso, referencias.values().stream()
+                .mapToInt(Integer::intValue).sum(), barrido.eliminados, barrido.bytesLiberados);
+        if (resultado.eliminados() > 0) {
+            log.info("Recolector de archivos: {} borrados ({} bytes), {} en uso con {} referencias",
+                    resultado.eliminados(), resultado.bytesLiberados(), resultado.enUso(), resultado.referencias());
+        }
+        return resultado;
+    }
+
+    /**
+     * Referencias por archivo (ruta absoluta normalizada).
+     */
+    Map<Path, Integer> contarReferencias() {
+        Map<Path, Integer> referencias = new HashMap<>();
+        for (Path foto : rutas(alumnoRepository.findFotoUrls())) {
+            referencias.merge(foto, 1, Integer::sum);
+            // Las variantes se conservan mientras la foto esté en uso; no suman referencias
+            for (Path variante : variantesFotoService.rutas(foto)) {
+                referencias.putIfAbsent(variante, 0);
+            }
+        }
+        for (Path documento : rutas(alumnoRepository.findArchivoUrlsDocumentos())) {
+            referencias.merge(documento, 1, Integer::sum);
+        }
+        for (Path antecedente : rutas(maestroRepository.findRutasDocumentos())) {
+            referencias.merge(antecedente, 1, Integer::sum);
+        }
+        return referencias;
+    }
+
+    private static List<Path> rutas(List<String> valores) {
+        List<Path> rutas = new ArrayList<>(valores.size());
+        for (String valor : valores) {
+            try {
+                rutas.add(Paths.get(valor).toAbsolutePath().normalize());
+            } catch (InvalidPathException e) {
+                log.debug("Referencia que no es ruta local: {}", valor);
+            }
+        }
+        return rutas;
+    }
+
+    /**
+     * Borra un archivo sin referencias que pasó la gracia según el recorrido, salvo que
+     * al apartarlo su fecha ya no sea anterior al límite (una subida lo reutilizó).
+     *
+     * @return true si se borró
+     */
+    static boolean eliminar(Path archivo, Instant limite, Path papelera) throws IOException {
+        if (papelera.equals(archivo.getParent())) {
+            // Apartado por una recolección que no terminó
+            return Files.deleteIfExists(archivo);
+        }
+        Files.createDirectories(papelera);
+        Path apartado = papelera.resolve(UUID.randomUUID() + "-" + archivo.getFileName());
+        try {
+            Files.move(archivo, apartado, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            // Otra instancia lo borró primero
+            return false;
+        }
+        if (!Files.getLastModifiedTime(apartado).toInstant().isBefore(limite)) {
+            // Si mientras tanto una subida guardó el mismo contenido, el rename lo sustituye
+            Files.move(apartado, archivo, StandardCopyOption.ATOMIC_MOVE);
+            return false;
+        }
+        Files.delete(apartado);
+        return true;
+    }
+
+    private static final class Barrido extends SimpleFileVisitor<Path> {
+        private final Map<Path, Integer> referencias;
+        private final Instant limite;
+        private final boolean borrar;
+        private final Path papelera;
+        private long archivos;
+        private long bytes;
+        private long enUso;
+        private long eliminados;
+        private long bytesLiberados;
+
+        Barrido(Map<Path, Integer> referencias, Instant limite, boolean borrar, Path papelera) {
+            this.referencias = referencias;
+            this.limite = limite;
+            this.borrar = borrar;
+            this.papelera = papelera;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path archivo, BasicFileAttributes atributos) throws IOException {
+            if (!atributos.isRegularFile()) {
+                return FileVisitResult.CONTINUE;
+            }
+            archivos++;
+            bytes += atributos.size();
+            if (referencias.containsKey(archivo.toAbsolutePath().normalize())) {
+                enUso++;
+            } else if (borrar && atributos.lastModifiedTime().toInstant().isBefore(limite)
+                    && eliminar(archivo, limite, papelera)) {
+                eliminados++;
+                bytesLiberados += atributos.size();
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path archivo, IOException e) {
+            log.warn("No se pudo revisar {}: {}", archivo, e.getMessage());
+            return FileVisitResult.CONTINUE;
+        }
+    }
+
+    /**
+     * @param archivos    archivos revisados
+     * @param enUso       archivos con al menos una referencia
+     * @param referencias filas que apuntan a un archivo (mayor que enUso si hay duplicados)
+     */
+    public record Resultado(long archivos, long enUso, long referencias, long eliminados, long bytesLiberados) {
+    }
+}
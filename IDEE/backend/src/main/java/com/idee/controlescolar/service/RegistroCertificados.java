@@ -0,0 +1,462 @@
+package com.idee.controlescolar.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.idee.controlescolar.model.ConfiguracionCertificados;
+import com.idee.controlescolar.model.ConfiguracionInstitucional;
+import com.idee.controlescolar.model.ResponsableFirma;
+import com.idee.controlescolar.repository.ConfiguracionCertificadosRepository;
+import com.idee.controlescolar.repository.ConfiguracionInstitucionalRepository;
+import com.idee.controlescolar.repository.ResponsableFirmaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Certificados (.cer) de la configuración institucional y de los responsables de firma,
+ * leídos una sola vez.
+ *
+ * Cada certificado se guarda por la huella SHA-256 de su DER con sus datos ya extraídos
+ * (número de serie, titular, emisor, vigencia y llave pública), así que firmar, armar el
+ * diagnóstico o revisar vigencias no vuelve a decodificar X.509; un certificado nuevo
+ * tiene otra huella y no hace falta invalidar nada. También recuerda si un par .cer/.key
+ * con su contraseña ya se validó, que es lo más caro del diagnóstico, y guarda la llave
+ * privada institucional ya descifrada para firmar.
+ *
+ * Los bytes del .cer y .key institucionales están en ConfiguracionCertificados; la
+ * configuración solo trae su SHA-256. Con esa huella se buscan aquí el certificado, la
+ * llave y la validación del par, y solo si no están se leen los binarios de BD. Lo leído
+ * se guarda bajo esas huellas solo si los binarios las tienen: una réplica atrasada o una
+ * carga simultánea pueden devolver el .key anterior, y entonces se relee de la primaria.
+ * Si quien está atrasada es la configuración (la caché de segundo nivel de esta instancia
+ * aún no ve un .cer/.key cargado en otra), también ella se relee de la primaria, se
+ * invalida su caché y se usan sus certificados y contraseña.
+ *
+ * Cada certificados.monitor.intervalo-ms revisa la vigencia de todos: avisa en el log a
+ * partir de certificados.dias-aviso antes de vencer y, a partir de
+ * certificados.dias-bloqueo, verificarParaGenerar detiene la generación de títulos para
+ * no emitir títulos con un certificado vencido o a punto de vencer. La verificación al
+ * generar usa la misma regla sobre la hora actual, de modo que un certificado recién
+ * cargado se toma en cuenta sin esperar a la siguiente revisión.
+ */
+@Service
+@Slf4j
+public class RegistroCertificados {
+
+    /**
+     * Situación de un certificado respecto a su vigencia.
+     */
+    public enum Estado {
+        VIGENTE,
+        POR_VENCER,
+        BLOQUEADO
+    }
+
+    public enum Origen {
+        INSTITUCIONAL,
+        RESPONSABLE
+    }
+
+    private final ConfiguracionInstitucionalRepository configuracionRepository;
+    private final ConfiguracionCertificadosRepository certificadosRepository;
+    private final ResponsableFirmaRepository responsableRepository;
+    private final FirmaDigitalService firmaDigitalService;
+    private final CatalogoCacheService catalogoCacheService;
+
+    private final Map<String, Certificado> porHuella = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> paresValidados = new ConcurrentHashMap<>();
+    private final Map<String, PrivateKey> llaves = new ConcurrentHashMap<>();
+    private final AtomicReference<Monitoreo> ultimo = new AtomicReference<>();
+    private final AtomicLong diasRestantes = new AtomicLong(-1);
+
+    @Value("${certificados.dias-aviso:30}")
+    private long diasAviso;
+
+    @Value("${certificados.dias-bloqueo:1}")
+    private long diasBloqueo;
+
+    public RegistroCertificados(ConfiguracionInstitucionalRepository configuracionRepository,
+                                ConfiguracionCertificadosRepository certificadosRepository,
+                                ResponsableFirmaRepository responsableRepository,
+                                FirmaDigitalService firmaDigitalService,
+                                CatalogoCacheService catalogoCacheService,
+                                MeterRegistry meterRegistry) {
+        this.configuracionRepository = configuracionRepository;
+        this.certificadosRepository = certificadosRepository;
+        this.responsableRepository = responsableRepository;
+        this.firmaDigitalService = firmaDigitalService;
+        this.catalogoCacheService = catalogoCacheService;
+        meterRegistry.gauge("certificados.dias.restantes", diasRestantes);
+    }
+
+    /**
+     * Datos del certificado; se decodifica solo la primera vez que se ven estos bytes.
+     *
+     * @throws IllegalArgumentException si los bytes no son un certificado X.509
+     */
+    public Certificado certificado(byte[] der) {
+        return porHuella.computeIfAbsent(huella(der), h -> leer(h, der));
+    }
+
+    /**
+     * Certificado de un responsable, que se guarda en Base64 (atributo certificadoResponsable).
+     */
+    public Certificado certificado(String base64) {
+        return certificado(Base64.getMimeDecoder().decode(base64));
+    }
+
+    /**
+     * Certificado institucional de la configuración. Solo lee el .cer de BD si su huella
+     * aún no está registrada.
+     *
+     * @throws IllegalStateException si la configuración no tiene certificado cargado
+     */
+    public Certificado certificadoInstitucional(ConfiguracionInstitucional configuracion) {
+        Certificado certificado = configuracion.getCertificadoSha256() == null
+                ? null : porHuella.get(configuracion.getCertificadoSha256());
+        return certificado != null
+                ? certificado : certificado(institucionales(configuracion).archivos().getCertificadoData());
+    }
+
+    /**
+     * Llave privada institucional ya descifrada. Descifrar el .key del SAT es la parte
+     * cara de cada firma, así que se hace una vez por .key y contraseña.
+     */
+    public PrivateKey llavePrivada(ConfiguracionInstitucional configuracion) throws Exception {
+        PrivateKey llave = llaves.get(claveLlave(configuracion));
+        if (llave != null) {
+            return llave;
+        }
+        Institucionales actuales = institucionales(configuracion);
+        String clave = claveLlave(actuales.configuracion());
+        llave = llaves.get(clave);
+        if (llave == null) {
+            llave = firmaDigitalService.cargarLlavePrivadaDesdeBytes(actuales.archivos().getLlavePrivadaData(),
+                    actuales.configuracion().getPasswordLlavePrivada());
+            llaves.putIfAbsent(clave, llave);
+        }
+        return llave;
+    }
+
+    /**
+     * Resultado de FirmaDigitalService.validarParCertificadoLlaveDesdeBytes para el .cer,
+     * .key y contraseña de la configuración; se valida solo la primera vez.
+     */
+    public boolean parValido(ConfiguracionInstitucional configuracion) {
+        Boolean valido = paresValidados.get(clavePar(configuracion));
+        if (valido != null) {
+            return valido;
+        }
+        Institucionales actuales = institucionales(configuracion);
+        String clave = clavePar(actuales.configuracion());
+        valido = paresValidados.get(clave);
+        if (valido == null) {
+            valido = firmaDigitalService.validarParCertificadoLlaveDesdeBytes(actuales.archivos().getCertificadoData(),
+                    actuales.archivos().getLlavePrivadaData(), actuales.configuracion().getPasswordLlavePrivada());
+            paresValidados.putIfAbsent(clave, valido);
+        }
+        return valido;
+    }
+
+    /**
+     * Guarda un .cer y .key ya validados en la configuración: los bytes en
+     * ConfiguracionCertificados y en la configuración los nombres, la contraseña y las
+     * huellas. Quien llama debe invalidar la caché de la configuración.
+     */
+    @Transactional
+    public ConfiguracionInstitucional guardarInstitucionales(ConfiguracionInstitucional configuracion,
+                                                             byte[] cer, String cerFilename,
+                                                             byte[] key, String keyFilename, String password) {
+        certificadosRepository.save(new ConfiguracionCertificados(configuracion.getId(), cer, key, LocalDateTime.now()));
+        configuracion.setCertificadoFilename(cerFilename);
+        configuracion.setCertificadoSha256(huella(cer));
+        configuracion.setLlavePrivadaFilename(keyFilename);
+        configuracion.setLlavePrivadaSha256(huella(key));
+        configuracion.setPasswordLlavePrivada(password);
+        return configuracionRepository.save(configuracion);
+    }
+
+    /**
+     * Binarios del .cer y .key cuyas huellas son las de la configuración. La lectura normal
+     * puede ir a una réplica; si sus huellas no coinciden se relee de la primaria. Si aun
+     * así no coinciden, la configuración recibida puede venir de la caché de esta instancia
+     * con los certificados anteriores: se relee de la primaria sin caché y se comparan con
+     * ella.
+     *
+     * @return los binarios y la configuración cuyas huellas tienen, que es la recibida o
+     *         la releída de la primaria
+     * @throws IllegalStateException si no hay archivos o no coinciden ni con la configuración
+     *         de la primaria, porque se cargaron otros mientras tanto
+     */
+    private Institucionales institucionales(ConfiguracionInstitucional configuracion) {
+        ConfiguracionCertificados archivos = certificadosRepository.findById(configuracion.getId()).orElse(null);
+        if (archivos == null || !coinciden(archivos, configuracion)) {
+            log.warn("Los certificados leídos no coinciden con la configuración {}; se releen de la primaria",
+                    configuracion.getId());
+            archivos = certificadosRepository.findEnPrimariaById(configuracion.getId()).orElse(null);
+        }
+        if (archivos == null || archivos.getCertificadoData() == null || archivos.getLlavePrivadaData() == null) {
+            throw new IllegalStateException("No hay certificados cargados en la configuración institucional");
+        }
+        if (coinciden(archivos, configuracion)) {
+            return new Institucionales(configuracion, archivos);
+        }
+        ConfiguracionInstitucional enPrimaria = configuracionRepository.findEnPrimariaById(configuracion.getId())
+                .orElse(null);
+        if (enPrimaria == null || !coinciden(archivos, enPrimaria)) {
+            throw new IllegalStateException("Los certificados en BD no corresponden a la configuración institucional; "
+                    + "se cargaron otros mientras tanto, intente de nuevo");
+        }
+        log.warn("La configuración {} en caché tiene certificados anteriores; se usa la de la primaria",
+                configuracion.getId());
+        catalogoCacheService.evictarConfiguracion();
+        return new Institucionales(enPrimaria, archivos);
+    }
+
+    private static boolean coinciden(ConfiguracionCertificados archivos, ConfiguracionInstitucional configuracion) {
+        return archivos.getCertificadoData() != null && archivos.getLlavePrivadaData() != null
+                && huella(archivos.getCertificadoData()).equals(configuracion.getCertificadoSha256())
+                && huella(archivos.getLlavePrivadaData()).equals(configuracion.getLlavePrivadaSha256());
+    }
+
+    private static String claveLlave(ConfiguracionInstitucional configuracion) {
+        return configuracion.getLlavePrivadaSha256() + ":" + huellaPassword(configuracion);
+    }
+
+    private static String clavePar(ConfiguracionInstitucional configuracion) {
+        return configuracion.getCertificadoSha256() + ":" + claveLlave(configuracion);
+    }
+
+    private static String huellaPassword(ConfiguracionInstitucional configuracion) {
+        String password = configuracion.getPasswordLlavePrivada();
+        return huella((password == null ? "" : password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void revisarAlIniciar() {
+        revisarProgramado();
+    }
+
+    @Scheduled(fixedDelayString = "${certificados.monitor.intervalo-ms:3600000}",
+               initialDelayString = "${certificados.monitor.intervalo-ms:3600000}")
+    public void revisarProgramado() {
+        try {
+            revisar();
+        } catch (RuntimeException e) {
+            log.error("Error al revisar la vigencia de los certificados: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Revisa la vigencia del certificado institucional y de los responsables activos,
+     * deja el resultado para el diagnóstico y olvida los certificados y llaves que ya no se usan.
+     */
+    public Monitoreo revisar() {
+        Instant ahora = Instant.now();
+        ConfiguracionInstitucional configuracion = configuracionRepository.findByActivoTrue().orElse(null);
+        List<Revision> revisiones = revisiones(configuracion,
+                responsableRepository.findByActivoTrueOrderByOrdenFirma(), ahora);
+
+        Set<String> enUso = new HashSet<>();
+        for (Revision revision : revisiones) {
+            if (revision.certificado() != null) {
+                enUso.add(revision.certificado().huella());
+            }
+            if (revision.estado() == Estado.BLOQUEADO) {
+                log.error("Certificado {} {} bloquea la generación de títulos: {}",
+                        revision.origen(), revision.nombre(), revision.detalle());
+            } else if (revision.estado() == Estado.POR_VENCER) {
+                log.warn("Certificado {} {} por vencer: {}", revision.origen(), revision.nombre(), revision.detalle());
+            }
+        }
+        porHuella.keySet().retainAll(enUso);
+        paresValidados.keySet().removeIf(clave -> !enUso.contains(clave.substring(0, clave.indexOf(':'))));
+        String llaveActiva = configuracion == null ? null : claveLlave(configuracion);
+        llaves.keySet().removeIf(clave -> !clave.equals(llaveActiva));
+
+        Monitoreo monitoreo = new Monitoreo(ahora, revisiones.stream().anyMatch(r -> r.estado() == Estado.BLOQUEADO),
+                revisiones);
+        ultimo.set(monitoreo);
+        diasRestantes.set(revisiones.stream()
+                .filter(r -> r.certificado() != null)
+                .mapToLong(Revision::diasRestantes)
+                .min().orElse(-1));
+        return monitoreo;
+    }
+
+    /**
+     * Resultado de la última revisión; si aún no hay, revisa en ese momento.
+     */
+    public Monitoreo ultimaRevision() {
+        Monitoreo monitoreo = ultimo.get();
+        return monitoreo != null ? monitoreo : revisar();
+    }
+
+    /**
+     * Impide generar títulos si algún certificado a usar está bloqueado.
+     *
+     * @return revisión de cada certificado a usar
+     * @throws IllegalStateException con el certificado y el motivo
+     */
+    public List<Revision> verificarParaGenerar(ConfiguracionInstitucional configuracion,
+                                               List<ResponsableFirma> responsables) {
+        List<Revision> revisiones = revisiones(configuracion, responsables, Instant.now());
+        for (Revision revision : revisiones) {
+            if (revision.estado() == Estado.BLOQUEADO) {
+                throw new IllegalStateException("No se pueden generar títulos: certificado "
+                        + revision.origen().name().toLowerCase() + " " + revision.nombre() + " " + revision.detalle());
+            }
+        }
+        return revisiones;
+    }
+
+    private List<Revision> revisiones(ConfiguracionInstitucional configuracion, List<ResponsableFirma> responsables,
+                                      Instant ahora) {
+        List<Revision> revisiones = new ArrayList<>();
+        if (configuracion != null && configuracion.getCertificadoSha256() != null) {
+            String nombre = configuracion.getCertificadoFilename() == null
+                    ? String.valueOf(configuracion.getId()) : configuracion.getCertificadoFilename();
+            revisiones.add(revision(Origen.INSTITUCIONAL, configuracion.getId(), nombre, ahora,
+                    () -> certificadoInstitucional(configuracion)));
+        }
+        for (ResponsableFirma responsable : responsables) {
+            if (responsable.getCertificadoResponsable() == null || responsable.getCertificadoResponsable().isBlank()) {
+                continue;
+            }
+            revisiones.add(revision(Origen.RESPONSABLE, responsable.getId(), responsable.getCurp(), ahora,
+                    () -> certificado(responsable.getCertificadoResponsable())));
+        }
+        return revisiones;
+    }
+
+    private Revision revision(Origen origen, Long id, String nombre, Instant ahora,
+                              Supplier<Certificado> lector) {
+        Certificado certificado;
+        try {
+            certificado = lector.get();
+        } catch (IllegalArgumentException e) {
+            return new Revision(origen, id, nombre, null, Estado.BLOQUEADO, 0, "no se pudo leer: " + e.getMessage());
+        }
+
+        long dias = Duration.between(ahora, certificado.validoHasta()).toDays();
+        if (ahora.isBefore(certificado.validoDesde())) {
+            return new Revision(origen, id, nombre, certificado, Estado.BLOQUEADO, dias,
+                    "aún no es válido (desde " + certificado.validoDesde() + ")");
+        }
+        if (!ahora.isBefore(certificado.validoHasta())) {
+            return new Revision(origen, id, nombre, certificado, Estado.BLOQUEADO, dias,
+                    "venció el " + certificado.validoHasta());
+        }
+        if (ahora.plus(Duration.ofDays(diasBloqueo)).isAfter(certificado.validoHasta())) {
+            return new Revision(origen, id, nombre, certificado, Estado.BLOQUEADO, dias,
+                    "vence el " + certificado.validoHasta() + ", en menos de " + diasBloqueo + " días");
+        }
+        if (ahora.plus(Duration.ofDays(diasAviso)).isAfter(certificado.validoHasta())) {
+            return new Revision(origen, id, nombre, certificado, Estado.POR_VENCER, dias,
+                    "vence el " + certificado.validoHasta() + " (" + dias + " días)");
+        }
+        return new Revision(origen, id, nombre, certificado, Estado.VIGENTE, dias,
+                "vigente hasta " + certificado.validoHasta());
+    }
+
+    private static Certificado leer(String huella, byte[] der) {
+        try {
+            X509Certificate cert = (X509Certificate) CertificateFactory.getInstance("X.509")
+                    .generateCertificate(new ByteArrayInputStream(der));
+            log.info("Certificado registrado: serie {}, titular {}", cert.getSerialNumber().toString(16),
+                    cert.getSubjectX500Principal());
+            return new Certificado(huella, numeroSerie(cert), cert.getSubjectX500Principal().getName(),
+                    cert.getIssuerX500Principal().getName(), cert.getNotBefore().toInstant(),
+                    cert.getNotAfter().toInstant(), cert.getSigAlgName(), cert.getPublicKey(), der.clone());
+        } catch (CertificateException | RuntimeException e) {
+            throw new IllegalArgumentException("Certificado X.509 inválido: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Número de serie en hexadecimal a 20 dígitos, como noCertificadoResponsable.
+     */
+    static String numeroSerie(X509Certificate cert) {
+        String serie = cert.getSerialNumber().toString(16).toUpperCase();
+        return serie.length() >= 20 ? serie : "0".repeat(20 - serie.length()) + serie;
+    }
+
+    private static String huella(byte[] datos) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(datos));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Datos extraídos de un .cer.
+     *
+     * @param huella SHA-256 del DER
+     * @param der contenido del .cer, para el atributo certificadoResponsable
+     */
+    public record Certificado(String huella, String numeroSerie, String titular, String emisor,
+                              Instant validoDesde, Instant validoHasta, String algoritmoFirma,
+                              @JsonIgnore PublicKey llavePublica, @JsonIgnore byte[] der) {
+
+        /**
+         * Resumen legible, con los mismos campos que FirmaDigitalService.obtenerInfoCertificadoDesdeBytes.
+         */
+        public String descripcion() {
+            return "Emisor: " + emisor + "\n"
+                    + "Titular: " + titular + "\n"
+                    + "Número de Serie: " + numeroSerie + "\n"
+                    + "Válido desde: " + validoDesde + "\n"
+                    + "Válido hasta: " + validoHasta + "\n"
+                    + "Algoritmo de firma: " + algoritmoFirma + "\n";
+        }
+    }
+
+    /**
+     * @param nombre archivo del .cer institucional o CURP del responsable
+     * @param diasRestantes días completos hasta que vence (negativo si ya venció)
+     */
+    public record Revision(Origen origen, Long id, String nombre, Certificado certificado, Estado estado,
+                           long diasRestantes, String detalle) {
+    }
+
+    /**
+     * Configuración con la que coinciden los binarios leídos.
+     */
+    private record Institucionales(ConfiguracionInstitucional configuracion, ConfiguracionCertificados archivos) {
+    }
+
+    /**
+     * @param bloqueaTitulos true si algún certificado impide generar títulos
+     */
+    public record Monitoreo(Instant revisado, boolean bloqueaTitulos, List<Revision> certificados) {
+    }
+}
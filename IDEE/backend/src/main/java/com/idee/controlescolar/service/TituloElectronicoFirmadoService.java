@@ -10,6 +10,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.security.PrivateKey;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -31,6 +32,10 @@ public class TituloElectronicoFirmadoService {
     private final XmlGeneratorService xmlGeneratorService;
     private final ConfiguracionInstitucionalRepository configuracionRepository;
     private final ResponsableFirmaRepository responsableFirmaRepository;
+    private final MetricasNegocio metricas;
+    private final EtapasTitulo etapas;
+    private final ArchivoTitulos archivoTitulos;
+    private final RegistroCertificados registroCertificados;
 
     /**
      * Genera un título electrónico firmado digitalmente.
@@ -49,16 +54,18 @@ public class TituloElectronicoFirmadoService {
         log.info("Generando título electrónico firmado para alumno: {}", titulo.getAlumno().getCurp());
 
         // 1. Obtener configuración institucional activa
-        ConfiguracionInstitucional configuracion = configuracionRepository.findByActivoTrue()
-            .orElseThrow(() -> new IllegalStateException("No existe configuración institucional activa"));
+        ConfiguracionInstitucional configuracion = etapas.etapa("configuracion", () ->
+            configuracionRepository.findByActivoTrue()
+                .orElseThrow(() -> new IllegalStateException("No existe configuración institucional activa")));
 
         // Validar que hay certificados cargados
-        if (configuracion.getCertificadoData() == null || configuracion.getLlavePrivadaData() == null) {
+        if (configuracion.getCertificadoSha256() == null || configuracion.getLlavePrivadaSha256() == null) {
             throw new IllegalStateException("No hay certificados cargados en la configuración institucional");
         }
 
         // 2. Obtener responsables de firma activos (ordenados por ordenFirma)
-        List<ResponsableFirma> responsables = responsableFirmaRepository.findByActivoTrueOrderByOrdenFirma();
+        List<ResponsableFirma> responsables = etapas.etapa("responsables",
+            responsableFirmaRepository::findByActivoTrueOrderByOrdenFirma);
 
         if (responsables.isEmpty()) {
             throw new IllegalStateException("No hay responsables de firma activos");
@@ -67,41 +74,29 @@ public class TituloElectronicoFirmadoService {
         log.info("Responsables de firma encontrados: {}", responsables.size());
 
         // 3. Generar cadena original según estándar DOF
-        String cadenaOriginal = xmlGeneratorService.generarCadenaOriginal(titulo, responsables, configuracion);
+        String cadenaOriginal = etapas.etapa("cadena-original", () ->
+            xmlGeneratorService.generarCadenaOriginal(titulo, responsables, configuracion));
 
         // Validar encoding UTF-8
         byte[] utf8Bytes = cadenaOriginal.getBytes(java.nio.charset.StandardCharsets.UTF_8);
         String cadenaVerificada = new String(utf8Bytes, java.nio.charset.StandardCharsets.UTF_8);
 
-        log.info("=== CADENA ORIGINAL GENERADA ===");
-        log.info("Longitud: {} caracteres", cadenaOriginal.length());
-        log.info("Bytes UTF-8: {} bytes", utf8Bytes.length);
-        log.info("Inicia con ||: {}", cadenaOriginal.startsWith("||"));
-        log.info("Termina con ||: {}", cadenaOriginal.endsWith("||"));
-        log.debug("Cadena completa: {}", cadenaOriginal);
+        // Solo metadatos: la cadena completa va al archivo de abajo, no al log
+        log.debug("Cadena original generada: {} caracteres, {} bytes UTF-8, delimitada con ||: {}",
+                cadenaOriginal.length(), utf8Bytes.length,
+                cadenaOriginal.startsWith("||") && cadenaOriginal.endsWith("||"));
 
         // Validar que no hay caracteres mal codificados
         if (!cadenaOriginal.equals(cadenaVerificada)) {
             log.warn("⚠ ADVERTENCIA: La cadena tiene problemas de encoding UTF-8");
         }
 
-        // Guardar cadena original en archivo para verificación manual con acentos correctos
+        // Archivar la cadena original para verificación manual con acentos correctos
         try {
-            String nombreArchivo = "cadena_original_" + titulo.getFolioControl().replace("-", "_") + ".txt";
-            java.nio.file.Path archivoDebug = java.nio.file.Paths.get("titulos_generados", nombreArchivo);
-
-            // Asegurar que el directorio existe
-            java.nio.file.Files.createDirectories(archivoDebug.getParent());
+            String ubicacion = etapas.etapa("archivo-cadena", () ->
+                archivoTitulos.guardar(titulo.getFolioControl(), ArchivoTitulos.Tipo.CADENA, cadenaOriginal));
 
-            // Guardar con UTF-8 explícito
-            java.nio.file.Files.writeString(
-                archivoDebug,
-                cadenaOriginal,
-                java.nio.charset.StandardCharsets.UTF_8
-            );
-
-            log.info("Cadena original guardada en: {}", archivoDebug.toAbsolutePath());
-            log.info("→ Abre este archivo para verificar que los acentos sean correctos");
+            log.debug("Cadena original guardada en: {}", ubicacion);
         } catch (Exception e) {
             log.warn("No se pudo guardar cadena original para debug: {}", e.getMessage());
         }
@@ -110,13 +105,9 @@ public class TituloElectronicoFirmadoService {
         List<FirmaResponsableDTO> firmas = new ArrayList<>();
 
         for (ResponsableFirma responsable : responsables) {
-            FirmaResponsableDTO firmaDTO = generarFirmaResponsable(
-                responsable,
-                cadenaOriginal,
-                configuracion.getCertificadoData(),
-                configuracion.getLlavePrivadaData(),
-                configuracion.getPasswordLlavePrivada()
-            );
+            FirmaResponsableDTO firmaDTO = etapas.etapa("firma-responsable", () ->
+                metricas.firmaResponsable(responsable).recordCallable(() ->
+                    generarFirmaResponsable(responsable, cadenaOriginal, configuracion)));
             firmas.add(firmaDTO);
 
             log.info("Firma generada para responsable: {} {}",
@@ -124,8 +115,10 @@ public class TituloElectronicoFirmadoService {
         }
 
         // 5. Generar XML final con las firmas incluidas
-        String xmlFirmado = generarXmlConFirmas(titulo, firmas, responsables, configuracion);
+        String xmlFirmado = etapas.etapa("xml-firmado", () ->
+            generarXmlConFirmas(titulo, firmas, responsables, configuracion));
 
+        metricas.tituloFirmado();
         log.info("Título electrónico firmado generado exitosamente");
 
         return xmlFirmado;
@@ -142,26 +135,26 @@ public class TituloElectronicoFirmadoService {
     private FirmaResponsableDTO generarFirmaResponsable(
             ResponsableFirma responsable,
             String cadenaOriginal,
-            byte[] certificadoData,
-            byte[] llavePrivadaData,
-            String password) throws Exception {
+            ConfiguracionInstitucional configuracion) throws Exception {
 
         log.info("Generando firma para responsable: {} (CURP: {})",
             responsable.getNombre(), responsable.getCurp());
 
         // 1. Generar SELLO (atributo "sello")
         //    Firma RSA-SHA256 de la cadena original
-        String sello = firmaDigitalService.generarSelloDesdeBytes(
-            cadenaOriginal,
-            llavePrivadaData,
-            password
-        );
+        //    Se miden por separado la llave (descifrada una vez en el registro) y la firma RSA
+        PrivateKey llavePrivada = etapas.etapa("llave-privada", () ->
+            registroCertificados.llavePrivada(configuracion));
+        String sello = etapas.etapa("sello-rsa", () ->
+            firmaDigitalService.generarSello(cadenaOriginal, llavePrivada));
 
         // 2. Obtener certificado en Base64 (atributo "certificadoResponsable")
-        String certificadoBase64 = firmaDigitalService.obtenerCertificadoBase64DesdeBytes(certificadoData);
+        RegistroCertificados.Certificado certificado = etapas.etapa("certificado", () ->
+            registroCertificados.certificadoInstitucional(configuracion));
+        String certificadoBase64 = firmaDigitalService.obtenerCertificadoBase64DesdeBytes(certificado.der());
 
-        // 3. Extraer número de certificado (atributo "noCertificadoResponsable")
-        String noCertificado = firmaDigitalService.extraerNumeroCertificadoDesdeBytes(certificadoData);
+        // 3. Número de certificado (atributo "noCertificadoResponsable"), ya leído en el registro
+        String noCertificado = certificado.numeroSerie();
 
         // 4. Crear DTO con toda la información
         return new FirmaResponsableDTO(
@@ -258,7 +251,7 @@ public class TituloElectronicoFirmadoService {
                 "No existe configuración institucional activa. Configure primero los datos de la institución."));
 
         // Verificar certificados
-        if (config.getCertificadoData() == null || config.getLlavePrivadaData() == null) {
+        if (config.getCertificadoSha256() == null || config.getLlavePrivadaSha256() == null) {
             throw new IllegalStateException(
                 "No hay certificados SAT cargados. Suba el archivo .cer y .key en la configuración.");
         }
@@ -280,10 +273,10 @@ public class TituloElectronicoFirmadoService {
         ConfiguracionInstitucional config = configuracionRepository.findByActivoTrue()
             .orElseThrow(() -> new IllegalStateException("No existe configuración activa"));
 
-        if (config.getCertificadoData() == null) {
+        if (config.getCertificadoSha256() == null) {
             throw new IllegalStateException("No hay certificado cargado");
         }
 
-        return firmaDigitalService.obtenerInfoCertificadoDesdeBytes(config.getCertificadoData());
+        return registroCertificados.certificadoInstitucional(config).descripcion();
     }
 }
@@ -6,19 +6,17 @@ import com.idee.controlescolar.model.*;
 import com.idee.controlescolar.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -29,6 +27,9 @@ import java.util.stream.Collectors;
 @Slf4j
 public class TituloElectronicoService {
 
+    /** Tope de títulos por página del listado. */
+    public static final int TAMANO_MAXIMO_PAGINA = 200;
+
     private final TituloElectronicoRepository tituloRepository;
     private final AlumnoRepository alumnoRepository;
     private final ProgramaEducativoRepository programaRepository;
@@ -39,9 +40,11 @@ public class TituloElectronicoService {
     private final XmlGeneratorService xmlGeneratorService;
     private final FirmaDigitalService firmaDigitalService;
     private final TituloElectronicoFirmadoService tituloFirmadoService;
-
-    private static final String DIRECTORIO_TITULOS = "titulos_generados";
-    private static final DateTimeFormatter FILENAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private final MetricasNegocio metricas;
+    private final EtapasTitulo etapas;
+    private final ArchivoTitulos archivoTitulos;
+    private final FolioService folioService;
+    private final RegistroCertificados registroCertificados;
 
     /**
      * Genera un nuevo título electrónico para un alumno.
@@ -51,30 +54,43 @@ public class TituloElectronicoService {
      */
     @Transactional
     public TituloElectronicoResponse generarTitulo(TituloElectronicoRequest request) {
+        return etapas.titulo(request.getAlumnoId(), () -> construirTitulo(request));
+    }
+
+    /**
+     * Cuerpo de generarTitulo; cada paso se mide como etapa (EtapasTitulo).
+     */
+    private TituloElectronicoResponse construirTitulo(TituloElectronicoRequest request) {
         log.info("Iniciando generación de título para alumno ID: {}", request.getAlumnoId());
 
         // 1. Validar que existan los datos necesarios
-        Alumno alumno = alumnoRepository.findById(request.getAlumnoId())
-                .orElseThrow(() -> new RuntimeException("Alumno no encontrado"));
+        Alumno alumno = etapas.etapa("alumno", () -> alumnoRepository.findById(request.getAlumnoId())
+                .orElseThrow(() -> new RuntimeException("Alumno no encontrado")));
 
-        ProgramaEducativo programa = programaRepository.findById(request.getProgramaId())
-                .orElseThrow(() -> new RuntimeException("Programa educativo no encontrado"));
+        ProgramaEducativo programa = etapas.etapa("programa", () -> programaRepository.findById(request.getProgramaId())
+                .orElseThrow(() -> new RuntimeException("Programa educativo no encontrado")));
 
         // 2. Validar requisitos del alumno
-        validarRequisitosAlumno(alumno);
+        etapas.etapa("requisitos", () -> validarRequisitosAlumno(alumno));
 
         // 3. Obtener configuración y responsables
-        ConfiguracionInstitucional configuracion = configuracionRepository.findByActivoTrue()
-                .orElseThrow(() -> new RuntimeException("No existe configuración institucional activa"));
+        ConfiguracionInstitucional configuracion = etapas.etapa("configuracion", () ->
+                configuracionRepository.findByActivoTrue()
+                        .orElseThrow(() -> new RuntimeException("No existe configuración institucional activa")));
 
-        List<ResponsableFirma> responsables = responsableRepository.findByActivoTrueOrderByOrdenFirmaAsc();
+        List<ResponsableFirma> responsables = etapas.etapa("responsables",
+                responsableRepository::findByActivoTrueOrderByOrdenFirmaAsc);
         if (responsables.isEmpty()) {
             throw new RuntimeException("No hay responsables de firma configurados");
         }
 
+        // Un certificado vencido o a punto de vencer detiene la generación (RegistroCertificados)
+        etapas.etapa("certificados", () -> registroCertificados.verificarParaGenerar(configuracion, responsables));
+
         // 4. Crear entidad TituloElectronico
         TituloElectronico titulo = new TituloElectronico();
-        titulo.setFolioControl(generarFolioControl());
+        titulo.setFolioControl(folioService.siguienteFolio());
+        etapas.anotarFolio(titulo.getFolioControl());
         titulo.setAlumno(alumno);
         titulo.setPrograma(programa);
 
@@ -102,15 +118,16 @@ public class TituloElectronicoService {
         titulo.setEstatus(EstatusTitulo.GENERADO);
 
         // 5. Generar cadena original
-        String cadenaOriginal = xmlGeneratorService.generarCadenaOriginal(titulo, responsables, configuracion);
+        String cadenaOriginal = etapas.etapa("cadena-original", () ->
+                xmlGeneratorService.generarCadenaOriginal(titulo, responsables, configuracion));
         titulo.setCadenaOriginal(cadenaOriginal);
 
         // 5.5. DIAGNÓSTICO: Verificar estado de certificados antes de firmar
         boolean tieneCerts = configuracion.tieneCertificados();
         log.info("=== DIAGNÓSTICO DE CERTIFICADOS ===");
         log.info("tieneCertificados() = {}", tieneCerts);
-        log.info("cerBytes = {}", configuracion.getCertificadoData() == null ? 0 : configuracion.getCertificadoData().length);
-        log.info("keyBytes = {}", configuracion.getLlavePrivadaData() == null ? 0 : configuracion.getLlavePrivadaData().length);
+        log.info("cer = {} ({})", configuracion.getCertificadoFilename(), configuracion.getCertificadoSha256());
+        log.info("key = {} ({})", configuracion.getLlavePrivadaFilename(), configuracion.getLlavePrivadaSha256());
         log.info("hasPassword = {}", configuracion.getPasswordLlavePrivada() != null && !configuracion.getPasswordLlavePrivada().isBlank());
         log.info("===================================");
 
@@ -120,7 +137,7 @@ public class TituloElectronicoService {
             try {
                 log.info("Generando título con firmas digitales completas");
                 // Usar el servicio de firma completo que genera el XML con todos los campos
-                xmlContent = tituloFirmadoService.generarTituloFirmado(titulo);
+                xmlContent = etapas.etapa("firma", () -> tituloFirmadoService.generarTituloFirmado(titulo));
                 titulo.setEstatus(EstatusTitulo.FIRMADO);
 
                 // El sello ya está incluido en el XML generado por el servicio de firma
@@ -129,24 +146,28 @@ public class TituloElectronicoService {
                 log.error("Error al firmar título: {}", e.getMessage(), e);
                 log.warn("Generando XML básico sin firmas digitales - el título quedará en estatus GENERADO");
                 // Generar XML básico sin firmas
-                xmlContent = xmlGeneratorService.generarXmlTitulo(titulo, responsables, configuracion);
+                xmlContent = etapas.etapa("xml", () ->
+                        xmlGeneratorService.generarXmlTitulo(titulo, responsables, configuracion));
                 titulo.setEstatus(EstatusTitulo.GENERADO);
             }
         } else {
             log.info("Título generado sin firma digital (no hay certificados configurados)");
             // Generar XML básico sin firmas
-            xmlContent = xmlGeneratorService.generarXmlTitulo(titulo, responsables, configuracion);
+            xmlContent = etapas.etapa("xml", () ->
+                    xmlGeneratorService.generarXmlTitulo(titulo, responsables, configuracion));
             titulo.setEstatus(EstatusTitulo.GENERADO);
         }
 
         titulo.setXmlContent(xmlContent);
 
         // 8. Guardar archivo XML
-        String rutaArchivo = guardarArchivoXml(titulo, xmlContent);
+        String xmlFinal = xmlContent;
+        String rutaArchivo = etapas.etapa("archivo-xml", () -> guardarArchivoXml(titulo, xmlFinal));
         titulo.setXmlPath(rutaArchivo);
 
         // 9. Guardar en base de datos
-        TituloElectronico tituloGuardado = tituloRepository.save(titulo);
+        TituloElectronico tituloGuardado = etapas.etapa("guardar", () -> tituloRepository.save(titulo));
+        metricas.tituloGenerado();
 
         log.info("Título generado exitosamente: {}", tituloGuardado.getFolioControl());
 
@@ -163,6 +184,40 @@ public class TituloElectronicoService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Página del listado de títulos, del más reciente al más antiguo. Alumno y programa
+     * vienen en la misma consulta como proyección, así que cada página es una sola
+     * sentencia más el conteo. La página siguiente se pide con el cursor que devuelve
+     * esta (fecha de creación e id del último título), sin OFFSET.
+     *
+     * @param cursor siguienteCursor de la página anterior; null para la primera
+     * @param tamano títulos por página, entre 1 y TAMANO_MAXIMO_PAGINA
+     * @throws IllegalArgumentException si el rango de fechas está invertido o el cursor no es válido
+     */
+    @Transactional(readOnly = true)
+    public PaginaTitulos listarTitulos(FiltroListado filtro, String cursor, int tamano) {
+        if (filtro.desde() != null && filtro.hasta() != null && filtro.desde().isAfter(filtro.hasta())) {
+            throw new IllegalArgumentException("La fecha desde es posterior a la fecha hasta");
+        }
+        CursorListado despuesDe = cursor == null || cursor.isBlank() ? null : CursorListado.leer(cursor);
+        int limite = Math.max(1, Math.min(tamano, TAMANO_MAXIMO_PAGINA));
+
+        // Se pide uno de más para saber si hay página siguiente sin otra consulta
+        List<TituloElectronicoRepository.TituloListado> titulos = tituloRepository.findPaginaListado(
+                despuesDe == null ? null : despuesDe.fechaCreacion(), despuesDe == null ? null : despuesDe.id(),
+                filtro.estatus(), filtro.programaId(), filtro.desde(), filtro.hasta(), filtro.texto(),
+                PageRequest.of(0, limite + 1));
+        String siguienteCursor = null;
+        if (titulos.size() > limite) {
+            titulos = titulos.subList(0, limite);
+            TituloElectronicoRepository.TituloListado ultimo = titulos.get(limite - 1);
+            siguienteCursor = new CursorListado(ultimo.getFechaCreacion(), ultimo.getId()).texto();
+        }
+        long total = tituloRepository.countListado(filtro.estatus(), filtro.programaId(),
+                filtro.desde(), filtro.hasta(), filtro.texto());
+        return new PaginaTitulos(titulos, siguienteCursor, total);
+    }
+
     /**
      * Obtiene un título por su folio de control.
      */
@@ -207,11 +262,22 @@ public class TituloElectronicoService {
         TituloElectronico titulo = tituloRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Título no encontrado"));
 
+        try {
+            Optional<String> archivado = ArchivoTitulos.esUbicacion(titulo.getXmlPath())
+                    ? archivoTitulos.leer(titulo.getXmlPath())
+                    : archivoTitulos.buscar(titulo.getFolioControl(), ArchivoTitulos.Tipo.XML);
+            if (archivado.isPresent()) {
+                return archivado.get().getBytes(StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo leer el XML archivado del título {}: {}", titulo.getFolioControl(), e.getMessage());
+        }
+
         if (titulo.getXmlContent() == null || titulo.getXmlContent().isEmpty()) {
             throw new RuntimeException("El título no tiene contenido XML generado");
         }
 
-        return titulo.getXmlContent().getBytes();
+        return titulo.getXmlContent().getBytes(StandardCharsets.UTF_8);
     }
 
     /**
@@ -263,41 +329,13 @@ if (estatus != Alumno.EstatusMatricula.EGRESADO) {
     }
 
     /**
-     * Genera un folio de control único.
-     */
-    private String generarFolioControl() {
-        String uuid = UUID.randomUUID().toString().replace("-", "").substring(0, 20).toUpperCase();
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        return "IDEE-" + timestamp + "-" + uuid;
-    }
-
-    /**
-     * Guarda el archivo XML en el sistema de archivos.
+     * Guarda el XML en el archivo de títulos; devuelve su ubicación para xmlPath.
      */
     private String guardarArchivoXml(TituloElectronico titulo, String xmlContent) {
         try {
-            // Crear directorio si no existe
-            Path directorioTitulos = Paths.get(DIRECTORIO_TITULOS);
-            if (!Files.exists(directorioTitulos)) {
-                Files.createDirectories(directorioTitulos);
-            }
-
-            // Generar nombre de archivo
-            String timestamp = LocalDateTime.now().format(FILENAME_FORMATTER);
-            String nombreArchivo = String.format("titulo_%s_%s_%s.xml",
-                    titulo.getAlumno().getMatricula(),
-                    timestamp,
-                    titulo.getFolioControl().replace("-", "_"));
-
-            Path rutaArchivo = directorioTitulos.resolve(nombreArchivo);
-
-            // Guardar archivo con codificación UTF-8
-            try (FileWriter writer = new FileWriter(rutaArchivo.toFile(), StandardCharsets.UTF_8)) {
-                writer.write(xmlContent);
-            }
-
-            log.info("Archivo XML guardado en: {}", rutaArchivo);
-            return rutaArchivo.toString();
+            String ubicacion = archivoTitulos.guardar(titulo.getFolioControl(), ArchivoTitulos.Tipo.XML, xmlContent);
+            log.info("Archivo XML guardado en: {}", ubicacion);
+            return ubicacion;
 
         } catch (IOException e) {
             log.error("Error al guardar archivo XML: {}", e.getMessage());
@@ -345,4 +383,42 @@ if (estatus != Alumno.EstatusMatricula.EGRESADO) {
         // TODO Auto-generated method stub
         throw new UnsupportedOperationException("Unimplemented method 'firmar'");
     }
+
+    /**
+     * Filtros del listado de títulos; los nulos no se aplican.
+     *
+     * @param texto se busca en folio, CURP y nombre del alumno
+     */
+    public record FiltroListado(EstatusTitulo estatus, Long programaId, LocalDate desde, LocalDate hasta,
+                                String texto) {
+    }
+
+    /**
+     * @param siguienteCursor cursor de la página siguiente; null si esta es la última
+     * @param total títulos que cumplen los filtros, en todas las páginas
+     */
+    public record PaginaTitulos(List<TituloElectronicoRepository.TituloListado> titulos, String siguienteCursor,
+                                long total) {
+    }
+
+    /**
+     * Posición en el listado: el último título de una página. En la URL va como
+     * {fechaCreacion ISO}_{id}, p. ej. 2026-03-02T10:15:30.123456_120.
+     */
+    record CursorListado(LocalDateTime fechaCreacion, long id) {
+
+        static CursorListado leer(String texto) {
+            int separador = texto.lastIndexOf('_');
+            try {
+                return new CursorListado(LocalDateTime.parse(texto.substring(0, separador)),
+                        Long.parseLong(texto.substring(separador + 1)));
+            } catch (DateTimeParseException | NumberFormatException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Cursor inválido: " + texto);
+            }
+        }
+
+        String texto() {
+            return fechaCreacion + "_" + id;
+        }
+    }
 }
@@ -0,0 +1,128 @@
+package com.idee.controlescolar.service;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Guarda en memoria el desglose por etapa de los últimos títulos cuya generación tardó
+ * más de titulos.lentos.umbral-ms (GET /api/titulos-electronicos/diagnostico/lentos).
+ *
+ * Escucha las observaciones de EtapasTitulo: cada etapa, al terminar, se anota en la
+ * traza de la generación que la contiene; al terminar la generación se conserva la
+ * traza si fue lenta. Funciona aunque el span no se muestree ni exporte.
+ */
+@Component
+public class TitulosLentosRegistro implements ObservationHandler<Observation.Context> {
+
+    @Value("${titulos.lentos.umbral-ms:2000}")
+    private long umbralMs;
+
+    @Value("${titulos.lentos.capacidad:50}")
+    private int capacidad;
+
+    private final Deque<TituloLento> recientes = new ConcurrentLinkedDeque<>();
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return EtapasTitulo.GENERACION.equals(context.getName()) || EtapasTitulo.ETAPA.equals(context.getName());
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        context.put(Inicio.class, new Inicio(System.nanoTime()));
+        if (EtapasTitulo.GENERACION.equals(context.getName())) {
+            context.put(Traza.class, new Traza());
+        }
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        Inicio inicio = context.get(Inicio.class);
+        if (inicio == null) {
+            return;
+        }
+        long fin = System.nanoTime();
+
+        if (EtapasTitulo.ETAPA.equals(context.getName())) {
+            int nivel = 0;
+            for (ObservationView padre = context.getParentObservation(); padre != null;
+                 padre = padre.getContextView().getParentObservation()) {
+                Observation.ContextView vista = padre.getContextView();
+                if (EtapasTitulo.GENERACION.equals(vista.getName())) {
+                    Traza traza = vista.get(Traza.class);
+                    Inicio inicioTitulo = vista.get(Inicio.class);
+                    if (traza != null && inicioTitulo != null) {
+                        traza.etapas.add(new Etapa(context.getContextualName(), nivel,
+                                aMs(inicio.nanos - inicioTitulo.nanos), aMs(fin - inicio.nanos)));
+                    }
+                    return;
+                }
+                nivel++;
+            }
+            return;
+        }
+
+        long totalMs = aMs(fin - inicio.nanos);
+        Traza traza = context.get(Traza.class);
+        if (totalMs < umbralMs || traza == null) {
+            return;
+        }
+        List<Etapa> etapas = new ArrayList<>(traza.etapas);
+        etapas.sort(Comparator.comparingLong(Etapa::inicioMs).thenComparingInt(Etapa::nivel));
+        recientes.addFirst(new TituloLento(
+                valor(context.getHighCardinalityKeyValue("folio")),
+                valor(context.getHighCardinalityKeyValue("alumno")),
+                LocalDateTime.now(),
+                totalMs,
+                context.getError() == null ? null : context.getError().getMessage(),
+                etapas));
+        while (recientes.size() > capacidad) {
+            recientes.pollLast();
+        }
+    }
+
+    /**
+     * Títulos lentos recientes, del más nuevo al más viejo.
+     */
+    public List<TituloLento> recientes() {
+        return List.copyOf(recientes);
+    }
+
+    private static long aMs(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    private static String valor(KeyValue keyValue) {
+        return keyValue == null ? null : keyValue.getValue();
+    }
+
+    private record Inicio(long nanos) {
+    }
+
+    private static final class Traza {
+        private final List<Etapa> etapas = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    /**
+     * @param nivel    0 para etapas de generarTitulo, 1 para las anidadas (firma), etc.
+     * @param inicioMs desde el inicio de la generación del título
+     */
+    public record Etapa(String nombre, int nivel, long inicioMs, long duracionMs) {
+    }
+
+    public record TituloLento(String folio, String alumnoId, LocalDateTime fecha, long totalMs,
+                              String error, List<Etapa> etapas) {
+    }
+}
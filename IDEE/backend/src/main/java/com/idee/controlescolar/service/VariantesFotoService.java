@@ -0,0 +1,346 @@
+package com.idee.controlescolar.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Variantes JPEG de las fotos de alumnos: miniatura cuadrada para listados y
+ * credenciales y una versión web de tamaño medio (GET /api/alumnos/{id}/foto?size=).
+ *
+ * Se generan al subir la foto en un pool acotado (fotos.variantes.hilos hilos y una
+ * cola de fotos.variantes.cola tareas): decodificar una foto de cámara ocupa decenas de
+ * MB, así que nunca hay más de unas cuantas en memoria. Si la cola está llena o la foto
+ * es anterior a este servicio, la variante se genera en el mismo pool la primera vez que
+ * se pide. Se decodifica con submuestreo para no leer la imagen a resolución completa.
+ *
+ * Quedan en variantes/ab/{clave}-{tamaño}.jpg bajo file.upload-dir; la clave es el hash
+ * del blob original (o de su ruta, para las fotos anteriores a blobs/), así que una foto
+ * nueva nunca sirve variantes viejas. RecolectorArchivos borra las de fotos sin uso.
+ */
+@Service
+@Slf4j
+public class VariantesFotoService {
+
+    static final String VARIANTES = "variantes";
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final long ESPERA_SEGUNDOS = 10;
+
+    public enum Tamano {
+        /** Recorte cuadrado; los listados la muestran a 100 px (200 px para pantallas HiDPI) */
+        THUMB(200, true, 0.80f),
+        /** Lado mayor de 800 px, sin recorte */
+        WEB(800, false, 0.85f);
+
+        private final int lado;
+        private final boolean recortar;
+        private final float calidad;
+
+        Tamano(int lado, boolean recortar, float calidad) {
+            this.lado = lado;
+            this.recortar = recortar;
+            this.calidad = calidad;
+        }
+
+        public String nombre() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * @return vacío para "original" o sin parámetro
+         */
+        public static Optional<Tamano> desde(String valor) {
+            if (valor == null || valor.isBlank() || "original".equalsIgnoreCase(valor)) {
+                return Optional.empty();
+            }
+            for (Tamano tamano : values()) {
+                if (tamano.nombre().equalsIgnoreCase(valor.trim())) {
+                    return Optional.of(tamano);
+                }
+            }
+            throw new IllegalArgumentException("Tamaño de foto no válido: " + valor + " (thumb, web u original)");
+        }
+    }
+
+    private final FileStorageService fileStorageService;
+    private final ThreadPoolExecutor pool;
+    private final Map<Path, CompletableFuture<Boolean>> enCurso = new ConcurrentHashMap<>();
+
+    public VariantesFotoService(FileStorageService fileStorageService,
+                                @Value("${fotos.variantes.hilos:2}") int hilos,
+                                @Value("${fotos.variantes.cola:200}") int cola) {
+        this.fileStorageService = fileStorageService;
+        this.pool = new ThreadPoolExecutor(hilos, hilos, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola), hilo("foto-variantes"), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Encola todas las variantes de una foto recién subida.
+     */
+    public void programar(Path original) {
+        for (Tamano tamano : Tamano.values()) {
+            try {
+                generar(original, tamano);
+            } catch (RejectedExecutionException e) {
+                log.debug("Cola de variantes llena; {} de {} se generará al pedirla", tamano.nombre(), original);
+            }
+        }
+    }
+
+    /**
+     * La variante ya generada, o la genera y espera hasta diez segundos. Vacío si la
+     * imagen no se puede decodificar o el pool está saturado: se sirve el original.
+     */
+    public Optional<Path> obtener(Path original, Tamano tamano) {
+        Path variante = ruta(original, tamano);
+        if (Files.exists(variante)) {
+            return Optional.of(variante);
+        }
+        try {
+            return generar(original, tamano).get(ESPERA_SEGUNDOS, TimeUnit.SECONDS)
+                    ? Optional.of(variante) : Optional.empty();
+        } catch (RejectedExecutionException | TimeoutException e) {
+            log.warn("Variante {} de {} no disponible a tiempo; se sirve el original", tamano.nombre(), original);
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Rutas de todas las variantes de una foto (existan o no), para RecolectorArchivos.
+     */
+    public List<Path> rutas(Path original) {
+        List<Path> rutas = new ArrayList<>();
+        for (Tamano tamano : Tamano.values()) {
+            rutas.add(ruta(original, tamano));
+        }
+        return rutas;
+    }
+
+    /**
+     * ETag de una foto o variante servida. Los blobs ({sha256}.ext) y las variantes
+     * ({clave}-{tamaño}.jpg) llevan la huella del contenido en el nombre, que va con el
+     * tamaño en bytes. Una foto anterior a blobs/ puede reemplazarse en la misma ruta:
+     * usa la huella de la ruta, el tamaño y la fecha de modificación.
+     */
+    public String etag(Path archivo) throws IOException {
+        String nombre = archivo.getFileName().toString();
+        long bytes = Files.size(archivo);
+        if (nombre.length() >= 64 && HASH.matcher(nombre.substring(0, 64)).matches()) {
+            int punto = nombre.lastIndexOf('.');
+            return "\"" + (punto < 0 ? nombre : nombre.substring(0, punto)) + "-" + bytes + "\"";
+        }
+        return "\"" + clave(archivo) + "-" + bytes + "-" + Files.getLastModifiedTime(archivo).toMillis() + "\"";
+    }
+
+    Path ruta(Path original, Tamano tamano) {
+        String clave = clave(original);
+        return fileStorageService.raiz().resolve(VARIANTES).resolve(clave.substring(0, 2))
+                .resolve(clave + "-" + tamano.nombre() + ".jpg");
+    }
+
+    /**
+     * Un solo render por variante aunque varias peticiones la pidan a la vez.
+     */
+    private CompletableFuture<Boolean> generar(Path original, Tamano tamano) {
+        Path variante = ruta(original, tamano);
+        CompletableFuture<Boolean> nuevo = new CompletableFuture<>();
+        CompletableFuture<Boolean> existente = enCurso.putIfAbsent(variante, nuevo);
+        if (existente != null) {
+            return existente;
+        }
+        try {
+            pool.execute(() -> {
+                try {
+                    nuevo.complete(Files.exists(variante) || renderizar(original, variante, tamano));
+                } catch (Exception | OutOfMemoryError e) {
+                    log.warn("No se pudo generar la variante {} de {}: {}", tamano.nombre(), original, e.getMessage());
+                    nuevo.completeExceptionally(e);
+                } finally {
+                    enCurso.remove(variante, nuevo);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            enCurso.remove(variante, nuevo);
+            throw e;
+        }
+        return nuevo;
+    }
+
+    private static boolean renderizar(Path original, Path variante, Tamano tamano) throws IOException {
+        BufferedImage imagen = leerSubmuestreada(original, tamano);
+        if (imagen == null) {
+            log.debug("Formato de imagen no soportado: {}", original);
+            return false;
+        }
+        BufferedImage escalada = escalar(imagen, tamano);
+
+        Files.createDirectories(variante.getParent());
+        Path temporal = variante.resolveSibling(".tmp-" + UUID.randomUUID());
+        try {
+            escribirJpeg(escalada, temporal, tamano.calidad);
+            try {
+                Files.move(temporal, variante, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, variante, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+        return true;
+    }
+
+    /**
+     * Decodifica leyendo solo una de cada n filas y columnas, con n tal que la imagen
+     * siga midiendo al menos el doble del lado final (la reducción fina la hace escalar).
+     */
+    private static BufferedImage leerSubmuestreada(Path original, Tamano tamano) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(original.toFile())) {
+            if (entrada == null) {
+                return null;
+            }
+            Iterator<ImageReader> lectores = ImageIO.getImageReaders(entrada);
+            if (!lectores.hasNext()) {
+                return null;
+            }
+            ImageReader lector = lectores.next();
+            try {
+                lector.setInput(entrada, true, true);
+                int ancho = lector.getWidth(0);
+                int alto = lector.getHeight(0);
+                int referencia = tamano.recortar ? Math.min(ancho, alto) : Math.max(ancho, alto);
+                int paso = Math.max(1, referencia / (tamano.lado * 2));
+                ImageReadParam parametros = lector.getDefaultReadParam();
+                parametros.setSourceSubsampling(paso, paso, 0, 0);
+                return lector.read(0, parametros);
+            } finally {
+                lector.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage escalar(BufferedImage imagen, Tamano tamano) {
+        int ancho = imagen.getWidth();
+        int alto = imagen.getHeight();
+        int x = 0;
+        int y = 0;
+        int destinoAncho;
+        int destinoAlto;
+        if (tamano.recortar) {
+            int lado = Math.min(ancho, alto);
+            x = (ancho - lado) / 2;
+            y = (alto - lado) / 2;
+            ancho = lado;
+            alto = lado;
+            destinoAncho = Math.min(tamano.lado, lado);
+            destinoAlto = destinoAncho;
+        } else {
+            double escala = Math.min(1.0, (double) tamano.lado / Math.max(ancho, alto));
+            destinoAncho = Math.max(1, (int) Math.round(ancho * escala));
+            destinoAlto = Math.max(1, (int) Math.round(alto * escala));
+        }
+
+        // JPEG sin canal alfa: las transparencias (PNG) quedan sobre fondo blanco
+        BufferedImage destino = new BufferedImage(destinoAncho, destinoAlto, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, destinoAncho, destinoAlto);
+            g.drawImage(imagen, 0, 0, destinoAncho, destinoAlto, x, y, x + ancho, y + alto, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    private static void escribirJpeg(BufferedImage imagen, Path destino, float calidad) throws IOException {
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream salida = ImageIO.createImageOutputStream(destino.toFile())) {
+            escritor.setOutput(salida);
+            ImageWriteParam parametros = escritor.getDefaultWriteParam();
+            parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametros.setCompressionQuality(calidad);
+            parametros.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            escritor.write(null, new IIOImage(imagen, null, null), parametros);
+        } finally {
+            escritor.dispose();
+        }
+    }
+
+    private String clave(Path original) {
+        String nombre = original.getFileName().toString();
+        int punto = nombre.indexOf('.');
+        String base = punto < 0 ? nombre : nombre.substring(0, punto);
+        if (HASH.matcher(base).matches()) {
+            return base;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(original.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        pool.shutdownNow();
+    }
+
+    private static ThreadFactory hilo(String prefijo) {
+        AtomicInteger contador = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefijo + "-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
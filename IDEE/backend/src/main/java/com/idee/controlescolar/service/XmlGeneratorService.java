@@ -5,6 +5,8 @@ import com.idee.controlescolar.model.ConfiguracionInstitucional;
 import com.idee.controlescolar.model.ProgramaEducativo;
 import com.idee.controlescolar.model.ResponsableFirma;
 import com.idee.controlescolar.model.TituloElectronico;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.w3c.dom.Document;
@@ -35,12 +37,15 @@ import java.util.List;
  */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class XmlGeneratorService {
 
     private static final String NAMESPACE = "https://www.siged.sep.gob.mx/titulos/";
     private static final String VERSION = "1.0";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+    private final MetricasNegocio metricas;
+
     /**
      * Genera el XML completo de un título electrónico según estándar SEP.
      *
@@ -309,6 +314,8 @@ public class XmlGeneratorService {
      * @return true si es válido, false en caso contrario
      */
     public boolean validarContraXSD(String xmlContent) {
+        Timer.Sample muestra = Timer.start();
+        boolean valido = false;
         try {
             SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
             File xsdFile = new File("src/main/resources/xsd/TituloElectronico.xsd");
@@ -329,11 +336,14 @@ public class XmlGeneratorService {
             validator.validate(new DOMSource(doc));
 
             log.info("XML validado correctamente contra XSD");
+            valido = true;
             return true;
 
         } catch (SAXException | IOException | ParserConfigurationException e) {
             log.error("Error al validar XML contra XSD: {}", e.getMessage());
             return false;
+        } finally {
+            muestra.stop(metricas.validacionXsd(valido));
         }
     }
 
@@ -402,7 +412,7 @@ public class XmlGeneratorService {
                 selloGenerado
             );
 
-            log.info(infoDebug);
+            log.debug(infoDebug);
 
             // 4. Crear resultado
             ResultadoValidacionSello resultado = new ResultadoValidacionSello();
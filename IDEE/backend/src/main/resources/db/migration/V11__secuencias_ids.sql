@@ -0,0 +1,42 @@
+-- Secuencias para los IDs de todas las entidades (GenerationType.SEQUENCE, allocationSize = 50).
+-- Con IDENTITY, Hibernate necesita un INSERT por fila para conocer el ID y no puede agruparlos
+-- en lotes. Con secuencias reserva 50 IDs por cada nextval.
+--
+-- El optimizador "pooled" de Hibernate toma el valor de nextval como el último ID del bloque,
+-- por eso cada secuencia arranca en MAX(id) + 50: el primer bloque empieza en MAX(id) + 1.
+--
+-- La columna id deja su IDENTITY/serial y toma por defecto nextval de la misma secuencia,
+-- para que un INSERT sin id (SQL manual, migraciones de datos) no repita un ID que ya
+-- entregó Hibernate. El valor que recibe ese INSERT es el tope de un bloque que Hibernate
+-- ya no reparte, así que tampoco choca con los bloques siguientes.
+DO $$
+DECLARE
+    tabla TEXT;
+    maximo BIGINT;
+    anterior TEXT;
+BEGIN
+    FOREACH tabla IN ARRAY ARRAY[
+        'usuarios', 'programas_educativos', 'asignaturas', 'alumnos', 'maestros', 'personal',
+        'grupos', 'calificaciones', 'criterios_evaluacion', 'observaciones', 'documentos_alumno',
+        'maestro_documentos', 'solicitudes_constancia', 'horarios_bloques', 'configuracion_institucional',
+        'responsables_firma', 'titulos_electronicos', 'correos_pendientes'
+    ] LOOP
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT BY 50', tabla || '_seq');
+        maximo := 0;
+        IF to_regclass(tabla) IS NOT NULL THEN
+            EXECUTE format('SELECT COALESCE(MAX(id), 0) FROM %I', tabla) INTO maximo;
+        END IF;
+        PERFORM setval(tabla || '_seq', maximo + 50, false);
+
+        IF to_regclass(tabla) IS NOT NULL THEN
+            anterior := pg_get_serial_sequence(tabla, 'id');
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', tabla);
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', tabla, tabla || '_seq');
+            EXECUTE format('ALTER SEQUENCE %I OWNED BY %I.id', tabla || '_seq', tabla);
+            -- La secuencia de un serial sigue existiendo tras cambiar el default
+            IF anterior IS NOT NULL AND to_regclass(anterior) IS NOT NULL THEN
+                EXECUTE format('DROP SEQUENCE %s', anterior);
+            END IF;
+        END IF;
+    END LOOP;
+END $$;
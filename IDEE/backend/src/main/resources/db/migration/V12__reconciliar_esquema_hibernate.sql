@@ -0,0 +1,77 @@
+-- =====================================================
+-- Script de Migración: Reconciliar BD creadas por Hibernate
+-- Versión: 12
+-- Descripción: Las BD que se construyeron con ddl-auto=update entran a
+--              Flyway por baseline (versión 10) y nunca ejecutaron V3–V10.
+--              Sus tablas existen pero difieren de las migraciones:
+--              1. Los byte[] con @Lob quedaron como oid (large objects);
+--                 V4 y V9 los definen BYTEA, que es como se mapean ahora.
+--              2. Faltan los índices que crean V3, V9 y V10.
+--              3. Si la BD es anterior a V8 o V10 también falta lo que
+--                 agregan (clave_dgp, correos_pendientes).
+--
+-- En una BD construida por Flyway no cambia nada.
+-- =====================================================
+
+-- 1. Columnas oid -> BYTEA: se copian los bytes y se liberan los large objects
+DO $$
+DECLARE
+    col RECORD;
+BEGIN
+    FOR col IN
+        SELECT table_name, column_name
+        FROM information_schema.columns
+        WHERE table_schema = current_schema()
+          AND data_type = 'oid'
+          AND (table_name, column_name) IN (
+              ('configuracion_institucional', 'certificado_data'),
+              ('configuracion_institucional', 'llave_privada_data'),
+              ('maestro_documentos', 'data'))
+    LOOP
+        EXECUTE format('ALTER TABLE %I ADD COLUMN %I BYTEA',
+                       col.table_name, col.column_name || '_bytea');
+        EXECUTE format('UPDATE %I SET %I = lo_get(%I) WHERE %I IS NOT NULL',
+                       col.table_name, col.column_name || '_bytea', col.column_name, col.column_name);
+        EXECUTE format('SELECT lo_unlink(%I) FROM %I WHERE %I IS NOT NULL',
+                       col.column_name, col.table_name, col.column_name);
+        EXECUTE format('ALTER TABLE %I DROP COLUMN %I', col.table_name, col.column_name);
+        EXECUTE format('ALTER TABLE %I RENAME COLUMN %I TO %I',
+                       col.table_name, col.column_name || '_bytea', col.column_name);
+    END LOOP;
+END $$;
+
+-- 2. Lo que agregan V8 y V10, por si la BD es anterior
+ALTER TABLE programas_educativos
+ADD COLUMN IF NOT EXISTS clave_dgp VARCHAR(50);
+
+CREATE TABLE IF NOT EXISTS correos_pendientes (
+    id BIGINT PRIMARY KEY DEFAULT nextval('correos_pendientes_seq'),
+    destinatario VARCHAR(255) NOT NULL,
+    asunto VARCHAR(255) NOT NULL,
+    cuerpo TEXT NOT NULL,
+    estatus VARCHAR(20) NOT NULL DEFAULT 'PENDIENTE',
+    intentos INTEGER NOT NULL DEFAULT 0,
+    siguiente_intento TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ultimo_error VARCHAR(500),
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    fecha_envio TIMESTAMP
+);
+
+-- Si V11 no la encontró, toma aquí la secuencia que ya creó para ella
+ALTER SEQUENCE correos_pendientes_seq OWNED BY correos_pendientes.id;
+
+-- 3. Índices de V3, V9 y V10 (las restricciones UNIQUE ya las creó Hibernate)
+CREATE UNIQUE INDEX IF NOT EXISTS uk_configuracion_activa
+ON configuracion_institucional (activo)
+WHERE (activo = TRUE);
+
+CREATE INDEX IF NOT EXISTS idx_responsables_activo ON responsables_firma(activo);
+CREATE INDEX IF NOT EXISTS idx_responsables_orden ON responsables_firma(orden_firma);
+
+-- idx_titulos_alumno e idx_titulos_estatus no: V13 los reemplaza por índices compuestos
+CREATE INDEX IF NOT EXISTS idx_titulos_programa ON titulos_electronicos(programa_id);
+CREATE INDEX IF NOT EXISTS idx_titulos_fecha_expedicion ON titulos_electronicos(fecha_expedicion);
+
+CREATE INDEX IF NOT EXISTS idx_maestro_documentos_maestro ON maestro_documentos(maestro_id);
+
+CREATE INDEX IF NOT EXISTS idx_correos_pendientes_estatus ON correos_pendientes(estatus, siguiente_intento);
@@ -0,0 +1,58 @@
+-- =====================================================
+-- Script de Migración: Índices para las consultas de los repositorios
+-- Versión: 13
+-- Descripción: Índices sobre las columnas que filtran los métodos de
+--              los repositorios, para que no recorran la tabla completa.
+--              Cada bloque indica el método que atiende. PostgreSQL no
+--              indexa solo las llaves foráneas; las que se usan al borrar
+--              en cascada o al cargar colecciones también se indexan.
+-- =====================================================
+
+-- CalificacionRepository.findByAlumnoId (y alumno + periodo en el kardex)
+CREATE INDEX IF NOT EXISTS idx_calificaciones_alumno_periodo ON calificaciones(alumno_id, periodo);
+-- Consultas de calificaciones por periodo (actas, reportes)
+CREATE INDEX IF NOT EXISTS idx_calificaciones_periodo ON calificaciones(periodo);
+CREATE INDEX IF NOT EXISTS idx_calificaciones_asignatura ON calificaciones(asignatura_id);
+CREATE INDEX IF NOT EXISTS idx_calificaciones_grupo ON calificaciones(grupo_id);
+
+-- Alumnos y asignaturas por programa (AsignaturaRepository.findByProgramaId)
+CREATE INDEX IF NOT EXISTS idx_alumnos_programa ON alumnos(programa_id);
+CREATE INDEX IF NOT EXISTS idx_asignaturas_programa ON asignaturas(programa_id);
+
+-- TituloElectronicoRepository.findByEstatus, countByEstatus y findTitulosPendientesFirma
+-- (estatus = 'GENERADO' ORDER BY fecha_creacion DESC): el índice entrega las filas ya ordenadas
+DROP INDEX IF EXISTS idx_titulos_estatus;
+CREATE INDEX IF NOT EXISTS idx_titulos_estatus_fecha ON titulos_electronicos(estatus, fecha_creacion DESC);
+-- TituloElectronicoRepository.findByAlumnoId, findByAlumnoIdAndEstatus y
+-- findUltimoTituloPorAlumno (ORDER BY fecha_creacion DESC LIMIT 1)
+DROP INDEX IF EXISTS idx_titulos_alumno;
+CREATE INDEX IF NOT EXISTS idx_titulos_alumno_fecha ON titulos_electronicos(alumno_id, fecha_creacion DESC);
+
+-- HorarioBloqueRepository.findByPeriodo y findIntervalosPorPeriodoYEstatus
+CREATE INDEX IF NOT EXISTS idx_horarios_periodo_estatus ON horarios_bloques(periodo, estatus);
+-- Empalmes de horario del maestro por día
+CREATE INDEX IF NOT EXISTS idx_horarios_maestro_dia ON horarios_bloques(maestro_id, dia);
+CREATE INDEX IF NOT EXISTS idx_horarios_programa ON horarios_bloques(programa_id);
+CREATE INDEX IF NOT EXISTS idx_horarios_asignatura ON horarios_bloques(asignatura_id);
+
+-- GrupoRepository.findByPeriodoAndEstatus y contarTurnosPorPeriodo
+CREATE INDEX IF NOT EXISTS idx_grupos_periodo_estatus ON grupos(periodo, estatus);
+CREATE INDEX IF NOT EXISTS idx_grupos_asignatura ON grupos(asignatura_id);
+CREATE INDEX IF NOT EXISTS idx_grupos_maestro ON grupos(maestro_id);
+CREATE INDEX IF NOT EXISTS idx_grupo_alumno_grupo ON grupo_alumno(grupo_id);
+CREATE INDEX IF NOT EXISTS idx_grupo_alumno_alumno ON grupo_alumno(alumno_id);
+CREATE INDEX IF NOT EXISTS idx_asignatura_maestro_asignatura ON asignatura_maestro(asignatura_id);
+CREATE INDEX IF NOT EXISTS idx_asignatura_maestro_maestro ON asignatura_maestro(maestro_id);
+
+-- PersonalRepository.findByActivoFalse: el personal inactivo es la minoría, un índice
+-- parcial lo encuentra sin indexar a todos los activos (findByActivoTrue recorre la tabla
+-- de todos modos porque devuelve casi todas las filas)
+CREATE INDEX IF NOT EXISTS idx_personal_inactivo ON personal(id) WHERE activo = FALSE;
+
+-- Colecciones por alumno / asignatura
+CREATE INDEX IF NOT EXISTS idx_documentos_alumno_alumno ON documentos_alumno(alumno_id);
+CREATE INDEX IF NOT EXISTS idx_observaciones_alumno ON observaciones(alumno_id);
+CREATE INDEX IF NOT EXISTS idx_solicitudes_constancia_alumno ON solicitudes_constancia(alumno_id);
+CREATE INDEX IF NOT EXISTS idx_criterios_asignatura ON criterios_evaluacion(asignatura_id);
+CREATE INDEX IF NOT EXISTS idx_criterios_grupo ON criterios_evaluacion(grupo_id);
+CREATE INDEX IF NOT EXISTS idx_criterios_maestro ON criterios_evaluacion(maestro_id);
@@ -0,0 +1,10 @@
+-- =====================================================
+-- Script de Migración: Antecedentes de maestros en disco
+-- Versión: 14
+-- Descripción: Los documentos nuevos se escriben en uploads/maestros/{id}
+--              (FileStorageService) y la fila guarda la ruta y el SHA-256.
+--              Los documentos existentes conservan sus bytes en data.
+-- =====================================================
+
+ALTER TABLE maestro_documentos ADD COLUMN IF NOT EXISTS ruta VARCHAR(500);
+ALTER TABLE maestro_documentos ADD COLUMN IF NOT EXISTS sha256 VARCHAR(64);
@@ -0,0 +1,6 @@
+-- Secuencia de los folios de control de títulos (FolioService).
+-- Cada nextval reserva un bloque de 100 números (el valor devuelto es el primero del bloque)
+-- que el nodo reparte en memoria; INCREMENT BY debe coincidir con FolioService.BLOQUE.
+-- Varias instancias nunca reciben el mismo bloque, así que no se consulta si el folio existe.
+-- Los números de un bloque sin usar al reiniciar se pierden: el folio es único, no consecutivo.
+CREATE SEQUENCE IF NOT EXISTS folios_titulos_seq START WITH 1 INCREMENT BY 100;
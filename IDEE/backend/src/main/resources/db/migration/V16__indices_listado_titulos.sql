@@ -0,0 +1,6 @@
+-- Listado de títulos con filtros y paginación por cursor (TituloElectronicoRepository.findPaginaListado):
+-- ORDER BY fecha_creacion DESC, id DESC a partir de la fecha de creación e id del último título. Con
+-- estos índices cada página lee solo sus filas, sin filtros o filtrando por estatus o por programa.
+CREATE INDEX IF NOT EXISTS idx_titulos_creacion_id ON titulos_electronicos(fecha_creacion DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_titulos_estatus_creacion_id ON titulos_electronicos(estatus, fecha_creacion DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_titulos_programa_creacion_id ON titulos_electronicos(programa_id, fecha_creacion DESC, id DESC);
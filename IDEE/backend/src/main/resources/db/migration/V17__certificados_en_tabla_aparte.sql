@@ -0,0 +1,36 @@
+-- =====================================================
+-- Script de Migración: Certificados fuera de configuracion_institucional
+-- Versión: 17
+-- Descripción: Los bytes del .cer y del .key pasan a configuracion_certificados
+--              (ConfiguracionCertificados) para que leer la configuración, lo que
+--              se hace en cada título, traiga solo unos cientos de bytes. La
+--              configuración conserva el SHA-256 de cada archivo; con él
+--              RegistroCertificados reconoce el certificado y la llave ya leídos
+--              sin volver a consultar los binarios.
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS configuracion_certificados (
+    configuracion_id BIGINT PRIMARY KEY REFERENCES configuracion_institucional(id) ON DELETE CASCADE,
+    certificado_data BYTEA,
+    llave_privada_data BYTEA,
+    fecha_actualizacion TIMESTAMP
+);
+
+COMMENT ON TABLE configuracion_certificados IS 'Contenido de los archivos .cer y .key de la configuración institucional';
+
+ALTER TABLE configuracion_institucional ADD COLUMN IF NOT EXISTS certificado_sha256 VARCHAR(64);
+ALTER TABLE configuracion_institucional ADD COLUMN IF NOT EXISTS llave_privada_sha256 VARCHAR(64);
+
+INSERT INTO configuracion_certificados (configuracion_id, certificado_data, llave_privada_data, fecha_actualizacion)
+SELECT id, certificado_data, llave_privada_data, CURRENT_TIMESTAMP
+FROM configuracion_institucional
+WHERE certificado_data IS NOT NULL OR llave_privada_data IS NOT NULL
+ON CONFLICT (configuracion_id) DO NOTHING;
+
+UPDATE configuracion_institucional
+SET certificado_sha256 = encode(sha256(certificado_data), 'hex'),
+    llave_privada_sha256 = encode(sha256(llave_privada_data), 'hex')
+WHERE certificado_data IS NOT NULL OR llave_privada_data IS NOT NULL;
+
+ALTER TABLE configuracion_institucional DROP COLUMN IF EXISTS certificado_data;
+ALTER TABLE configuracion_institucional DROP COLUMN IF EXISTS llave_privada_data;
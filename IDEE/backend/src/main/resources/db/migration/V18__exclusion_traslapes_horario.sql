@@ -0,0 +1,35 @@
+-- Traslapes de horario rechazados por la BD (ConflictoHorarioService).
+-- El índice en memoria del servicio solo ve los bloques guardados por su propia instancia; con
+-- varias instancias dos altas simultáneas en nodos distintos podían reservar el mismo hueco.
+-- Estas restricciones de exclusión rechazan, entre bloques ACTIVOS del mismo periodo y día, que el
+-- mismo maestro, aula o grupo se traslapen. Los rangos son semiabiertos [inicio, fin), igual que en
+-- el servicio: un bloque que empieza cuando otro termina no es traslape. Aula y grupo se comparan
+-- sin espacios y en mayúsculas, como los normaliza el servicio.
+--
+-- Si la BD ya tiene traslapes, la migración falla mostrando el par en conflicto; se corrigen con
+-- GET /api/horarios/validar?periodo=... y se vuelve a ejecutar.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE horarios_bloques
+    ADD CONSTRAINT ex_horarios_maestro EXCLUDE USING gist (
+        periodo WITH =,
+        dia WITH =,
+        maestro_id WITH =,
+        tsrange(DATE '2000-01-01' + hora_inicio, DATE '2000-01-01' + hora_fin) WITH &&
+    ) WHERE (estatus = 'ACTIVO');
+
+ALTER TABLE horarios_bloques
+    ADD CONSTRAINT ex_horarios_aula EXCLUDE USING gist (
+        periodo WITH =,
+        dia WITH =,
+        (upper(btrim(aula))) WITH =,
+        tsrange(DATE '2000-01-01' + hora_inicio, DATE '2000-01-01' + hora_fin) WITH &&
+    ) WHERE (estatus = 'ACTIVO' AND btrim(aula) <> '');
+
+ALTER TABLE horarios_bloques
+    ADD CONSTRAINT ex_horarios_grupo EXCLUDE USING gist (
+        periodo WITH =,
+        dia WITH =,
+        (upper(btrim(grupo))) WITH =,
+        tsrange(DATE '2000-01-01' + hora_inicio, DATE '2000-01-01' + hora_fin) WITH &&
+    ) WHERE (estatus = 'ACTIVO' AND btrim(grupo) <> '');
@@ -0,0 +1,25 @@
+-- =====================================================
+-- Script de Migración: Versiones de catálogos
+-- Versión: 19
+-- Descripción: Una fila por tabla de catálogo con un contador que
+--              CatalogoVersionService incrementa en la misma transacción que
+--              modifica la tabla. El ETag de los listados se arma con estos
+--              contadores, así que todas las instancias emiten el mismo ETag
+--              para los mismos datos y ninguna se queda con uno viejo.
+--              Un cambio hecho con SQL directo debe incrementar la fila de la
+--              tabla que modifica.
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS catalogo_versiones (
+    tabla VARCHAR(63) PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+COMMENT ON TABLE catalogo_versiones IS 'Contador de cambios por tabla de catálogo, base del ETag de sus listados';
+
+INSERT INTO catalogo_versiones (tabla, version) VALUES
+    ('programas_educativos', 0),
+    ('asignaturas', 0),
+    ('maestros', 0),
+    ('responsables_firma', 0)
+ON CONFLICT (tabla) DO NOTHING;
@@ -0,0 +1,12 @@
+-- =====================================================
+-- Script de Migración: Versión de la configuración institucional
+-- Versión: 20
+-- Descripción: Fila de configuracion_institucional en catalogo_versiones.
+--              La caché de segundo nivel es local a cada instancia; cada una
+--              revisa estos contadores (CatalogoCacheService) e invalida el
+--              catálogo cuyo contador cambió, incluida la configuración.
+-- =====================================================
+
+INSERT INTO catalogo_versiones (tabla, version) VALUES
+    ('configuracion_institucional', 0)
+ON CONFLICT (tabla) DO NOTHING;
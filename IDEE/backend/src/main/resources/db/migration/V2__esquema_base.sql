@@ -0,0 +1,269 @@
+-- =====================================================
+-- Script de Migración: Esquema base
+-- Versión: 2
+-- Descripción: Tablas que hasta ahora creaba Hibernate con
+--              ddl-auto=update y que ninguna migración definía.
+--              Con ellas una BD vacía se construye solo con Flyway
+--              (V3 en adelante las referencian).
+--
+-- Es idempotente (IF NOT EXISTS): en las BD que ya tenían V3–V9
+-- aplicadas entra fuera de orden y no cambia nada. Los id usan
+-- IDENTITY como los creaba Hibernate; desde V11 la aplicación toma
+-- los id de secuencias y la identidad solo queda para INSERT manuales.
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS usuarios (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    activo BOOLEAN NOT NULL,
+    fecha_actualizacion TIMESTAMP(6),
+    fecha_creacion TIMESTAMP(6) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    tipo_usuario VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_usuarios_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS programas_educativos (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    creditos_totales INTEGER,
+    duracion_periodos INTEGER,
+    fecha_rvoe DATE,
+    fecha_actualizacion TIMESTAMP(6),
+    fecha_creacion TIMESTAMP(6) NOT NULL,
+    clave VARCHAR(255) NOT NULL,
+    descripcion TEXT,
+    estatus VARCHAR(255) NOT NULL,
+    modalidad VARCHAR(255),
+    nombre VARCHAR(255) NOT NULL,
+    rvoe VARCHAR(255),
+    tipo_periodo VARCHAR(255),
+    tipo_programa VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_programas_educativos_clave UNIQUE (clave)
+);
+
+CREATE TABLE IF NOT EXISTS asignaturas (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    creditos INTEGER,
+    horas_aula INTEGER,
+    horas_independientes INTEGER,
+    horas_practica INTEGER,
+    periodo INTEGER,
+    programa_id BIGINT,
+    clave VARCHAR(255) NOT NULL,
+    estatus VARCHAR(255),
+    nombre VARCHAR(255) NOT NULL,
+    tipo VARCHAR(255),
+    CONSTRAINT fk_asignaturas_programa FOREIGN KEY (programa_id) REFERENCES programas_educativos(id)
+);
+
+CREATE TABLE IF NOT EXISTS maestros (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    activo BOOLEAN NOT NULL,
+    fecha_alta DATE,
+    fecha_actualizacion TIMESTAMP(6),
+    fecha_creacion TIMESTAMP(6) NOT NULL,
+    usuario_id BIGINT,
+    apellido_materno VARCHAR(255) NOT NULL,
+    apellido_paterno VARCHAR(255) NOT NULL,
+    area VARCHAR(255),
+    cedula_profesional VARCHAR(255),
+    codigo_postal VARCHAR(255),
+    correo_institucional VARCHAR(255) NOT NULL,
+    correo_personal VARCHAR(255),
+    curp VARCHAR(255) NOT NULL,
+    etiqueta VARCHAR(255),
+    grado_academico VARCHAR(255),
+    nombre VARCHAR(255) NOT NULL,
+    nombre_contacto_emergencia VARCHAR(255),
+    regimen_fiscal VARCHAR(255),
+    rfc VARCHAR(255),
+    telefono VARCHAR(255),
+    telefono_contacto_emergencia VARCHAR(255),
+    tipo_maestro VARCHAR(255),
+    observaciones TEXT,
+    CONSTRAINT fk_maestros_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios(id),
+    CONSTRAINT uk_maestros_curp UNIQUE (curp),
+    CONSTRAINT uk_maestros_usuario_id UNIQUE (usuario_id)
+);
+
+CREATE TABLE IF NOT EXISTS asignatura_maestro (
+    asignatura_id BIGINT NOT NULL,
+    maestro_id BIGINT NOT NULL,
+    CONSTRAINT fk_asignatura_maestro_maestro FOREIGN KEY (maestro_id) REFERENCES maestros(id),
+    CONSTRAINT fk_asignatura_maestro_asignatura FOREIGN KEY (asignatura_id) REFERENCES asignaturas(id)
+);
+
+CREATE TABLE IF NOT EXISTS alumnos (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    fecha_nacimiento DATE,
+    fecha_actualizacion TIMESTAMP(6),
+    fecha_creacion TIMESTAMP(6) NOT NULL,
+    programa_id BIGINT,
+    usuario_id BIGINT,
+    apellido_materno VARCHAR(255) NOT NULL,
+    apellido_paterno VARCHAR(255) NOT NULL,
+    ciclo_escolar VARCHAR(255),
+    codigo_postal VARCHAR(255),
+    correo_institucional VARCHAR(255),
+    correo_personal VARCHAR(255),
+    curp VARCHAR(255) NOT NULL,
+    estatus_matricula VARCHAR(255) NOT NULL,
+    foto_url VARCHAR(255),
+    matricula VARCHAR(255) NOT NULL,
+    nombre VARCHAR(255) NOT NULL,
+    nombre_contacto_emergencia VARCHAR(255),
+    observaciones TEXT,
+    sexo VARCHAR(255),
+    telefono VARCHAR(255),
+    telefono_contacto_emergencia VARCHAR(255),
+    turno VARCHAR(255),
+    CONSTRAINT uk_alumnos_curp UNIQUE (curp),
+    CONSTRAINT uk_alumnos_matricula UNIQUE (matricula),
+    CONSTRAINT uk_alumnos_usuario_id UNIQUE (usuario_id),
+    CONSTRAINT fk_alumnos_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios(id),
+    CONSTRAINT fk_alumnos_programa FOREIGN KEY (programa_id) REFERENCES programas_educativos(id)
+);
+
+CREATE TABLE IF NOT EXISTS personal (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    activo BOOLEAN NOT NULL,
+    fecha_alta DATE,
+    fecha_actualizacion TIMESTAMP(6),
+    fecha_creacion TIMESTAMP(6) NOT NULL,
+    usuario_id BIGINT,
+    apellido_materno VARCHAR(255) NOT NULL,
+    apellido_paterno VARCHAR(255) NOT NULL,
+    cedula_profesional VARCHAR(255),
+    codigo_postal VARCHAR(255),
+    correo_institucional VARCHAR(255) NOT NULL,
+    correo_personal VARCHAR(255),
+    curp VARCHAR(255) NOT NULL,
+    departamento VARCHAR(255),
+    etiqueta VARCHAR(255),
+    grado_academico VARCHAR(255),
+    nombre VARCHAR(255) NOT NULL,
+    nombre_contacto_emergencia VARCHAR(255),
+    puesto VARCHAR(255) NOT NULL,
+    regimen_fiscal VARCHAR(255),
+    rfc VARCHAR(255),
+    telefono VARCHAR(255),
+    telefono_contacto_emergencia VARCHAR(255),
+    observaciones TEXT,
+    CONSTRAINT fk_personal_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios(id),
+    CONSTRAINT uk_personal_curp UNIQUE (curp),
+    CONSTRAINT uk_personal_usuario_id UNIQUE (usuario_id)
+);
+
+CREATE TABLE IF NOT EXISTS grupos (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    asignatura_id BIGINT,
+    fecha_actualizacion TIMESTAMP(6),
+    fecha_creacion TIMESTAMP(6) NOT NULL,
+    maestro_id BIGINT,
+    ciclo_escolar VARCHAR(255),
+    estatus VARCHAR(255),
+    nombre VARCHAR(255) NOT NULL,
+    periodo VARCHAR(255) NOT NULL,
+    CONSTRAINT fk_grupos_maestro FOREIGN KEY (maestro_id) REFERENCES maestros(id),
+    CONSTRAINT fk_grupos_asignatura FOREIGN KEY (asignatura_id) REFERENCES asignaturas(id)
+);
+
+CREATE TABLE IF NOT EXISTS grupo_alumno (
+    alumno_id BIGINT NOT NULL,
+    grupo_id BIGINT NOT NULL,
+    CONSTRAINT fk_grupo_alumno_grupo FOREIGN KEY (grupo_id) REFERENCES grupos(id),
+    CONSTRAINT fk_grupo_alumno_alumno FOREIGN KEY (alumno_id) REFERENCES alumnos(id)
+);
+
+CREATE TABLE IF NOT EXISTS calificaciones (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    asistencia_porcentaje DOUBLE PRECISION,
+    calificacion_final DOUBLE PRECISION NOT NULL,
+    confirmada BOOLEAN NOT NULL,
+    alumno_id BIGINT NOT NULL,
+    asignatura_id BIGINT NOT NULL,
+    fecha_actualizacion TIMESTAMP(6),
+    fecha_creacion TIMESTAMP(6) NOT NULL,
+    grupo_id BIGINT,
+    estado_aprobacion VARCHAR(255),
+    estatus VARCHAR(255),
+    periodo VARCHAR(255),
+    tipo_evaluacion VARCHAR(255),
+    observaciones TEXT,
+    CONSTRAINT fk_calificaciones_asignatura FOREIGN KEY (asignatura_id) REFERENCES asignaturas(id),
+    CONSTRAINT fk_calificaciones_grupo FOREIGN KEY (grupo_id) REFERENCES grupos(id),
+    CONSTRAINT fk_calificaciones_alumno FOREIGN KEY (alumno_id) REFERENCES alumnos(id)
+);
+
+CREATE TABLE IF NOT EXISTS criterios_evaluacion (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    bloqueado BOOLEAN NOT NULL,
+    porcentaje INTEGER NOT NULL,
+    asignatura_id BIGINT NOT NULL,
+    fecha_creacion TIMESTAMP(6) NOT NULL,
+    grupo_id BIGINT,
+    maestro_id BIGINT NOT NULL,
+    nombre VARCHAR(255) NOT NULL,
+    periodo VARCHAR(255),
+    descripcion TEXT,
+    CONSTRAINT fk_criterios_evaluacion_maestro FOREIGN KEY (maestro_id) REFERENCES maestros(id),
+    CONSTRAINT fk_criterios_evaluacion_grupo FOREIGN KEY (grupo_id) REFERENCES grupos(id),
+    CONSTRAINT fk_criterios_evaluacion_asignatura FOREIGN KEY (asignatura_id) REFERENCES asignaturas(id)
+);
+
+CREATE TABLE IF NOT EXISTS observaciones (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    fecha DATE NOT NULL,
+    alumno_id BIGINT NOT NULL,
+    fecha_creacion TIMESTAMP(6) NOT NULL,
+    registrado_por VARCHAR(255) NOT NULL,
+    tipo VARCHAR(255) NOT NULL,
+    detalle TEXT NOT NULL,
+    CONSTRAINT fk_observaciones_alumno FOREIGN KEY (alumno_id) REFERENCES alumnos(id)
+);
+
+CREATE TABLE IF NOT EXISTS documentos_alumno (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    entregado BOOLEAN NOT NULL,
+    fecha_recepcion DATE,
+    alumno_id BIGINT NOT NULL,
+    fecha_actualizacion TIMESTAMP(6),
+    fecha_creacion TIMESTAMP(6) NOT NULL,
+    archivo_url VARCHAR(255),
+    tipo_documento VARCHAR(255) NOT NULL,
+    observaciones TEXT,
+    CONSTRAINT fk_documentos_alumno_alumno FOREIGN KEY (alumno_id) REFERENCES alumnos(id)
+);
+
+CREATE TABLE IF NOT EXISTS solicitudes_constancia (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    alumno_id BIGINT NOT NULL,
+    fecha_actualizacion TIMESTAMP(6),
+    fecha_creacion TIMESTAMP(6) NOT NULL,
+    fecha_solicitud TIMESTAMP(6) NOT NULL,
+    comprobante_url VARCHAR(255),
+    estado_solicitud VARCHAR(255) NOT NULL,
+    documentos_solicitados TEXT NOT NULL,
+    motivo_rechazo TEXT,
+    observaciones TEXT,
+    CONSTRAINT fk_solicitudes_constancia_alumno FOREIGN KEY (alumno_id) REFERENCES alumnos(id)
+);
+
+CREATE TABLE IF NOT EXISTS horarios_bloques (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    hora_fin TIME(6) NOT NULL,
+    hora_inicio TIME(6) NOT NULL,
+    asignatura_id BIGINT NOT NULL,
+    fecha_actualizacion TIMESTAMP(6),
+    fecha_creacion TIMESTAMP(6) NOT NULL,
+    maestro_id BIGINT NOT NULL,
+    programa_id BIGINT,
+    aula VARCHAR(255),
+    dia VARCHAR(255) NOT NULL,
+    estatus VARCHAR(255) NOT NULL,
+    grupo VARCHAR(255),
+    periodo VARCHAR(255),
+    CONSTRAINT fk_horarios_bloques_maestro FOREIGN KEY (maestro_id) REFERENCES maestros(id),
+    CONSTRAINT fk_horarios_bloques_asignatura FOREIGN KEY (asignatura_id) REFERENCES asignaturas(id),
+    CONSTRAINT fk_horarios_bloques_programa FOREIGN KEY (programa_id) REFERENCES programas_educativos(id)
+);
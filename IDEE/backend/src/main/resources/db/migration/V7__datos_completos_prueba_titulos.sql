@@ -24,7 +24,7 @@ INSERT INTO configuracion_institucional (
     TRUE,
     CURRENT_TIMESTAMP,
     CURRENT_TIMESTAMP
-) ON CONFLICT ON CONSTRAINT uk_configuracion_activa
+) ON CONFLICT (activo) WHERE activo = TRUE
 DO UPDATE SET
     cve_institucion = EXCLUDED.cve_institucion,
     nombre_institucion = EXCLUDED.nombre_institucion,
@@ -0,0 +1,74 @@
+package com.idee.controlescolar;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PRUEBA DE CARGA: HILOS VIRTUALES VS POOL DE TOMCAT
+ * ==================================================
+ *
+ * Levanta la aplicación dos veces con el mismo pool de conexiones a la BD, una con
+ * el pool de hilos de Tomcat y otra con spring.threads.virtual.enabled, y lanza la
+ * misma carga concurrente contra GET /api/maestros (JWT + consulta por petición).
+ * Imprime throughput y latencia p99 de cada modo. No forma parte de la suite normal.
+ *
+ * Por defecto usa H2 en memoria; para números representativos apuntar a PostgreSQL
+ * con -Dcarga.url, -Dcarga.usuario y -Dcarga.password.
+ *
+ * Ejecutar con (JDK 21): mvn -P java21 test -Dtest=CargaHilosVirtualesTest -Dcarga=true
+ */
+@EnabledIfSystemProperty(named = "carga", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class CargaHilosVirtualesTest {
+
+    private static final int CLIENTES = Integer.getInteger("carga.clientes", 500);
+    private static final int PETICIONES_POR_CLIENTE = Integer.getInteger("carga.peticiones", 20);
+    private static final int POOL_BD = Integer.getInteger("carga.pool", 10);
+
+    @Test
+    public void comparaHilosVirtualesContraPoolDePlataforma() throws Exception {
+        CargaHttp.Resultado plataforma = medir(false);
+        CargaHttp.Resultado virtuales = medir(true);
+
+        System.out.println(CargaHttp.encabezado("modo"));
+        System.out.println(plataforma.formatear("plataforma"));
+        System.out.println(virtuales.formatear("virtuales"));
+
+        assertEquals(0, plataforma.errores());
+        assertEquals(0, virtuales.errores());
+    }
+
+    private CargaHttp.Resultado medir(boolean hilosVirtuales) throws Exception {
+        List<String> propiedades = new ArrayList<>(List.of(
+                "spring.threads.virtual.enabled=" + hilosVirtuales,
+                "spring.datasource.hikari.maximum-pool-size=" + POOL_BD,
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN",
+                "logging.level.com.idee.controlescolar=WARN",
+                "logging.level.org.springframework.security=WARN",
+                "logging.level.org.springframework.data.jpa=WARN",
+                "logging.level.org.springframework.data.repository=WARN",
+                "logging.level.org.springframework.orm.jpa=WARN",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "logging.level.org.postgresql=WARN"));
+        if (System.getProperties().containsKey("carga.url")) {
+            propiedades.add("spring.datasource.url=" + System.getProperty("carga.url"));
+            propiedades.add("spring.datasource.username=" + System.getProperty("carga.usuario", "sa"));
+            propiedades.add("spring.datasource.password=" + System.getProperty("carga.password", ""));
+        } else {
+            propiedades.addAll(CargaHttp.h2("carga" + hilosVirtuales));
+        }
+        try (ConfigurableApplicationContext contexto = CargaHttp.iniciar(propiedades)) {
+            return CargaHttp.medir(contexto, CLIENTES, PETICIONES_POR_CLIENTE);
+        }
+    }
+}
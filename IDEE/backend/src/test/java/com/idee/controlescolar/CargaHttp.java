@@ -0,0 +1,146 @@
+package com.idee.controlescolar;
+
+import com.idee.controlescolar.security.JwtUtil;
+import com.idee.controlescolar.service.UsuarioService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Arnés de las pruebas de carga HTTP (CargaHilosVirtualesTest, CargaLogsTest).
+ *
+ * Levanta la aplicación con las propiedades de cada prueba, lanza clientes concurrentes
+ * contra GET /api/maestros (JWT + consulta por petición) y resume throughput y latencias.
+ * Cada prueba solo define qué configuraciones compara.
+ */
+final class CargaHttp {
+
+    private CargaHttp() {
+    }
+
+    /**
+     * Propiedades de una BD H2 en memoria con el esquema creado por Hibernate.
+     */
+    static List<String> h2(String nombre) {
+        return List.of(
+                "spring.datasource.url=jdbc:h2:mem:" + nombre + ";DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.flyway.enabled=false");
+    }
+
+    /**
+     * Levanta la aplicación en un puerto libre. Las propiedades van como argumentos para
+     * que prevalezcan sobre application.properties.
+     */
+    static ConfigurableApplicationContext iniciar(List<String> propiedades) {
+        List<String> argumentos = new ArrayList<>(List.of("server.port=0", "spring.sql.init.mode=never"));
+        argumentos.addAll(propiedades);
+        return new SpringApplicationBuilder(ControlEscolarApplication.class)
+                .run(argumentos.stream().map(p -> "--" + p).toArray(String[]::new));
+    }
+
+    /**
+     * Calienta y después lanza clientes concurrentes, cada uno con sus peticiones en serie.
+     */
+    static Resultado medir(ConfigurableApplicationContext contexto, int clientes, int peticionesPorCliente)
+            throws Exception {
+        int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+        String token = contexto.getBean(JwtUtil.class).generateToken(
+                contexto.getBean(UsuarioService.class).loadUserByUsername("admin@idee.edu.mx"));
+        HttpClient cliente = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + "/api/maestros"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+
+        // Calentamiento
+        for (int i = 0; i < 50; i++) {
+            cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+        }
+
+        // El generador usa hilos de plataforma para compilar también con release 17
+        ExecutorService carga = Executors.newFixedThreadPool(clientes);
+        long inicio = System.nanoTime();
+        List<Future<long[]>> futuros = new ArrayList<>();
+        for (int c = 0; c < clientes; c++) {
+            futuros.add(carga.submit(() -> ejecutarCliente(cliente, peticion, peticionesPorCliente)));
+        }
+        carga.shutdown();
+        assertTrue(carga.awaitTermination(10, TimeUnit.MINUTES));
+        long totalNanos = System.nanoTime() - inicio;
+
+        long[] latencias = new long[clientes * peticionesPorCliente];
+        int n = 0;
+        int errores = 0;
+        for (Future<long[]> futuro : futuros) {
+            for (long latencia : futuro.get()) {
+                if (latencia < 0) {
+                    errores++;
+                } else {
+                    latencias[n++] = latencia;
+                }
+            }
+        }
+        long[] exitosas = Arrays.copyOf(latencias, n);
+        Arrays.sort(exitosas);
+        return new Resultado(n / (totalNanos / 1e9), percentil(exitosas, 0.50), percentil(exitosas, 0.99), errores);
+    }
+
+    /**
+     * Encabezado de la tabla que imprimen las pruebas, una fila por Resultado.formatear.
+     */
+    static String encabezado(String columna) {
+        return String.format("%n%-12s %12s %10s %10s %8s", columna, "peticiones/s", "p50 ms", "p99 ms", "errores");
+    }
+
+    private static long[] ejecutarCliente(HttpClient cliente, HttpRequest peticion, int peticiones) {
+        long[] latencias = new long[peticiones];
+        for (int i = 0; i < peticiones; i++) {
+            long inicio = System.nanoTime();
+            try {
+                HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+                latencias[i] = respuesta.statusCode() == 200 ? System.nanoTime() - inicio : -1;
+            } catch (Exception e) {
+                latencias[i] = -1;
+            }
+        }
+        return latencias;
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(p * ordenadas.length) - 1;
+        return ordenadas[Math.max(indice, 0)] / 1e6;
+    }
+
+    record Resultado(double porSegundo, double p50, double p99, int errores) {
+
+        String formatear(String modo) {
+            return String.format("%-12s %12.0f %10.1f %10.1f %8d", modo, porSegundo, p50, p99, errores);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.idee.controlescolar;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PRUEBA DE CARGA: COSTO DE LOS LOGS POR PETICIÓN
+ * ===============================================
+ *
+ * Levanta la aplicación dos veces y lanza la misma carga concurrente contra
+ * GET /api/maestros: primero con los niveles de application.properties (DEBUG de SQL,
+ * parámetros y seguridad, appenders síncronos) y después con el perfil prod (JSON,
+ * appenders asíncronos y DEBUG solo en las peticiones muestreadas). Imprime throughput
+ * y latencias de cada configuración. No forma parte de la suite normal.
+ *
+ * Ejecutar con: mvn test -Dtest=CargaLogsTest -Dcarga=true
+ */
+@EnabledIfSystemProperty(named = "carga", matches = "true")
+public class CargaLogsTest {
+
+    private static final int CLIENTES = Integer.getInteger("carga.clientes", 50);
+    private static final int PETICIONES_POR_CLIENTE = Integer.getInteger("carga.peticiones", 40);
+
+    @Test
+    public void comparaLogsDeDesarrolloContraPerfilProd() throws Exception {
+        CargaHttp.Resultado desarrollo = medir(null);
+        CargaHttp.Resultado prod = medir("prod");
+
+        System.out.println(CargaHttp.encabezado("logs"));
+        System.out.println(desarrollo.formatear("desarrollo"));
+        System.out.println(prod.formatear("prod"));
+
+        assertEquals(0, desarrollo.errores());
+        assertEquals(0, prod.errores());
+    }
+
+    private CargaHttp.Resultado medir(String perfil) throws Exception {
+        Path archivoLog = Files.createTempFile("carga-logs", ".log");
+        // Los niveles de log se dejan como los define cada configuración
+        List<String> propiedades = new ArrayList<>(CargaHttp.h2("logs" + perfil));
+        propiedades.add("logging.file.name=" + archivoLog);
+        if (perfil != null) {
+            propiedades.add("spring.profiles.active=" + perfil);
+        }
+        try (ConfigurableApplicationContext contexto = CargaHttp.iniciar(propiedades)) {
+            return CargaHttp.medir(contexto, CLIENTES, PETICIONES_POR_CLIENTE);
+        } finally {
+            Files.deleteIfExists(archivoLog);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.idee.controlescolar;
+
+import com.idee.controlescolar.model.Alumno;
+import com.idee.controlescolar.model.Asignatura;
+import com.idee.controlescolar.model.Calificacion;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PRUEBA DE CARGA: INSERCIÓN MASIVA CON Y SIN LOTES JDBC
+ * ======================================================
+ *
+ * Inserta 10 000 alumnos y 100 000 calificaciones dos veces: sin lotes
+ * (hibernate.jdbc.batch_size=1, un viaje a la BD por fila como con los IDs IDENTITY
+ * anteriores) y con la configuración de application.properties (secuencias con
+ * bloques de 50 y lotes de 50). Imprime filas por segundo de cada modo. No forma
+ * parte de la suite normal.
+ *
+ * Por defecto usa H2 en memoria; para números representativos apuntar a PostgreSQL
+ * (con reWriteBatchedInserts=true en la URL) con -Dcarga.url, -Dcarga.usuario y
+ * -Dcarga.password. La BD debe estar vacía: se crea y se borra el esquema.
+ *
+ * Ejecutar con: mvn test -Dtest=InsercionMasivaTest -Dcarga=true
+ */
+@EnabledIfSystemProperty(named = "carga", matches = "true")
+public class InsercionMasivaTest {
+
+    private static final int ALUMNOS = Integer.getInteger("carga.alumnos", 10_000);
+    private static final int CALIFICACIONES_POR_ALUMNO = Integer.getInteger("carga.calificaciones", 10);
+    private static final int FILAS_POR_TRANSACCION = 1_000;
+
+    @Test
+    public void comparaInsercionSinLotesContraConLotes() {
+        Resultado sinLotes = medir(false);
+        Resultado conLotes = medir(true);
+
+        System.out.printf("%n%-10s %16s %20s%n", "modo", "alumnos/s", "calificaciones/s");
+        System.out.println(sinLotes.formatear("sin lotes"));
+        System.out.println(conLotes.formatear("con lotes"));
+
+        assertTrue(conLotes.calificacionesPorSegundo > 0);
+    }
+
+    private Resultado medir(boolean lotes) {
+        try (ConfigurableApplicationContext contexto = iniciar(lotes)) {
+            EntityManagerFactory emf = contexto.getBean(EntityManagerFactory.class);
+
+            Asignatura asignatura = new Asignatura();
+            asignatura.setClave("CARGA-01");
+            asignatura.setNombre("Asignatura de carga");
+            enTransaccion(emf, em -> em.persist(asignatura));
+
+            List<Long> alumnos = new ArrayList<>(ALUMNOS);
+            long inicio = System.nanoTime();
+            insertarEnBloques(emf, ALUMNOS, (em, i) -> {
+                Alumno alumno = new Alumno();
+                alumno.setMatricula(String.format("C%08d", i));
+                alumno.setNombre("Alumno");
+                alumno.setApellidoPaterno("Carga");
+                alumno.setApellidoMaterno(String.valueOf(i));
+                alumno.setCurp(String.format("CARGA%013d", i));
+                em.persist(alumno);
+                alumnos.add(alumno.getId());
+            });
+            double alumnosPorSegundo = ALUMNOS / ((System.nanoTime() - inicio) / 1e9);
+
+            int totalCalificaciones = ALUMNOS * CALIFICACIONES_POR_ALUMNO;
+            inicio = System.nanoTime();
+            insertarEnBloques(emf, totalCalificaciones, (em, i) -> {
+                Calificacion calificacion = new Calificacion();
+                calificacion.setCalificacionFinal(6.0 + i % 5);
+                calificacion.setAlumno(em.getReference(Alumno.class, alumnos.get(i / CALIFICACIONES_POR_ALUMNO)));
+                calificacion.setAsignatura(em.getReference(Asignatura.class, asignatura.getId()));
+                em.persist(calificacion);
+            });
+            double calificacionesPorSegundo = totalCalificaciones / ((System.nanoTime() - inicio) / 1e9);
+
+            return new Resultado(alumnosPorSegundo, calificacionesPorSegundo);
+        }
+    }
+
+    /**
+     * Persiste las filas en transacciones de FILAS_POR_TRANSACCION, vaciando el
+     * contexto de persistencia al terminar cada una.
+     */
+    private void insertarEnBloques(EntityManagerFactory emf, int filas, BiConsumer<EntityManager, Integer> persistir) {
+        for (int desde = 0; desde < filas; desde += FILAS_POR_TRANSACCION) {
+            int inicio = desde;
+            int fin = Math.min(filas, desde + FILAS_POR_TRANSACCION);
+            enTransaccion(emf, em -> {
+                for (int i = inicio; i < fin; i++) {
+                    persistir.accept(em, i);
+                }
+            });
+        }
+    }
+
+    private void enTransaccion(EntityManagerFactory emf, Consumer<EntityManager> trabajo) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            trabajo.accept(em);
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    private ConfigurableApplicationContext iniciar(boolean lotes) {
+        String url = System.getProperty("carga.url", "jdbc:h2:mem:insercion" + lotes + ";DB_CLOSE_DELAY=-1");
+        List<String> propiedades = new ArrayList<>(List.of(
+                "spring.main.web-application-type=none",
+                "spring.datasource.url=" + url,
+                "spring.datasource.username=" + System.getProperty("carga.usuario", "sa"),
+                "spring.datasource.password=" + System.getProperty("carga.password", ""),
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.flyway.enabled=false",
+                "spring.jpa.show-sql=false",
+                "spring.sql.init.mode=never",
+                "logging.level.root=WARN",
+                "logging.level.com.idee.controlescolar=WARN",
+                "logging.level.org.springframework.data.jpa=WARN",
+                "logging.level.org.springframework.data.repository=WARN",
+                "logging.level.org.springframework.orm.jpa=WARN",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "logging.level.org.postgresql=WARN"));
+        if (!lotes) {
+            propiedades.add("spring.jpa.properties.hibernate.jdbc.batch_size=1");
+            propiedades.add("spring.jpa.properties.hibernate.order_inserts=false");
+        }
+        if (!System.getProperties().containsKey("carga.url")) {
+            propiedades.add("spring.datasource.driver-class-name=org.h2.Driver");
+            propiedades.add("spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+        }
+        // Como argumentos para que prevalezcan sobre application.properties
+        return new SpringApplicationBuilder(ControlEscolarApplication.class)
+                .run(propiedades.stream().map(p -> "--" + p).toArray(String[]::new));
+    }
+
+    private record Resultado(double alumnosPorSegundo, double calificacionesPorSegundo) {
+
+        String formatear(String modo) {
+            return String.format("%-10s %16.0f %20.0f", modo, alumnosPorSegundo, calificacionesPorSegundo);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.idee.controlescolar.config;
+
+import com.idee.controlescolar.model.Alumno;
+import com.idee.controlescolar.repository.AlumnoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TESTS DEL ENRUTAMIENTO A RÉPLICAS DE LECTURA
+ * ============================================
+ *
+ * Usan dos bases H2 en memoria como primario y réplica. La réplica se crea
+ * copiando el esquema del primario y se le agrega un alumno que solo existe
+ * en ella, así cada consulta revela a qué base fue. La posición del primario
+ * se simula con la tabla posicion_primario (replicas.consulta-posicion-primario)
+ * y la de la réplica, con su retraso, con la tabla retraso_replica
+ * (replicas.consulta-retraso).
+ *
+ * Ejecutar con: mvn test -Dtest=EnrutadorDataSourceTest
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=" + EnrutadorDataSourceTest.URL_PRIMARIO,
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "replicas.urls=" + EnrutadorDataSourceTest.URL_REPLICA,
+        "replicas.pool-size=2",
+        "replicas.consulta-posicion-primario=SELECT posicion FROM posicion_primario",
+        "replicas.consulta-retraso=SELECT CASE WHEN posicion >= CAST(? AS BIGINT) THEN 0 ELSE segundos END " +
+                "FROM retraso_replica",
+        "replicas.retraso-maximo-segundos=10",
+        "replicas.intervalo-verificacion-ms=3600000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ReplicasConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class EnrutadorDataSourceTest {
+
+    static final String URL_PRIMARIO = "jdbc:h2:mem:primario;DB_CLOSE_DELAY=-1";
+    static final String URL_REPLICA = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+    private static final String SOLO_EN_REPLICA = "REPLICA-001";
+
+    @Autowired private AlumnoRepository alumnoRepository;
+    @Autowired private EnrutadorDataSource enrutador;
+    private SingleConnectionDataSource conexionPrimario;
+    private SingleConnectionDataSource conexionReplica;
+    private JdbcTemplate replica;
+    private JdbcTemplate primario;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        // Con autocommit, a diferencia del pool de la aplicación
+        conexionPrimario = new SingleConnectionDataSource(URL_PRIMARIO, "sa", "", true);
+        primario = new JdbcTemplate(conexionPrimario);
+        conexionReplica = new SingleConnectionDataSource(URL_REPLICA, "sa", "", true);
+        replica = new JdbcTemplate(conexionReplica);
+
+        Path esquema = Files.createTempFile("esquema", ".sql");
+        primario.execute("SCRIPT NODATA TO '" + esquema + "'");
+        replica.execute("RUNSCRIPT FROM '" + esquema + "'");
+        Files.delete(esquema);
+
+        primario.execute("CREATE TABLE posicion_primario (posicion BIGINT)");
+        primario.update("INSERT INTO posicion_primario VALUES (1)");
+        replica.execute("CREATE TABLE retraso_replica (segundos DOUBLE PRECISION, posicion BIGINT)");
+        replica.update("INSERT INTO retraso_replica VALUES (0, 1)");
+        replica.update("INSERT INTO alumnos (id, matricula, curp, nombre, apellido_paterno, apellido_materno, " +
+                "estatus_matricula, fecha_creacion) VALUES (1, ?, 'REPLICA000000000001', 'Solo', 'En', 'Replica', " +
+                "'ACTIVA', CURRENT_TIMESTAMP)", SOLO_EN_REPLICA);
+        enrutador.verificarReplicas();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        primario.execute("DROP TABLE posicion_primario");
+        replica.execute("DROP ALL OBJECTS");
+        conexionReplica.destroy();
+        conexionPrimario.destroy();
+        alumnoRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void lecturasVanALaReplica() {
+        assertTrue(alumnoRepository.findByMatricula(SOLO_EN_REPLICA).isPresent());
+        assertEquals(1, alumnoRepository.findAll().size());
+    }
+
+    @Test
+    public void escriturasVanAlPrimario() {
+        alumnoRepository.save(alumno("PRIMARIO-001"));
+
+        assertEquals(1, contar(primario, "PRIMARIO-001"));
+        assertEquals(0, contar(replica, "PRIMARIO-001"));
+        assertEquals(0, contar(primario, SOLO_EN_REPLICA));
+    }
+
+    @Test
+    public void replicaAtrasadaSeDejaDeUsarHastaPonerseAlDia() {
+        primario.update("UPDATE posicion_primario SET posicion = 2");
+        replica.update("UPDATE retraso_replica SET segundos = 60");
+        enrutador.verificarReplicas();
+
+        assertTrue(alumnoRepository.findByMatricula(SOLO_EN_REPLICA).isEmpty());
+
+        replica.update("UPDATE retraso_replica SET segundos = 2");
+        enrutador.verificarReplicas();
+
+        assertTrue(alumnoRepository.findByMatricula(SOLO_EN_REPLICA).isPresent());
+    }
+
+    @Test
+    public void replicaQueLlegoALaPosicionDelPrimarioEstaAlDia() {
+        // Primario sin escrituras: la última transacción reproducida es vieja, pero no falta nada
+        replica.update("UPDATE retraso_replica SET segundos = 3600");
+        enrutador.verificarReplicas();
+
+        assertTrue(alumnoRepository.findByMatricula(SOLO_EN_REPLICA).isPresent());
+
+        // El primario avanza y la réplica (receptor detenido) ya no recibe nada
+        primario.update("UPDATE posicion_primario SET posicion = 2");
+        enrutador.verificarReplicas();
+
+        assertTrue(alumnoRepository.findByMatricula(SOLO_EN_REPLICA).isEmpty());
+    }
+
+    @Test
+    public void sinPosicionDelPrimarioNoSeUsanReplicas() {
+        primario.execute("DROP TABLE posicion_primario");
+        enrutador.verificarReplicas();
+        primario.execute("CREATE TABLE posicion_primario (posicion BIGINT)");
+
+        assertTrue(alumnoRepository.findByMatricula(SOLO_EN_REPLICA).isEmpty());
+    }
+
+    @Test
+    public void replicaSinRespuestaSeDejaDeUsar() {
+        replica.execute("DROP TABLE retraso_replica");
+        enrutador.verificarReplicas();
+
+        assertTrue(alumnoRepository.findByMatricula(SOLO_EN_REPLICA).isEmpty());
+    }
+
+    private int contar(JdbcTemplate base, String matricula) {
+        Integer total = base.queryForObject(
+                "SELECT COUNT(*) FROM alumnos WHERE matricula = ?", Integer.class, matricula);
+        return total == null ? 0 : total;
+    }
+
+    private Alumno alumno(String matricula) {
+        Alumno alumno = new Alumno();
+        alumno.setMatricula(matricula);
+        alumno.setNombre("Alumno");
+        alumno.setApellidoPaterno("Primario");
+        alumno.setApellidoMaterno("Prueba");
+        alumno.setCurp("PRIMARIO0000000001");
+        return alumno;
+    }
+}
@@ -0,0 +1,80 @@
+package com.idee.controlescolar.config;
+
+import com.idee.controlescolar.security.JwtUtil;
+import com.idee.controlescolar.service.UsuarioService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TESTS DEL ENDPOINT DE PROMETHEUS
+ * ================================
+ *
+ * Levantan la aplicación sobre H2, hacen una petición autenticada a la API y
+ * verifican que /actuator/prometheus responda sin JWT con el histograma de
+ * latencia del endpoint y las métricas de negocio.
+ *
+ * Ejecutar con: mvn test -Dtest=MetricasPrometheusTest
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:metricas;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureObservability(tracing = false)
+public class MetricasPrometheusTest {
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired private JwtUtil jwtUtil;
+    @Autowired private UsuarioService usuarioService;
+
+    private final HttpClient cliente = HttpClient.newHttpClient();
+
+    @Test
+    public void prometheusPublicaLatenciaPorEndpointYMetricasDeNegocio() throws Exception {
+        String token = jwtUtil.generateToken(usuarioService.loadUserByUsername("admin@idee.edu.mx"));
+        HttpResponse<Void> api = cliente.send(HttpRequest.newBuilder(url("/api/maestros"))
+                .header("Authorization", "Bearer " + token)
+                .build(), HttpResponse.BodyHandlers.discarding());
+        assertEquals(200, api.statusCode());
+
+        HttpResponse<String> scrape = cliente.send(HttpRequest.newBuilder(url("/actuator/prometheus")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, scrape.statusCode());
+        String cuerpo = scrape.body();
+        assertTrue(cuerpo.lines().anyMatch(l -> l.startsWith("http_server_requests_seconds_bucket{")
+                && l.contains("uri=\"/api/maestros\"")), "histograma de /api/maestros");
+        assertTrue(cuerpo.contains("titulos_generados_total"));
+        assertTrue(cuerpo.contains("titulos_firmados_total"));
+        assertTrue(cuerpo.contains("correo_outbox_pendientes"));
+    }
+
+    @Test
+    public void elRestoDeActuatorSigueRequiriendoJwt() throws Exception {
+        HttpResponse<Void> metricas = cliente.send(HttpRequest.newBuilder(url("/actuator/metrics")).build(),
+                HttpResponse.BodyHandlers.discarding());
+
+        assertEquals(403, metricas.statusCode());
+    }
+
+    private URI url(String ruta) {
+        return URI.create("http://localhost:" + puerto + ruta);
+    }
+}
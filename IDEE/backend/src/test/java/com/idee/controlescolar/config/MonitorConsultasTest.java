@@ -0,0 +1,124 @@
+package com.idee.controlescolar.config;
+
+import com.idee.controlescolar.repository.AlumnoRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TESTS DEL DETECTOR DE CONSULTAS LENTAS
+ * ======================================
+ *
+ * Validan que el proxy JDBC acumule cada sentencia con la forma de sus
+ * parámetros, que registre las que pasan del umbral y que /actuator/consultas
+ * ordene por tiempo total o por número de ejecuciones.
+ *
+ * Ejecutar con: mvn test -Dtest=MonitorConsultasTest
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:monitor;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "consultas.lentas.umbral-ms=50"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(MonitorConsultasConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ExtendWith(OutputCaptureExtension.class)
+public class MonitorConsultasTest {
+
+    @Autowired private AlumnoRepository alumnoRepository;
+    @Autowired private EstadisticasConsultas estadisticas;
+    @Autowired private ConsultasEndpoint endpoint;
+    @Autowired private DataSource dataSource;
+
+    @BeforeEach
+    public void setUp() {
+        endpoint.reiniciar();
+    }
+
+    @Test
+    public void acumulaPorSentenciaConLaFormaDeSusParametros() {
+        for (int i = 0; i < 3; i++) {
+            alumnoRepository.findByMatricula("M-" + i);
+        }
+        alumnoRepository.existsByMatricula("M-0");
+
+        EstadisticasConsultas.Resumen porMatricula = estadisticas.top("conteo", 10).stream()
+                .filter(r -> r.sql().contains("matricula=?") && !r.sql().contains("fetch first"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(3, porMatricula.ejecuciones());
+        assertEquals(List.of("(String)"), porMatricula.formas());
+    }
+
+    @Test
+    public void listasInDeDistintoLargoCuentanComoUnaSentencia() {
+        alumnoRepository.findAllById(List.of(1L, 2L, 3L));
+        alumnoRepository.findAllById(List.of(1L, 2L));
+
+        List<EstadisticasConsultas.Resumen> conIn = estadisticas.top("conteo", 10).stream()
+                .filter(r -> r.sql().contains(" in (?, ...)"))
+                .toList();
+        assertEquals(1, conIn.size());
+        assertEquals(2, conIn.get(0).ejecuciones());
+        assertTrue(conIn.get(0).formas().containsAll(List.of("(Long, Long, Long)", "(Long, Long)")));
+    }
+
+    @Test
+    public void registraLasSentenciasQuePasanDelUmbral(CapturedOutput salida) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE ALIAS IF NOT EXISTS DORMIR FOR 'java.lang.Thread.sleep(long)'");
+        jdbc.execute("CALL DORMIR(80)");
+        alumnoRepository.count();
+
+        assertTrue(salida.getOut().contains("Consulta lenta"));
+        assertTrue(salida.getOut().contains("CALL DORMIR(80)"));
+        assertFalse(salida.getOut().lines().anyMatch(l -> l.contains("Consulta lenta") && l.contains("count(")));
+
+        EstadisticasConsultas.Resumen masLenta = estadisticas.top("total", 1).get(0);
+        assertEquals("CALL DORMIR(80)", masLenta.sql());
+        assertTrue(masLenta.maxMs() >= 80);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void endpointIncluyeJdbcYConsultasDeHibernate() {
+        alumnoRepository.findByMatricula("X");
+
+        Map<String, Object> respuesta = endpoint.consultas(null, 5);
+
+        assertEquals("total", respuesta.get("orden"));
+        assertFalse(((List<?>) respuesta.get("jdbc")).isEmpty());
+        Map<String, Object> hibernate = (Map<String, Object>) respuesta.get("hibernate");
+        assertTrue(((List<ConsultasEndpoint.ConsultaHibernate>) hibernate.get("consultas")).stream()
+                .anyMatch(c -> c.consulta().contains("matricula")));
+    }
+
+    @Test
+    public void elProxySigueExponiendoElPoolDeHikari() throws Exception {
+        assertTrue(dataSource.isWrapperFor(HikariDataSource.class));
+        assertNotNull(dataSource.unwrap(HikariDataSource.class));
+    }
+}
@@ -0,0 +1,132 @@
+package com.idee.controlescolar.repository;
+
+import com.idee.controlescolar.model.ProgramaEducativo;
+import com.idee.controlescolar.service.CatalogoCacheService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TESTS DE CACHÉ DE SEGUNDO NIVEL DE CATÁLOGOS
+ * ============================================
+ *
+ * Validan sobre H2 que los programas educativos se sirvan desde la caché
+ * de entidades y de consultas, que CatalogoCacheService invalide ambas y
+ * que lo haga también cuando otra instancia incrementa el contador del catálogo.
+ * Cada llamada al repositorio corre en su propia transacción para que la
+ * caché de consultas vea los cambios confirmados.
+ *
+ * Ejecutar con: mvn test -Dtest=CatalogoCacheTest
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import(CatalogoCacheService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CatalogoCacheTest {
+
+    @Autowired
+    private ProgramaEducativoRepository programaRepository;
+
+    @Autowired
+    private CatalogoCacheService catalogoCacheService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics estadisticas;
+    private Long programaId;
+
+    @BeforeEach
+    public void setUp() {
+        ProgramaEducativo programa = new ProgramaEducativo();
+        programa.setClave("LIC-TEST");
+        programa.setNombre("Licenciatura de prueba");
+        programa.setTipoPrograma(ProgramaEducativo.TipoPrograma.LICENCIATURA);
+        programaId = programaRepository.save(programa).getId();
+
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        catalogoCacheService.evictarProgramas();
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        programaRepository.deleteAll();
+        enTransaccion("DELETE FROM catalogo_versiones");
+    }
+
+    @Test
+    public void findByIdSeSirveDesdeLaCacheDeEntidades() {
+        programaRepository.findById(programaId);
+        programaRepository.findById(programaId);
+
+        assertEquals(1, estadisticas.getSecondLevelCacheMissCount());
+        assertEquals(1, estadisticas.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    public void findAllSeSirveDesdeLaCacheDeConsultas() {
+        programaRepository.findAll();
+        long consultas = estadisticas.getPrepareStatementCount();
+
+        programaRepository.findAll();
+
+        assertEquals(1, estadisticas.getQueryCacheHitCount());
+        assertEquals(consultas, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void evictarObligaARecargar() {
+        programaRepository.findAll();
+        catalogoCacheService.evictarProgramas();
+
+        programaRepository.findAll();
+
+        assertEquals(0, estadisticas.getQueryCacheHitCount());
+        assertEquals(2, estadisticas.getQueryCacheMissCount());
+    }
+
+    @Test
+    public void contadorMovidoPorOtraInstanciaInvalida() {
+        enTransaccion("INSERT INTO catalogo_versiones (tabla, version) VALUES ('programas_educativos', 4)");
+        catalogoCacheService.verificarVersiones();
+        assertEquals("Licenciatura de prueba", programaRepository.findAll().get(0).getNombre());
+
+        // Otra instancia cambia el programa: esta no se entera hasta ver el contador
+        enTransaccion("UPDATE programas_educativos SET nombre = 'Renombrado' WHERE id = " + programaId);
+        catalogoCacheService.verificarVersiones();
+        assertEquals("Licenciatura de prueba", programaRepository.findAll().get(0).getNombre());
+
+        enTransaccion("UPDATE catalogo_versiones SET version = 5 WHERE tabla = 'programas_educativos'");
+        catalogoCacheService.verificarVersiones();
+        assertEquals("Renombrado", programaRepository.findAll().get(0).getNombre());
+        assertEquals("Renombrado", programaRepository.findById(programaId).orElseThrow().getNombre());
+    }
+
+    private void enTransaccion(String sql) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(s -> jdbcTemplate.update(sql));
+    }
+}
@@ -0,0 +1,304 @@
+package com.idee.controlescolar.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.idee.controlescolar.config.JacksonConfig;
+import com.idee.controlescolar.model.Alumno;
+import com.idee.controlescolar.model.Asignatura;
+import com.idee.controlescolar.model.Calificacion;
+import com.idee.controlescolar.model.EstatusTitulo;
+import com.idee.controlescolar.model.Grupo;
+import com.idee.controlescolar.model.HorarioBloque;
+import com.idee.controlescolar.model.Maestro;
+import com.idee.controlescolar.model.ProgramaEducativo;
+import com.idee.controlescolar.model.TituloElectronico;
+import com.idee.controlescolar.model.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TESTS DE CONSULTAS POR LISTADO (N+1)
+ * ====================================
+ *
+ * Cuentan con las estadísticas de Hibernate las sentencias SQL que cuesta cada
+ * listado de la API: la consulta del repositorio más la serialización a JSON con
+ * el mismo Hibernate6Module que usan los controladores. Con los grafos de entidad
+ * cada listado es una sola sentencia sin importar cuántas filas devuelva.
+ *
+ * Ejecutar con: mvn test -Dtest=ConsultasPorListadoTest
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ConsultasPorListadoTest {
+
+    private static final String PERIODO = "2025-2";
+    private static final int ALUMNOS = 4;
+
+    @Autowired private ProgramaEducativoRepository programaRepository;
+    @Autowired private AsignaturaRepository asignaturaRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private MaestroRepository maestroRepository;
+    @Autowired private AlumnoRepository alumnoRepository;
+    @Autowired private GrupoRepository grupoRepository;
+    @Autowired private CalificacionRepository calificacionRepository;
+    @Autowired private HorarioBloqueRepository horarioRepository;
+    @Autowired private TituloElectronicoRepository tituloRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .registerModule(new JacksonConfig().hibernate6Module());
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    public void setUp() {
+        Asignatura[] asignaturas = new Asignatura[2];
+        Maestro[] maestros = new Maestro[2];
+        Grupo[] grupos = new Grupo[2];
+        for (int i = 0; i < 2; i++) {
+            ProgramaEducativo programa = new ProgramaEducativo();
+            programa.setClave("PRG-" + i);
+            programa.setNombre("Programa " + i);
+            programa.setTipoPrograma(ProgramaEducativo.TipoPrograma.LICENCIATURA);
+            programa = programaRepository.save(programa);
+
+            Asignatura asignatura = new Asignatura();
+            asignatura.setClave("ASG-" + i);
+            asignatura.setNombre("Asignatura " + i);
+            asignatura.setPrograma(programa);
+            asignaturas[i] = asignaturaRepository.save(asignatura);
+
+            Maestro maestro = new Maestro();
+            maestro.setCurp("MAESTRO00000000" + i);
+            maestro.setNombre("Maestro");
+            maestro.setApellidoPaterno("Prueba");
+            maestro.setApellidoMaterno(String.valueOf(i));
+            maestro.setCorreoInstitucional("maestro" + i + "@idee.edu.mx");
+            maestro.setUsuario(usuario("maestro" + i + "@idee.edu.mx", Usuario.TipoUsuario.MAESTRO));
+            maestros[i] = maestroRepository.save(maestro);
+
+            Grupo grupo = new Grupo();
+            grupo.setNombre("G" + i);
+            grupo.setPeriodo(PERIODO);
+            grupo.setAsignatura(asignaturas[i]);
+            grupo.setMaestro(maestros[i]);
+            grupos[i] = grupoRepository.save(grupo);
+
+            HorarioBloque bloque = new HorarioBloque();
+            bloque.setDia(HorarioBloque.DiaSemana.LUNES);
+            bloque.setHoraInicio(LocalTime.of(8 + 2 * i, 0));
+            bloque.setHoraFin(LocalTime.of(10 + 2 * i, 0));
+            bloque.setPeriodo(PERIODO);
+            bloque.setGrupo(grupo.getNombre());
+            bloque.setPrograma(programa);
+            bloque.setAsignatura(asignaturas[i]);
+            bloque.setMaestro(maestros[i]);
+            horarioRepository.save(bloque);
+        }
+
+        for (int i = 0; i < ALUMNOS; i++) {
+            Alumno alumno = new Alumno();
+            alumno.setMatricula("MAT-" + i);
+            alumno.setNombre("Alumno");
+            alumno.setApellidoPaterno("Prueba");
+            alumno.setApellidoMaterno(String.valueOf(i));
+            alumno.setCurp("ALUMNO0000000000" + i);
+            alumno.setPrograma(asignaturas[i % 2].getPrograma());
+            alumno.setUsuario(usuario("alumno" + i + "@idee.edu.mx", Usuario.TipoUsuario.ALUMNO));
+            alumno = alumnoRepository.save(alumno);
+
+            for (int j = 0; j < 2; j++) {
+                Calificacion calificacion = new Calificacion();
+                calificacion.setCalificacionFinal(8.0 + j);
+                calificacion.setAlumno(alumno);
+                calificacion.setAsignatura(asignaturas[j]);
+                calificacion.setGrupo(grupos[j]);
+                calificacionRepository.save(calificacion);
+            }
+        }
+
+        entityManagerFactory.getCache().evictAll();
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tituloRepository.deleteAllInBatch();
+        calificacionRepository.deleteAllInBatch();
+        horarioRepository.deleteAllInBatch();
+        grupoRepository.deleteAllInBatch();
+        alumnoRepository.deleteAllInBatch();
+        maestroRepository.deleteAllInBatch();
+        usuarioRepository.deleteAllInBatch();
+        asignaturaRepository.deleteAllInBatch();
+        programaRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void listadoDeAlumnosEsUnaConsulta() throws Exception {
+        String json = contarYSerializar(1, () -> alumnoRepository.findAll());
+
+        assertTrue(json.contains("\"nombre\":\"Programa 1\""));
+    }
+
+    @Test
+    public void listadoDeCalificacionesEsUnaConsulta() throws Exception {
+        String json = contarYSerializar(1, () -> calificacionRepository.findAll());
+
+        assertTrue(json.contains("\"matricula\":\"MAT-3\""));
+        assertTrue(json.contains("\"nombreCompleto\":\"G1 - Asignatura 1\""));
+    }
+
+    @Test
+    public void horariosDelPeriodoSonUnaConsulta() throws Exception {
+        String json = contarYSerializar(1, () -> horarioRepository.findByPeriodo(PERIODO));
+
+        assertTrue(json.contains("\"curp\":\"MAESTRO000000001\""));
+    }
+
+    @Test
+    public void asignaturasSeSirvenConSuProgramaDesdeLaCache() throws Exception {
+        contarYSerializar(1, () -> asignaturaRepository.findAll());
+
+        String json = contarYSerializar(0, () -> asignaturaRepository.findAll());
+
+        assertTrue(json.contains("\"nombre\":\"Programa 0\""));
+    }
+
+    @Test
+    public void listadoDeAsignaturasDelEndpointEsUnaConsultaSinCache() throws Exception {
+        contarYSerializar(1, () -> asignaturaRepository.findListado());
+
+        String json = contarYSerializar(1, () -> asignaturaRepository.findListado());
+
+        assertTrue(json.contains("\"nombre\":\"Programa 0\""));
+    }
+
+    @Test
+    public void gruposParaGenerarHorarioSonUnaConsulta() {
+        List<Grupo> grupos = grupoRepository.findByPeriodoAndEstatus(PERIODO, Grupo.EstatusGrupo.ACTIVO);
+
+        assertEquals(2, grupos.size());
+        for (Grupo grupo : grupos) {
+            assertNotNull(grupo.getAsignatura().getPrograma().getNombre());
+            assertNotNull(grupo.getMaestro().getNombreCompleto());
+        }
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void autenticacionCargaElUsuarioEnUnaConsulta() {
+        Usuario usuario = usuarioRepository.findByEmail("alumno2@idee.edu.mx").orElseThrow();
+
+        assertEquals("MAT-2", usuario.getAlumno().getMatricula());
+        assertNull(usuario.getMaestro());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    public void listadoDeTitulosPorCursorEsUnaConsultaPorPagina() throws Exception {
+        List<Alumno> alumnos = alumnoRepository.findAll();
+        LocalDateTime base = LocalDateTime.of(2026, 3, 2, 10, 0);
+        // Minuto de creación de cada título en orden de id: el último sale del bloque de ids
+        // de otra instancia pero se creó antes, y dos comparten instante
+        int[] minutos = {0, 1, 1, 2, -1};
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(titulo(alumnos.get(i % ALUMNOS), i == 4 ? EstatusTitulo.FIRMADO : EstatusTitulo.GENERADO,
+                    base.plusMinutes(minutos[i])).getId());
+        }
+        List<Long> esperados = List.of(ids.get(3), ids.get(2), ids.get(1), ids.get(0), ids.get(4));
+        estadisticas.clear();
+
+        // Páginas de 2: cada una es la consulta con alumno y programa más el conteo
+        List<Long> leidos = new ArrayList<>();
+        TituloElectronicoRepository.TituloListado ultimo = null;
+        int paginas = 0;
+        do {
+            List<TituloElectronicoRepository.TituloListado> pagina = tituloRepository.findPaginaListado(
+                    ultimo == null ? null : ultimo.getFechaCreacion(), ultimo == null ? null : ultimo.getId(),
+                    null, null, null, null, null, PageRequest.of(0, 2));
+            assertEquals(5, tituloRepository.countListado(null, null, null, null, null));
+            String json = mapper.writeValueAsString(pagina);
+            assertTrue(json.contains("\"programaNombre\":\"Programa"), json);
+            pagina.forEach(t -> leidos.add(t.getId()));
+            ultimo = pagina.size() < 2 ? null : pagina.get(1);
+            paginas++;
+        } while (ultimo != null);
+        assertEquals(esperados, leidos);
+        assertEquals(2L * paginas, estadisticas.getPrepareStatementCount());
+
+        // Texto sobre el nombre completo del alumno y filtro por estatus
+        List<TituloElectronicoRepository.TituloListado> prueba3 = tituloRepository.findPaginaListado(
+                null, null, null, null, null, null, "PRUEBA 3", PageRequest.of(0, 10));
+        assertEquals(List.of("MAT-3"), prueba3.stream().map(TituloElectronicoRepository.TituloListado::getAlumnoMatricula).toList());
+        assertEquals(1, tituloRepository.countListado(EstatusTitulo.FIRMADO, null, null, null, null));
+        assertEquals(0, tituloRepository.countListado(null, null, null, null, "50%"));
+    }
+
+    /**
+     * Ejecuta la consulta, la serializa fuera de la transacción como lo hace el
+     * controlador y verifica cuántas sentencias SQL costó en total.
+     */
+    private String contarYSerializar(long esperadas, Callable<List<?>> consulta) throws Exception {
+        long antes = estadisticas.getPrepareStatementCount();
+        String json = mapper.writeValueAsString(consulta.call());
+        assertEquals(esperadas, estadisticas.getPrepareStatementCount() - antes, json);
+        return json;
+    }
+
+    private Usuario usuario(String email, Usuario.TipoUsuario tipo) {
+        Usuario usuario = new Usuario();
+        usuario.setEmail(email);
+        usuario.setPassword("x");
+        usuario.setTipoUsuario(tipo);
+        return usuarioRepository.save(usuario);
+    }
+
+    private TituloElectronico titulo(Alumno alumno, EstatusTitulo estatus, LocalDateTime fechaCreacion) {
+        TituloElectronico titulo = new TituloElectronico();
+        titulo.setFolioControl("FOLIO-" + alumno.getMatricula() + "-" + System.nanoTime());
+        titulo.setAlumno(alumno);
+        titulo.setPrograma(alumno.getPrograma());
+        titulo.setFechaExpedicion(LocalDate.of(2026, 1, 14));
+        titulo.setIdModalidadTitulacion("1");
+        titulo.setModalidadTitulacion("POR TESIS");
+        titulo.setEstatus(estatus);
+        titulo = tituloRepository.save(titulo);
+        // La auditoría pone la fecha actual al insertar y la columna no es actualizable por JPA
+        Long id = titulo.getId();
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> jdbcTemplate.update(
+                "UPDATE titulos_electronicos SET fecha_creacion = ? WHERE id = ?", fechaCreacion, id));
+        return titulo;
+    }
+}
@@ -0,0 +1,309 @@
+package com.idee.controlescolar.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.idee.controlescolar.model.Grupo;
+import com.idee.controlescolar.model.HorarioBloque;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * TESTS DE PLANES DE CONSULTA (EXPLAIN)
+ * =====================================
+ *
+ * Construyen el esquema con las migraciones de Flyway en un PostgreSQL real,
+ * lo llenan con un volumen grande de datos y revisan con EXPLAIN el plan de
+ * la sentencia SQL que genera cada método del repositorio. Fallan si la tabla
+ * que filtra la consulta se recorre completa (Seq Scan), es decir, si falta
+ * o no se usa el índice de V13__indices_consultas.sql.
+ *
+ * Usa PostgreSQL embebido; si no puede arrancar en la máquina los tests se
+ * omiten. Para usar un servidor propio, pasar la URL de una BD vacía con
+ * -Dplanes.url (y -Dplanes.usuario / -Dplanes.password).
+ *
+ * Ejecutar con: mvn test -Dtest=PlanesConsultaTest
+ */
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.idee.controlescolar.repository.PlanesConsultaTest$CapturaSql"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PlanesConsultaTest {
+
+    private static final long BASE = 1_000_000;
+    private static final String PERIODO = "2030-1";
+
+    private static EmbeddedPostgres postgres;
+    private static String url;
+    private static boolean datosCargados;
+
+    @Autowired private CalificacionRepository calificacionRepository;
+    @Autowired private TituloElectronicoRepository tituloRepository;
+    @Autowired private AsignaturaRepository asignaturaRepository;
+    @Autowired private HorarioBloqueRepository horarioRepository;
+    @Autowired private GrupoRepository grupoRepository;
+    @Autowired private PersonalRepository personalRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeAll
+    public static void iniciarPostgres() {
+        url = System.getProperty("planes.url");
+        if (url != null) {
+            return;
+        }
+        try {
+            postgres = EmbeddedPostgres.builder().start();
+            url = postgres.getJdbcUrl("postgres", "postgres");
+        } catch (Exception e) {
+            assumeTrue(false, "No se pudo iniciar PostgreSQL embebido: " + e.getMessage());
+        }
+    }
+
+    @AfterAll
+    public static void detenerPostgres() throws Exception {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry registro) {
+        registro.add("spring.datasource.url", () -> url);
+        registro.add("spring.datasource.username", () -> System.getProperty("planes.usuario", "postgres"));
+        registro.add("spring.datasource.password", () -> System.getProperty("planes.password", ""));
+    }
+
+    @BeforeEach
+    public void setUp() {
+        if (!datosCargados) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(estado -> cargarDatos());
+            jdbcTemplate.execute("ANALYZE");
+            datosCargados = true;
+        }
+        CapturaSql.sentencias.clear();
+    }
+
+    @Test
+    public void calificacionesDelAlumnoUsanIndice() {
+        calificacionRepository.findByAlumnoId(BASE + 777);
+
+        assertSinSeqScan("calificaciones", BASE + 777);
+    }
+
+    @Test
+    public void titulosPendientesDeFirmaUsanIndice() {
+        tituloRepository.findTitulosPendientesFirma();
+
+        assertSinSeqScan("titulos_electronicos");
+    }
+
+    @Test
+    public void ultimoTituloDelAlumnoUsaIndice() {
+        tituloRepository.findUltimoTituloPorAlumno(BASE + 4321);
+
+        assertSinSeqScan("titulos_electronicos", BASE + 4321);
+    }
+
+    @Test
+    public void asignaturasDelProgramaUsanIndice() {
+        asignaturaRepository.findByProgramaId(BASE + 42);
+
+        assertSinSeqScan("asignaturas", BASE + 42);
+    }
+
+    @Test
+    public void horariosDelPeriodoUsanIndice() {
+        horarioRepository.findByPeriodo(PERIODO);
+
+        assertSinSeqScan("horarios_bloques", PERIODO);
+    }
+
+    @Test
+    public void intervalosActivosDelPeriodoUsanIndice() {
+        horarioRepository.findIntervalosActivosPorPeriodo(PERIODO);
+
+        assertSinSeqScan("horarios_bloques", PERIODO, HorarioBloque.EstatusHorario.ACTIVO.name());
+    }
+
+    @Test
+    public void gruposActivosDelPeriodoUsanIndice() {
+        grupoRepository.findByPeriodoAndEstatus(PERIODO, Grupo.EstatusGrupo.ACTIVO);
+
+        assertSinSeqScan("grupos", PERIODO, Grupo.EstatusGrupo.ACTIVO.name());
+    }
+
+    @Test
+    public void personalInactivoUsaIndice() {
+        personalRepository.findByActivoFalse();
+
+        assertSinSeqScan("personal");
+    }
+
+    /**
+     * Toma la primera sentencia que ejecutó el repositorio, la prepara con los
+     * mismos parámetros y verifica que su plan no recorra la tabla completa.
+     */
+    private void assertSinSeqScan(String tabla, Object... parametros) {
+        assertFalse(CapturaSql.sentencias.isEmpty(), "El repositorio no ejecutó ninguna sentencia");
+        String sql = CapturaSql.sentencias.get(0);
+        String plan = explicar(sql, parametros);
+        List<String> recorridos = new ArrayList<>();
+        try {
+            buscarSeqScan(mapper.readTree(plan).get(0).get("Plan"), recorridos);
+        } catch (Exception e) {
+            fail("No se pudo leer el plan: " + e.getMessage());
+        }
+        assertFalse(recorridos.contains(tabla),
+                "Seq Scan sobre " + tabla + "\nSQL: " + sql + "\nPlan: " + plan);
+    }
+
+    private String explicar(String sql, Object[] parametros) {
+        StringBuilder preparada = new StringBuilder();
+        int indice = 0;
+        for (char c : sql.toCharArray()) {
+            preparada.append(c == '?' ? "$" + (++indice) : String.valueOf(c));
+        }
+        assertEquals(indice, parametros.length, "Parámetros para: " + sql);
+        StringJoiner valores = new StringJoiner(", ", "(", ")");
+        for (Object parametro : parametros) {
+            valores.add(parametro instanceof Number ? parametro.toString() : "'" + parametro + "'");
+        }
+        String ejecutar = parametros.length == 0 ? "" : valores.toString();
+
+        return jdbcTemplate.execute((ConnectionCallback<String>) conexion -> {
+            try (Statement st = conexion.createStatement()) {
+                st.execute("PREPARE consulta AS " + preparada);
+                try (ResultSet rs = st.executeQuery("EXPLAIN (FORMAT JSON) EXECUTE consulta" + ejecutar)) {
+                    rs.next();
+                    return rs.getString(1);
+                } finally {
+                    st.execute("DEALLOCATE consulta");
+                }
+            }
+        });
+    }
+
+    private void buscarSeqScan(JsonNode nodo, List<String> recorridos) {
+        if ("Seq Scan".equals(nodo.path("Node Type").asText())) {
+            recorridos.add(nodo.path("Relation Name").asText());
+        }
+        for (JsonNode hijo : nodo.path("Plans")) {
+            buscarSeqScan(hijo, recorridos);
+        }
+    }
+
+    /**
+     * Datos con la proporción de una institución grande: 100 programas, 50 000
+     * alumnos con 10 calificaciones cada uno, 40 periodos de grupos y horarios,
+     * 2 % de títulos pendientes de firma y 2 % de personal inactivo. Los id
+     * empiezan en BASE para no chocar con los datos de prueba de V5–V7.
+     */
+    private void cargarDatos() {
+        jdbcTemplate.execute("""
+                INSERT INTO programas_educativos (id, clave, nombre, tipo_programa, estatus, fecha_creacion)
+                SELECT %1$d + i, 'PLAN-' || i, 'Programa ' || i, 'LICENCIATURA', 'ACTIVO', now()
+                FROM generate_series(1, 100) i
+                """.formatted(BASE));
+        jdbcTemplate.execute("""
+                INSERT INTO asignaturas (id, clave, nombre, programa_id)
+                SELECT %1$d + i, 'PLAN-ASG-' || i, 'Asignatura ' || i, %1$d + 1 + i %% 100
+                FROM generate_series(1, 5000) i
+                """.formatted(BASE));
+        jdbcTemplate.execute("""
+                INSERT INTO maestros (id, curp, nombre, apellido_paterno, apellido_materno,
+                                      correo_institucional, activo, fecha_creacion)
+                SELECT %1$d + i, 'PLANMAE' || lpad(i::text, 11, '0'), 'Maestro', 'Plan', i::text,
+                       'maestro' || i || '@plan.mx', TRUE, now()
+                FROM generate_series(1, 1000) i
+                """.formatted(BASE));
+        jdbcTemplate.execute("""
+                INSERT INTO alumnos (id, matricula, curp, nombre, apellido_paterno, apellido_materno,
+                                     estatus_matricula, programa_id, fecha_creacion)
+                SELECT %1$d + i, 'PLAN' || i, 'PLANALU' || lpad(i::text, 11, '0'), 'Alumno', 'Plan', i::text,
+                       'ACTIVA', %1$d + 1 + i %% 100, now()
+                FROM generate_series(1, 50000) i
+                """.formatted(BASE));
+        jdbcTemplate.execute("""
+                INSERT INTO calificaciones (id, alumno_id, asignatura_id, periodo, calificacion_final,
+                                            confirmada, fecha_creacion)
+                SELECT %1$d + i, %1$d + 1 + i / 10, %1$d + 1 + i %% 5000, '20' || (10 + i %% 40) || '-1',
+                       6 + i %% 5, FALSE, now()
+                FROM generate_series(0, 499999) i
+                """.formatted(BASE));
+        jdbcTemplate.execute("""
+                INSERT INTO titulos_electronicos (id, folio_control, alumno_id, programa_id, fecha_expedicion,
+                                                  id_modalidad_titulacion, modalidad_titulacion, estatus,
+                                                  fecha_creacion)
+                SELECT %1$d + i, 'PLAN-FOLIO-' || i, %1$d + i, %1$d + 1 + i %% 100, DATE '2020-01-01' + i %% 2000,
+                       '1', 'POR TESIS', CASE WHEN i %% 50 = 0 THEN 'GENERADO' ELSE 'ENTREGADO' END,
+                       TIMESTAMP '2020-01-01' + i * INTERVAL '1 hour'
+                FROM generate_series(1, 50000) i
+                """.formatted(BASE));
+        jdbcTemplate.execute("""
+                INSERT INTO grupos (id, nombre, periodo, estatus, asignatura_id, maestro_id, fecha_creacion)
+                SELECT %1$d + i, 'G' || i, '20' || (10 + i %% 40) || '-1', 'ACTIVO',
+                       %1$d + 1 + i %% 5000, %1$d + 1 + i %% 1000, now()
+                FROM generate_series(1, 10000) i
+                """.formatted(BASE));
+        jdbcTemplate.execute("""
+                INSERT INTO horarios_bloques (id, dia, hora_inicio, hora_fin, periodo, estatus, grupo,
+                                              maestro_id, asignatura_id, fecha_creacion)
+                SELECT %1$d + i, (ARRAY['LUNES','MARTES','MIERCOLES','JUEVES','VIERNES'])[1 + i / 1000 %% 5],
+                       TIME '07:00' + (i / 5000) * INTERVAL '1 hour', TIME '08:00' + (i / 5000) * INTERVAL '1 hour',
+                       '20' || (10 + i %% 40) || '-1', 'ACTIVO', 'G' || i,
+                       %1$d + 1 + i %% 1000, %1$d + 1 + i %% 5000, now()
+                FROM generate_series(1, 50000) i
+                """.formatted(BASE));
+        jdbcTemplate.execute("""
+                INSERT INTO personal (id, curp, nombre, apellido_paterno, apellido_materno, correo_institucional,
+                                      puesto, activo, fecha_creacion)
+                SELECT %1$d + i, 'PLANPER' || lpad(i::text, 11, '0'), 'Persona', 'Plan', i::text,
+                       'persona' || i || '@plan.mx', 'ADMINISTRATIVO', i %% 50 <> 0, now()
+                FROM generate_series(1, 10000) i
+                """.formatted(BASE));
+    }
+
+    /**
+     * Registra las sentencias SQL que genera Hibernate, antes de enviarlas.
+     */
+    public static class CapturaSql implements StatementInspector {
+
+        static final List<String> sentencias = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            sentencias.add(sql);
+            return sql;
+        }
+    }
+}
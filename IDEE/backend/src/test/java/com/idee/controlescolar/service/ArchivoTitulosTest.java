@@ -0,0 +1,120 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.repository.TituloElectronicoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * TESTS DEL ARCHIVO DE TÍTULOS
+ * ============================
+ *
+ * Validan que cada XML y cadena se recupere por su ubicación y por folio, que el
+ * segmento completo siga siendo un gzip legible, que los segmentos roten al llegar al
+ * tope y que la migración archive y borre los archivos sueltos.
+ *
+ * Ejecutar con: mvn test -Dtest=ArchivoTitulosTest
+ */
+public class ArchivoTitulosTest {
+
+    private static final String FOLIO = "IDEE-20260114090343-7E3F80F7035B4C8683ED";
+    private static final String OTRO_FOLIO = "IDEE-20260114090559-1855A5ED0E124BAEB82E";
+
+    @TempDir
+    Path directorio;
+
+    private TituloElectronicoRepository tituloRepository;
+    private ArchivoTitulos archivo;
+
+    @BeforeEach
+    void setUp() {
+        tituloRepository = mock(TituloElectronicoRepository.class);
+        archivo = new ArchivoTitulos(tituloRepository);
+        ReflectionTestUtils.setField(archivo, "directorio", directorio.resolve("archivo").toString());
+        ReflectionTestUtils.setField(archivo, "directorioSueltos", directorio.toString());
+        ReflectionTestUtils.setField(archivo, "segmentoMaxMb", 64L);
+    }
+
+    @Test
+    void recuperaPorUbicacionYPorFolio() throws Exception {
+        String xml = "<TituloElectronico folioControl=\"" + FOLIO + "\">Ñúñez</TituloElectronico>";
+        String ubicacion = archivo.guardar(FOLIO, ArchivoTitulos.Tipo.XML, xml);
+        archivo.guardar(FOLIO, ArchivoTitulos.Tipo.CADENA, "||1.0|" + FOLIO + "||");
+        archivo.guardar(OTRO_FOLIO, ArchivoTitulos.Tipo.XML, "<otro/>");
+
+        assertTrue(ubicacion.startsWith("archivo:2026-01/segmento-00001#0+"), ubicacion);
+        assertEquals(Optional.of(xml), archivo.leer(ubicacion));
+        assertEquals(Optional.of(xml), archivo.buscar(FOLIO, ArchivoTitulos.Tipo.XML));
+        assertEquals(Optional.of("||1.0|" + FOLIO + "||"), archivo.buscar(FOLIO, ArchivoTitulos.Tipo.CADENA));
+        assertEquals(Optional.empty(), archivo.buscar("IDEE-20260114999999-FFFFFFFFFFFFFFFFFFFF", ArchivoTitulos.Tipo.XML));
+
+        // Se regenera: el índice devuelve la última versión
+        archivo.guardar(FOLIO, ArchivoTitulos.Tipo.XML, "<regenerado/>");
+        assertEquals(Optional.of("<regenerado/>"), archivo.buscar(FOLIO, ArchivoTitulos.Tipo.XML));
+    }
+
+    @Test
+    void elSegmentoCompletoEsUnGzipLegible() throws Exception {
+        archivo.guardar(FOLIO, ArchivoTitulos.Tipo.XML, "<uno/>");
+        archivo.guardar(OTRO_FOLIO, ArchivoTitulos.Tipo.XML, "<dos/>");
+
+        Path segmento = directorio.resolve("archivo/2026-01/segmento-00001.gz");
+        try (InputStream entrada = new GZIPInputStream(Files.newInputStream(segmento))) {
+            assertEquals("<uno/><dos/>", new String(entrada.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(2, Files.readAllLines(directorio.resolve("archivo/2026-01/segmento-00001.idx")).size());
+    }
+
+    @Test
+    void rotaElSegmentoAlLlegarAlTope() throws Exception {
+        ReflectionTestUtils.setField(archivo, "segmentoMaxMb", 0L);
+
+        String primera = archivo.guardar(FOLIO, ArchivoTitulos.Tipo.XML, "<uno/>");
+        String segunda = archivo.guardar(OTRO_FOLIO, ArchivoTitulos.Tipo.XML, "<dos/>");
+
+        assertTrue(primera.contains("/segmento-00001#"), primera);
+        assertTrue(segunda.contains("/segmento-00002#"), segunda);
+        assertEquals(Optional.of("<uno/>"), archivo.buscar(FOLIO, ArchivoTitulos.Tipo.XML));
+        assertEquals(Optional.of("<dos/>"), archivo.buscar(OTRO_FOLIO, ArchivoTitulos.Tipo.XML));
+    }
+
+    @Test
+    void migraLosArchivosSueltos() throws Exception {
+        Path xml = directorio.resolve("titulo_ABCD000000000000001A_20260114_090343_IDEE_20260114090343_7E3F80F7035B4C8683ED.xml");
+        Path cadena = directorio.resolve("cadena_original_IDEE_20260114090343_7E3F80F7035B4C8683ED.txt");
+        Path ajeno = directorio.resolve("notas.txt");
+        Files.writeString(xml, "<suelto/>");
+        Files.writeString(cadena, "||suelta||");
+        Files.writeString(ajeno, "no se toca");
+        when(tituloRepository.actualizarXmlPath(anyString(), anyList())).thenReturn(1);
+
+        ArchivoTitulos.Migracion migracion = archivo.migrarSueltos();
+
+        assertEquals(2, migracion.archivos());
+        assertEquals(1, migracion.titulosActualizados());
+        assertFalse(Files.exists(xml) || Files.exists(cadena));
+        assertTrue(Files.exists(ajeno));
+        assertEquals(Optional.of("<suelto/>"), archivo.buscar(FOLIO, ArchivoTitulos.Tipo.XML));
+        assertEquals(Optional.of("||suelta||"), archivo.buscar(FOLIO, ArchivoTitulos.Tipo.CADENA));
+        // El xmlPath del título pasa de la ruta suelta a la ubicación en el archivo
+        ArgumentCaptor<String> ubicacion = ArgumentCaptor.forClass(String.class);
+        verify(tituloRepository).actualizarXmlPath(ubicacion.capture(), anyList());
+        assertEquals(Optional.of("<suelto/>"), archivo.leer(ubicacion.getValue()));
+    }
+}
@@ -0,0 +1,151 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.model.Asignatura;
+import com.idee.controlescolar.model.ProgramaEducativo;
+import com.idee.controlescolar.model.ResponsableFirma;
+import com.idee.controlescolar.repository.AsignaturaRepository;
+import com.idee.controlescolar.repository.CatalogoVersionRepository;
+import com.idee.controlescolar.repository.ProgramaEducativoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TESTS DE VERSIONES DE CATÁLOGOS (ETag)
+ * ======================================
+ *
+ * Validan sobre H2 que el ETag de un listado cambie solo cuando se confirma
+ * un cambio en alguna tabla incluida en su JSON, y que salga de la base de datos
+ * (otra instancia del servicio emite el mismo). El listado de responder se lee en
+ * la misma transacción que el ETag y no de la caché de segundo nivel.
+ *
+ * Ejecutar con: mvn test -Dtest=CatalogoVersionServiceTest
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import({CatalogoVersionService.class, CatalogoCacheService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CatalogoVersionServiceTest {
+
+    @Autowired
+    private CatalogoVersionService versionService;
+
+    @Autowired
+    private ProgramaEducativoRepository programaRepository;
+
+    @Autowired
+    private AsignaturaRepository asignaturaRepository;
+
+    @Autowired
+    private CatalogoVersionRepository catalogoVersionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        asignaturaRepository.deleteAll();
+        programaRepository.deleteAll();
+    }
+
+    @Test
+    public void etagEstableSinCambios() {
+        assertEquals(versionService.etag(ProgramaEducativo.class), versionService.etag(ProgramaEducativo.class));
+        assertNotEquals(versionService.etag(Asignatura.class, 1L), versionService.etag(Asignatura.class, 2L));
+    }
+
+    @Test
+    public void otraInstanciaEmiteElMismoEtag() {
+        programaRepository.save(nuevoPrograma());
+        CatalogoVersionService otraInstancia =
+                new CatalogoVersionService(entityManagerFactory, catalogoVersionRepository);
+
+        assertEquals(versionService.etag(ProgramaEducativo.class), otraInstancia.etag(ProgramaEducativo.class));
+    }
+
+    @Test
+    public void cambioEnTablaIncluidaCambiaEtagDelRaiz() {
+        ProgramaEducativo programa = programaRepository.save(nuevoPrograma());
+        String etagPrograma = versionService.etag(ProgramaEducativo.class);
+        String etagResponsables = versionService.etag(ResponsableFirma.class);
+        String etagAsignaturas = versionService.etag(Asignatura.class, programa.getId());
+
+        Asignatura asignatura = new Asignatura();
+        asignatura.setClave("MAT-1");
+        asignatura.setNombre("Matemáticas");
+        asignatura.setPrograma(programa);
+        asignaturaRepository.save(asignatura);
+
+        assertEquals(etagPrograma, versionService.etag(ProgramaEducativo.class));
+        assertEquals(etagResponsables, versionService.etag(ResponsableFirma.class));
+        assertNotEquals(etagAsignaturas, versionService.etag(Asignatura.class, programa.getId()));
+
+        programa.setNombre("Licenciatura renombrada");
+        programaRepository.save(programa);
+
+        assertNotEquals(etagPrograma, versionService.etag(ProgramaEducativo.class));
+    }
+
+    @Test
+    public void rollbackNoCambiaEtag() {
+        String etag = versionService.etag(ProgramaEducativo.class);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            programaRepository.saveAndFlush(nuevoPrograma());
+            estado.setRollbackOnly();
+        });
+
+        assertEquals(etag, versionService.etag(ProgramaEducativo.class));
+    }
+
+    @Test
+    public void responderLeeEtagYListadoEnUnaTransaccionSinCache() {
+        ProgramaEducativo programa = programaRepository.save(nuevoPrograma());
+        programaRepository.findAll();
+        // Otra instancia renombra el programa: la caché de esta sigue con el nombre anterior
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            jdbcTemplate.update("UPDATE programas_educativos SET nombre = 'Renombrado' WHERE id = ?", programa.getId());
+            jdbcTemplate.update("UPDATE catalogo_versiones SET version = version + 1 WHERE tabla = 'programas_educativos'");
+        });
+        assertEquals("Licenciatura de prueba", programaRepository.findAll().get(0).getNombre());
+
+        List<ProgramaEducativo> listado = versionService.responder(ProgramaEducativo.class, null, etag -> {
+            assertTrue(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+            assertEquals(versionService.etag(ProgramaEducativo.class), etag);
+            return programaRepository.findListado();
+        });
+
+        assertEquals("Renombrado", listado.get(0).getNombre());
+    }
+
+    private ProgramaEducativo nuevoPrograma() {
+        ProgramaEducativo programa = new ProgramaEducativo();
+        programa.setClave("LIC-ETAG");
+        programa.setNombre("Licenciatura de prueba");
+        programa.setTipoPrograma(ProgramaEducativo.TipoPrograma.LICENCIATURA);
+        return programa;
+    }
+}
@@ -0,0 +1,283 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.dto.ConflictoHorarioDTO;
+import com.idee.controlescolar.model.HorarioBloque;
+import com.idee.controlescolar.model.HorarioBloque.DiaSemana;
+import com.idee.controlescolar.model.Maestro;
+import com.idee.controlescolar.repository.HorarioBloqueRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * TESTS DEL DETECTOR DE TRASLAPES DE HORARIO
+ * ==========================================
+ *
+ * Validan que el índice por maestro, aula y grupo rechace traslapes,
+ * permita bloques contiguos, que la validación masiva encuentre
+ * los mismos conflictos que una comparación por fuerza bruta y que un
+ * traslape rechazado por la BD (otro nodo) se reporte como conflicto. Un lote
+ * (horario generado) se valida contra la BD y entre sí, y no se guarda a medias; si
+ * reemplaza al horario activo, el rechazo de la BD también se reporta como conflicto.
+ *
+ * Ejecutar con: mvn test -Dtest=ConflictoHorarioServiceTest
+ */
+public class ConflictoHorarioServiceTest {
+
+    private static final String PERIODO = "2025-2";
+
+    private HorarioBloqueRepository repository;
+    private ConflictoHorarioService service;
+    private final AtomicLong secuencia = new AtomicLong();
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(HorarioBloqueRepository.class);
+        when(repository.findIntervalosActivosPorPeriodo(anyString())).thenReturn(new ArrayList<>());
+        when(repository.save(any(HorarioBloque.class))).thenAnswer(inv -> {
+            HorarioBloque b = inv.getArgument(0);
+            if (b.getId() == null) {
+                b.setId(secuencia.incrementAndGet());
+            }
+            return b;
+        });
+        when(repository.saveAll(anyList())).thenAnswer(inv -> {
+            List<HorarioBloque> bloques = inv.getArgument(0);
+            bloques.forEach(b -> b.setId(b.getId() != null ? b.getId() : secuencia.incrementAndGet()));
+            return bloques;
+        });
+        service = new ConflictoHorarioService(repository, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    @Test
+    public void rechazaMaestroDobleReservado() {
+        service.guardar(bloque(1L, "Aula 1", "3A", DiaSemana.LUNES, "08:00", "10:00"));
+
+        ConflictoHorarioService.ConflictoHorarioException e = assertThrows(
+                ConflictoHorarioService.ConflictoHorarioException.class,
+                () -> service.guardar(bloque(1L, "Aula 2", "3B", DiaSemana.LUNES, "09:00", "11:00")));
+
+        assertEquals(1, e.getConflictos().size());
+        assertEquals("MAESTRO", e.getConflictos().get(0).getTipoRecurso());
+    }
+
+    @Test
+    public void rechazaAulaDobleReservadaSinImportarMayusculas() {
+        service.guardar(bloque(1L, "Lab 1", "3A", DiaSemana.MARTES, "08:00", "10:00"));
+
+        List<ConflictoHorarioDTO> conflictos = service.detectarConflictos(
+                bloque(2L, " LAB 1 ", "3B", DiaSemana.MARTES, "09:30", "10:30"));
+
+        assertEquals(1, conflictos.size());
+        assertEquals("AULA", conflictos.get(0).getTipoRecurso());
+    }
+
+    @Test
+    public void permiteBloquesContiguosYOtrosDias() {
+        service.guardar(bloque(1L, "Aula 1", "3A", DiaSemana.LUNES, "08:00", "10:00"));
+
+        assertTrue(service.detectarConflictos(bloque(1L, "Aula 1", "3A", DiaSemana.LUNES, "10:00", "11:00")).isEmpty());
+        assertTrue(service.detectarConflictos(bloque(1L, "Aula 1", "3A", DiaSemana.MIERCOLES, "08:00", "10:00")).isEmpty());
+    }
+
+    @Test
+    public void actualizarNoChocaConsigoMismo() {
+        HorarioBloque guardado = service.guardar(bloque(1L, "Aula 1", "3A", DiaSemana.JUEVES, "08:00", "10:00"));
+
+        guardado.setHoraFin(LocalTime.parse("11:00"));
+        service.guardar(guardado);
+
+        assertFalse(service.detectarConflictos(bloque(1L, "Aula 9", "9Z", DiaSemana.JUEVES, "10:30", "12:00")).isEmpty());
+        assertTrue(service.detectarConflictos(bloque(1L, "Aula 9", "9Z", DiaSemana.JUEVES, "11:00", "12:00")).isEmpty());
+    }
+
+    @Test
+    public void bloqueCanceladoLiberaElHorario() {
+        HorarioBloque guardado = service.guardar(bloque(1L, "Aula 1", "3A", DiaSemana.VIERNES, "08:00", "10:00"));
+
+        guardado.setEstatus(HorarioBloque.EstatusHorario.CANCELADO);
+        service.guardar(guardado);
+
+        assertTrue(service.detectarConflictos(bloque(1L, "Aula 1", "3A", DiaSemana.VIERNES, "08:00", "10:00")).isEmpty());
+    }
+
+    @Test
+    public void traslapeRechazadoPorLaBdSeReportaComoConflicto() {
+        service.guardar(bloque(1L, "Aula 1", "3A", DiaSemana.LUNES, "08:00", "10:00"));
+        // Otro nodo guardó el bloque 99 después de que este índice se cargó
+        when(repository.findIntervalosActivosPorPeriodo(PERIODO)).thenReturn(List.of(
+                intervalo(99L, DiaSemana.LUNES, 11 * 60, 13 * 60, "AULA 7", "5C", 2L)));
+        when(repository.save(any(HorarioBloque.class)))
+                .thenThrow(new DataIntegrityViolationException("ex_horarios_maestro"));
+
+        ConflictoHorarioService.ConflictoHorarioException e = assertThrows(
+                ConflictoHorarioService.ConflictoHorarioException.class,
+                () -> service.guardar(bloque(2L, "Aula 2", "3B", DiaSemana.LUNES, "12:00", "14:00")));
+
+        assertEquals(99L, e.getConflictos().get(0).getBloqueConflictoId());
+        // El índice quedó recargado: el bloque 99 ya se detecta sin ir a la BD
+        assertFalse(service.detectarConflictos(bloque(2L, "Aula 3", "3D", DiaSemana.LUNES, "12:30", "13:00")).isEmpty());
+    }
+
+    @Test
+    public void invalidarRecargaElIndiceDeLaBd() {
+        service.guardar(bloque(1L, "Aula 1", "3A", DiaSemana.LUNES, "08:00", "10:00"));
+        when(repository.findIntervalosActivosPorPeriodo(PERIODO)).thenReturn(List.of(
+                intervalo(50L, DiaSemana.LUNES, 10 * 60, 11 * 60, "AULA 5", "4A", 3L)));
+
+        service.invalidarIndice(PERIODO);
+
+        assertTrue(service.detectarConflictos(bloque(1L, "Aula 1", "3A", DiaSemana.LUNES, "08:00", "10:00")).isEmpty());
+        assertFalse(service.detectarConflictos(bloque(3L, "Aula 9", "9Z", DiaSemana.LUNES, "10:30", "12:00")).isEmpty());
+    }
+
+    @Test
+    public void loteSeValidaContraLaBdYNoSeGuardaAMedias() {
+        service.guardar(bloque(1L, "Aula 1", "3A", DiaSemana.LUNES, "08:00", "09:00"));
+        // Mientras se generaba el lote, otro nodo guardó el bloque 70
+        when(repository.findIntervalosActivosPorPeriodo(PERIODO)).thenReturn(List.of(
+                intervalo(70L, DiaSemana.MARTES, 8 * 60, 9 * 60, "AULA 3", "4B", 2L)));
+
+        ConflictoHorarioService.ConflictoHorarioException e = assertThrows(
+                ConflictoHorarioService.ConflictoHorarioException.class,
+                () -> service.guardarLote(PERIODO, List.of(
+                        bloque(3L, "Aula 3", "5A", DiaSemana.LUNES, "08:00", "09:00"),
+                        bloque(3L, "Aula 3", "5A", DiaSemana.MARTES, "08:30", "09:30")), false));
+
+        assertEquals(List.of(70L), e.getConflictos().stream().map(ConflictoHorarioDTO::getBloqueConflictoId).toList());
+        verify(repository, never()).saveAll(anyList());
+        // Los bloques del lote rechazado no quedan en el índice
+        assertTrue(service.detectarConflictos(bloque(3L, "Aula 3", "5A", DiaSemana.LUNES, "08:00", "09:00")).isEmpty());
+    }
+
+    @Test
+    public void loteQueReemplazaReportaElTraslapeDeOtroNodo() {
+        HorarioBloque anterior = service.guardar(bloque(3L, "Aula 3", "5A", DiaSemana.LUNES, "08:00", "09:00"));
+        when(repository.findByPeriodo(PERIODO)).thenReturn(List.of(anterior));
+        HorarioBloqueRepository.IntervaloHorario activo =
+                intervalo(anterior.getId(), DiaSemana.LUNES, 8 * 60, 9 * 60, "AULA 3", "5A", 3L);
+        // Otro nodo guarda el bloque 80 después de que el lote recargó el índice; la BD rechaza el lote
+        when(repository.findIntervalosActivosPorPeriodo(PERIODO)).thenReturn(List.of(activo), List.of(activo,
+                intervalo(80L, DiaSemana.MARTES, 8 * 60, 9 * 60, "AULA 3", "4B", 2L)));
+        doThrow(new DataIntegrityViolationException("ex_horarios_aula")).when(repository).flush();
+
+        ConflictoHorarioService.ConflictoHorarioException e = assertThrows(
+                ConflictoHorarioService.ConflictoHorarioException.class,
+                () -> service.guardarLote(PERIODO, List.of(
+                        bloque(3L, "Aula 3", "5A", DiaSemana.LUNES, "08:00", "09:00"),
+                        bloque(3L, "Aula 3", "5A", DiaSemana.MARTES, "08:30", "09:30")), true));
+
+        // El bloque que el lote iba a cancelar no cuenta como conflicto
+        assertEquals(List.of(80L), e.getConflictos().stream().map(ConflictoHorarioDTO::getBloqueConflictoId).toList());
+    }
+
+    @Test
+    public void loteRechazaTraslapesEntreSusBloques() {
+        assertThrows(ConflictoHorarioService.ConflictoHorarioException.class,
+                () -> service.guardarLote(PERIODO, List.of(
+                        bloque(1L, "Aula 1", "3A", DiaSemana.LUNES, "08:00", "10:00"),
+                        bloque(2L, "Aula 1", "3B", DiaSemana.LUNES, "09:00", "11:00")), false));
+
+        int[] resultado = service.guardarLote(PERIODO, List.of(
+                bloque(1L, "Aula 1", "3A", DiaSemana.LUNES, "08:00", "10:00"),
+                bloque(2L, "Aula 1", "3B", DiaSemana.LUNES, "10:00", "11:00")), false);
+
+        assertArrayEquals(new int[]{2, 0}, resultado);
+        assertFalse(service.detectarConflictos(bloque(5L, "Aula 1", "9Z", DiaSemana.LUNES, "10:30", "12:00")).isEmpty());
+    }
+
+    @Test
+    public void validacionMasivaCoincideConFuerzaBruta() {
+        Random random = new Random(42);
+        List<HorarioBloqueRepository.IntervaloHorario> intervalos = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            DiaSemana dia = DiaSemana.values()[random.nextInt(6)];
+            int inicio = 7 * 60 + random.nextInt(13 * 60);
+            int fin = Math.min(inicio + 30 + random.nextInt(150), 23 * 60);
+            intervalos.add(intervalo(id, dia, inicio, fin,
+                    "Aula " + random.nextInt(60), "G" + random.nextInt(80), (long) random.nextInt(120)));
+        }
+        when(repository.findIntervalosActivosPorPeriodo(PERIODO)).thenReturn(intervalos);
+
+        List<ConflictoHorarioDTO> conflictos = service.validarPeriodo(PERIODO);
+
+        long esperados = 0;
+        for (int i = 0; i < intervalos.size(); i++) {
+            for (int j = i + 1; j < intervalos.size(); j++) {
+                HorarioBloqueRepository.IntervaloHorario a = intervalos.get(i);
+                HorarioBloqueRepository.IntervaloHorario b = intervalos.get(j);
+                if (a.getDia() != b.getDia()
+                        || !a.getHoraInicio().isBefore(b.getHoraFin())
+                        || !b.getHoraInicio().isBefore(a.getHoraFin())) {
+                    continue;
+                }
+                if (a.getMaestroId().equals(b.getMaestroId())) esperados++;
+                if (a.getAula().equals(b.getAula())) esperados++;
+                if (a.getGrupo().equals(b.getGrupo())) esperados++;
+            }
+        }
+        assertEquals(esperados, conflictos.size());
+    }
+
+    @Test
+    public void arbolMantieneTraslapesTrasEliminar() {
+        ArbolIntervalos arbol = new ArbolIntervalos();
+        for (long id = 0; id < 1000; id++) {
+            arbol.insertar(id, (int) id * 10, (int) id * 10 + 10);
+        }
+        for (long id = 0; id < 1000; id += 2) {
+            assertTrue(arbol.eliminar(id, (int) id * 10));
+        }
+        assertEquals(500, arbol.tamanio());
+        assertNull(arbol.buscarTraslape(100, 110, null));
+        assertEquals(Long.valueOf(11), arbol.buscarTraslape(105, 115, null));
+        assertEquals(List.of(11L, 13L), arbol.buscarTraslapes(105, 135, null));
+        assertNull(arbol.buscarTraslape(110, 120, 11L));
+    }
+
+    private HorarioBloque bloque(Long maestroId, String aula, String grupo, DiaSemana dia, String inicio, String fin) {
+        Maestro maestro = new Maestro();
+        maestro.setId(maestroId);
+        HorarioBloque bloque = new HorarioBloque();
+        bloque.setMaestro(maestro);
+        bloque.setAula(aula);
+        bloque.setGrupo(grupo);
+        bloque.setDia(dia);
+        bloque.setHoraInicio(LocalTime.parse(inicio));
+        bloque.setHoraFin(LocalTime.parse(fin));
+        bloque.setPeriodo(PERIODO);
+        return bloque;
+    }
+
+    private static HorarioBloqueRepository.IntervaloHorario intervalo(Long id, DiaSemana dia, int inicio, int fin,
+                                                                      String aula, String grupo, Long maestroId) {
+        return new HorarioBloqueRepository.IntervaloHorario() {
+            public Long getId() { return id; }
+            public DiaSemana getDia() { return dia; }
+            public LocalTime getHoraInicio() { return LocalTime.of(inicio / 60, inicio % 60); }
+            public LocalTime getHoraFin() { return LocalTime.of(fin / 60, fin % 60); }
+            public String getAula() { return aula; }
+            public String getGrupo() { return grupo; }
+            public Long getMaestroId() { return maestroId; }
+            public Long getAsignaturaId() { return 1L; }
+        };
+    }
+}
@@ -0,0 +1,129 @@
+package com.idee.controlescolar.service;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.idee.controlescolar.model.CorreoPendiente;
+import com.idee.controlescolar.model.CorreoPendiente.EstatusCorreo;
+import com.idee.controlescolar.repository.CorreoPendienteRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TESTS DE LA BANDEJA DE SALIDA DE CORREOS
+ * ========================================
+ *
+ * Validan contra un servidor SMTP falso (GreenMail) que los correos encolados
+ * se envíen por lotes y que, si el SMTP no responde, queden pendientes con
+ * un reintento programado.
+ *
+ * Ejecutar con: mvn test -Dtest=CorreoOutboxDispatcherTest
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.mail.host=localhost",
+        "correo.outbox.tamanio-lote=2"
+})
+@Import({EmailService.class, CorreoOutboxDispatcher.class, CorreoOutboxDispatcherTest.Config.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CorreoOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withDisabledAuthentication());
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        JavaMailSender javaMailSender() {
+            JavaMailSenderImpl sender = new JavaMailSenderImpl();
+            sender.setHost("localhost");
+            sender.setPort(ServerSetupTest.SMTP.getPort());
+            return sender;
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+            return new TransactionTemplate(transactionManager);
+        }
+    }
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private CorreoOutboxDispatcher dispatcher;
+
+    @Autowired
+    private CorreoPendienteRepository correoRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void tearDown() {
+        correoRepository.deleteAll();
+    }
+
+    @Test
+    public void enviaTodosLosPendientesPorLotes() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            emailService.encolarCorreoInscripcion("alumno" + i + "@test.mx", "Alumno " + i);
+        }
+
+        dispatcher.despachar();
+
+        MimeMessage[] recibidos = smtp.getReceivedMessages();
+        assertEquals(5, recibidos.length);
+        assertEquals("Continuar proceso de inscripcion", recibidos[0].getSubject());
+        List<CorreoPendiente> correos = correoRepository.findAll();
+        assertTrue(correos.stream().allMatch(c -> c.getEstatus() == EstatusCorreo.ENVIADO));
+        assertEquals(5.0, meterRegistry.counter("correo.outbox.enviados").count());
+        assertEquals(0.0, meterRegistry.get("correo.outbox.pendientes").gauge().value());
+    }
+
+    @Test
+    public void smtpCaidoProgramaReintento() {
+        emailService.encolarCorreoInscripcion("alumno@test.mx", "Alumno");
+        smtp.stop();
+        LocalDateTime antes = LocalDateTime.now();
+
+        dispatcher.despachar();
+
+        CorreoPendiente correo = correoRepository.findAll().get(0);
+        assertEquals(EstatusCorreo.PENDIENTE, correo.getEstatus());
+        assertEquals(1, correo.getIntentos());
+        assertNotNull(correo.getUltimoError());
+        assertTrue(correo.getSiguienteIntento().isAfter(antes.plusSeconds(20)));
+        assertEquals(1.0, meterRegistry.get("correo.outbox.pendientes").gauge().value());
+    }
+}
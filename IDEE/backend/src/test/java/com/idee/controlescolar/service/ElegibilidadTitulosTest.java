@@ -0,0 +1,164 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.model.Alumno;
+import com.idee.controlescolar.model.Asignatura;
+import com.idee.controlescolar.model.DocumentoAlumno.TipoDocumento;
+import com.idee.controlescolar.model.ProgramaEducativo;
+import com.idee.controlescolar.repository.AlumnoRepository;
+import com.idee.controlescolar.repository.AsignaturaRepository;
+import com.idee.controlescolar.repository.CalificacionRepository;
+import com.idee.controlescolar.repository.ProgramaEducativoRepository;
+import com.idee.controlescolar.repository.TituloElectronicoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * TESTS DE LA ELEGIBILIDAD PARA TÍTULO
+ * ====================================
+ *
+ * Validan que el reporte marque elegible solo al alumno que cumple todo, que cada
+ * bloqueo traiga sus pendientes (asignaturas, documentos) en orden de gravedad y que
+ * los alumnos salgan ordenados de más cerca a más lejos de titularse.
+ *
+ * Ejecutar con: mvn test -Dtest=ElegibilidadTitulosTest
+ */
+public class ElegibilidadTitulosTest {
+
+    private static final Long PROGRAMA = 1L;
+
+    private AlumnoRepository alumnoRepository;
+    private AsignaturaRepository asignaturaRepository;
+    private CalificacionRepository calificacionRepository;
+    private TituloElectronicoRepository tituloRepository;
+    private ElegibilidadTitulos elegibilidad;
+
+    private final List<AlumnoRepository.DocumentoEntregado> documentos = new ArrayList<>();
+    private final List<CalificacionRepository.AsignaturaAprobada> aprobadas = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        alumnoRepository = mock(AlumnoRepository.class);
+        asignaturaRepository = mock(AsignaturaRepository.class);
+        calificacionRepository = mock(CalificacionRepository.class);
+        tituloRepository = mock(TituloElectronicoRepository.class);
+        ProgramaEducativoRepository programaRepository = mock(ProgramaEducativoRepository.class);
+
+        ProgramaEducativo programa = new ProgramaEducativo();
+        programa.setId(PROGRAMA);
+        programa.setClave("ESP-ORTO-001");
+        programa.setTipoPrograma(ProgramaEducativo.TipoPrograma.ESPECIALIDAD);
+        when(programaRepository.findById(PROGRAMA)).thenReturn(Optional.of(programa));
+
+        Asignatura inactiva = asignatura(30L, "ORT-OLD");
+        inactiva.setEstatus(Asignatura.EstatusAsignatura.INACTIVA);
+        when(asignaturaRepository.findByProgramaId(PROGRAMA))
+                .thenReturn(List.of(asignatura(10L, "ORT-101"), asignatura(20L, "ORT-102"), inactiva));
+        when(alumnoRepository.findDocumentosEntregados(PROGRAMA, null)).thenReturn(documentos);
+        when(calificacionRepository.findAprobadasPorPrograma(PROGRAMA, null)).thenReturn(aprobadas);
+
+        elegibilidad = new ElegibilidadTitulos(alumnoRepository, asignaturaRepository, calificacionRepository,
+                programaRepository, tituloRepository);
+        ReflectionTestUtils.setField(elegibilidad, "documentosBase",
+                List.of(TipoDocumento.ACTA_NACIMIENTO, TipoDocumento.CURP));
+    }
+
+    @Test
+    void reporteConBloqueosOrdenados() {
+        // 1: cumple todo; 2: ya titulado y sin documentos; 3: activo, una materia sin confirmar y otra sin aprobar
+        List<AlumnoRepository.CandidatoTitulo> candidatos = List.of(
+                candidato(3L, "C", Alumno.EstatusMatricula.ACTIVA),
+                candidato(2L, "B", Alumno.EstatusMatricula.EGRESADO),
+                candidato(1L, "A", Alumno.EstatusMatricula.EGRESADO));
+        when(alumnoRepository.findCandidatosTitulo(PROGRAMA, null)).thenReturn(candidatos);
+        when(tituloRepository.findAlumnosConTitulo(PROGRAMA)).thenReturn(List.of(2L));
+        for (long alumno : new long[]{1L, 2L}) {
+            aprobada(alumno, 10L, true);
+            aprobada(alumno, 20L, true);
+        }
+        aprobada(3L, 10L, false);
+        for (TipoDocumento tipo : List.of(TipoDocumento.ACTA_NACIMIENTO, TipoDocumento.CURP,
+                TipoDocumento.TITULO_PROFESIONAL, TipoDocumento.CEDULA_PROFESIONAL)) {
+            entregado(1L, tipo);
+            entregado(3L, tipo);
+        }
+
+        ElegibilidadTitulos.Reporte reporte = elegibilidad.evaluar(PROGRAMA, " ");
+
+        assertEquals(3, reporte.totalAlumnos());
+        assertEquals(1, reporte.elegibles());
+        assertEquals(2, reporte.asignaturasRequeridas());
+        assertEquals(List.of(TipoDocumento.ACTA_NACIMIENTO, TipoDocumento.CURP,
+                TipoDocumento.TITULO_PROFESIONAL, TipoDocumento.CEDULA_PROFESIONAL), reporte.documentosRequeridos());
+        assertEquals(List.of(1L, 2L, 3L), reporte.alumnos().stream().map(ElegibilidadTitulos.Resultado::alumnoId).toList());
+
+        ElegibilidadTitulos.Resultado elegible = reporte.alumnos().get(0);
+        assertTrue(elegible.elegible());
+        assertEquals(List.of(), elegible.bloqueos());
+
+        ElegibilidadTitulos.Resultado titulado = reporte.alumnos().get(1);
+        assertEquals(List.of(ElegibilidadTitulos.Requisito.TITULO_EXISTENTE,
+                ElegibilidadTitulos.Requisito.DOCUMENTOS_FALTANTES), requisitos(titulado));
+        assertEquals(List.of("ACTA_NACIMIENTO", "CURP", "TITULO_PROFESIONAL", "CEDULA_PROFESIONAL"),
+                titulado.bloqueos().get(1).pendientes());
+
+        ElegibilidadTitulos.Resultado activo = reporte.alumnos().get(2);
+        assertEquals(List.of(ElegibilidadTitulos.Requisito.ESTATUS_MATRICULA,
+                ElegibilidadTitulos.Requisito.CALIFICACIONES_FALTANTES,
+                ElegibilidadTitulos.Requisito.CALIFICACIONES_SIN_CONFIRMAR), requisitos(activo));
+        assertEquals(List.of("ACTIVA"), activo.bloqueos().get(0).pendientes());
+        assertEquals(List.of("ORT-102"), activo.bloqueos().get(1).pendientes());
+        assertEquals(List.of("ORT-101"), activo.bloqueos().get(2).pendientes());
+    }
+
+    @Test
+    void programaInexistente() {
+        assertThrows(IllegalArgumentException.class, () -> elegibilidad.evaluar(99L, null));
+    }
+
+    private static List<ElegibilidadTitulos.Requisito> requisitos(ElegibilidadTitulos.Resultado resultado) {
+        return resultado.bloqueos().stream().map(ElegibilidadTitulos.Bloqueo::requisito).toList();
+    }
+
+    private static Asignatura asignatura(Long id, String clave) {
+        Asignatura asignatura = new Asignatura();
+        asignatura.setId(id);
+        asignatura.setClave(clave);
+        return asignatura;
+    }
+
+    private static AlumnoRepository.CandidatoTitulo candidato(Long id, String matricula, Alumno.EstatusMatricula estatus) {
+        AlumnoRepository.CandidatoTitulo candidato = mock(AlumnoRepository.CandidatoTitulo.class);
+        when(candidato.getId()).thenReturn(id);
+        when(candidato.getMatricula()).thenReturn(matricula);
+        when(candidato.getNombre()).thenReturn("Alumno");
+        when(candidato.getApellidoPaterno()).thenReturn(matricula);
+        when(candidato.getCurp()).thenReturn("CAMD940212HDFSSR0" + id);
+        when(candidato.getCorreoInstitucional()).thenReturn(matricula + "@idee.edu.mx");
+        when(candidato.getEstatusMatricula()).thenReturn(estatus);
+        return candidato;
+    }
+
+    private void aprobada(Long alumnoId, Long asignaturaId, boolean confirmada) {
+        CalificacionRepository.AsignaturaAprobada aprobada = mock(CalificacionRepository.AsignaturaAprobada.class);
+        when(aprobada.getAlumnoId()).thenReturn(alumnoId);
+        when(aprobada.getAsignaturaId()).thenReturn(asignaturaId);
+        when(aprobada.getConfirmada()).thenReturn(confirmada);
+        aprobadas.add(aprobada);
+    }
+
+    private void entregado(Long alumnoId, TipoDocumento tipo) {
+        AlumnoRepository.DocumentoEntregado documento = mock(AlumnoRepository.DocumentoEntregado.class);
+        when(documento.getAlumnoId()).thenReturn(alumnoId);
+        when(documento.getTipoDocumento()).thenReturn(tipo);
+        documentos.add(documento);
+    }
+}
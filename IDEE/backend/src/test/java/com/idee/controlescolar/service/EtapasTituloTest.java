@@ -0,0 +1,134 @@
+package com.idee.controlescolar.service;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import io.micrometer.tracing.otel.bridge.OtelCurrentTraceContext;
+import io.micrometer.tracing.otel.bridge.OtelTracer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TESTS DE LAS ETAPAS DE GENERACIÓN DE TÍTULOS
+ * ============================================
+ *
+ * Validan que las observaciones de EtapasTitulo produzcan spans anidados
+ * (exportados a un exportador OpenTelemetry en memoria) y que los títulos
+ * lentos queden con su desglose por etapa en TitulosLentosRegistro.
+ *
+ * Ejecutar con: mvn test -Dtest=EtapasTituloTest
+ */
+public class EtapasTituloTest {
+
+    private InMemorySpanExporter exportador;
+    private SdkTracerProvider proveedor;
+    private TitulosLentosRegistro titulosLentos;
+    private EtapasTitulo etapas;
+
+    @BeforeEach
+    public void setUp() {
+        exportador = InMemorySpanExporter.create();
+        proveedor = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(exportador))
+                .build();
+        OtelTracer tracer = new OtelTracer(proveedor.get("test"), new OtelCurrentTraceContext(), evento -> { });
+
+        titulosLentos = new TitulosLentosRegistro();
+        ReflectionTestUtils.setField(titulosLentos, "umbralMs", 20L);
+        ReflectionTestUtils.setField(titulosLentos, "capacidad", 2);
+
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig()
+                .observationHandler(new DefaultTracingObservationHandler(tracer))
+                .observationHandler(titulosLentos);
+        etapas = new EtapasTitulo(registry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        proveedor.close();
+    }
+
+    @Test
+    public void cadaEtapaEsUnSpanHijoDeSuGeneracion() throws Exception {
+        generarTitulo("FOLIO-1", 0);
+
+        Map<String, SpanData> spans = exportador.getFinishedSpanItems().stream()
+                .collect(Collectors.toMap(SpanData::getName, Function.identity()));
+
+        SpanData titulo = spans.get("generar-titulo");
+        assertNotNull(titulo);
+        assertEquals("FOLIO-1", titulo.getAttributes().get(AttributeKey.stringKey("folio")));
+        assertEquals(titulo.getSpanId(), spans.get("configuracion").getParentSpanId());
+        assertEquals(titulo.getSpanId(), spans.get("firma").getParentSpanId());
+        assertEquals(spans.get("firma").getSpanId(), spans.get("llave-privada").getParentSpanId());
+        assertEquals(spans.get("firma").getSpanId(), spans.get("sello-rsa").getParentSpanId());
+        assertEquals(titulo.getTraceId(), spans.get("sello-rsa").getTraceId());
+    }
+
+    @Test
+    public void soloLosTitulosLentosGuardanSuDesglose() throws Exception {
+        generarTitulo("RAPIDO", 0);
+        assertTrue(titulosLentos.recientes().isEmpty());
+
+        generarTitulo("LENTO", 30);
+
+        List<TitulosLentosRegistro.TituloLento> lentos = titulosLentos.recientes();
+        assertEquals(1, lentos.size());
+        TitulosLentosRegistro.TituloLento lento = lentos.get(0);
+        assertEquals("LENTO", lento.folio());
+        assertEquals("7", lento.alumnoId());
+        assertTrue(lento.totalMs() >= 30);
+        assertEquals(List.of("configuracion", "firma", "llave-privada", "sello-rsa", "guardar"),
+                lento.etapas().stream().map(TitulosLentosRegistro.Etapa::nombre).toList());
+        TitulosLentosRegistro.Etapa sello = lento.etapas().get(3);
+        assertEquals(1, sello.nivel());
+        assertTrue(sello.duracionMs() >= 30);
+    }
+
+    @Test
+    public void conservaSoloLosMasRecientesYElError() throws Exception {
+        generarTitulo("LENTO-1", 25);
+        generarTitulo("LENTO-2", 25);
+        assertThrows(IllegalStateException.class, () -> etapas.titulo(7L, () -> {
+            etapas.anotarFolio("LENTO-3");
+            return etapas.etapa("configuracion", () -> {
+                Thread.sleep(25);
+                throw new IllegalStateException("sin configuración");
+            });
+        }));
+
+        List<TitulosLentosRegistro.TituloLento> lentos = titulosLentos.recientes();
+        assertEquals(List.of("LENTO-3", "LENTO-2"),
+                lentos.stream().map(TitulosLentosRegistro.TituloLento::folio).toList());
+        assertEquals("sin configuración", lentos.get(0).error());
+    }
+
+    private void generarTitulo(String folio, long esperaSelloMs) throws Exception {
+        etapas.titulo(7L, () -> {
+            etapas.anotarFolio(folio);
+            etapas.etapa("configuracion", () -> "config");
+            etapas.etapa("firma", () -> {
+                etapas.etapa("llave-privada", () -> "llave");
+                return etapas.etapa("sello-rsa", () -> {
+                    Thread.sleep(esperaSelloMs);
+                    return "sello";
+                });
+            });
+            return etapas.etapa("guardar", () -> folio);
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.model.EstatusTitulo;
+import com.idee.controlescolar.repository.TituloElectronicoRepository;
+import com.idee.controlescolar.repository.TituloElectronicoRepository.TituloExportado;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * TESTS DE LA EXPORTACIÓN DE TÍTULOS EN ZIP
+ * =========================================
+ *
+ * Validan que el ZIP lleve el XML de cada título, tomado del archivo de títulos o de
+ * BD según dónde esté, y un manifest.csv con una fila por título, incluidos los que no
+ * tienen XML.
+ *
+ * Ejecutar con: mvn test -Dtest=ExportacionTitulosTest
+ */
+public class ExportacionTitulosTest {
+
+    private static final String ARCHIVADO = "IDEE-20260114090343-7E3F80F7035B4C8683ED";
+    private static final String EN_BD = "IDEE-20260114090559-1855A5ED0E124BAEB82E";
+    private static final String SIN_XML = "IDEE-20260115101010-00000000000000000000";
+
+    @TempDir
+    Path directorio;
+
+    private TituloElectronicoRepository tituloRepository;
+    private ArchivoTitulos archivoTitulos;
+    private ExportacionTitulos exportacion;
+
+    @BeforeEach
+    void setUp() {
+        tituloRepository = mock(TituloElectronicoRepository.class);
+        archivoTitulos = new ArchivoTitulos(tituloRepository);
+        ReflectionTestUtils.setField(archivoTitulos, "directorio", directorio.toString());
+        ReflectionTestUtils.setField(archivoTitulos, "segmentoMaxMb", 64L);
+        exportacion = new ExportacionTitulos(tituloRepository, archivoTitulos);
+    }
+
+    @Test
+    void zipConXmlYManifiesto() throws Exception {
+        String ubicacion = archivoTitulos.guardar(ARCHIVADO, ArchivoTitulos.Tipo.XML, "<archivado>Peña</archivado>");
+        List<TituloExportado> titulos = List.of(
+                titulo(1L, ARCHIVADO, ubicacion, "Ana María"),
+                titulo(2L, EN_BD, "titulos_generados/titulo_viejo.xml", "José, Jr."),
+                titulo(3L, SIN_XML, null, "Luis"));
+        when(tituloRepository.findLoteExportacion(eq(0L), eq(EstatusTitulo.FIRMADO), any(), any(), any(), any()))
+                .thenReturn(titulos);
+        when(tituloRepository.findXmlContentById(2L)).thenReturn(Optional.of("<en-bd/>"));
+        when(tituloRepository.findXmlContentById(3L)).thenReturn(Optional.empty());
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        ExportacionTitulos.Resumen resumen = exportacion.exportarZip(
+                new ExportacionTitulos.Filtro(EstatusTitulo.FIRMADO, null, null, null), salida);
+
+        assertEquals(3, resumen.titulos());
+        assertEquals(1, resumen.sinXml());
+        Map<String, String> entradas = leerZip(salida.toByteArray());
+        assertEquals(List.of(ARCHIVADO + ".xml", EN_BD + ".xml", "manifest.csv"), List.copyOf(entradas.keySet()));
+        assertEquals("<archivado>Peña</archivado>", entradas.get(ARCHIVADO + ".xml"));
+        assertEquals("<en-bd/>", entradas.get(EN_BD + ".xml"));
+
+        String[] filas = entradas.get("manifest.csv").split("\n");
+        assertEquals(4, filas.length);
+        assertTrue(filas[0].startsWith("folio_control,archivo,bytes,sha256"));
+        assertTrue(filas[1].startsWith(ARCHIVADO + "," + ARCHIVADO + ".xml,"
+                + "<archivado>Peña</archivado>".getBytes(StandardCharsets.UTF_8).length + ","), filas[1]);
+        assertTrue(filas[2].contains(",\"José, Jr. Pérez López\","), filas[2]);
+        assertTrue(filas[3].startsWith(SIN_XML + ",,0,,FIRMADO,"), filas[3]);
+    }
+
+    @Test
+    void csvEscapaComasYComillas() {
+        assertEquals("simple", ExportacionTitulos.csv("simple"));
+        assertEquals("\"a,b\"", ExportacionTitulos.csv("a,b"));
+        assertEquals("\"di \"\"hola\"\"\"", ExportacionTitulos.csv("di \"hola\""));
+        assertEquals("", ExportacionTitulos.csv(null));
+    }
+
+    private static Map<String, String> leerZip(byte[] zip) throws Exception {
+        Map<String, String> entradas = new LinkedHashMap<>();
+        try (ZipInputStream entrada = new ZipInputStream(new ByteArrayInputStream(zip), StandardCharsets.UTF_8)) {
+            ZipEntry actual;
+            while ((actual = entrada.getNextEntry()) != null) {
+                entradas.put(actual.getName(), new String(entrada.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entradas;
+    }
+
+    private static TituloExportado titulo(Long id, String folio, String xmlPath, String nombre) {
+        TituloExportado titulo = mock(TituloExportado.class);
+        when(titulo.getId()).thenReturn(id);
+        when(titulo.getFolioControl()).thenReturn(folio);
+        when(titulo.getXmlPath()).thenReturn(xmlPath);
+        when(titulo.getEstatus()).thenReturn(EstatusTitulo.FIRMADO);
+        when(titulo.getFechaExpedicion()).thenReturn(LocalDate.of(2026, 1, 14));
+        when(titulo.getMatricula()).thenReturn("ABCD000000000000000" + id);
+        when(titulo.getCurp()).thenReturn("CURP00000000000" + id);
+        when(titulo.getNombre()).thenReturn(nombre);
+        when(titulo.getApellidoPaterno()).thenReturn("Pérez");
+        when(titulo.getApellidoMaterno()).thenReturn("López");
+        when(titulo.getPrograma()).thenReturn("ODO");
+        return titulo;
+    }
+}
@@ -0,0 +1,103 @@
+package com.idee.controlescolar.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TESTS DEL ALMACENAMIENTO DE ARCHIVOS SUBIDOS
+ * ============================================
+ *
+ * Validan que la copia por canales guarde cada archivo en blobs/ por su SHA-256,
+ * reutilice el archivo cuando se sube el mismo contenido, corte los archivos que
+ * pasan del tope y no deje temporales.
+ *
+ * Ejecutar con: mvn test -Dtest=FileStorageServiceTest
+ */
+public class FileStorageServiceTest {
+
+    @TempDir
+    Path uploads;
+
+    private FileStorageService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new FileStorageService();
+        ReflectionTestUtils.setField(service, "uploadDir", uploads.toString());
+        ReflectionTestUtils.setField(service, "maxBytes", 200_000L);
+    }
+
+    @Test
+    void guardaPorHashYReutilizaContenidoIgual() throws Exception {
+        byte[] contenido = new byte[150_000];
+        for (int i = 0; i < contenido.length; i++) {
+            contenido[i] = (byte) (i * 31);
+        }
+        String esperado = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contenido));
+
+        FileStorageService.ArchivoGuardado primera = service.guardar(
+                new MockMultipartFile("foto", "Foto Perfil.JPG", "image/jpeg", contenido));
+        FileStorageService.ArchivoGuardado segunda = service.guardar(
+                new MockMultipartFile("documentos", "otra.jpg", "image/jpeg", contenido));
+
+        Path blob = uploads.resolve("blobs").resolve(esperado.substring(0, 2))
+                .resolve(esperado.substring(2, 4)).resolve(esperado + ".jpg");
+        assertEquals(blob, primera.ruta());
+        assertEquals(primera.ruta(), segunda.ruta());
+        assertFalse(primera.duplicado());
+        assertTrue(segunda.duplicado());
+        assertArrayEquals(contenido, Files.readAllBytes(blob));
+        assertEquals(List.of(blob), archivos(blob.getParent()));
+    }
+
+    @Test
+    void contenidoDistintoGeneraOtroArchivo() throws Exception {
+        FileStorageService.ArchivoGuardado a = service.guardar(
+                new MockMultipartFile("a", "cv.pdf", "application/pdf", "uno".getBytes(StandardCharsets.UTF_8)));
+        FileStorageService.ArchivoGuardado b = service.guardar(
+                new MockMultipartFile("a", "cv.pdf", "application/pdf", "dos".getBytes(StandardCharsets.UTF_8)));
+
+        assertNotEquals(a.ruta(), b.ruta());
+        assertFalse(b.duplicado());
+        assertEquals(3, b.bytes());
+    }
+
+    @Test
+    void rechazaArchivoMayorAlTopeSinDejarTemporales() throws Exception {
+        MockMultipartFile grande = new MockMultipartFile("doc", "acta.pdf", "application/pdf", new byte[200_001]);
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> service.guardar(grande));
+
+        assertTrue(error.getMessage().contains("acta.pdf"));
+        assertEquals(List.of(uploads.resolve("blobs/.tmp")), archivos(uploads.resolve("blobs")));
+        assertTrue(archivos(uploads.resolve("blobs/.tmp")).isEmpty());
+    }
+
+    @Test
+    void leerLimitadoRechazaCertificadoGrande() throws Exception {
+        MockMultipartFile cer = new MockMultipartFile("cer", "csd.cer", null, new byte[1024]);
+
+        assertEquals(1024, service.leerLimitado(cer, 1024).length);
+        assertThrows(IllegalArgumentException.class, () -> service.leerLimitado(cer, 1023));
+    }
+
+    private static List<Path> archivos(Path directorio) throws Exception {
+        try (Stream<Path> contenido = Files.list(directorio)) {
+            return contenido.toList();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.idee.controlescolar.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * TESTS DEL GENERADOR DE FOLIOS
+ * =============================
+ *
+ * Validan que los folios salgan en orden dentro de cada bloque, que solo se vaya a BD
+ * una vez por bloque, que varios hilos no repitan folio y que el dígito verificador
+ * detecte un folio mal capturado.
+ *
+ * Ejecutar con: mvn test -Dtest=FolioServiceTest
+ */
+public class FolioServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private AtomicLong secuencia;
+    private FolioService folioService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        // Igual que folios_titulos_seq: START WITH 1 INCREMENT BY BLOQUE
+        secuencia = new AtomicLong(1 - FolioService.BLOQUE);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class)))
+                .thenAnswer(invocacion -> secuencia.addAndGet(FolioService.BLOQUE));
+        folioService = new FolioService(jdbcTemplate);
+    }
+
+    @Test
+    void reservaUnBloquePorCadaBloqueDeFolios() {
+        List<Long> numeros = new ArrayList<>();
+        for (int i = 0; i < FolioService.BLOQUE * 2 + 1; i++) {
+            numeros.add(folioService.siguienteNumero());
+        }
+
+        for (int i = 0; i < numeros.size(); i++) {
+            assertEquals(i + 1, numeros.get(i));
+        }
+        verify(jdbcTemplate, times(3)).queryForObject(anyString(), eq(Long.class));
+    }
+
+    @Test
+    void formatoYDigitoVerificador() {
+        String folio = folioService.siguienteFolio();
+
+        assertTrue(folio.matches("IDEE-\\d{14}-0000000001-\\d"), folio);
+        assertTrue(FolioService.esValido(folio));
+        // Ejemplo de referencia de Luhn: 7992739871 -> 3
+        assertEquals(3, FolioService.digitoVerificador("7992739871"));
+
+        // Un dígito cambiado o dos dígitos adyacentes transpuestos
+        String verificador = folio.substring(31);
+        assertFalse(FolioService.esValido(folio.substring(0, 20) + "0000000007-" + verificador));
+        assertFalse(FolioService.esValido(folio.substring(0, 20) + "0000000010-" + verificador));
+        // Los folios anteriores no son verificables
+        assertFalse(FolioService.esValido("IDEE-20260114090343-7E3F80F7035B4C8683ED"));
+    }
+
+    @Test
+    void variosHilosNoRepitenFolio() throws Exception {
+        int hilos = 8;
+        int porHilo = 1000;
+        Set<Long> numeros = ConcurrentHashMap.newKeySet();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                tareas.add(ejecutor.submit(() -> {
+                    for (int i = 0; i < porHilo; i++) {
+                        assertTrue(numeros.add(folioService.siguienteNumero()));
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+
+        assertEquals(hilos * porHilo, numeros.size());
+        // Ningún bloque se reservó de más: los números son exactamente 1..N
+        assertEquals(hilos * porHilo, numeros.stream().mapToLong(Long::longValue).max().orElse(0));
+        verify(jdbcTemplate, times(hilos * porHilo / FolioService.BLOQUE)).queryForObject(anyString(), eq(Long.class));
+    }
+}
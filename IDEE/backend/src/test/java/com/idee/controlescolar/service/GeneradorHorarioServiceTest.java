@@ -0,0 +1,169 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.dto.GeneracionHorarioEstadoDTO;
+import com.idee.controlescolar.dto.GeneracionHorarioEstadoDTO.EstatusGeneracion;
+import com.idee.controlescolar.dto.GeneracionHorarioRequest;
+import com.idee.controlescolar.model.Asignatura;
+import com.idee.controlescolar.model.Grupo;
+import com.idee.controlescolar.model.HorarioBloque;
+import com.idee.controlescolar.model.HorarioBloque.DiaSemana;
+import com.idee.controlescolar.model.Maestro;
+import com.idee.controlescolar.repository.GrupoRepository;
+import com.idee.controlescolar.repository.HorarioBloqueRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * TESTS DEL SERVICIO DE GENERACIÓN DE HORARIOS
+ * ============================================
+ *
+ * Validan que el horario generado se guarde a través del detector de traslapes:
+ * si mientras se resolvía se guardó un bloque que choca con la solución, el lote
+ * se rechaza y el problema se vuelve a resolver tomando en cuenta ese bloque. Al
+ * reemplazar el horario, un rechazo de la BD por un bloque de otro nodo también se
+ * reintenta.
+ *
+ * Ejecutar con: mvn test -Dtest=GeneradorHorarioServiceTest
+ */
+public class GeneradorHorarioServiceTest {
+
+    private static final String PERIODO = "2025-2";
+
+    private HorarioBloqueRepository horarioRepository;
+    private GeneradorHorarioService service;
+
+    @BeforeEach
+    public void setUp() {
+        GrupoRepository grupoRepository = mock(GrupoRepository.class);
+        horarioRepository = mock(HorarioBloqueRepository.class);
+        when(grupoRepository.findByPeriodoAndEstatus(PERIODO, Grupo.EstatusGrupo.ACTIVO)).thenReturn(List.of(grupo()));
+        when(horarioRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<HorarioBloque> bloques = inv.getArgument(0);
+            bloques.forEach(b -> b.setId(100L));
+            return bloques;
+        });
+        ConflictoHorarioService conflictos = new ConflictoHorarioService(horarioRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        service = new GeneradorHorarioService(grupoRepository, horarioRepository, conflictos);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.detener();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void bloqueGuardadoDuranteLaBusquedaObligaAResolverDeNuevo() throws Exception {
+        // 1: al armar el problema el periodo está vacío. 2: al guardar, alguien ocupó al maestro
+        // toda la jornada. 3 y 4: ese bloque se acortó a 08:00-09:00.
+        when(horarioRepository.findIntervalosActivosPorPeriodo(PERIODO)).thenReturn(
+                List.of(),
+                List.of(intervalo("08:00", "10:00")),
+                List.of(intervalo("08:00", "09:00")));
+
+        GeneracionHorarioEstadoDTO estado = esperar(service.iniciar(solicitud()).getTrabajoId());
+
+        assertEquals(EstatusGeneracion.COMPLETADO, estado.getEstatus(), estado.getMensaje());
+        assertEquals(1, estado.getBloquesGuardados());
+        verify(horarioRepository, times(4)).findIntervalosActivosPorPeriodo(PERIODO);
+        ArgumentCaptor<List<HorarioBloque>> guardados = ArgumentCaptor.forClass(List.class);
+        verify(horarioRepository, times(1)).saveAll(guardados.capture());
+        HorarioBloque bloque = guardados.getValue().get(0);
+        assertEquals(LocalTime.of(9, 0), bloque.getHoraInicio());
+        assertEquals(LocalTime.of(10, 0), bloque.getHoraFin());
+    }
+
+    @Test
+    public void reemplazoRechazadoPorLaBdSeReintenta() throws Exception {
+        HorarioBloque deOtroNodo = new HorarioBloque();
+        deOtroNodo.setId(50L);
+        deOtroNodo.setPeriodo(PERIODO);
+        deOtroNodo.setEstatus(HorarioBloque.EstatusHorario.ACTIVO);
+        // Otro nodo guarda el bloque 50 entre la recarga del índice y el flush del primer lote
+        when(horarioRepository.findIntervalosActivosPorPeriodo(PERIODO)).thenReturn(
+                List.of(),
+                List.of(intervalo("08:00", "10:00")));
+        when(horarioRepository.findByPeriodo(PERIODO)).thenReturn(List.of(), List.of(deOtroNodo));
+        doThrow(new DataIntegrityViolationException("ex_horarios_maestro")).doNothing()
+                .when(horarioRepository).flush();
+        GeneracionHorarioRequest request = solicitud();
+        request.setReemplazarExistentes(true);
+
+        GeneracionHorarioEstadoDTO estado = esperar(service.iniciar(request).getTrabajoId());
+
+        assertEquals(EstatusGeneracion.COMPLETADO, estado.getEstatus(), estado.getMensaje());
+        assertEquals(1, estado.getBloquesGuardados());
+        assertEquals(1, estado.getBloquesCancelados());
+        assertEquals(HorarioBloque.EstatusHorario.CANCELADO, deOtroNodo.getEstatus());
+    }
+
+    private GeneracionHorarioEstadoDTO esperar(String trabajoId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            GeneracionHorarioEstadoDTO estado = service.obtenerEstado(trabajoId).orElseThrow();
+            if (estado.getFechaFin() != null) {
+                return estado;
+            }
+            Thread.sleep(100);
+        }
+        fail("La generación no terminó");
+        return null;
+    }
+
+    private static GeneracionHorarioRequest solicitud() {
+        GeneracionHorarioRequest request = new GeneracionHorarioRequest();
+        request.setPeriodo(PERIODO);
+        request.setDias(List.of(DiaSemana.LUNES));
+        request.setHoraInicio(LocalTime.of(8, 0));
+        request.setHoraFin(LocalTime.of(10, 0));
+        request.setAulas(List.of("Aula 1"));
+        request.setPresupuestoSegundos(1);
+        request.setHilos(1);
+        request.setSemilla(7L);
+        return request;
+    }
+
+    private static Grupo grupo() {
+        Maestro maestro = new Maestro();
+        maestro.setId(1L);
+        Asignatura asignatura = new Asignatura();
+        asignatura.setId(10L);
+        asignatura.setNombre("Ortodoncia I");
+        asignatura.setHorasAula(1);
+        Grupo grupo = new Grupo();
+        grupo.setId(20L);
+        grupo.setNombre("3A");
+        grupo.setMaestro(maestro);
+        grupo.setAsignatura(asignatura);
+        return grupo;
+    }
+
+    private static HorarioBloqueRepository.IntervaloHorario intervalo(String inicio, String fin) {
+        return new HorarioBloqueRepository.IntervaloHorario() {
+            public Long getId() { return 50L; }
+            public DiaSemana getDia() { return DiaSemana.LUNES; }
+            public LocalTime getHoraInicio() { return LocalTime.parse(inicio); }
+            public LocalTime getHoraFin() { return LocalTime.parse(fin); }
+            public String getAula() { return "Lab 9"; }
+            public String getGrupo() { return "9Z"; }
+            public Long getMaestroId() { return 1L; }
+            public Long getAsignaturaId() { return 11L; }
+        };
+    }
+}
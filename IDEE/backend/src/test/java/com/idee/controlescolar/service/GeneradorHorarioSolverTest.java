@@ -0,0 +1,115 @@
+package com.idee.controlescolar.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TESTS DEL GENERADOR DE HORARIOS
+ * ===============================
+ *
+ * Validan que la búsqueda tabú en paralelo encuentre un horario sin
+ * conflictos de maestro, aula ni grupo, y que respete la indisponibilidad
+ * declarada de los maestros.
+ *
+ * Ejecutar con: mvn test -Dtest=GeneradorHorarioSolverTest
+ */
+public class GeneradorHorarioSolverTest {
+
+    private static final int DIAS = 5;
+    private static final int SLOTS_POR_DIA = 8;
+    private static final int GRUPOS = 10;
+    private static final int CURSOS_POR_GRUPO = 5;
+    private static final int HORAS_POR_CURSO = 4;
+    private static final int MAESTROS = 10;
+    private static final int AULAS = 6;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void encuentraHorarioSinConflictos() throws Exception {
+        GeneradorHorarioSolver.Problema problema = crearProblema(new int[MAESTROS][DIAS * SLOTS_POR_DIA]);
+
+        GeneradorHorarioSolver.Solucion solucion = GeneradorHorarioSolver.resolver(problema, executor, 2, 3_000, 7L);
+
+        assertEquals(0, solucion.conflictosDuros);
+        assertEquals(0, contarConflictos(problema, solucion));
+    }
+
+    @Test
+    public void respetaIndisponibilidadDelMaestro() throws Exception {
+        int[][] fijoMaestro = new int[MAESTROS][DIAS * SLOTS_POR_DIA];
+        for (int s = 0; s < SLOTS_POR_DIA; s++) {
+            fijoMaestro[0][s] = 1; // el maestro 0 no trabaja el primer día
+        }
+        GeneradorHorarioSolver.Problema problema = crearProblema(fijoMaestro);
+
+        GeneradorHorarioSolver.Solucion solucion = GeneradorHorarioSolver.resolver(problema, executor, 2, 3_000, 11L);
+
+        assertEquals(0, solucion.conflictosDuros);
+        for (int l = 0; l < problema.numLecciones(); l++) {
+            if (problema.leccionMaestro[l] == 0) {
+                assertNotEquals(0, solucion.slot[l] / SLOTS_POR_DIA);
+            }
+        }
+    }
+
+    private GeneradorHorarioSolver.Problema crearProblema(int[][] fijoMaestro) {
+        int cursos = GRUPOS * CURSOS_POR_GRUPO;
+        int lecciones = cursos * HORAS_POR_CURSO;
+        int[] leccionMaestro = new int[lecciones];
+        int[] leccionGrupo = new int[lecciones];
+        int[] leccionCurso = new int[lecciones];
+        int l = 0;
+        for (int c = 0; c < cursos; c++) {
+            for (int h = 0; h < HORAS_POR_CURSO; h++) {
+                leccionCurso[l] = c;
+                leccionGrupo[l] = c / CURSOS_POR_GRUPO;
+                leccionMaestro[l] = c % MAESTROS;
+                l++;
+            }
+        }
+        int[] turnoGrupo = new int[GRUPOS];
+        for (int g = 0; g < GRUPOS; g++) {
+            turnoGrupo[g] = g % 2 == 0 ? GeneradorHorarioSolver.TURNO_MATUTINO : GeneradorHorarioSolver.TURNO_MIXTO;
+        }
+        int slots = DIAS * SLOTS_POR_DIA;
+        return new GeneradorHorarioSolver.Problema(DIAS, SLOTS_POR_DIA, AULAS, MAESTROS, GRUPOS, cursos,
+                SLOTS_POR_DIA / 2, 6, leccionMaestro, leccionGrupo, leccionCurso, turnoGrupo,
+                fijoMaestro, new int[AULAS][slots], new int[GRUPOS][slots]);
+    }
+
+    /**
+     * Recuenta los conflictos directamente, sin usar el estado incremental del solver.
+     */
+    private int contarConflictos(GeneradorHorarioSolver.Problema p, GeneradorHorarioSolver.Solucion s) {
+        int conflictos = 0;
+        for (int i = 0; i < p.numLecciones(); i++) {
+            for (int j = i + 1; j < p.numLecciones(); j++) {
+                if (s.slot[i] != s.slot[j]) {
+                    continue;
+                }
+                if (p.leccionMaestro[i] == p.leccionMaestro[j]) conflictos++;
+                if (p.leccionGrupo[i] == p.leccionGrupo[j]) conflictos++;
+                if (s.aula[i] == s.aula[j]) conflictos++;
+            }
+            if (p.fijoMaestro[p.leccionMaestro[i]][s.slot[i]] > 0) conflictos++;
+        }
+        return conflictos;
+    }
+}
@@ -0,0 +1,134 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.model.EstatusTitulo;
+import com.idee.controlescolar.repository.TituloElectronicoRepository;
+import com.idee.controlescolar.repository.TituloElectronicoRepository.TituloListado;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * TESTS DEL LISTADO DE TÍTULOS
+ * ============================
+ *
+ * Validan la paginación del servicio: que pida un título de más para saber si hay
+ * página siguiente, que el cursor lleve fecha de creación e id del último título y
+ * se lea de vuelta, que el tamaño se acote y que se rechacen rangos de fechas
+ * invertidos y cursores mal formados sin consultar la BD.
+ *
+ * Ejecutar con: mvn test -Dtest=ListadoTitulosTest
+ */
+public class ListadoTitulosTest {
+
+    private static final LocalDateTime CREACION = LocalDateTime.of(2026, 3, 2, 10, 15, 30, 123456000);
+
+    private TituloElectronicoRepository tituloRepository;
+    private TituloElectronicoService service;
+
+    @BeforeEach
+    void setUp() {
+        tituloRepository = mock(TituloElectronicoRepository.class);
+        // El listado solo usa el repositorio de títulos
+        service = new TituloElectronicoService(tituloRepository, null, null, null, null, null,
+                null, null, null, null, null, null, null, null);
+    }
+
+    @Test
+    void paginaLlenaDevuelveCursorDelUltimo() {
+        List<TituloListado> tres = titulos(3);
+        when(tituloRepository.findPaginaListado(isNull(), isNull(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(tres);
+        when(tituloRepository.countListado(EstatusTitulo.GENERADO, null, null, null, null)).thenReturn(7L);
+
+        TituloElectronicoService.PaginaTitulos pagina = service.listarTitulos(filtro(null, null), null, 2);
+
+        ArgumentCaptor<Pageable> pedida = ArgumentCaptor.forClass(Pageable.class);
+        verify(tituloRepository).findPaginaListado(isNull(), isNull(), any(), any(), any(), any(), any(),
+                pedida.capture());
+        assertEquals(3, pedida.getValue().getPageSize());
+        assertEquals(tres.subList(0, 2), pagina.titulos());
+        assertEquals("2026-03-02T10:15:30.123456_99", pagina.siguienteCursor());
+        assertEquals(7, pagina.total());
+    }
+
+    @Test
+    void ultimaPaginaNoTraeCursor() {
+        List<TituloListado> dos = titulos(2);
+        when(tituloRepository.findPaginaListado(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(dos);
+
+        TituloElectronicoService.PaginaTitulos pagina = service.listarTitulos(filtro(null, null), null, 2);
+
+        assertEquals(dos, pagina.titulos());
+        assertNull(pagina.siguienteCursor());
+    }
+
+    @Test
+    void cursorSeLeeComoFechaEId() {
+        when(tituloRepository.findPaginaListado(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of());
+
+        service.listarTitulos(filtro(null, null), "2026-03-02T10:15:30.123456_99", 10);
+
+        verify(tituloRepository).findPaginaListado(eq(CREACION), eq(99L), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void tamanoSeAcotaAlMaximo() {
+        when(tituloRepository.findPaginaListado(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of());
+
+        service.listarTitulos(filtro(null, null), null, 10_000);
+        service.listarTitulos(filtro(null, null), null, 0);
+
+        ArgumentCaptor<Pageable> pedidas = ArgumentCaptor.forClass(Pageable.class);
+        verify(tituloRepository, times(2)).findPaginaListado(any(), any(), any(), any(),
+                any(), any(), any(), pedidas.capture());
+        assertEquals(TituloElectronicoService.TAMANO_MAXIMO_PAGINA + 1, pedidas.getAllValues().get(0).getPageSize());
+        assertEquals(2, pedidas.getAllValues().get(1).getPageSize());
+    }
+
+    @Test
+    void rangoInvertidoYCursorInvalidoSeRechazan() {
+        assertThrows(IllegalArgumentException.class, () -> service.listarTitulos(
+                filtro(LocalDate.of(2026, 6, 30), LocalDate.of(2026, 1, 1)), null, 50));
+        assertThrows(IllegalArgumentException.class, () -> service.listarTitulos(filtro(null, null), "120", 50));
+        assertThrows(IllegalArgumentException.class, () -> service.listarTitulos(
+                filtro(null, null), "2026-03-02_abc", 50));
+        verifyNoInteractions(tituloRepository);
+    }
+
+    private static TituloElectronicoService.FiltroListado filtro(LocalDate desde, LocalDate hasta) {
+        return new TituloElectronicoService.FiltroListado(EstatusTitulo.GENERADO, null, desde, hasta, null);
+    }
+
+    /**
+     * Títulos con ids 100, 99, 98... todos creados en el mismo instante.
+     */
+    private static List<TituloListado> titulos(int n) {
+        List<TituloListado> titulos = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            TituloListado titulo = mock(TituloListado.class);
+            when(titulo.getId()).thenReturn(100L - i);
+            when(titulo.getFechaCreacion()).thenReturn(CREACION);
+            titulos.add(titulo);
+        }
+        return titulos;
+    }
+}
@@ -0,0 +1,184 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.repository.AlumnoRepository;
+import com.idee.controlescolar.repository.MaestroRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * TESTS DEL RECOLECTOR DE ARCHIVOS
+ * ================================
+ *
+ * Validan que solo se borren los archivos sin referencias en BD que pasaron la
+ * gracia, que un blob compartido cuente todas sus referencias, que las variantes
+ * sigan a su foto, que un blob reutilizado durante el recorrido no se borre y que
+ * con una BD sin referencias no se borre nada.
+ *
+ * Ejecutar con: mvn test -Dtest=RecolectorArchivosTest
+ */
+public class RecolectorArchivosTest {
+
+    @TempDir
+    Path uploads;
+
+    private FileStorageService storage;
+    private AlumnoRepository alumnoRepository;
+    private MaestroRepository maestroRepository;
+    private VariantesFotoService variantes;
+    private RecolectorArchivos recolector;
+
+    @BeforeEach
+    void setUp() {
+        storage = new FileStorageService();
+        ReflectionTestUtils.setField(storage, "uploadDir", uploads.toString());
+        ReflectionTestUtils.setField(storage, "maxBytes", 1_000_000L);
+        alumnoRepository = mock(AlumnoRepository.class);
+        maestroRepository = mock(MaestroRepository.class);
+        variantes = new VariantesFotoService(storage, 1, 10);
+        recolector = new RecolectorArchivos(storage, variantes, alumnoRepository, maestroRepository,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(recolector, "graciaMinutos", 60L);
+    }
+
+    @Test
+    void borraSoloLosViejosSinReferencias() throws Exception {
+        Path foto = guardar("foto.png", "foto");
+        Path acta = guardar("acta.pdf", "acta");
+        Path antecedente = guardar("cv.pdf", "cv");
+        Path huerfano = guardar("vieja.png", "version anterior");
+        Path reciente = guardar("nueva.png", "subida sin confirmar");
+        Path legado = Files.createDirectories(uploads.resolve("alumnos/3")).resolve("foto_1768708547680_mural.jpg");
+        Files.writeString(legado, "legado");
+        envejecer(foto, acta, antecedente, huerfano, legado);
+
+        // La misma acta en dos alumnos: un blob, dos referencias
+        when(alumnoRepository.findFotoUrls()).thenReturn(List.of(foto.toString()));
+        when(alumnoRepository.findArchivoUrlsDocumentos()).thenReturn(List.of(acta.toString(), acta.toString()));
+        when(maestroRepository.findRutasDocumentos()).thenReturn(List.of(antecedente.toString()));
+
+        RecolectorArchivos.Resultado resultado = recolector.recolectar();
+
+        assertEquals(6, resultado.archivos());
+        assertEquals(3, resultado.enUso());
+        assertEquals(4, resultado.referencias());
+        assertEquals(2, resultado.eliminados());
+        assertEquals("version anterior".length() + "legado".length(), resultado.bytesLiberados());
+        assertTrue(Files.exists(foto) && Files.exists(acta) && Files.exists(antecedente) && Files.exists(reciente));
+        assertFalse(Files.exists(huerfano));
+        assertFalse(Files.exists(legado));
+    }
+
+    @Test
+    void conservaLasVariantesDeFotosEnUso() throws Exception {
+        Path foto = guardarImagen("foto.png", Color.BLUE);
+        Path anterior = guardarImagen("anterior.png", Color.RED);
+        Path miniatura = variantes.obtener(foto, VariantesFotoService.Tamano.THUMB).orElseThrow();
+        Path miniaturaAnterior = variantes.obtener(anterior, VariantesFotoService.Tamano.THUMB).orElseThrow();
+        envejecer(foto, anterior, miniatura, miniaturaAnterior);
+        when(alumnoRepository.findFotoUrls()).thenReturn(List.of(foto.toString()));
+        when(alumnoRepository.findArchivoUrlsDocumentos()).thenReturn(List.of());
+        when(maestroRepository.findRutasDocumentos()).thenReturn(List.of());
+
+        RecolectorArchivos.Resultado resultado = recolector.recolectar();
+
+        assertEquals(1, resultado.referencias());
+        assertEquals(2, resultado.eliminados());
+        assertTrue(Files.exists(foto) && Files.exists(miniatura));
+        assertFalse(Files.exists(anterior) || Files.exists(miniaturaAnterior));
+    }
+
+    @Test
+    void reutilizarUnBlobRenuevaSuGracia() throws Exception {
+        Path viejo = guardar("acta.pdf", "acta");
+        envejecer(viejo);
+        when(alumnoRepository.findFotoUrls()).thenReturn(List.of(guardar("foto.png", "foto").toString()));
+        when(alumnoRepository.findArchivoUrlsDocumentos()).thenReturn(List.of());
+        when(maestroRepository.findRutasDocumentos()).thenReturn(List.of());
+
+        // Se vuelve a subir antes de que la transacción que lo referencia confirme
+        assertEquals(viejo, guardar("acta.pdf", "acta"));
+
+        assertEquals(0, recolector.recolectar().eliminados());
+        assertTrue(Files.exists(viejo));
+    }
+
+    @Test
+    void blobReutilizadoDuranteElRecorridoNoSeBorra() throws Exception {
+        Path viejo = guardar("acta.pdf", "acta");
+        envejecer(viejo);
+        Instant limite = Instant.now().minus(Duration.ofMinutes(60));
+        Path papelera = uploads.toAbsolutePath().resolve("blobs").resolve(RecolectorArchivos.PAPELERA);
+
+        // El recorrido ya leyó la fecha vieja cuando una subida reutiliza el blob
+        assertEquals(viejo, guardar("acta.pdf", "acta"));
+
+        assertFalse(RecolectorArchivos.eliminar(viejo, limite, papelera));
+        assertEquals("acta", Files.readString(viejo));
+        try (var apartados = Files.list(papelera)) {
+            assertEquals(0, apartados.count());
+        }
+
+        envejecer(viejo);
+        assertTrue(RecolectorArchivos.eliminar(viejo, limite, papelera));
+        assertFalse(Files.exists(viejo));
+    }
+
+    @Test
+    void sinReferenciasEnBdNoBorraNada() throws Exception {
+        Path foto = guardar("foto.png", "foto");
+        envejecer(foto);
+        when(alumnoRepository.findFotoUrls()).thenReturn(List.of());
+        when(alumnoRepository.findArchivoUrlsDocumentos()).thenReturn(List.of());
+        when(maestroRepository.findRutasDocumentos()).thenReturn(List.of());
+
+        RecolectorArchivos.Resultado resultado = recolector.recolectar();
+
+        assertEquals(1, resultado.archivos());
+        assertEquals(0, resultado.eliminados());
+        assertTrue(Files.exists(foto));
+    }
+
+    private Path guardar(String nombre, String contenido) throws Exception {
+        return storage.guardar(new MockMultipartFile("archivo", nombre, null,
+                contenido.getBytes(StandardCharsets.UTF_8))).ruta();
+    }
+
+    private Path guardarImagen(String nombre, Color color) throws Exception {
+        BufferedImage imagen = new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = imagen.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, 40, 30);
+        g.dispose();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(imagen, "png", png);
+        return storage.guardar(new MockMultipartFile("foto", nombre, "image/png", png.toByteArray())).ruta();
+    }
+
+    private static void envejecer(Path... archivos) throws Exception {
+        FileTime ayer = FileTime.from(Instant.now().minus(Duration.ofDays(1)));
+        for (Path archivo : archivos) {
+            Files.setLastModifiedTime(archivo, ayer);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.idee.controlescolar.service;
+
+import com.idee.controlescolar.model.ConfiguracionCertificados;
+import com.idee.controlescolar.model.ConfiguracionInstitucional;
+import com.idee.controlescolar.model.ResponsableFirma;
+import com.idee.controlescolar.repository.ConfiguracionCertificadosRepository;
+import com.idee.controlescolar.repository.ConfiguracionInstitucionalRepository;
+import com.idee.controlescolar.repository.ResponsableFirmaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * TESTS DEL REGISTRO DE CERTIFICADOS
+ * ==================================
+ *
+ * Validan que cada .cer se decodifique una sola vez, que la llave institucional se
+ * descifre y el par .cer/.key se valide una sola vez (leyendo los binarios de BD solo esa
+ * vez y solo con binarios que tengan las huellas de la configuración, releyendo de la
+ * primaria los binarios o la configuración atrasados), y que la revisión de vigencias
+ * marque por vencer y bloqueados según los días configurados y detenga la generación de
+ * títulos con un certificado bloqueado.
+ *
+ * Ejecutar con: mvn test -Dtest=RegistroCertificadosTest
+ */
+public class RegistroCertificadosTest {
+
+    private static KeyPair llaves;
+
+    private ConfiguracionInstitucionalRepository configuracionRepository;
+    private ConfiguracionCertificadosRepository certificadosRepository;
+    private ResponsableFirmaRepository responsableRepository;
+    private FirmaDigitalService firmaDigitalService;
+    private CatalogoCacheService catalogoCacheService;
+    private RegistroCertificados registro;
+
+    @BeforeAll
+    static void generarLlaves() throws Exception {
+        KeyPairGenerator generador = KeyPairGenerator.getInstance("RSA");
+        generador.initialize(1024);
+        llaves = generador.generateKeyPair();
+    }
+
+    @BeforeEach
+    void setUp() {
+        configuracionRepository = mock(ConfiguracionInstitucionalRepository.class);
+        certificadosRepository = mock(ConfiguracionCertificadosRepository.class);
+        responsableRepository = mock(ResponsableFirmaRepository.class);
+        firmaDigitalService = mock(FirmaDigitalService.class);
+        catalogoCacheService = mock(CatalogoCacheService.class);
+        registro = new RegistroCertificados(configuracionRepository, certificadosRepository, responsableRepository,
+                firmaDigitalService, catalogoCacheService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(registro, "diasAviso", 30L);
+        ReflectionTestUtils.setField(registro, "diasBloqueo", 1L);
+    }
+
+    @Test
+    void cadaCertificadoSeLeeUnaVez() throws Exception {
+        byte[] cer = certificado(255, Duration.ofDays(-10), Duration.ofDays(365));
+
+        RegistroCertificados.Certificado primero = registro.certificado(cer);
+        RegistroCertificados.Certificado segundo = registro.certificado(Base64.getEncoder().encodeToString(cer));
+
+        assertSame(primero, segundo);
+        assertEquals("000000000000000000FF", primero.numeroSerie());
+        assertTrue(primero.titular().contains("CN=Prueba 255"));
+        assertThrows(IllegalArgumentException.class, () -> registro.certificado(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    void llaveYParInstitucionalesSeLeenUnaVez() throws Exception {
+        byte[] cer = certificado(7, Duration.ofDays(-10), Duration.ofDays(365));
+        byte[] key = {4, 5, 6};
+        ConfiguracionInstitucional configuracion = institucional(cer, key, "clave");
+        when(certificadosRepository.findById(1L))
+                .thenReturn(Optional.of(new ConfiguracionCertificados(1L, cer, key, null)));
+        when(firmaDigitalService.validarParCertificadoLlaveDesdeBytes(cer, key, "clave")).thenReturn(true);
+        when(firmaDigitalService.cargarLlavePrivadaDesdeBytes(key, "clave")).thenReturn(llaves.getPrivate());
+
+        PrivateKey llave = registro.llavePrivada(configuracion);
+        assertSame(llave, registro.llavePrivada(configuracion));
+        assertTrue(registro.parValido(configuracion));
+        assertTrue(registro.parValido(configuracion));
+        assertSame(registro.certificadoInstitucional(configuracion), registro.certificadoInstitucional(configuracion));
+        assertArrayEquals(cer, registro.certificadoInstitucional(configuracion).der());
+
+        verify(firmaDigitalService, times(1)).cargarLlavePrivadaDesdeBytes(key, "clave");
+        verify(firmaDigitalService, times(1)).validarParCertificadoLlaveDesdeBytes(cer, key, "clave");
+        // Una lectura de binarios para la llave, otra para el par y otra para el certificado
+        verify(certificadosRepository, times(3)).findById(1L);
+
+        // Otra contraseña es otra validación
+        configuracion.setPasswordLlavePrivada("otra");
+        assertFalse(registro.parValido(configuracion));
+    }
+
+    @Test
+    void llaveViejaDeLaReplicaSeReleeDeLaPrimaria() throws Exception {
+        byte[] cer = certificado(8, Duration.ofDays(-10), Duration.ofDays(365));
+        byte[] keyVieja = {1, 1, 1};
+        byte[] key = {4, 5, 6};
+        ConfiguracionInstitucional configuracion = institucional(cer, key, "clave");
+        when(certificadosRepository.findById(1L))
+                .thenReturn(Optional.of(new ConfiguracionCertificados(1L, cer, keyVieja, null)));
+        when(certificadosRepository.findEnPrimariaById(1L))
+                .thenReturn(Optional.of(new ConfiguracionCertificados(1L, cer, key, null)));
+        when(firmaDigitalService.cargarLlavePrivadaDesdeBytes(key, "clave")).thenReturn(llaves.getPrivate());
+        when(firmaDigitalService.validarParCertificadoLlaveDesdeBytes(cer, key, "clave")).thenReturn(true);
+
+        assertSame(llaves.getPrivate(), registro.llavePrivada(configuracion));
+        assertTrue(registro.parValido(configuracion));
+
+        verify(firmaDigitalService, never()).cargarLlavePrivadaDesdeBytes(keyVieja, "clave");
+        verify(firmaDigitalService, never()).validarParCertificadoLlaveDesdeBytes(cer, keyVieja, "clave");
+    }
+
+    @Test
+    void archivosQueNoCoincidenNoSeGuardan() throws Exception {
+        byte[] cer = certificado(9, Duration.ofDays(-10), Duration.ofDays(365));
+        byte[] keyVieja = {1, 1, 1};
+        byte[] key = {4, 5, 6};
+        ConfiguracionInstitucional configuracion = institucional(cer, key, "clave");
+        ConfiguracionCertificados viejos = new ConfiguracionCertificados(1L, cer, keyVieja, null);
+        ConfiguracionCertificados nuevos = new ConfiguracionCertificados(1L, cer, key, null);
+        when(certificadosRepository.findById(1L)).thenReturn(Optional.of(viejos));
+        when(certificadosRepository.findEnPrimariaById(1L)).thenReturn(Optional.of(viejos));
+        when(firmaDigitalService.cargarLlavePrivadaDesdeBytes(key, "clave")).thenReturn(llaves.getPrivate());
+
+        assertThrows(IllegalStateException.class, () -> registro.llavePrivada(configuracion));
+        assertThrows(IllegalStateException.class, () -> registro.parValido(configuracion));
+        verify(firmaDigitalService, never()).cargarLlavePrivadaDesdeBytes(keyVieja, "clave");
+
+        // Cuando la BD ya tiene los archivos de la configuración se cargan sin arrastrar nada del intento fallido
+        when(certificadosRepository.findById(1L)).thenReturn(Optional.of(nuevos));
+        assertSame(llaves.getPrivate(), registro.llavePrivada(configuracion));
+    }
+
+    @Test
+    void configuracionEnCacheConCertificadosAnterioresSeReleeDeLaPrimaria() throws Exception {
+        byte[] cer = certificado(10, Duration.ofDays(-10), Duration.ofDays(365));
+        byte[] keyVieja = {1, 1, 1};
+        byte[] key = {4, 5, 6};
+        // Esta instancia aún tiene en caché la configuración anterior; otra ya cargó el .key nuevo
+        ConfiguracionInstitucional enCache = institucional(cer, keyVieja, "vieja");
+        ConfiguracionInstitucional enPrimaria = institucional(cer, key, "nueva");
+        ConfiguracionCertificados nuevos = new ConfiguracionCertificados(1L, cer, key, null);
+        when(certificadosRepository.findById(1L)).thenReturn(Optional.of(nuevos));
+        when(certificadosRepository.findEnPrimariaById(1L)).thenReturn(Optional.of(nuevos));
+        when(configuracionRepository.findEnPrimariaById(1L)).thenReturn(Optional.of(enPrimaria));
+        when(firmaDigitalService.cargarLlavePrivadaDesdeBytes(key, "nueva")).thenReturn(llaves.getPrivate());
+        when(firmaDigitalService.validarParCertificadoLlaveDesdeBytes(cer, key, "nueva")).thenReturn(true);
+
+        assertSame(llaves.getPrivate(), registro.llavePrivada(enCache));
+        assertSame(llaves.getPrivate(), registro.llavePrivada(enCache));
+        assertTrue(registro.parValido(enCache));
+
+        verify(firmaDigitalService, times(1)).cargarLlavePrivadaDesdeBytes(key, "nueva");
+        verify(firmaDigitalService, never()).cargarLlavePrivadaDesdeBytes(key, "vieja");
+        verify(catalogoCacheService, times(3)).evictarConfiguracion();
+        // Con la configuración ya releída no hace falta ir a BD
+        assertSame(llaves.getPrivate(), registro.llavePrivada(enPrimaria));
+        assertTrue(registro.parValido(enPrimaria));
+        verify(configuracionRepository, times(3)).findEnPrimariaById(1L);
+    }
+
+    @Test
+    void revisionMarcaPorVencerYBloqueaGeneracion() throws Exception {
+        byte[] cer = certificado(1, Duration.ofDays(-10), Duration.ofDays(365));
+        ConfiguracionInstitucional configuracion = institucional(cer, new byte[]{1}, "clave");
+        when(certificadosRepository.findById(1L))
+                .thenReturn(Optional.of(new ConfiguracionCertificados(1L, cer, new byte[]{1}, null)));
+        ResponsableFirma porVencer = responsable(2L, certificado(2, Duration.ofDays(-300), Duration.ofDays(10)));
+        ResponsableFirma vencido = responsable(3L, certificado(3, Duration.ofDays(-300), Duration.ofHours(12)));
+        ResponsableFirma sinCertificado = responsable(4L, null);
+        when(configuracionRepository.findByActivoTrue()).thenReturn(Optional.of(configuracion));
+        when(responsableRepository.findByActivoTrueOrderByOrdenFirma())
+                .thenReturn(List.of(porVencer, vencido, sinCertificado));
+
+        RegistroCertificados.Monitoreo monitoreo = registro.revisar();
+
+        assertTrue(monitoreo.bloqueaTitulos());
+        assertEquals(List.of(RegistroCertificados.Estado.VIGENTE, RegistroCertificados.Estado.POR_VENCER,
+                        RegistroCertificados.Estado.BLOQUEADO),
+                monitoreo.certificados().stream().map(RegistroCertificados.Revision::estado).toList());
+        assertSame(monitoreo, registro.ultimaRevision());
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> registro.verificarParaGenerar(configuracion, List.of(porVencer, vencido)));
+        assertTrue(error.getMessage().contains("RESP000000000000003"), error.getMessage());
+        assertEquals(2, registro.verificarParaGenerar(configuracion, List.of(porVencer, sinCertificado)).size());
+    }
+
+    private static ConfiguracionInstitucional institucional(byte[] cer, byte[] key, String password) throws Exception {
+        ConfiguracionInstitucional configuracion = new ConfiguracionInstitucional();
+        configuracion.setId(1L);
+        configuracion.setCertificadoFilename("institucional.cer");
+        configuracion.setCertificadoSha256(sha256(cer));
+        configuracion.setLlavePrivadaSha256(sha256(key));
+        configuracion.setPasswordLlavePrivada(password);
+        return configuracion;
+    }
+
+    private static String sha256(byte[] datos) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(datos));
+    }
+
+    private static ResponsableFirma responsable(Long id, byte[] cer) {
+        ResponsableFirma responsable = new ResponsableFirma();
+        responsable.setId(id);
+        responsable.setCurp("RESP00000000000000" + id);
+        responsable.setCertificadoResponsable(cer == null ? null : Base64.getEncoder().encodeToString(cer));
+        return responsable;
+    }
+
+    private static byte[] certificado(long serie, Duration desde, Duration hasta) throws Exception {
+        Instant ahora = Instant.now();
+        X500Name nombre = new X500Name("CN=Prueba " + serie);
+        JcaX509v3CertificateBuilder constructor = new JcaX509v3CertificateBuilder(nombre, BigInteger.valueOf(serie),
+                Date.from(ahora.plus(desde)), Date.from(ahora.plus(hasta)), nombre, llaves.getPublic());
+        return new JcaX509CertificateConverter()
+                .getCertificate(constructor.build(new JcaContentSignerBuilder("SHA256withRSA").build(llaves.getPrivate())))
+                .getEncoded();
+    }
+}
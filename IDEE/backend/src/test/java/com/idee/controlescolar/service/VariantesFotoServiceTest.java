@@ -0,0 +1,133 @@
+package com.idee.controlescolar.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TESTS DE LAS VARIANTES DE FOTOS
+ * ===============================
+ *
+ * Validan que la miniatura salga cuadrada y la versión web con el lado mayor
+ * acotado, ambas en JPEG y mucho más ligeras que la foto original, que un archivo
+ * que no es imagen se sirva como original y que el ETag salga de la huella del contenido.
+ *
+ * Ejecutar con: mvn test -Dtest=VariantesFotoServiceTest
+ */
+public class VariantesFotoServiceTest {
+
+    @TempDir
+    Path uploads;
+
+    private FileStorageService storage;
+    private VariantesFotoService variantes;
+
+    @BeforeEach
+    void setUp() {
+        storage = new FileStorageService();
+        ReflectionTestUtils.setField(storage, "uploadDir", uploads.toString());
+        ReflectionTestUtils.setField(storage, "maxBytes", 20_000_000L);
+        variantes = new VariantesFotoService(storage, 2, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        variantes.detener();
+    }
+
+    @Test
+    void generaMiniaturaCuadradaYVersionWeb() throws Exception {
+        Path original = guardarFoto(2400, 1600);
+
+        Path miniatura = variantes.obtener(original, VariantesFotoService.Tamano.THUMB).orElseThrow();
+        Path web = variantes.obtener(original, VariantesFotoService.Tamano.WEB).orElseThrow();
+
+        BufferedImage thumb = ImageIO.read(miniatura.toFile());
+        BufferedImage media = ImageIO.read(web.toFile());
+        assertEquals(200, thumb.getWidth());
+        assertEquals(200, thumb.getHeight());
+        assertEquals(800, media.getWidth());
+        assertEquals(533, media.getHeight());
+        assertTrue(miniatura.getFileName().toString().endsWith("-thumb.jpg"));
+        assertTrue(Files.size(miniatura) * 10 < Files.size(original),
+                "miniatura de " + Files.size(miniatura) + " bytes contra " + Files.size(original));
+    }
+
+    @Test
+    void programarDejaLasVariantesListas() throws Exception {
+        Path original = guardarFoto(600, 900);
+
+        variantes.programar(original);
+
+        // obtener espera al render en curso en lugar de repetirlo
+        Path web = variantes.obtener(original, VariantesFotoService.Tamano.WEB).orElseThrow();
+        assertEquals(variantes.rutas(original).get(1), web);
+        BufferedImage media = ImageIO.read(web.toFile());
+        assertEquals(533, media.getWidth());
+        assertEquals(800, media.getHeight());
+        assertTrue(Files.exists(variantes.obtener(original, VariantesFotoService.Tamano.THUMB).orElseThrow()));
+    }
+
+    @Test
+    void archivoQueNoEsImagenSeSirveOriginal() throws Exception {
+        Path texto = storage.guardar(new MockMultipartFile("foto", "foto.png", "image/png",
+                "no soy imagen".getBytes(StandardCharsets.UTF_8))).ruta();
+
+        assertEquals(Optional.empty(), variantes.obtener(texto, VariantesFotoService.Tamano.THUMB));
+    }
+
+    @Test
+    void tamanoDesdeParametro() {
+        assertEquals(Optional.of(VariantesFotoService.Tamano.THUMB), VariantesFotoService.Tamano.desde("thumb"));
+        assertEquals(Optional.empty(), VariantesFotoService.Tamano.desde(null));
+        assertEquals(Optional.empty(), VariantesFotoService.Tamano.desde("original"));
+        assertThrows(IllegalArgumentException.class, () -> VariantesFotoService.Tamano.desde("gigante"));
+    }
+
+    @Test
+    void etagLlevaLaHuellaDelContenido() throws Exception {
+        Path original = guardarFoto(600, 400);
+        Path miniatura = variantes.obtener(original, VariantesFotoService.Tamano.THUMB).orElseThrow();
+        String huella = original.getFileName().toString().substring(0, 64);
+
+        assertEquals("\"" + huella + "-" + Files.size(original) + "\"", variantes.etag(original));
+        assertEquals("\"" + huella + "-thumb-" + Files.size(miniatura) + "\"", variantes.etag(miniatura));
+
+        // Una foto anterior a blobs/ reemplazada en la misma ruta cambia de ETag
+        Path anterior = Files.write(uploads.resolve("foto alumno.jpg"), new byte[]{1, 2, 3});
+        String etag = variantes.etag(anterior);
+        Files.write(anterior, new byte[]{4, 5, 6, 7});
+        assertNotEquals(etag, variantes.etag(anterior));
+    }
+
+    private Path guardarFoto(int ancho, int alto) throws Exception {
+        BufferedImage imagen = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = imagen.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.ORANGE, ancho, alto, Color.BLUE));
+        g.fillRect(0, 0, ancho, alto);
+        for (int i = 0; i < 400; i++) {
+            g.setColor(new Color(i * 7919 % 0xFFFFFF));
+            g.drawLine(i * 13 % ancho, 0, ancho - i * 17 % ancho, alto);
+        }
+        g.dispose();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(imagen, "png", png);
+        return storage.guardar(new MockMultipartFile("foto", "foto.png", "image/png", png.toByteArray())).ruta();
+    }
+}
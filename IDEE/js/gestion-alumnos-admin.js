@@ -59,7 +59,7 @@ function renderizarTablaAlumnosAdmin(lista) {
             .join(' ');
         const programaNombre = alumno.programa ? alumno.programa.nombre : 'Sin programa';
         const cacheKey = alumno.fechaActualizacion || alumno.fechaCreacion || Date.now();
-        const fotoUrl = alumno.fotoUrl ? `${API_URL}/alumnos/${alumno.id}/foto?v=${encodeURIComponent(cacheKey)}` : '';
+        const fotoUrl = alumno.fotoUrl ? `${API_URL}/alumnos/${alumno.id}/foto?size=thumb&v=${encodeURIComponent(cacheKey)}` : '';
 
         return `
             <tr data-alumno-id="${alumno.id}">